@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the sample data shipped in src/main/resources/corpus. Versions and GAVs come from real Maven Central metadata
+ * (plus some rebuild / snapshot variants Central doesn't carry); Maven repository paths are laid out from those. The
+ * NPM paths are synthetic, real package names with generated versions.
+ */
+public final class Corpus
+{
+
+    public static final String VERSIONS = "versions.txt";
+
+    public static final String RANGES = "ranges.txt";
+
+    public static final String GAVS = "gavs.txt";
+
+    public static final String MAVEN_PATHS = "maven-paths.txt";
+
+    public static final String NPM_PATHS = "npm-paths.txt";
+
+    private Corpus()
+    {
+    }
+
+    /**
+     * @return the non-blank lines of the named corpus file, in order.
+     */
+    public static String[] load( final String name )
+    {
+        final InputStream in = Corpus.class.getResourceAsStream( "/corpus/" + name );
+        if ( in == null )
+        {
+            throw new IllegalStateException( "Missing benchmark corpus: " + name );
+        }
+
+        final List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8 ) ))
+        {
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                line = line.trim();
+                if ( !line.isEmpty() && !line.startsWith( "#" ) )
+                {
+                    lines.add( line );
+                }
+            }
+        }
+        catch ( final IOException e )
+        {
+            throw new IllegalStateException( "Failed to read benchmark corpus: " + name, e );
+        }
+
+        return lines.toArray( new String[lines.size()] );
+    }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.atlas.maven.ident.version.VersionSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ProjectVersionRefBenchmark
+{
+
+    private String[] gavs;
+
+    private ProjectVersionRef[] refs;
+
+    // the same refs, parsed again, so equals(..) can't short-circuit on identity.
+    private ProjectVersionRef[] copies;
+
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        gavs = Corpus.load( Corpus.GAVS );
+        refs = new ProjectVersionRef[gavs.length];
+        copies = new ProjectVersionRef[gavs.length];
+        for ( int i = 0; i < gavs.length; i++ )
+        {
+            refs[i] = SimpleProjectVersionRef.parse( gavs[i] );
+            copies[i] = SimpleProjectVersionRef.parse( gavs[i] );
+        }
+    }
+
+    @Benchmark
+    public ProjectVersionRef parse()
+    {
+        return SimpleProjectVersionRef.parse( gavs[advance()] );
+    }
+
+    /**
+     * Parse, then force the (lazy) version parsing, as anything comparing or matching versions will.
+     */
+    @Benchmark
+    public VersionSpec parseWithVersionSpec()
+    {
+        return SimpleProjectVersionRef.parse( gavs[advance()] ).getVersionSpec();
+    }
+
+    @Benchmark
+    public int hashCodeOf()
+    {
+        return refs[advance()].hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsCopy()
+    {
+        final int i = advance();
+        return refs[i].equals( copies[i] );
+    }
+
+    private int advance()
+    {
+        final int i = next;
+        next = next + 1 == gavs.length ? 0 : next + 1;
+        return i;
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
+import org.commonjava.atlas.maven.ident.version.SingleVersion;
+import org.commonjava.atlas.maven.ident.version.VersionSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class RangeContainsBenchmark
+{
+
+    private VersionSpec[] ranges;
+
+    private SingleVersion[] versions;
+
+    private int nextRange;
+
+    private int nextVersion;
+
+    @Setup
+    public void setup()
+    {
+        final String[] rawRanges = Corpus.load( Corpus.RANGES );
+        ranges = new VersionSpec[rawRanges.length];
+        for ( int i = 0; i < rawRanges.length; i++ )
+        {
+            ranges[i] = VersionUtils.createFromSpec( rawRanges[i] );
+        }
+
+        final String[] rawVersions = Corpus.load( Corpus.VERSIONS );
+        versions = new SingleVersion[rawVersions.length];
+        for ( int i = 0; i < rawVersions.length; i++ )
+        {
+            versions[i] = VersionUtils.createSingleVersion( rawVersions[i] );
+        }
+    }
+
+    @Benchmark
+    public boolean contains()
+    {
+        final VersionSpec range = ranges[nextRange];
+        final SingleVersion version = versions[nextVersion];
+        nextRange = nextRange + 1 == ranges.length ? 0 : nextRange + 1;
+        nextVersion = nextVersion + 1 == versions.length ? 0 : nextVersion + 1;
+        return range.contains( version );
+    }
+
+}
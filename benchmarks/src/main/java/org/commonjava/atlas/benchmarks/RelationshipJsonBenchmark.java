@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.commonjava.atlas.maven.graph.jackson.ProjectRelationshipSerializerModule;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipConstants;
+import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleParentRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.jackson.ProjectVersionRefSerializerModule;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class RelationshipJsonBenchmark
+{
+
+    private static final URI SOURCE = URI.create( "http://repo.maven.apache.org/maven2/" );
+
+    private ObjectMapper mapper;
+
+    private ProjectRelationship<?, ?>[] relationships;
+
+    private String[] json;
+
+    private int next;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        mapper = new ObjectMapper();
+        mapper.registerModules( new ProjectVersionRefSerializerModule(), new ProjectRelationshipSerializerModule() );
+
+        final String[] gavs = Corpus.load( Corpus.GAVS );
+        relationships = new ProjectRelationship<?, ?>[gavs.length];
+        json = new String[gavs.length];
+        for ( int i = 0; i < gavs.length; i++ )
+        {
+            final ProjectVersionRef declaring = SimpleProjectVersionRef.parse( gavs[i] );
+            final ProjectVersionRef target = SimpleProjectVersionRef.parse( gavs[( i + 1 ) % gavs.length] );
+
+            // mostly dependencies, with the odd parent thrown in.
+            if ( i % 10 == 0 )
+            {
+                relationships[i] = new SimpleParentRelationship( SOURCE, declaring, target );
+            }
+            else
+            {
+                relationships[i] =
+                    new SimpleDependencyRelationship( SOURCE, RelationshipConstants.POM_ROOT_URI, declaring,
+                                                      target.asJarArtifact(), DependencyScope.compile, i % 20, false,
+                                                      false, false );
+            }
+
+            json[i] = mapper.writeValueAsString( relationships[i] );
+        }
+    }
+
+    @Benchmark
+    public String serialize()
+        throws IOException
+    {
+        return mapper.writeValueAsString( relationships[advance()] );
+    }
+
+    @Benchmark
+    public ProjectRelationship<?, ?> deserialize()
+        throws IOException
+    {
+        return mapper.readValue( json[advance()], ProjectRelationship.class );
+    }
+
+    @Benchmark
+    public ProjectRelationship<?, ?> roundTrip()
+        throws IOException
+    {
+        return mapper.readValue( mapper.writeValueAsString( relationships[advance()] ), ProjectRelationship.class );
+    }
+
+    private int advance()
+    {
+        final int i = next;
+        next = next + 1 == json.length ? 0 : next + 1;
+        return i;
+    }
+
+}
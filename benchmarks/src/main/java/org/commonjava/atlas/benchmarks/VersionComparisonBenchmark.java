@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
+import org.commonjava.atlas.maven.ident.version.SingleVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class VersionComparisonBenchmark
+{
+
+    private SingleVersion[] versions;
+
+    // the same versions, parsed again, so equals(..) can't short-circuit on identity.
+    private SingleVersion[] copies;
+
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        final String[] raw = Corpus.load( Corpus.VERSIONS );
+        versions = new SingleVersion[raw.length];
+        copies = new SingleVersion[raw.length];
+        for ( int i = 0; i < raw.length; i++ )
+        {
+            versions[i] = VersionUtils.createSingleVersion( raw[i] );
+            copies[i] = VersionUtils.createSingleVersion( raw[i] );
+        }
+    }
+
+    /**
+     * Neighbours in the corpus are mostly versions of the same project, like in a metadata listing.
+     */
+    @Benchmark
+    public int compareTo()
+    {
+        final int i = advance();
+        return versions[i].compareTo( versions[i + 1 == versions.length ? 0 : i + 1] );
+    }
+
+    @Benchmark
+    public boolean equalsCopy()
+    {
+        final int i = advance();
+        return versions[i].equals( copies[i] );
+    }
+
+    @Benchmark
+    public int hashCodeOf()
+    {
+        return versions[advance()].hashCode();
+    }
+
+    @Benchmark
+    @OutputTimeUnit( TimeUnit.MICROSECONDS )
+    public SingleVersion[] sortCorpus()
+    {
+        final SingleVersion[] sorted = Arrays.copyOf( versions, versions.length );
+        Arrays.sort( sorted );
+        return sorted;
+    }
+
+    private int advance()
+    {
+        final int i = next;
+        next = next + 1 == versions.length ? 0 : next + 1;
+        return i;
+    }
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.commonjava.atlas.maven.ident.util.VersionSpecCache;
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
+import org.commonjava.atlas.maven.ident.version.SingleVersion;
+import org.commonjava.atlas.maven.ident.version.VersionSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class VersionParsingBenchmark
+{
+
+    /**
+     * Size of the {@link VersionSpecCache} to install; 0 runs without one.
+     */
+    @Param( { "0", "100000" } )
+    public int cacheSize;
+
+    private String[] versions;
+
+    private String[] ranges;
+
+    private int nextVersion;
+
+    private int nextRange;
+
+    @Setup
+    public void setup()
+    {
+        versions = Corpus.load( Corpus.VERSIONS );
+        ranges = Corpus.load( Corpus.RANGES );
+        VersionUtils.setVersionSpecCache( cacheSize > 0 ? new VersionSpecCache( cacheSize ) : null );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        VersionUtils.setVersionSpecCache( null );
+    }
+
+    @Benchmark
+    public VersionSpec createFromSpec()
+    {
+        return VersionUtils.createFromSpec( nextVersion() );
+    }
+
+    @Benchmark
+    public SingleVersion createSingleVersion()
+    {
+        return VersionUtils.createSingleVersion( nextVersion() );
+    }
+
+    @Benchmark
+    public VersionSpec createRangeFromSpec()
+    {
+        final String range = ranges[nextRange];
+        nextRange = nextRange + 1 == ranges.length ? 0 : nextRange + 1;
+        return VersionUtils.createFromSpec( range );
+    }
+
+    private String nextVersion()
+    {
+        final String version = versions[nextVersion];
+        nextVersion = nextVersion + 1 == versions.length ? 0 : nextVersion + 1;
+        return version;
+    }
+
+}
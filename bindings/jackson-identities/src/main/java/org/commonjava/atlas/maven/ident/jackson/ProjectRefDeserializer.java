@@ -20,6 +20,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRefPool;
 
 import java.io.IOException;
 
@@ -33,16 +34,28 @@ public class ProjectRefDeserializer<T extends ProjectRef>
 
     private final Class<T> refCls;
 
+    private final transient ProjectRefPool pool;
+
     public ProjectRefDeserializer( final Class<T> refCls )
+    {
+        this( refCls, null );
+    }
+
+    /**
+     * @param pool if not null, deserialized refs are interned here (in addition to the default pool, if any).
+     */
+    public ProjectRefDeserializer( final Class<T> refCls, final ProjectRefPool pool )
     {
         super( refCls );
         this.refCls = refCls;
+        this.pool = pool;
     }
 
     @Override
     public T deserialize( final JsonParser jp, final DeserializationContext ctxt )
             throws IOException, JsonProcessingException
     {
-        return SerializerIdentityUtils.parse( jp.getText(), refCls );
+        final T ref = SerializerIdentityUtils.parse( jp.getText(), refCls, ctxt );
+        return pool == null ? ref : pool.intern( ref );
     }
 }
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.KeyDeserializer;
 import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRefPool;
 
 import java.io.IOException;
 
@@ -32,15 +33,24 @@ public class ProjectRefKeyDeserializer<T extends ProjectRef>
 
     private final Class<T> refCls;
 
+    private final transient ProjectRefPool pool;
+
     public ProjectRefKeyDeserializer( final Class<T> type )
+    {
+        this( type, null );
+    }
+
+    public ProjectRefKeyDeserializer( final Class<T> type, final ProjectRefPool pool )
     {
         this.refCls = type;
+        this.pool = pool;
     }
 
     @Override
     public Object deserializeKey( String key, DeserializationContext ctxt )
             throws IOException, JsonProcessingException
     {
-        return SerializerIdentityUtils.parse( key, refCls );
+        final T ref = SerializerIdentityUtils.parse( key, refCls, ctxt );
+        return pool == null ? ref : pool.intern( ref );
     }
 }
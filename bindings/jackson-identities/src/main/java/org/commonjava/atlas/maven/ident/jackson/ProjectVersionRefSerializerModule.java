@@ -22,6 +22,7 @@ import java.util.Set;
 
 import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRefPool;
 import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
@@ -52,16 +53,25 @@ public class ProjectVersionRefSerializerModule
     public static final ProjectVersionRefSerializerModule INSTANCE = new ProjectVersionRefSerializerModule();
 
     public ProjectVersionRefSerializerModule()
+    {
+        this( null );
+    }
+
+    /**
+     * @param pool if not null, every ref this module deserializes is interned there, so graphs read back from storage
+     * share their identity objects.
+     */
+    public ProjectVersionRefSerializerModule( final ProjectRefPool pool )
     {
         super( "ProjectRef (with variants) Serializer" );
 
         for ( Class<? extends ProjectRef> cls: REF_CLASSES )
         {
-            register( cls );
+            register( cls, pool );
         }
     }
 
-    private <T extends ProjectRef> void register( Class<T> cls )
+    private <T extends ProjectRef> void register( Class<T> cls, ProjectRefPool pool )
     {
         Logger logger = LoggerFactory.getLogger( getClass() );
         logger.debug( "Registering {} serializers/deserialers", cls.getSimpleName() );
@@ -69,8 +79,8 @@ public class ProjectVersionRefSerializerModule
         addSerializer( cls, new ProjectRefSerializer<T>( cls, false ) );
         addKeySerializer( cls, new ProjectRefSerializer<T>( cls, true ) );
 
-        addDeserializer( cls, new ProjectRefDeserializer<T>( cls ) );
-        addKeyDeserializer( cls, new ProjectRefKeyDeserializer<T>( cls ) );
+        addDeserializer( cls, new ProjectRefDeserializer<T>( cls, pool ) );
+        addKeyDeserializer( cls, new ProjectRefKeyDeserializer<T>( cls, pool ) );
     }
 
     @Override
@@ -15,67 +15,100 @@
  */
 package org.commonjava.atlas.maven.ident.jackson;
 
-import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
+import com.fasterxml.jackson.databind.DeserializationContext;
 import org.commonjava.atlas.maven.ident.ref.ProjectRef;
-import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
-import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
-import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
-import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
-import org.commonjava.atlas.maven.ident.ref.SimpleVersionlessArtifactRef;
-import org.commonjava.atlas.maven.ident.ref.VersionlessArtifactRef;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by jdcasey on 8/26/15.
  */
 public final class SerializerIdentityUtils
 {
+    /**
+     * Per-read attribute: set it to {@link Boolean#TRUE} (eg. with
+     * <code>mapper.reader().withAttribute( DEDUPLICATE_REFS, true )</code>) and every ref value and map key read by that
+     * one call is parsed only once per distinct string; repeats share the first instance. The cache goes away with the
+     * read, unlike a {@link org.commonjava.atlas.maven.ident.ref.ProjectRefPool}.
+     */
+    public static final String DEDUPLICATE_REFS = SerializerIdentityUtils.class.getName() + ".deduplicate-refs";
+
+    private static final String REF_CACHE = SerializerIdentityUtils.class.getName() + ".ref-cache";
+
     private SerializerIdentityUtils(){}
 
     public static <T extends ProjectRef> T parse( final String value, final Class<T> type )
             throws IOException
     {
-        Class<?> realType = null;
-        if ( ArtifactRef.class.isAssignableFrom( type ) )
+        return type.cast( parse( value, parser( type ) ) );
+    }
+
+    /**
+     * Same as {@link #parse(String, Class)}, but using the per-read ref cache if {@link #DEDUPLICATE_REFS} is set on
+     * the given context.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T extends ProjectRef> T parse( final String value, final Class<T> type,
+                                                  final DeserializationContext ctxt )
+            throws IOException
+    {
+        final RefParser parser = parser( type );
+        if ( ctxt == null || !Boolean.TRUE.equals( ctxt.getAttribute( DEDUPLICATE_REFS ) ) )
         {
-            realType = SimpleArtifactRef.class;
+            return type.cast( parse( value, parser ) );
         }
-        else if ( VersionlessArtifactRef.class.isAssignableFrom( type ) )
+
+        Map<RefParser, Map<String, ProjectRef>> cache =
+                (Map<RefParser, Map<String, ProjectRef>>) ctxt.getAttribute( REF_CACHE );
+        if ( cache == null )
         {
-            realType = SimpleVersionlessArtifactRef.class;
+            cache = new EnumMap<RefParser, Map<String, ProjectRef>>( RefParser.class );
+            ctxt.setAttribute( REF_CACHE, cache );
         }
-        else if ( ProjectVersionRef.class.isAssignableFrom( type ) )
+
+        Map<String, ProjectRef> refs = cache.get( parser );
+        if ( refs == null )
         {
-            realType = SimpleProjectVersionRef.class;
+            refs = new HashMap<String, ProjectRef>();
+            cache.put( parser, refs );
         }
-        else if ( ProjectRef.class.isAssignableFrom( type ) )
+
+        ProjectRef ref = refs.get( value );
+        if ( ref == null )
         {
-            realType = SimpleProjectRef.class;
+            ref = parse( value, parser );
+            refs.put( value, ref );
         }
-        else
+
+        return type.cast( ref );
+    }
+
+    private static RefParser parser( final Class<?> type )
+            throws IOException
+    {
+        final RefParser parser = RefParser.forType( type );
+        if ( parser == null )
         {
             throw new IOException( "Cannot find acceptable deserialization target class to parse: " + type.getSimpleName() );
         }
 
+        return parser;
+    }
+
+    private static ProjectRef parse( final String value, final RefParser parser )
+            throws IOException
+    {
         try
         {
-            final Method parseMethod = realType.getMethod( "parse", String.class );
-            return type.cast( parseMethod.invoke( null, value ) );
-        }
-        catch ( final NoSuchMethodException e )
-        {
-            throw new IOException( "Failed to lookup/invoke parse() method on " + type.getSimpleName(), e );
-        }
-        catch ( final IllegalAccessException e )
-        {
-            throw new IOException( "Failed to lookup/invoke parse() method on " + type.getSimpleName(), e );
+            return parser.parse( value );
         }
-        catch ( final InvocationTargetException e )
+        catch ( final RuntimeException e )
         {
-            throw new IOException( "Failed to lookup/invoke parse() method on " + type.getSimpleName(), e );
+            // as before, when parse() was called reflectively and its failures came back wrapped.
+            throw new IOException( "Failed to parse '" + value + "' (" + parser + ")", e );
         }
     }
 
@@ -16,13 +16,23 @@
 package org.commonjava.atlas.maven.ident.jackson;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRefPool;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.VersionlessArtifactRef;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -72,4 +82,58 @@ public class ProjectVersionRefSerializerModuleTest
         assertThat( result.get( pr ), equalTo( value ) );
     }
 
+    @Test
+    public void pooledModuleSharesRefs()
+        throws Exception
+    {
+        final ObjectMapper pooled = new ObjectMapper();
+        pooled.registerModule( new ProjectVersionRefSerializerModule( new ProjectRefPool() ) );
+
+        final List<ProjectVersionRef> result =
+            pooled.readValue( "[\"org.foo:bar:1.0\", \"org.foo:bar:1.0\"]", new TypeReference<List<ProjectVersionRef>>()
+            {
+            } );
+
+        assertThat( result.get( 1 ), sameInstance( result.get( 0 ) ) );
+    }
+
+    @Test
+    public void parseDispatchesOnRequestedType()
+        throws Exception
+    {
+        assertThat( SerializerIdentityUtils.parse( "org.foo:bar", ProjectRef.class ),
+                    instanceOf( SimpleProjectRef.class ) );
+        assertThat( SerializerIdentityUtils.parse( "org.foo:bar:1.0", ProjectVersionRef.class ),
+                    instanceOf( SimpleProjectVersionRef.class ) );
+        assertThat( SerializerIdentityUtils.parse( "org.foo:bar:jar", VersionlessArtifactRef.class ),
+                    instanceOf( VersionlessArtifactRef.class ) );
+        assertThat( SerializerIdentityUtils.parse( "org.foo:bar:jar:1.0", SimpleArtifactRef.class ),
+                    equalTo( (ArtifactRef) new SimpleArtifactRef( "org.foo", "bar", "1.0", "jar", null ) ) );
+    }
+
+    @Test( expected = IOException.class )
+    public void parseFailureIsIOException()
+        throws Exception
+    {
+        SerializerIdentityUtils.parse( "not-a-ref", ProjectVersionRef.class );
+    }
+
+    @Test
+    public void deduplicatedReadSharesRefs()
+        throws Exception
+    {
+        final Map<ProjectVersionRef, List<ProjectVersionRef>> result =
+            mapper.readerFor( new TypeReference<Map<ProjectVersionRef, List<ProjectVersionRef>>>()
+            {
+            } )
+                  .withAttribute( SerializerIdentityUtils.DEDUPLICATE_REFS, Boolean.TRUE )
+                  .readValue( "{\"org.foo:bar:1.0\": [\"org.foo:baz:2.0\", \"org.foo:baz:2.0\"]}" );
+
+        final ProjectVersionRef key = new SimpleProjectVersionRef( "org.foo", "bar", "1.0" );
+        final List<ProjectVersionRef> values = result.get( key );
+
+        assertThat( values.get( 0 ), equalTo( (ProjectVersionRef) new SimpleProjectVersionRef( "org.foo", "baz", "2.0" ) ) );
+        assertThat( values.get( 1 ), sameInstance( values.get( 0 ) ) );
+    }
+
 }
@@ -0,0 +1,312 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.ref;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Wildcard groupId:artifactId pattern, compiled once so it can be tested against lots of refs cheaply. Gives exactly
+ * the same answers as {@link ProjectRef#matches(ProjectRef)} on a {@link SimpleProjectRef} with the same coordinates:
+ * <ul>
+ *   <li>'*' matches any run of characters</li>
+ *   <li>'.' matches any single character (historically the pattern was handed to the regex engine as-is)</li>
+ *   <li>patterns using other regex syntax are still evaluated as regular expressions</li>
+ * </ul>
+ * The common shapes (exact, prefix, suffix, contains) never touch {@link java.util.regex}.
+ *
+ * @see ProjectRefMatcherSet
+ */
+public final class ProjectRefMatcher
+{
+
+    private static final String REGEX_META_CHARS = "\\^$|?+()[]{}";
+
+    private final ProjectRef pattern;
+
+    private final Glob groupGlob;
+
+    private final Glob artifactGlob;
+
+    public ProjectRefMatcher( final ProjectRef pattern )
+    {
+        this.pattern = pattern;
+        this.groupGlob = Glob.compile( pattern.getGroupId() );
+        this.artifactGlob = Glob.compile( pattern.getArtifactId() );
+    }
+
+    public ProjectRefMatcher( final String groupIdPattern, final String artifactIdPattern )
+    {
+        this( new SimpleProjectRef( groupIdPattern, artifactIdPattern ) );
+    }
+
+    /**
+     * @param ga pattern in the form <code>groupId:artifactId</code>, see {@link SimpleProjectRef#parse(String)}
+     */
+    public static ProjectRefMatcher parse( final String ga )
+    {
+        return new ProjectRefMatcher( SimpleProjectRef.parse( ga ) );
+    }
+
+    public ProjectRef getPattern()
+    {
+        return pattern;
+    }
+
+    public boolean matches( final ProjectRef ref )
+    {
+        final String groupId = ref.getGroupId();
+        final String artifactId = ref.getArtifactId();
+        if ( pattern.getGroupId().equals( groupId ) && pattern.getArtifactId().equals( artifactId ) )
+        {
+            return true;
+        }
+
+        return groupGlob.matches( groupId ) && artifactGlob.matches( artifactId );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ProjectRefMatcher [" + pattern + "]";
+    }
+
+    /**
+     * Whether the groupId pattern can only match values starting with {@link #getGroupIdPrefix()}, which
+     * {@link ProjectRefMatcherSet} uses to index it.
+     */
+    boolean isGroupIdIndexable()
+    {
+        return groupGlob.regex == null;
+    }
+
+    /**
+     * Literal part of the groupId pattern, up to the first '*' (or all of it). '.' still matches any character here.
+     */
+    String getGroupIdPrefix()
+    {
+        return groupGlob.segments[0];
+    }
+
+    /**
+     * One-shot equivalent of <code>new ProjectRefMatcher(..).matches(..)</code> for a single field, without compiling
+     * anything for the common case. Used by {@link SimpleProjectRef#matches(ProjectRef)}.
+     */
+    static boolean wildcardMatches( final String pattern, final String value )
+    {
+        if ( hasRegexSyntax( pattern ) || hasLineTerminator( value ) )
+        {
+            return value.matches( toRegex( pattern ) );
+        }
+
+        final int plen = pattern.length();
+        final int vlen = value.length();
+
+        // classic backtracking glob match; only the last '*' ever needs to be revisited.
+        int p = 0;
+        int v = 0;
+        int starP = -1;
+        int starV = 0;
+        while ( v < vlen )
+        {
+            final char pc = p < plen ? pattern.charAt( p ) : 0;
+            if ( p < plen && pc != '*' && charMatches( pc, value.charAt( v ) ) )
+            {
+                p++;
+                v++;
+            }
+            else if ( p < plen && pc == '*' )
+            {
+                starP = p++;
+                starV = v;
+            }
+            else if ( starP > -1 )
+            {
+                p = starP + 1;
+                v = ++starV;
+            }
+            else
+            {
+                return false;
+            }
+        }
+
+        while ( p < plen && pattern.charAt( p ) == '*' )
+        {
+            p++;
+        }
+
+        return p == plen;
+    }
+
+    // Same regex SimpleProjectRef.matches(..) has always used. NOTE: the dot "escape" never did anything.
+    static String toRegex( final String pattern )
+    {
+        return pattern.replace( "*", ".*" );
+    }
+
+    static boolean charMatches( final char patternChar, final char valueChar )
+    {
+        return patternChar == '.' || patternChar == valueChar;
+    }
+
+    private static boolean hasRegexSyntax( final String pattern )
+    {
+        for ( int i = 0; i < pattern.length(); i++ )
+        {
+            if ( REGEX_META_CHARS.indexOf( pattern.charAt( i ) ) > -1 )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // the regex '.' doesn't match these, so values containing them go through the regex engine.
+    static boolean hasLineTerminator( final String value )
+    {
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            if ( isLineTerminator( value.charAt( i ) ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static boolean isLineTerminator( final char c )
+    {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Compiled form of one field's pattern: the literal segments between '*'s, matched left to right. Each segment has
+     * a fixed length, so taking the leftmost occurrence of each one is always safe.
+     */
+    private static final class Glob
+    {
+        // never empty; segments[0] is the prefix, the last one the suffix (either may be empty).
+        private final String[] segments;
+
+        // true if there's no '*', ie. the whole value must match segments[0].
+        private final boolean exact;
+
+        // only for patterns using regex syntax.
+        private final Pattern regex;
+
+        private final String source;
+
+        private Glob( final String source, final String[] segments, final boolean exact, final Pattern regex )
+        {
+            this.source = source;
+            this.segments = segments;
+            this.exact = exact;
+            this.regex = regex;
+        }
+
+        static Glob compile( final String pattern )
+        {
+            if ( hasRegexSyntax( pattern ) )
+            {
+                return new Glob( pattern, new String[] { "" }, false, Pattern.compile( toRegex( pattern ) ) );
+            }
+
+            final List<String> segments = new ArrayList<String>();
+            int start = 0;
+            int star;
+            while ( ( star = pattern.indexOf( '*', start ) ) > -1 )
+            {
+                segments.add( pattern.substring( start, star ) );
+                start = star + 1;
+            }
+
+            segments.add( pattern.substring( start ) );
+            return new Glob( pattern, segments.toArray( new String[segments.size()] ), segments.size() == 1, null );
+        }
+
+        boolean matches( final String value )
+        {
+            if ( regex != null )
+            {
+                return regex.matcher( value ).matches();
+            }
+
+            if ( hasLineTerminator( value ) )
+            {
+                return value.matches( toRegex( source ) );
+            }
+
+            final String prefix = segments[0];
+            if ( exact )
+            {
+                return value.length() == prefix.length() && regionMatches( prefix, value, 0 );
+            }
+
+            final String suffix = segments[segments.length - 1];
+            final int end = value.length() - suffix.length();
+            if ( end < prefix.length() || !regionMatches( prefix, value, 0 ) || !regionMatches( suffix, value, end ) )
+            {
+                return false;
+            }
+
+            int pos = prefix.length();
+            for ( int i = 1; i < segments.length - 1; i++ )
+            {
+                pos = indexOf( segments[i], value, pos, end );
+                if ( pos < 0 )
+                {
+                    return false;
+                }
+
+                pos += segments[i].length();
+            }
+
+            return true;
+        }
+
+        private static boolean regionMatches( final String segment, final String value, final int offset )
+        {
+            for ( int i = 0; i < segment.length(); i++ )
+            {
+                if ( !charMatches( segment.charAt( i ), value.charAt( offset + i ) ) )
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        // leftmost occurrence of the segment fitting entirely within [from, end)
+        private static int indexOf( final String segment, final String value, final int from, final int end )
+        {
+            for ( int i = from; i + segment.length() <= end; i++ )
+            {
+                if ( regionMatches( segment, value, i ) )
+                {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.ref;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable set of wildcard groupId:artifactId patterns (same syntax as {@link ProjectRefMatcher}), for testing refs
+ * against many rules at once. Patterns are indexed in a character trie over the literal start of their groupId, so a
+ * lookup only walks the groupId once and only fully evaluates the patterns whose prefix fits.
+ */
+public final class ProjectRefMatcherSet
+{
+
+    private static final int[] NO_INDEXES = new int[0];
+
+    private final ProjectRefMatcher[] matchers;
+
+    private final Node root = new Node();
+
+    public ProjectRefMatcherSet( final Collection<? extends ProjectRef> patterns )
+    {
+        matchers = new ProjectRefMatcher[patterns.size()];
+
+        int idx = 0;
+        for ( final ProjectRef pattern : patterns )
+        {
+            final ProjectRefMatcher matcher = new ProjectRefMatcher( pattern );
+            matchers[idx] = matcher;
+
+            if ( !matcher.isGroupIdIndexable() )
+            {
+                // regex syntax; no telling what it might match.
+                root.addPrefixed( idx );
+            }
+            else
+            {
+                final String prefix = matcher.getGroupIdPrefix();
+                Node node = root;
+                for ( int i = 0; i < prefix.length(); i++ )
+                {
+                    node = node.getOrAddChild( prefix.charAt( i ) );
+                }
+
+                if ( prefix.length() == pattern.getGroupId().length() )
+                {
+                    node.addExact( idx );
+                }
+                else
+                {
+                    node.addPrefixed( idx );
+                }
+            }
+
+            idx++;
+        }
+    }
+
+    public boolean matchesAny( final ProjectRef ref )
+    {
+        return collect( root, ref.getGroupId(), 0, ref, null );
+    }
+
+    /**
+     * @return the patterns matching the given ref, in the order they were given to the constructor.
+     */
+    public List<ProjectRef> findMatches( final ProjectRef ref )
+    {
+        final boolean[] hits = new boolean[matchers.length];
+        collect( root, ref.getGroupId(), 0, ref, hits );
+
+        final List<ProjectRef> result = new ArrayList<ProjectRef>();
+        for ( int i = 0; i < hits.length; i++ )
+        {
+            if ( hits[i] )
+            {
+                result.add( matchers[i].getPattern() );
+            }
+        }
+
+        return result;
+    }
+
+    public int size()
+    {
+        return matchers.length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ProjectRefMatcherSet [size=" + matchers.length + "]";
+    }
+
+    /**
+     * Walk the trie along the groupId, checking the patterns hanging off each node we pass. Since a '.' in a pattern
+     * matches any character, the walk may branch into the '.' child as well as the literal one. Every node is reached
+     * by exactly one path, so no pattern is checked twice.
+     *
+     * @param hits if null, stop at the first match
+     * @return true if stopped at a match
+     */
+    private boolean collect( final Node node, final String groupId, final int pos, final ProjectRef ref,
+                             final boolean[] hits )
+    {
+        if ( check( node.prefixed, ref, hits ) )
+        {
+            return true;
+        }
+
+        if ( pos == groupId.length() )
+        {
+            return check( node.exact, ref, hits );
+        }
+
+        final char c = groupId.charAt( pos );
+        final Node literal = node.getChild( c );
+        if ( literal != null && collect( literal, groupId, pos + 1, ref, hits ) )
+        {
+            return true;
+        }
+
+        if ( c != '.' && !ProjectRefMatcher.isLineTerminator( c ) )
+        {
+            final Node any = node.getChild( '.' );
+            return any != null && collect( any, groupId, pos + 1, ref, hits );
+        }
+
+        return false;
+    }
+
+    private boolean check( final int[] indexes, final ProjectRef ref, final boolean[] hits )
+    {
+        for ( final int idx : indexes )
+        {
+            if ( matchers[idx].matches( ref ) )
+            {
+                if ( hits == null )
+                {
+                    return true;
+                }
+
+                hits[idx] = true;
+            }
+        }
+
+        return false;
+    }
+
+    private static final class Node
+    {
+        private char[] keys = new char[0];
+
+        private Node[] children = new Node[0];
+
+        // patterns whose groupId prefix ends here, followed by a '*'
+        private int[] prefixed = NO_INDEXES;
+
+        // patterns whose whole groupId ends here
+        private int[] exact = NO_INDEXES;
+
+        Node getChild( final char c )
+        {
+            for ( int i = 0; i < keys.length; i++ )
+            {
+                if ( keys[i] == c )
+                {
+                    return children[i];
+                }
+            }
+
+            return null;
+        }
+
+        Node getOrAddChild( final char c )
+        {
+            Node child = getChild( c );
+            if ( child == null )
+            {
+                child = new Node();
+                keys = Arrays.copyOf( keys, keys.length + 1 );
+                keys[keys.length - 1] = c;
+                children = Arrays.copyOf( children, children.length + 1 );
+                children[children.length - 1] = child;
+            }
+
+            return child;
+        }
+
+        void addPrefixed( final int idx )
+        {
+            prefixed = append( prefixed, idx );
+        }
+
+        void addExact( final int idx )
+        {
+            exact = append( exact, idx );
+        }
+
+        private static int[] append( final int[] indexes, final int idx )
+        {
+            final int[] result = Arrays.copyOf( indexes, indexes.length + 1 );
+            result[indexes.length] = idx;
+            return result;
+        }
+    }
+
+}
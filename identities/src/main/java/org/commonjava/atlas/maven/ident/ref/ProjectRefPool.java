@@ -0,0 +1,448 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.ref;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Thread-safe pool that canonicalizes {@link SimpleProjectRef}, {@link SimpleProjectVersionRef} and
+ * {@link SimpleArtifactRef} instances, along with the groupId / artifactId / version / type / classifier strings they
+ * hold. Large dependency graphs mention the same coordinates over and over, so sharing one instance per distinct ref
+ * saves a lot of heap.
+ * <p>
+ * Everything is held through weak references: once nothing else uses a ref (or string), the pool lets go of it too, so
+ * it's safe to keep one around in a long-running server.
+ * <p>
+ * Two refs are only pooled together when they would render identically, ie. "1.0" and "1.0.0" are equal as refs but
+ * are NOT interchangeable here. Other {@link ProjectRef} implementations (including subclasses) are passed through
+ * untouched.
+ * <p>
+ * This is opt-in: see {@link #setDefaultPool(ProjectRefPool)}, or set the system property {@value #ENABLED_PROP} to
+ * <code>true</code>. When a default pool is installed, the static <code>parse(..)</code> methods of the ref classes
+ * return pooled instances.
+ */
+public final class ProjectRefPool
+{
+
+    public static final String ENABLED_PROP = "atlas.ref.pool";
+
+    private static volatile ProjectRefPool defaultPool = fromSystemProperties();
+
+    private final WeakPool<String> strings = new WeakPool<String>()
+    {
+        @Override
+        boolean same( final String first, final String second )
+        {
+            return first.equals( second );
+        }
+
+        @Override
+        String canonical( final String value )
+        {
+            return value;
+        }
+    };
+
+    private final WeakPool<SimpleTypeAndClassifier> typesAndClassifiers = new WeakPool<SimpleTypeAndClassifier>()
+    {
+        @Override
+        boolean same( final SimpleTypeAndClassifier first, final SimpleTypeAndClassifier second )
+        {
+            return first.getType().equals( second.getType() )
+                && StringUtils.equals( first.getClassifier(), second.getClassifier() );
+        }
+
+        @Override
+        SimpleTypeAndClassifier canonical( final SimpleTypeAndClassifier value )
+        {
+            final String type = ProjectRefPool.this.intern( value.getType() );
+            final String classifier = ProjectRefPool.this.intern( value.getClassifier() );
+            if ( type == value.getType() && classifier == value.getClassifier() )
+            {
+                return value;
+            }
+
+            return new SimpleTypeAndClassifier( type, classifier );
+        }
+    };
+
+    private final WeakPool<SimpleProjectRef> projectRefs = new WeakPool<SimpleProjectRef>()
+    {
+        @Override
+        boolean same( final SimpleProjectRef first, final SimpleProjectRef second )
+        {
+            return sameProject( first, second );
+        }
+
+        @Override
+        SimpleProjectRef canonical( final SimpleProjectRef value )
+        {
+            final String groupId = ProjectRefPool.this.intern( value.getGroupId() );
+            final String artifactId = ProjectRefPool.this.intern( value.getArtifactId() );
+            if ( groupId == value.getGroupId() && artifactId == value.getArtifactId() )
+            {
+                return value;
+            }
+
+            return new SimpleProjectRef( groupId, artifactId );
+        }
+    };
+
+    private final WeakPool<SimpleProjectVersionRef> projectVersionRefs = new WeakPool<SimpleProjectVersionRef>()
+    {
+        @Override
+        boolean same( final SimpleProjectVersionRef first, final SimpleProjectVersionRef second )
+        {
+            return sameProjectVersion( first, second );
+        }
+
+        @Override
+        SimpleProjectVersionRef canonical( final SimpleProjectVersionRef value )
+        {
+            return canonicalProjectVersion( value );
+        }
+    };
+
+    private final WeakPool<SimpleArtifactRef> artifactRefs = new WeakPool<SimpleArtifactRef>()
+    {
+        @Override
+        boolean same( final SimpleArtifactRef first, final SimpleArtifactRef second )
+        {
+            return sameProjectVersion( first, second ) && first.getType().equals( second.getType() )
+                && StringUtils.equals( first.getClassifier(), second.getClassifier() );
+        }
+
+        @Override
+        SimpleArtifactRef canonical( final SimpleArtifactRef value )
+        {
+            final SimpleTypeAndClassifier tc =
+                typesAndClassifiers.intern( new SimpleTypeAndClassifier( value.getType(), value.getClassifier() ) );
+
+            return new SimpleArtifactRef( canonicalProjectVersion( value ), tc );
+        }
+    };
+
+    /**
+     * Create a pool if the {@value #ENABLED_PROP} system property is set to <code>true</code>, or return null.
+     */
+    static ProjectRefPool fromSystemProperties()
+    {
+        return Boolean.getBoolean( ENABLED_PROP ) ? new ProjectRefPool() : null;
+    }
+
+    /**
+     * Install (or with null, remove) the pool used by the static <code>parse(..)</code> methods of
+     * {@link SimpleProjectRef}, {@link SimpleProjectVersionRef} and {@link SimpleArtifactRef}. Disabled by default,
+     * unless {@value #ENABLED_PROP} is set.
+     */
+    public static void setDefaultPool( final ProjectRefPool pool )
+    {
+        defaultPool = pool;
+    }
+
+    public static ProjectRefPool getDefaultPool()
+    {
+        return defaultPool;
+    }
+
+    /**
+     * @return the pooled copy of the given string, or the string itself if it's the first of its kind. Null passes
+     * through.
+     */
+    public String intern( final String value )
+    {
+        return value == null ? null : strings.intern( value );
+    }
+
+    /**
+     * @return the pooled ref equivalent to the given one, which callers should use in place of the one passed in. Null
+     * and unsupported ref types pass through.
+     */
+    @SuppressWarnings( "unchecked" )
+    public <T extends ProjectRef> T intern( final T ref )
+    {
+        if ( ref == null )
+        {
+            return null;
+        }
+
+        // exact matches only; subclasses might carry state we don't know how to copy.
+        final Class<?> cls = ref.getClass();
+        if ( cls == SimpleArtifactRef.class )
+        {
+            return (T) artifactRefs.intern( (SimpleArtifactRef) ref );
+        }
+        else if ( cls == SimpleProjectVersionRef.class )
+        {
+            return (T) projectVersionRefs.intern( (SimpleProjectVersionRef) ref );
+        }
+        else if ( cls == SimpleProjectRef.class )
+        {
+            return (T) projectRefs.intern( (SimpleProjectRef) ref );
+        }
+
+        return ref;
+    }
+
+    public ProjectRef projectRef( final String groupId, final String artifactId )
+    {
+        return intern( new SimpleProjectRef( intern( groupId ), intern( artifactId ) ) );
+    }
+
+    public ProjectVersionRef projectVersionRef( final String groupId, final String artifactId, final String version )
+    {
+        return intern( new SimpleProjectVersionRef( intern( groupId ), intern( artifactId ), intern( version ) ) );
+    }
+
+    public SimpleArtifactRef artifactRef( final String groupId, final String artifactId, final String version,
+                                          final String type, final String classifier )
+    {
+        return intern( new SimpleArtifactRef( intern( groupId ), intern( artifactId ), intern( version ),
+                                              intern( type ), intern( classifier ) ) );
+    }
+
+    /**
+     * @return the number of live entries (strings and refs); entries whose referents were just collected may still be
+     * counted.
+     */
+    public int size()
+    {
+        return strings.size() + typesAndClassifiers.size() + projectRefs.size() + projectVersionRefs.size()
+            + artifactRefs.size();
+    }
+
+    public void clear()
+    {
+        strings.clear();
+        typesAndClassifiers.clear();
+        projectRefs.clear();
+        projectVersionRefs.clear();
+        artifactRefs.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "ProjectRefPool [strings=%s, projectRefs=%s, projectVersionRefs=%s, artifactRefs=%s]",
+                              strings.size(), projectRefs.size(), projectVersionRefs.size(), artifactRefs.size() );
+    }
+
+    private static boolean sameProject( final ProjectRef first, final ProjectRef second )
+    {
+        return first.getGroupId().equals( second.getGroupId() ) && first.getArtifactId().equals( second.getArtifactId() );
+    }
+
+    // NOTE: compares the rendered version, not the spec, so we never have to parse anything here.
+    private static boolean sameProjectVersion( final ProjectVersionRef first, final ProjectVersionRef second )
+    {
+        return sameProject( first, second ) && first.getVersionString().equals( second.getVersionString() );
+    }
+
+    private SimpleProjectVersionRef canonicalProjectVersion( final SimpleProjectVersionRef value )
+    {
+        return new SimpleProjectVersionRef( intern( value.getGroupId() ), intern( value.getArtifactId() ),
+                                            value.getVersionSpecRaw(), intern( value.getVersionString() ) );
+    }
+
+    /**
+     * Weak, segmented interning table with pluggable equivalence. Much like {@link java.util.WeakHashMap}, except the
+     * pooled values are their own keys and cleared entries are purged on the next write to their segment.
+     */
+    private abstract static class WeakPool<T>
+    {
+        private static final int SEGMENTS = 16;
+
+        private final Segment<T>[] segments;
+
+        @SuppressWarnings( { "rawtypes", "unchecked" } )
+        WeakPool()
+        {
+            segments = (Segment<T>[]) new Segment[SEGMENTS];
+            for ( int i = 0; i < SEGMENTS; i++ )
+            {
+                segments[i] = new Segment<T>();
+            }
+        }
+
+        /**
+         * Whether two values (with the same hash code) can be used interchangeably.
+         */
+        abstract boolean same( T first, T second );
+
+        /**
+         * The instance to store when there's no match yet, normally a copy built from pooled components.
+         */
+        abstract T canonical( T value );
+
+        T intern( final T value )
+        {
+            int h = value.hashCode();
+            h ^= h >>> 16;
+
+            // the high bits pick the segment, the low bits the bucket within it.
+            return segments[( h >>> 28 ) & ( SEGMENTS - 1 )].intern( value, h, this );
+        }
+
+        int size()
+        {
+            int size = 0;
+            for ( final Segment<T> segment : segments )
+            {
+                size += segment.size();
+            }
+
+            return size;
+        }
+
+        void clear()
+        {
+            for ( final Segment<T> segment : segments )
+            {
+                segment.clear();
+            }
+        }
+    }
+
+    private static final class Segment<T>
+    {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final ReferenceQueue<T> queue = new ReferenceQueue<T>();
+
+        private Entry<T>[] table = newTable( INITIAL_CAPACITY );
+
+        private int count;
+
+        synchronized T intern( final T value, final int hash, final WeakPool<T> pool )
+        {
+            expungeStaleEntries();
+
+            int idx = hash & ( table.length - 1 );
+            for ( Entry<T> e = table[idx]; e != null; e = e.next )
+            {
+                if ( e.hash == hash )
+                {
+                    final T existing = e.get();
+                    if ( existing != null && pool.same( existing, value ) )
+                    {
+                        return existing;
+                    }
+                }
+            }
+
+            final T canonical = pool.canonical( value );
+            if ( ++count > table.length * 3 / 4 )
+            {
+                resize();
+                idx = hash & ( table.length - 1 );
+            }
+
+            table[idx] = new Entry<T>( canonical, hash, table[idx], queue );
+            return canonical;
+        }
+
+        synchronized int size()
+        {
+            expungeStaleEntries();
+            return count;
+        }
+
+        synchronized void clear()
+        {
+            while ( queue.poll() != null )
+            {
+                // drain; the entries are going away anyway.
+            }
+
+            table = newTable( INITIAL_CAPACITY );
+            count = 0;
+        }
+
+        private void expungeStaleEntries()
+        {
+            Object stale;
+            while ( ( stale = queue.poll() ) != null )
+            {
+                @SuppressWarnings( "unchecked" )
+                final Entry<T> entry = (Entry<T>) stale;
+                final int idx = entry.hash & ( table.length - 1 );
+
+                Entry<T> prev = null;
+                for ( Entry<T> e = table[idx]; e != null; prev = e, e = e.next )
+                {
+                    if ( e == entry )
+                    {
+                        if ( prev == null )
+                        {
+                            table[idx] = e.next;
+                        }
+                        else
+                        {
+                            prev.next = e.next;
+                        }
+
+                        count--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void resize()
+        {
+            final Entry<T>[] old = table;
+            final Entry<T>[] resized = newTable( old.length * 2 );
+            for ( Entry<T> e : old )
+            {
+                while ( e != null )
+                {
+                    final Entry<T> next = e.next;
+                    final int idx = e.hash & ( resized.length - 1 );
+                    e.next = resized[idx];
+                    resized[idx] = e;
+                    e = next;
+                }
+            }
+
+            table = resized;
+        }
+
+        @SuppressWarnings( { "rawtypes", "unchecked" } )
+        private static <T> Entry<T>[] newTable( final int capacity )
+        {
+            return (Entry<T>[]) new Entry[capacity];
+        }
+    }
+
+    private static final class Entry<T>
+        extends WeakReference<T>
+    {
+        private final int hash;
+
+        private Entry<T> next;
+
+        Entry( final T value, final int hash, final Entry<T> next, final ReferenceQueue<T> queue )
+        {
+            super( value, queue );
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+}
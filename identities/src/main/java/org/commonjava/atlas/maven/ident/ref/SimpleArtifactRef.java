@@ -128,6 +128,12 @@ public class SimpleArtifactRef
 
         // assume non-optional, because it might not matter if you're parsing a string like this...you'd be more careful if you were reading something
         // that had an optional field, because it's not in the normal GATV[C] spec.
+        final ProjectRefPool pool = ProjectRefPool.getDefaultPool();
+        if ( pool != null )
+        {
+            return pool.artifactRef( g, a, v, t, c );
+        }
+
         return new SimpleArtifactRef( g, a, v, t, c );
     }
 
@@ -156,10 +162,10 @@ public class SimpleArtifactRef
     }
 
     @Override
-    public int hashCode()
+    protected int computeHashCode()
     {
         final int prime = 31;
-        int result = super.hashCode();
+        int result = super.computeHashCode();
         result = prime * result + ( ( tc == null ) ? 0 : tc.hashCode() );
         return result;
     }
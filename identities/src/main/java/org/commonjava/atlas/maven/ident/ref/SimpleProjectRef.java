@@ -34,6 +34,9 @@ public class SimpleProjectRef
     // NEVER null
     private final String artifactId;
 
+    // lazily computed; zero means not yet.
+    private transient int hash;
+
     public SimpleProjectRef( final String groupId, final String artifactId )
     {
         if ( isEmpty( groupId ) || isEmpty( artifactId ) )
@@ -61,7 +64,8 @@ public class SimpleProjectRef
                 + "')" );
         }
 
-        return new SimpleProjectRef( parts[0], parts[1] );
+        final ProjectRefPool pool = ProjectRefPool.getDefaultPool();
+        return pool == null ? new SimpleProjectRef( parts[0], parts[1] ) : pool.projectRef( parts[0], parts[1] );
     }
 
     @Override
@@ -112,8 +116,24 @@ public class SimpleProjectRef
         return String.format( "%s:%s", groupId, artifactId );
     }
 
+    /**
+     * Computed once per instance, since the identity fields can't change. Subclasses add their own fields by overriding
+     * {@link #computeHashCode()}.
+     */
     @Override
     public int hashCode()
+    {
+        int h = hash;
+        if ( h == 0 )
+        {
+            h = computeHashCode();
+            hash = h;
+        }
+
+        return h;
+    }
+
+    protected int computeHashCode()
     {
         final int prime = 31;
         int result = 1;
@@ -165,22 +185,9 @@ public class SimpleProjectRef
             return true;
         }
 
-        final String gidPattern = toWildcard( getGroupId() );
-        if ( !ref.getGroupId()
-                 .matches( gidPattern ) )
-        {
-            return false;
-        }
-
-        final String aidPattern = toWildcard( getArtifactId() );
-        return ref.getArtifactId().matches( aidPattern );
-
-    }
-
-    private String toWildcard( final String val )
-    {
-        return val.replaceAll( "\\.", "\\." )
-                  .replaceAll( "\\*", ".*" );
+        // see ProjectRefMatcher for matching the same pattern repeatedly.
+        return ProjectRefMatcher.wildcardMatches( getGroupId(), ref.getGroupId() )
+            && ProjectRefMatcher.wildcardMatches( getArtifactId(), ref.getArtifactId() );
     }
 
 }
@@ -96,6 +96,12 @@ public class SimpleProjectVersionRef
                                                + gav + "')" );
         }
 
+        final ProjectRefPool pool = ProjectRefPool.getDefaultPool();
+        if ( pool != null )
+        {
+            return pool.projectVersionRef( parts[0], parts[1], parts[2] );
+        }
+
         return new SimpleProjectVersionRef( parts[0], parts[1], parts[2] );
     }
 
@@ -217,10 +223,10 @@ public class SimpleProjectVersionRef
     }
 
     @Override
-    public int hashCode()
+    protected int computeHashCode()
     {
         final int prime = 31;
-        int result = super.hashCode();
+        int result = super.computeHashCode();
         result = prime * result + ( ( getVersionString() == null ) ? 0 : getVersionString().hashCode() );
         return result;
     }
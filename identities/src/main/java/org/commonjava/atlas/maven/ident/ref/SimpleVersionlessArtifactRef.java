@@ -132,10 +132,10 @@ public class SimpleVersionlessArtifactRef
     }
 
     @Override
-    public int hashCode()
+    protected int computeHashCode()
     {
         final int prime = 31;
-        int result = super.hashCode();
+        int result = super.computeHashCode();
         result = prime * result + ( ( tc == null ) ? 0 : tc.hashCode() );
         return result;
     }
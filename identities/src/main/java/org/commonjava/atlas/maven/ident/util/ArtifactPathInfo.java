@@ -23,6 +23,7 @@ import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
 import org.commonjava.atlas.maven.ident.version.part.SnapshotPart;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -61,6 +62,40 @@ public class ArtifactPathInfo implements PathInfo
 
     private static final Set<String> CHECKSUM_TYPES = new HashSet<>( Arrays.asList( ".md5", ".sha1", ".sha128", ".sha256", ".sha384", ".sha512" ) );
 
+    private static final Pattern ARTIFACT_PATH_PATTERN = Pattern.compile( ARTIFACT_PATH_REGEX );
+
+    private static final String SNAPSHOT_DIR_SUFFIX = "-SNAPSHOT";
+
+    private static final int SNAPSHOT_DATE_LENGTH = 8;
+
+    private static final int SNAPSHOT_TIME_LENGTH = 6;
+
+    private static volatile Set<String> compoundExtensionTypes = loadCompoundExtensionTypes();
+
+    /**
+     * Re-read the extra compound extension types from the {@value #COMPOUND_EXTENSIONS_PROP} system property. They're
+     * read once, when this class is loaded; call this after changing the property at runtime.
+     */
+    public static void reloadCompoundExtensionTypes()
+    {
+        compoundExtensionTypes = loadCompoundExtensionTypes();
+    }
+
+    private static Set<String> loadCompoundExtensionTypes()
+    {
+        final String typesFromSys = System.getProperty( COMPOUND_EXTENSIONS_PROP );
+        final Set<String> compoundedExtensions = new HashSet<>( DEFAULT_COMPOUND_EXTENSIONS_TYPES );
+        if ( StringUtils.isNotBlank( typesFromSys ) )
+        {
+            for ( final String type : typesFromSys.split( "," ) )
+            {
+                compoundedExtensions.add( type.trim() );
+            }
+        }
+
+        return Collections.unmodifiableSet( compoundedExtensions );
+    }
+
     public static ArtifactPathInfo parse( final String path )
     {
         if ( path == null || path.isEmpty() )
@@ -68,19 +103,19 @@ public class ArtifactPathInfo implements PathInfo
             return null;
         }
 
-        final Matcher matcher = Pattern.compile( ARTIFACT_PATH_REGEX )
-                                       .matcher( path.replace( '\\', '/' ) );
-        if ( !matcher.matches() )
+        final String normalized = path.replace( '\\', '/' );
+
+        // '.' in the regex doesn't match line terminators; leave those (very) odd paths to the regex itself.
+        final PathParts parts = hasLineTerminator( normalized ) ? matchPattern( normalized ) : splitPath( normalized );
+        if ( parts == null )
         {
             return null;
         }
 
-        final int groupCount = matcher.groupCount();
-        final String g = matcher.group( GROUP_ID_GROUP )
-                                .replace( '/', '.' );
-        final String a = matcher.group( ARTIFACT_ID_GROUP );
-        final String v = matcher.group( VERSION_GROUP );
-        final String f = matcher.group( FILE_GROUP );
+        final String g = parts.group.replace( '/', '.' );
+        final String a = parts.artifactId;
+        final String v = parts.version;
+        final String f = parts.file;
 
         // Validate that the filename follows standard Maven layout: {artifactId}-{version}-...
         // This prevents mis-parsing paths that match the regex pattern but don't follow Maven conventions
@@ -93,7 +128,7 @@ public class ArtifactPathInfo implements PathInfo
         String c = "";
         String t = null;
 
-        String left = matcher.group( groupCount );
+        String left = parts.classifierAndType;
 
         // If the path is a checksum path, we should abandon the checksum type and analyze its real artifact.
         String checksumType = null;
@@ -110,16 +145,7 @@ public class ArtifactPathInfo implements PathInfo
         // The classifier can contain dots or hyphens, it is hard to separate it from type. e.g,
         // wildfly8.1.3.jar, project-sources.tar.gz, etc. We don't have a very solid pattern to match the classifier.
         // Here we use the best guess.
-        final String typesFromSys = System.getProperty( COMPOUND_EXTENSIONS_PROP );
-        final Set<String> compoundedExtensions = new HashSet<>( DEFAULT_COMPOUND_EXTENSIONS_TYPES );
-        if ( StringUtils.isNotBlank( typesFromSys ) )
-        {
-            for ( final String type : typesFromSys.split( "," ) )
-            {
-                compoundedExtensions.add( type.trim() );
-            }
-        }
-        for ( String type : compoundedExtensions )
+        for ( String type : compoundExtensionTypes )
         {
             if ( left.endsWith( type ) )
             {
@@ -148,6 +174,223 @@ public class ArtifactPathInfo implements PathInfo
         return new ArtifactPathInfo( g, a, v, c, t, f, path );
     }
 
+    static PathParts matchPattern( final String path )
+    {
+        final Matcher matcher = ARTIFACT_PATH_PATTERN.matcher( path );
+        if ( !matcher.matches() )
+        {
+            return null;
+        }
+
+        return new PathParts( matcher.group( GROUP_ID_GROUP ), matcher.group( ARTIFACT_ID_GROUP ),
+                              matcher.group( VERSION_GROUP ), matcher.group( FILE_GROUP ),
+                              matcher.group( matcher.groupCount() ) );
+    }
+
+    /**
+     * Hand-rolled equivalent of {@link #ARTIFACT_PATH_REGEX}, which avoids the backtracking. It splits the last three
+     * path segments off from the right, then tries the same alternatives the regex would, in the same order.
+     * <p>
+     * NOTE: The regex can also match with a '/' in the filename, but parse(..) throws those results away, so they're
+     * simply not considered here.
+     */
+    static PathParts splitPath( final String path )
+    {
+        final int start = path.startsWith( "/" ) ? 1 : 0;
+        final int fileSep = path.lastIndexOf( '/' );
+        final int versionSep = fileSep > start ? path.lastIndexOf( '/', fileSep - 1 ) : -1;
+        final int artifactSep = versionSep > start ? path.lastIndexOf( '/', versionSep - 1 ) : -1;
+        if ( artifactSep <= start || versionSep - artifactSep < 2 || fileSep - versionSep < 2
+            || fileSep == path.length() - 1 )
+        {
+            return null;
+        }
+
+        final String group = path.substring( start, artifactSep );
+        if ( group.startsWith( "/" ) || group.endsWith( "/" ) || group.contains( "//" ) )
+        {
+            return null;
+        }
+
+        final String artifactId = path.substring( artifactSep + 1, versionSep );
+        final String versionDir = path.substring( versionSep + 1, fileSep );
+        final String file = path.substring( fileSep + 1 );
+
+        // \3-
+        if ( !file.startsWith( artifactId ) || file.length() <= artifactId.length()
+            || file.charAt( artifactId.length() ) != '-' )
+        {
+            return null;
+        }
+
+        final int versionStart = artifactId.length() + 1;
+
+        // \4: the version directory itself
+        if ( file.startsWith( versionDir, versionStart ) && file.length() > versionStart + versionDir.length() )
+        {
+            return new PathParts( group, artifactId, versionDir, file,
+                                  trimLeadingDash( file.substring( versionStart + versionDir.length() ) ) );
+        }
+
+        // \5-<timestamp>-<build>, where \5 is the version directory, then the directory minus '-SNAPSHOT'
+        int versionEnd = matchRemoteSnapshot( file, versionStart, versionDir );
+        if ( versionEnd < 0 && versionDir.length() > SNAPSHOT_DIR_SUFFIX.length()
+            && versionDir.endsWith( SNAPSHOT_DIR_SUFFIX ) )
+        {
+            versionEnd = matchRemoteSnapshot( file, versionStart, versionDir.substring( 0, versionDir.length()
+                - SNAPSHOT_DIR_SUFFIX.length() ) );
+        }
+
+        if ( versionEnd < 0 )
+        {
+            return null;
+        }
+
+        return new PathParts( group, artifactId, file.substring( versionStart, versionEnd ), file,
+                              trimLeadingDash( file.substring( versionEnd ) ) );
+    }
+
+    /**
+     * Match <code>base-([0-9]{8}.[0-9]{6})-([0-9]+)</code> at the given offset, leaving at least one character for the
+     * classifier / type.
+     *
+     * @return the end offset of the version, or -1 if it doesn't match.
+     */
+    private static int matchRemoteSnapshot( final String file, final int offset, final String base )
+    {
+        if ( !file.startsWith( base, offset ) )
+        {
+            return -1;
+        }
+
+        int i = offset + base.length();
+        if ( i >= file.length() || file.charAt( i ) != '-' )
+        {
+            return -1;
+        }
+
+        i++;
+        if ( !isDigits( file, i, SNAPSHOT_DATE_LENGTH ) || i + SNAPSHOT_DATE_LENGTH >= file.length() )
+        {
+            return -1;
+        }
+
+        // any character, as far as the regex is concerned.
+        i += SNAPSHOT_DATE_LENGTH + 1;
+        if ( !isDigits( file, i, SNAPSHOT_TIME_LENGTH ) )
+        {
+            return -1;
+        }
+
+        i += SNAPSHOT_TIME_LENGTH;
+        if ( i >= file.length() || file.charAt( i ) != '-' )
+        {
+            return -1;
+        }
+
+        final int buildStart = ++i;
+        while ( i < file.length() && isDigit( file.charAt( i ) ) )
+        {
+            i++;
+        }
+
+        if ( i == buildStart )
+        {
+            return -1;
+        }
+
+        if ( i == file.length() )
+        {
+            // the build number has to give one digit back, since (.+) can't be empty.
+            return i - buildStart > 1 ? i - 1 : -1;
+        }
+
+        return i;
+    }
+
+    // -?(.+)
+    private static String trimLeadingDash( final String left )
+    {
+        return left.length() > 1 && left.charAt( 0 ) == '-' ? left.substring( 1 ) : left;
+    }
+
+    private static boolean isDigits( final String s, final int offset, final int count )
+    {
+        if ( offset + count > s.length() )
+        {
+            return false;
+        }
+
+        for ( int i = offset; i < offset + count; i++ )
+        {
+            if ( !isDigit( s.charAt( i ) ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isDigit( final char c )
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean hasLineTerminator( final String path )
+    {
+        for ( int i = 0; i < path.length(); i++ )
+        {
+            switch ( path.charAt( i ) )
+            {
+                case '\n':
+                case '\r':
+                case '\u0085':
+                case '\u2028':
+                case '\u2029':
+                    return true;
+                default:
+            }
+        }
+
+        return false;
+    }
+
+    static final class PathParts
+    {
+        private final String group;
+
+        private final String artifactId;
+
+        private final String version;
+
+        private final String file;
+
+        private final String classifierAndType;
+
+        PathParts( final String group, final String artifactId, final String version, final String file,
+                   final String classifierAndType )
+        {
+            this.group = group;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.file = file;
+            this.classifierAndType = classifierAndType;
+        }
+
+        String getFile()
+        {
+            return file;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format( "PathParts [group=%s, artifactId=%s, version=%s, file=%s, classifierAndType=%s]",
+                                  group, artifactId, version, file, classifierAndType );
+        }
+    }
+
     private final String groupId;
 
     private final String artifactId;
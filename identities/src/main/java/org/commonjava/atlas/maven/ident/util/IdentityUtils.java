@@ -17,6 +17,7 @@ package org.commonjava.atlas.maven.ident.util;
 
 import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRefPool;
 import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
@@ -65,6 +66,12 @@ public final class IdentityUtils
 
         try
         {
+            final ProjectRefPool pool = ProjectRefPool.getDefaultPool();
+            if ( pool != null )
+            {
+                return pool.projectVersionRef( parts[0], parts[1], parts[2] );
+            }
+
             return new SimpleProjectVersionRef( parts[0], parts[1], parts[2] );
         }
         catch ( final InvalidVersionSpecificationException e )
@@ -89,7 +96,8 @@ public final class IdentityUtils
                 + "'. Must contain at least two fields separated by ':'" );
         }
 
-        return new SimpleProjectRef( parts[0], parts[1] );
+        final ProjectRefPool pool = ProjectRefPool.getDefaultPool();
+        return pool == null ? new SimpleProjectRef( parts[0], parts[1] ) : pool.projectRef( parts[0], parts[1] );
     }
 
     public static ProjectRef project( final String groupId, final String artifactId )
@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.util;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.commonjava.atlas.maven.ident.version.InvalidVersionSpecificationException;
+import org.commonjava.atlas.maven.ident.version.SingleVersion;
+import org.commonjava.atlas.maven.ident.version.part.NumericPart;
+import org.commonjava.atlas.maven.ident.version.part.SeparatorPart;
+import org.commonjava.atlas.maven.ident.version.part.SnapshotPart;
+import org.commonjava.atlas.maven.ident.version.part.StringPart;
+import org.commonjava.atlas.maven.ident.version.part.VersionPart;
+import org.commonjava.atlas.maven.ident.version.part.VersionPartSeparator;
+
+/**
+ * Single-pass scanner for the common single-version shapes, like <code>N(.N)*(-qualifier)?(-SNAPSHOT|-timestamp-build)?</code>.
+ * It builds exactly the same {@link VersionPart} sequence the JavaCC grammar (version.jj) would, without the token
+ * manager and lookahead machinery. Anything it isn't sure about (ranges, whitespace, doubled / dangling separators,
+ * ambiguous timestamp tokens, oversized build numbers) is rejected by returning null, so the caller can fall back to the
+ * full grammar and get the same result (or error) it always did.
+ */
+final class SingleVersionScanner
+{
+
+    private static final String LOCAL_SNAPSHOT = "SNAPSHOT";
+
+    private static final int SNAPSHOT_DATE_DIGITS = 8;
+
+    private static final int SNAPSHOT_TIME_DIGITS = 6;
+
+    // parseDigits(..) never overflows for these.
+    private static final int MAX_NUMERIC_DIGITS = 18;
+
+    // Integer.parseInt(..) never overflows for these.
+    private static final int MAX_BUILD_NUMBER_DIGITS = 9;
+
+    private SingleVersionScanner()
+    {
+    }
+
+    /**
+     * @return the parsed version, or null if the expression isn't one of the shapes handled here.
+     * @throws InvalidVersionSpecificationException if {@link SingleVersion} rejects the parts, same as with the grammar.
+     */
+    static SingleVersion scan( final String version )
+        throws InvalidVersionSpecificationException
+    {
+        final int len = version.length();
+        final List<VersionPart> parts = new ArrayList<VersionPart>( len );
+
+        VersionPart last = null;
+        int i = 0;
+        while ( i < len )
+        {
+            final char c = version.charAt( i );
+
+            VersionPart part;
+            if ( isDigit( c ) )
+            {
+                final int end = digitsEnd( version, i );
+                if ( hasTimestampToken( version, i, end ) )
+                {
+                    // the grammar reads <SNAPDATE> as one token; the only form we can mirror is exactly
+                    // yyyyMMdd.HHmmss, which it either splits into two numeric parts (same as we'd do below) or,
+                    // when followed by -N, reads as a remote snapshot.
+                    final int timeEnd = digitsEnd( version, end + 1 );
+                    if ( end - i != SNAPSHOT_DATE_DIGITS || timeEnd - end - 1 != SNAPSHOT_TIME_DIGITS )
+                    {
+                        return null;
+                    }
+
+                    if ( timeEnd + 1 < len && version.charAt( timeEnd ) == '-'
+                        && isDigit( version.charAt( timeEnd + 1 ) ) )
+                    {
+                        final int buildEnd = digitsEnd( version, timeEnd + 1 );
+                        if ( buildEnd - timeEnd - 1 > MAX_BUILD_NUMBER_DIGITS
+                            || hasTimestampToken( version, timeEnd + 1, buildEnd ) )
+                        {
+                            return null;
+                        }
+
+                        part = newRemoteSnapshotPart( version.substring( i, timeEnd ),
+                                                      version.substring( timeEnd + 1, buildEnd ) );
+                        if ( part == null )
+                        {
+                            return null;
+                        }
+
+                        addPart( parts, part, last );
+                        last = part;
+                        i = buildEnd;
+                        continue;
+                    }
+                }
+
+                if ( end - i > MAX_NUMERIC_DIGITS )
+                {
+                    // might not fit in a long; let NumericPart sort it out.
+                    part = new NumericPart( version.substring( i, end ) );
+                }
+                else
+                {
+                    part = new NumericPart( parseDigits( version, i, end ) );
+                }
+
+                i = end;
+            }
+            else if ( isLetter( c ) )
+            {
+                final int end = lettersEnd( version, i );
+                final String literal = version.substring( i, end );
+                if ( literal.length() == LOCAL_SNAPSHOT.length() && LOCAL_SNAPSHOT.equalsIgnoreCase( literal ) )
+                {
+                    part = new SnapshotPart( literal );
+                }
+                else
+                {
+                    part = StringPart.valueOf( literal );
+                }
+
+                i = end;
+            }
+            else
+            {
+                final VersionPartSeparator sep = toSeparator( c );
+
+                // leading, doubled and trailing separators are all handled...creatively...by the grammar.
+                if ( sep == null || last == null || last instanceof SeparatorPart || i == len - 1 )
+                {
+                    return null;
+                }
+
+                part = new SeparatorPart( sep );
+                i++;
+            }
+
+            addPart( parts, part, last );
+            last = part;
+        }
+
+        if ( parts.isEmpty() )
+        {
+            return null;
+        }
+
+        return new SingleVersion( version, parts );
+    }
+
+    // Same as VersionParser.addPart(..)
+    private static void addPart( final List<VersionPart> parts, final VersionPart current, final VersionPart last )
+    {
+        if ( last != null && !( last instanceof SeparatorPart ) && !( current instanceof SeparatorPart ) )
+        {
+            parts.add( new SeparatorPart( VersionPartSeparator.BLANK ) );
+        }
+
+        parts.add( current );
+    }
+
+    private static SnapshotPart newRemoteSnapshotPart( final String timestamp, final String buildNumber )
+    {
+        try
+        {
+            return new SnapshotPart( SnapshotUtils.parseSnapshotTimestamp( timestamp ),
+                                     Integer.parseInt( buildNumber ), timestamp + "-" + buildNumber );
+        }
+        catch ( final ParseException e )
+        {
+            // let the grammar report it.
+            return null;
+        }
+    }
+
+    /**
+     * Whether the digits in [start, end) would be (partially) consumed by the grammar's <SNAPDATE> token, ie. at least
+     * 8 digits followed by a '.' and at least 6 more digits.
+     */
+    private static boolean hasTimestampToken( final String version, final int start, final int end )
+    {
+        if ( end - start < SNAPSHOT_DATE_DIGITS || end >= version.length() || version.charAt( end ) != '.' )
+        {
+            return false;
+        }
+
+        return digitsEnd( version, end + 1 ) - end - 1 >= SNAPSHOT_TIME_DIGITS;
+    }
+
+    private static long parseDigits( final String version, final int start, final int end )
+    {
+        long value = 0;
+        for ( int i = start; i < end; i++ )
+        {
+            value = value * 10 + ( version.charAt( i ) - '0' );
+        }
+
+        return value;
+    }
+
+    private static int digitsEnd( final String version, final int start )
+    {
+        int i = start;
+        while ( i < version.length() && isDigit( version.charAt( i ) ) )
+        {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static int lettersEnd( final String version, final int start )
+    {
+        int i = start;
+        while ( i < version.length() && isLetter( version.charAt( i ) ) )
+        {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static boolean isDigit( final char c )
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    // NOTE: ASCII only, like the <STRING> token in the grammar.
+    private static boolean isLetter( final char c )
+    {
+        return ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' );
+    }
+
+    private static VersionPartSeparator toSeparator( final char c )
+    {
+        switch ( c )
+        {
+            case '.':
+                return VersionPartSeparator.DOT;
+            case '-':
+                return VersionPartSeparator.DASH;
+            case '_':
+                return VersionPartSeparator.UNDERSCORE;
+            case '+':
+                return VersionPartSeparator.PLUS;
+            default:
+                return null;
+        }
+    }
+
+}
@@ -15,9 +15,7 @@
  */
 package org.commonjava.atlas.maven.ident.util;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
@@ -26,6 +24,11 @@ import java.util.regex.Pattern;
 
 import org.commonjava.atlas.maven.ident.version.part.SnapshotPart;
 
+/**
+ * Helpers for Maven snapshot versions and timestamps. All timestamps are UTC, as Maven writes them. They're parsed and
+ * rendered by hand rather than through {@link java.text.SimpleDateFormat}, so everything here is thread-safe and cheap
+ * enough to call in tight loops (eg. when merging snapshot metadata).
+ */
 public class SnapshotUtils
 {
 
@@ -39,6 +42,10 @@ public class SnapshotUtils
 
     public static final String LOCAL_SNAPSHOT_VERSION_PART = "-SNAPSHOT";
 
+    private static final Pattern REMOTE_SNAPSHOT_PART = Pattern.compile( REMOTE_SNAPSHOT_PART_PATTERN );
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
     public static String generateSnapshotSuffix( final Date d, final int buildNumber )
     {
         return generateSnapshotTimestamp( d ) + "-" + buildNumber;
@@ -46,7 +53,7 @@ public class SnapshotUtils
 
     public static String generateSnapshotTimestamp( final Date d )
     {
-        return getFormat().format( d );
+        return formatTimestamp( d, true );
     }
 
     public static Date getCurrentTimestamp()
@@ -63,18 +70,17 @@ public class SnapshotUtils
 
     public static boolean isRemoteSnapshotVersion( final String literal )
     {
-        return literal.matches( REMOTE_SNAPSHOT_PART_PATTERN );
+        return REMOTE_SNAPSHOT_PART.matcher( literal ).matches();
     }
 
     public static boolean isRemoteSnapshotVersionPart( final String literal )
     {
-        return literal.matches( REMOTE_SNAPSHOT_PART_PATTERN );
+        return REMOTE_SNAPSHOT_PART.matcher( literal ).matches();
     }
 
     public static SnapshotPart parseRemoteSnapshotVersionPart( final String literal )
     {
-        final Pattern pattern = Pattern.compile( REMOTE_SNAPSHOT_PART_PATTERN );
-        final Matcher matcher = pattern.matcher( literal );
+        final Matcher matcher = REMOTE_SNAPSHOT_PART.matcher( literal );
         if ( matcher.matches() )
         {
             final String tstamp = matcher.group( 3 );
@@ -102,18 +108,15 @@ public class SnapshotUtils
             + SNAPSHOT_TSTAMP_FORMAT + "-NN" );
     }
 
+    /**
+     * Parse a {@value #SNAPSHOT_TSTAMP_FORMAT} timestamp (UTC). Like the SimpleDateFormat this used to go through,
+     * out-of-range fields roll over (month 13 is January of the next year). Unlike it, the timestamp has to be exactly
+     * that wide; trailing characters are rejected rather than ignored or absorbed into the seconds.
+     */
     public static Date parseSnapshotTimestamp( final String tstamp )
         throws ParseException
     {
-        return getFormat().parse( tstamp );
-    }
-
-    private static DateFormat getFormat()
-    {
-        final SimpleDateFormat fmt = new SimpleDateFormat( SNAPSHOT_TSTAMP_FORMAT );
-        //        fmt.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
-
-        return fmt;
+        return parseTimestamp( tstamp, true );
     }
 
     public static SnapshotPart extractSnapshotVersionPart( final String version )
@@ -133,13 +136,128 @@ public class SnapshotUtils
 
     public static String generateUpdateTimestamp( final Date d )
     {
-        return new SimpleDateFormat( LAST_UPDATED_FORMAT ).format( d );
+        return formatTimestamp( d, false );
     }
 
+    /**
+     * Parse a metadata lastUpdated timestamp (UTC), by the same rules as {@link #parseSnapshotTimestamp(String)}.
+     */
     public static Date parseUpdateTimestamp( final String tstamp )
         throws ParseException
     {
-        return new SimpleDateFormat( LAST_UPDATED_FORMAT ).parse( tstamp );
+        return parseTimestamp( tstamp, false );
+    }
+
+    // yyyyMMddHHmmss, with a '.' before the time if dotted
+    private static Date parseTimestamp( final String tstamp, final boolean dotted )
+        throws ParseException
+    {
+        final int timeStart = dotted ? 9 : 8;
+        if ( tstamp.length() != timeStart + 6 )
+        {
+            throw new ParseException( "Unparseable date: \"" + tstamp + "\"",
+                                      Math.min( tstamp.length(), timeStart + 6 ) );
+        }
+
+        if ( dotted && tstamp.charAt( 8 ) != '.' )
+        {
+            throw new ParseException( "Unparseable date: \"" + tstamp + "\"", 8 );
+        }
+
+        final int year = digits( tstamp, 0, 4 );
+        final int month = digits( tstamp, 4, 2 );
+        final int day = digits( tstamp, 6, 2 );
+        final int hour = digits( tstamp, timeStart, 2 );
+        final int minute = digits( tstamp, timeStart + 2, 2 );
+        final int second = digits( tstamp, timeStart + 4, 2 );
+
+        // roll months into years first, then everything else is a plain offset from the start of that month.
+        final int months = month - 1;
+        final long days = daysFromCivil( year + Math.floorDiv( months, 12 ), Math.floorMod( months, 12 ) + 1 ) + day
+            - 1;
+
+        return new Date( ( days * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second ) * 1000L );
+    }
+
+    private static String formatTimestamp( final Date d, final boolean dotted )
+    {
+        final long seconds = Math.floorDiv( d.getTime(), 1000L );
+        final long days = Math.floorDiv( seconds, SECONDS_PER_DAY );
+        final int secondOfDay = (int) Math.floorMod( seconds, SECONDS_PER_DAY );
+
+        // civil-from-days, the inverse of daysFromCivil(..)
+        final long z = days + 719468;
+        final long era = Math.floorDiv( z, 146097 );
+        final int dayOfEra = (int) ( z - era * 146097 );
+        final int yearOfEra = ( dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096 ) / 365;
+        final int dayOfYear = dayOfEra - ( 365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100 );
+        final int mp = ( 5 * dayOfYear + 2 ) / 153;
+        final int day = dayOfYear - ( 153 * mp + 2 ) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final long year = yearOfEra + era * 400 + ( month <= 2 ? 1 : 0 );
+
+        final StringBuilder sb = new StringBuilder( 16 );
+        final String y = Long.toString( year );
+        for ( int i = y.length(); i < 4; i++ )
+        {
+            sb.append( '0' );
+        }
+
+        sb.append( y );
+        pad( sb, month );
+        pad( sb, day );
+        if ( dotted )
+        {
+            sb.append( '.' );
+        }
+
+        pad( sb, secondOfDay / 3600 );
+        pad( sb, secondOfDay / 60 % 60 );
+        pad( sb, secondOfDay % 60 );
+
+        return sb.toString();
+    }
+
+    /**
+     * Days since 1970-01-01 of the first day of the given (proleptic Gregorian) month.
+     */
+    private static long daysFromCivil( final long year, final int month )
+    {
+        final long y = month <= 2 ? year - 1 : year;
+        final long era = Math.floorDiv( y, 400 );
+        final long yearOfEra = y - era * 400;
+        final long dayOfYear = ( 153 * ( month > 2 ? month - 3 : month + 9 ) + 2 ) / 5;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int digits( final String value, final int start, final int count )
+        throws ParseException
+    {
+        int result = 0;
+        for ( int i = start; i < start + count; i++ )
+        {
+            final char c = value.charAt( i );
+            if ( c < '0' || c > '9' )
+            {
+                throw new ParseException( "Unparseable date: \"" + value + "\"", i );
+            }
+
+            result = result * 10 + ( c - '0' );
+        }
+
+        return result;
+    }
+
+    private static void pad( final StringBuilder sb, final int value )
+    {
+        if ( value < 10 )
+        {
+            sb.append( '0' );
+        }
+
+        sb.append( value );
     }
 
 }
@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
+import org.commonjava.atlas.maven.ident.version.VersionSpec;
+
+/**
+ * Size-bounded, thread-safe intern cache of parsed {@link VersionSpec} instances, keyed by the raw version string.
+ * Parsed specs are immutable, so one instance can be shared by every ref that uses the same version string.
+ * <p>
+ * Entries are spread over a fixed number of independently-locked LRU segments to keep contention down; eviction is
+ * LRU within each segment.
+ * <p>
+ * This is opt-in: see {@link VersionUtils#setVersionSpecCache(VersionSpecCache)}, or set the system property
+ * {@value #CACHE_SIZE_PROP} to a positive entry count.
+ */
+public final class VersionSpecCache
+{
+
+    public static final String CACHE_SIZE_PROP = "atlas.version.cache.size";
+
+    private static final int MAX_SEGMENTS = 16;
+
+    // small caches use fewer segments, so each one still has a meaningful LRU window.
+    private static final int MIN_SEGMENT_SIZE = 32;
+
+    private final Segment[] segments;
+
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public VersionSpecCache( final int maxSize )
+    {
+        if ( maxSize < 1 )
+        {
+            throw new IllegalArgumentException( "Cache size must be positive. (Given: " + maxSize + ")" );
+        }
+
+        this.maxSize = maxSize;
+
+        int count = 1;
+        while ( count < MAX_SEGMENTS && count * 2 * MIN_SEGMENT_SIZE <= maxSize )
+        {
+            count *= 2;
+        }
+
+        segments = new Segment[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            // spread the remainder so the segments add up to maxSize.
+            segments[i] = new Segment( maxSize / count + ( i < maxSize % count ? 1 : 0 ) );
+        }
+    }
+
+    /**
+     * Create a cache sized by the {@value #CACHE_SIZE_PROP} system property, or return null if it isn't set.
+     */
+    static VersionSpecCache fromSystemProperties()
+    {
+        final String size = System.getProperty( CACHE_SIZE_PROP );
+        if ( StringUtils.isBlank( size ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            final int max = Integer.parseInt( size.trim() );
+            return max > 0 ? new VersionSpecCache( max ) : null;
+        }
+        catch ( final NumberFormatException e )
+        {
+            throw new IllegalArgumentException( "Invalid " + CACHE_SIZE_PROP + ": '" + size + "'", e );
+        }
+    }
+
+    public VersionSpec get( final String version )
+    {
+        final VersionSpec spec = segmentFor( version ).get( version );
+        if ( spec == null )
+        {
+            misses.increment();
+        }
+        else
+        {
+            hits.increment();
+        }
+
+        return spec;
+    }
+
+    /**
+     * Store the spec, unless another thread beat us to it.
+     *
+     * @return the cached instance for this version string, which callers should use in place of the one passed in.
+     */
+    public VersionSpec intern( final String version, final VersionSpec spec )
+    {
+        return segmentFor( version ).putIfAbsent( version, spec );
+    }
+
+    public long getHitCount()
+    {
+        return hits.sum();
+    }
+
+    public long getMissCount()
+    {
+        return misses.sum();
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for ( final Segment segment : segments )
+        {
+            size += segment.size();
+        }
+
+        return size;
+    }
+
+    public void clear()
+    {
+        for ( final Segment segment : segments )
+        {
+            segment.clear();
+        }
+
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "VersionSpecCache [size=%s, maxSize=%s, hits=%s, misses=%s]", size(), maxSize,
+                              getHitCount(), getMissCount() );
+    }
+
+    private Segment segmentFor( final String version )
+    {
+        final int h = version.hashCode();
+        return segments[( h ^ ( h >>> 16 ) ) & ( segments.length - 1 )];
+    }
+
+    private static final class Segment
+    {
+        private final Map<String, VersionSpec> entries;
+
+        Segment( final int capacity )
+        {
+            entries = new LinkedHashMap<String, VersionSpec>( 16, 0.75f, true )
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry( final Map.Entry<String, VersionSpec> eldest )
+                {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized VersionSpec get( final String version )
+        {
+            return entries.get( version );
+        }
+
+        synchronized VersionSpec putIfAbsent( final String version, final VersionSpec spec )
+        {
+            final VersionSpec existing = entries.get( version );
+            if ( existing != null )
+            {
+                return existing;
+            }
+
+            entries.put( version, spec );
+            return spec;
+        }
+
+        synchronized int size()
+        {
+            return entries.size();
+        }
+
+        synchronized void clear()
+        {
+            entries.clear();
+        }
+    }
+
+}
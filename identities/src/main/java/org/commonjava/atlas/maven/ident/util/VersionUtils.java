@@ -26,15 +26,56 @@ import org.commonjava.atlas.maven.ident.version.parse.VersionParser;
 public final class VersionUtils
 {
 
+    private static volatile VersionSpecCache cache = VersionSpecCache.fromSystemProperties();
+
     private VersionUtils()
     {
     }
 
+    /**
+     * Install (or with null, remove) the cache used to intern specs parsed by {@link #createFromSpec(String)} and
+     * {@link #createSingleVersion(String)}. Disabled by default, unless {@value VersionSpecCache#CACHE_SIZE_PROP} is
+     * set.
+     */
+    public static void setVersionSpecCache( final VersionSpecCache versionSpecCache )
+    {
+        cache = versionSpecCache;
+    }
+
+    public static VersionSpecCache getVersionSpecCache()
+    {
+        return cache;
+    }
+
     public static VersionSpec createFromSpec( final String version )
         throws InvalidVersionSpecificationException
     {
         checkEmpty( version );
 
+        final VersionSpecCache cache = VersionUtils.cache;
+        if ( cache == null )
+        {
+            return parseSpec( version );
+        }
+
+        final VersionSpec cached = cache.get( version );
+        if ( cached != null )
+        {
+            return cached;
+        }
+
+        return cache.intern( version, parseSpec( version ) );
+    }
+
+    private static VersionSpec parseSpec( final String version )
+        throws InvalidVersionSpecificationException
+    {
+        final SingleVersion scanned = SingleVersionScanner.scan( version );
+        if ( scanned != null )
+        {
+            return scanned;
+        }
+
         try
         {
             final VersionSpec spec = new VersionParser( version ).parse();
@@ -92,6 +133,29 @@ public final class VersionUtils
     {
         checkEmpty( version );
 
+        final VersionSpecCache cache = VersionUtils.cache;
+        if ( cache != null )
+        {
+            final VersionSpec cached = cache.get( version );
+            if ( cached instanceof SingleVersion )
+            {
+                return (SingleVersion) cached;
+            }
+        }
+
+        final SingleVersion scanned = SingleVersionScanner.scan( version );
+        if ( scanned != null )
+        {
+            if ( cache != null )
+            {
+                // the scanner consumes the whole string, so createFromSpec(..) would produce this same version.
+                final VersionSpec interned = cache.intern( version, scanned );
+                return interned instanceof SingleVersion ? (SingleVersion) interned : scanned;
+            }
+
+            return scanned;
+        }
+
         try
         {
             return new VersionParser( version ).single();
@@ -116,6 +180,12 @@ public final class VersionUtils
         {
             return false;
         }
+
+        if ( SingleVersionScanner.scan( version ) != null )
+        {
+            return true;
+        }
+
         try
         {
             SingleVersion singleVersion = new VersionParser( version ).single();
@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
+
+/**
+ * Operations over whole listings of version strings (eg. building maven-metadata.xml for an artifact with tens of
+ * thousands of versions). Each string is parsed exactly once, and sorting compares the versions' precomputed keys
+ * directly rather than going through {@link VersionSpecComparisons#comparator()}. Max-selection doesn't sort at all.
+ * <p>
+ * Inputs of at least {@link #PARALLEL_THRESHOLD} versions can be parsed and sorted in parallel (on the common
+ * {@link java.util.concurrent.ForkJoinPool}) by passing <code>parallel = true</code>. Orderings are stable, so
+ * versions which compare as equal (eg. "1.0" and "1.0.0") keep their input order either way.
+ */
+public final class BulkVersions
+{
+
+    public static final int PARALLEL_THRESHOLD = 8192;
+
+    private static final Comparator<SingleVersion> ORDER = new Comparator<SingleVersion>()
+    {
+        @Override
+        public int compare( final SingleVersion first, final SingleVersion second )
+        {
+            return VersionSpecComparisons.compareSingleToSingle( first, second );
+        }
+    };
+
+    private BulkVersions()
+    {
+    }
+
+    /**
+     * @return the versions parsed (through {@link VersionUtils#createSingleVersion(String)}), in input order.
+     */
+    public static List<SingleVersion> parse( final Collection<String> versions, final boolean parallel )
+        throws InvalidVersionSpecificationException
+    {
+        return Arrays.asList( parseAll( versions, parallel ) );
+    }
+
+    public static List<SingleVersion> sort( final Collection<String> versions )
+        throws InvalidVersionSpecificationException
+    {
+        return sort( versions, false );
+    }
+
+    /**
+     * @return the versions parsed and sorted, lowest first.
+     */
+    public static List<SingleVersion> sort( final Collection<String> versions, final boolean parallel )
+        throws InvalidVersionSpecificationException
+    {
+        final SingleVersion[] parsed = parseAll( versions, parallel );
+        sortAll( parsed, parallel );
+        return Arrays.asList( parsed );
+    }
+
+    /**
+     * Sort already-parsed versions in place, lowest first.
+     */
+    public static void sortVersions( final List<SingleVersion> versions, final boolean parallel )
+    {
+        final SingleVersion[] array = versions.toArray( new SingleVersion[versions.size()] );
+        sortAll( array, parallel );
+        for ( int i = 0; i < array.length; i++ )
+        {
+            versions.set( i, array[i] );
+        }
+    }
+
+    /**
+     * @return the highest version, or null if there are none. Where equal versions are spelled differently, the first
+     * one given wins.
+     */
+    public static SingleVersion max( final Collection<String> versions )
+        throws InvalidVersionSpecificationException
+    {
+        return max( versions, false );
+    }
+
+    /**
+     * @return the highest release (non-snapshot) version, or null if there are none.
+     */
+    public static SingleVersion maxRelease( final Collection<String> versions )
+        throws InvalidVersionSpecificationException
+    {
+        return max( versions, true );
+    }
+
+    /**
+     * Group versions under their {@link SingleVersion#getBaseVersion()}, so each snapshot lands with the release it
+     * leads up to.
+     *
+     * @return base versions lowest first, each mapped to its versions lowest first.
+     */
+    public static Map<SingleVersion, List<SingleVersion>> groupByBaseVersion( final Collection<String> versions,
+                                                                            final boolean parallel )
+        throws InvalidVersionSpecificationException
+    {
+        final SingleVersion[] parsed = parseAll( versions, parallel );
+        sortAll( parsed, parallel );
+
+        final Map<SingleVersion, List<SingleVersion>> groups = new HashMap<SingleVersion, List<SingleVersion>>();
+        for ( final SingleVersion version : parsed )
+        {
+            final SingleVersion base = version.getBaseVersion();
+            List<SingleVersion> group = groups.get( base );
+            if ( group == null )
+            {
+                group = new ArrayList<SingleVersion>();
+                groups.put( base, group );
+            }
+
+            group.add( version );
+        }
+
+        final SingleVersion[] bases = groups.keySet().toArray( new SingleVersion[groups.size()] );
+        Arrays.sort( bases, ORDER );
+
+        final Map<SingleVersion, List<SingleVersion>> result = new LinkedHashMap<SingleVersion, List<SingleVersion>>();
+        for ( final SingleVersion base : bases )
+        {
+            result.put( base, Collections.unmodifiableList( groups.get( base ) ) );
+        }
+
+        return Collections.unmodifiableMap( result );
+    }
+
+    private static SingleVersion max( final Collection<String> versions, final boolean releaseOnly )
+        throws InvalidVersionSpecificationException
+    {
+        SingleVersion max = null;
+        for ( final String v : versions )
+        {
+            final SingleVersion version = VersionUtils.createSingleVersion( v );
+            if ( ( !releaseOnly || version.isRelease() ) && ( max == null || ORDER.compare( version, max ) > 0 ) )
+            {
+                max = version;
+            }
+        }
+
+        return max;
+    }
+
+    private static void sortAll( final SingleVersion[] versions, final boolean parallel )
+    {
+        if ( parallel && versions.length >= PARALLEL_THRESHOLD )
+        {
+            Arrays.parallelSort( versions, ORDER );
+        }
+        else
+        {
+            Arrays.sort( versions, ORDER );
+        }
+    }
+
+    private static SingleVersion[] parseAll( final Collection<String> versions, final boolean parallel )
+        throws InvalidVersionSpecificationException
+    {
+        final String[] raw = versions.toArray( new String[versions.size()] );
+        final SingleVersion[] parsed = new SingleVersion[raw.length];
+        if ( !parallel || raw.length < PARALLEL_THRESHOLD )
+        {
+            for ( int i = 0; i < raw.length; i++ )
+            {
+                parsed[i] = VersionUtils.createSingleVersion( raw[i] );
+            }
+
+            return parsed;
+        }
+
+        Arrays.parallelSetAll( parsed, new IntFunction<SingleVersion>()
+        {
+            @Override
+            public SingleVersion apply( final int i )
+            {
+                return VersionUtils.createSingleVersion( raw[i] );
+            }
+        } );
+
+        return parsed;
+    }
+
+}
@@ -41,10 +41,17 @@ public class SingleVersion
 
     private final String rawExpression;
 
+    // derived from the phrases, see getComparisonKey() and hashCode()
+    private transient SingleVersionKey comparisonKey;
+
+    private transient int hash;
+
     private SingleVersion( final List<VersionPhrase> phrases )
     {
         this.phrases = new ArrayList<VersionPhrase>( phrases );
         this.rawExpression = join( phrases, "" );
+        this.comparisonKey = SingleVersionKey.create( this.phrases );
+        this.hash = computeHashCode();
     }
 
     public SingleVersion( final String rawExpression, final VersionPart... parts )
@@ -59,6 +66,8 @@ public class SingleVersion
         this.rawExpression = rawExpression;
         phrases = parsePhrases( parts );
         validatePhrases();
+        comparisonKey = SingleVersionKey.create( phrases );
+        hash = computeHashCode();
     }
 
     private void validatePhrases()
@@ -176,7 +185,7 @@ public class SingleVersion
 
                 if ( snap.isLocalSnapshot() )
                 {
-                    final StringPart sub = new StringPart( ( (SnapshotPart) part ).getLiteral() );
+                    final StringPart sub = StringPart.valueOf( ( (SnapshotPart) part ).getLiteral() );
                     result.add( sub );
                     prev = sub;
                 }
@@ -391,8 +400,37 @@ public class SingleVersion
         return phrases;
     }
 
+    /**
+     * @return the precomputed form used for comparisons, or null if these phrases can't be flattened (in which case
+     * they have to be compared part by part).
+     */
+    SingleVersionKey getComparisonKey()
+    {
+        SingleVersionKey key = comparisonKey;
+        if ( key == null && phrases != null )
+        {
+            // transient, so it's missing after deserialization.
+            key = SingleVersionKey.create( phrases );
+            comparisonKey = key;
+        }
+
+        return key;
+    }
+
     @Override
     public int hashCode()
+    {
+        int h = hash;
+        if ( h == 0 )
+        {
+            h = computeHashCode();
+            hash = h;
+        }
+
+        return h;
+    }
+
+    private int computeHashCode()
     {
         final int prime = 31;
         int result = 1;
@@ -426,6 +464,19 @@ public class SingleVersion
             return false;
         }
         final SingleVersion other = (SingleVersion) obj;
+        final SingleVersionKey key = getComparisonKey();
+        final SingleVersionKey otherKey = other.getComparisonKey();
+        if ( key != null && otherKey != null )
+        {
+            return key.isEquivalent( otherKey );
+        }
+
+        return phrasesEqual( other );
+    }
+
+    // part-by-part equality, for when either side has no comparison key.
+    boolean phrasesEqual( final SingleVersion other )
+    {
         if ( phrases == null )
         {
             if ( other.phrases != null )
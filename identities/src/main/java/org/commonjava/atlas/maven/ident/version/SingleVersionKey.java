@@ -0,0 +1,480 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.version;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.commonjava.atlas.maven.ident.version.part.NumericPart;
+import org.commonjava.atlas.maven.ident.version.part.SeparatorPart;
+import org.commonjava.atlas.maven.ident.version.part.SnapshotPart;
+import org.commonjava.atlas.maven.ident.version.part.StringPart;
+import org.commonjava.atlas.maven.ident.version.part.VersionPart;
+import org.commonjava.atlas.maven.ident.version.part.VersionPhrase;
+
+/**
+ * Flattened, primitive form of a {@link SingleVersion}'s phrases, computed once so comparisons and equality checks
+ * don't have to walk {@link VersionPhrase} / {@link VersionPart} lists, dispatch on part types, or allocate padding.
+ * <p>
+ * Separators are dropped (they compare as equal to everything), leaving one entry per numeric / string / snapshot
+ * part. {@link #compare(SingleVersionKey, SingleVersionKey)} reproduces the ordering rules of the part classes
+ * exactly, including their quirks (a snapshot part is equal to 'GA' but less than '0', for instance), so it is NOT a
+ * plain lexicographic array comparison.
+ * <p>
+ * Only versions whose phrases strictly alternate value / separator parts (which covers everything the parsers produce)
+ * and whose numbers fit in a long are supported; {@link #create(List)} returns null for anything else, and callers fall
+ * back to the part-by-part comparison.
+ */
+final class SingleVersionKey
+{
+
+    private static final byte NUMERIC = 0;
+
+    private static final byte STRING = 1;
+
+    private static final byte LOCAL_SNAPSHOT = 2;
+
+    private static final byte REMOTE_SNAPSHOT = 3;
+
+    private static final int ZERO_MARKER = StringPart.ADJ_ZERO_EQUIV_INDEX;
+
+    private static final int RANDOM_MARKER = StringPart.ADJ_RANDOM_STRING_EQUIV_INDEX;
+
+    // offsets into the part arrays; phrase p covers [phraseStarts[p], phraseStarts[p+1]).
+    private final int[] phraseStarts;
+
+    private final int[] markers;
+
+    // number of leading parts in each phrase that aren't silent; 0 for a silent phrase.
+    private final int[] significantParts;
+
+    // number of phrases left after dropping the trailing silent ones.
+    private final int significantPhrases;
+
+    private final byte[] kinds;
+
+    // numeric value, string zero-compare index, or snapshot timestamp.
+    private final long[] values;
+
+    // snapshot build numbers; null unless this version has a remote snapshot part.
+    private final int[] buildNumbers;
+
+    // lower-cased values of non-marker strings; null unless this version has one.
+    private final String[] qualifiers;
+
+    private final boolean release;
+
+    private SingleVersionKey( final int[] phraseStarts, final int[] markers, final int[] significantParts,
+                              final byte[] kinds, final long[] values, final int[] buildNumbers,
+                              final String[] qualifiers, final boolean release )
+    {
+        this.phraseStarts = phraseStarts;
+        this.markers = markers;
+        this.significantParts = significantParts;
+        this.kinds = kinds;
+        this.values = values;
+        this.buildNumbers = buildNumbers;
+        this.qualifiers = qualifiers;
+        this.release = release;
+
+        int sig = markers.length;
+        while ( sig > 0 && significantParts[sig - 1] == 0 )
+        {
+            sig--;
+        }
+
+        this.significantPhrases = sig;
+    }
+
+    static SingleVersionKey create( final List<VersionPhrase> phrases )
+    {
+        final int phraseCount = phrases.size();
+        if ( phraseCount < 1 )
+        {
+            return null;
+        }
+
+        int partCount = 0;
+        for ( int p = 0; p < phraseCount; p++ )
+        {
+            final List<VersionPart> parts = phrases.get( p ).getVersionParts();
+            if ( parts.size() % 2 == 0 )
+            {
+                return null;
+            }
+
+            partCount += ( parts.size() + 1 ) / 2;
+        }
+
+        final int[] phraseStarts = new int[phraseCount + 1];
+        final int[] markers = new int[phraseCount];
+        final int[] significantParts = new int[phraseCount];
+        final byte[] kinds = new byte[partCount];
+        final long[] values = new long[partCount];
+        int[] buildNumbers = null;
+        String[] qualifiers = null;
+
+        int idx = 0;
+        for ( int p = 0; p < phraseCount; p++ )
+        {
+            final VersionPhrase phrase = phrases.get( p );
+            final List<VersionPart> parts = phrase.getVersionParts();
+
+            // only the last phrase may carry the snapshot marker, and only as its last part.
+            if ( !phrase.isRelease() && ( p < phraseCount - 1 || !phrase.isSnapshot() ) )
+            {
+                return null;
+            }
+
+            phraseStarts[p] = idx;
+            markers[p] = phrase.getMarkerIndex() == null ? 0 : phrase.getMarkerIndex();
+
+            for ( int i = 0; i < parts.size(); i++ )
+            {
+                final VersionPart part = parts.get( i );
+                if ( i % 2 == 1 )
+                {
+                    if ( !( part instanceof SeparatorPart ) )
+                    {
+                        return null;
+                    }
+
+                    continue;
+                }
+
+                if ( part instanceof NumericPart )
+                {
+                    final NumericPart num = (NumericPart) part;
+                    if ( !num.isLongValue() )
+                    {
+                        return null;
+                    }
+
+                    kinds[idx] = NUMERIC;
+                    values[idx] = num.longValue();
+                }
+                else if ( part instanceof StringPart )
+                {
+                    final StringPart str = (StringPart) part;
+                    kinds[idx] = STRING;
+                    values[idx] = str.getZeroCompareIndex();
+                    if ( !str.isMarker() )
+                    {
+                        if ( qualifiers == null )
+                        {
+                            qualifiers = new String[partCount];
+                        }
+
+                        qualifiers[idx] = str.getValue().toLowerCase( Locale.ENGLISH );
+                    }
+                }
+                else if ( part instanceof SnapshotPart )
+                {
+                    final SnapshotPart snap = (SnapshotPart) part;
+                    if ( snap.isLocalSnapshot() )
+                    {
+                        kinds[idx] = LOCAL_SNAPSHOT;
+                    }
+                    else
+                    {
+                        kinds[idx] = REMOTE_SNAPSHOT;
+                        values[idx] = snap.getTimestamp().getTime();
+                        if ( buildNumbers == null )
+                        {
+                            buildNumbers = new int[partCount];
+                        }
+
+                        buildNumbers[idx] = snap.getBuildNumber();
+                    }
+                }
+                else
+                {
+                    return null;
+                }
+
+                if ( !isZeroEquivalent( kinds[idx], values[idx] ) )
+                {
+                    significantParts[p] = idx - phraseStarts[p] + 1;
+                }
+
+                idx++;
+            }
+        }
+
+        phraseStarts[phraseCount] = idx;
+
+        final VersionPhrase last = phrases.get( phraseCount - 1 );
+        return new SingleVersionKey( phraseStarts, markers, significantParts, kinds, values, buildNumbers,
+                                     qualifiers, !last.isSnapshot() );
+    }
+
+    /**
+     * Same result as comparing the phrase / part lists, see {@link VersionSpecComparisons}.
+     */
+    static int compare( final SingleVersionKey first, final SingleVersionKey second )
+    {
+        final int phrases = Math.max( first.markers.length, second.markers.length );
+        for ( int p = 0; p < phrases; p++ )
+        {
+            final int comp = comparePhrase( first, second, p );
+            if ( comp != 0 )
+            {
+                return comp;
+            }
+        }
+
+        if ( first.release && !second.release )
+        {
+            return 1;
+        }
+        else if ( second.release && !first.release )
+        {
+            return -1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Same result as {@link SingleVersion#equals(Object)} on the phrase / part lists: trailing silent phrases (and
+     * trailing silent parts within a phrase) are ignored, separators are ignored, and everything else has to match.
+     */
+    boolean isEquivalent( final SingleVersionKey other )
+    {
+        if ( significantPhrases != other.significantPhrases )
+        {
+            return false;
+        }
+
+        for ( int p = 0; p < significantPhrases; p++ )
+        {
+            final int len = significantParts[p];
+            if ( len != other.significantParts[p] )
+            {
+                return false;
+            }
+
+            final int mine = phraseStarts[p];
+            final int theirs = other.phraseStarts[p];
+            for ( int i = 0; i < len; i++ )
+            {
+                if ( !partEquals( this, mine + i, other, theirs + i ) )
+                {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // A missing phrase is treated as a release phrase containing a single '0'.
+    private static int comparePhrase( final SingleVersionKey first, final SingleVersionKey second, final int p )
+    {
+        final boolean fHas = p < first.markers.length;
+        final boolean sHas = p < second.markers.length;
+
+        final int comp = Integer.compare( fHas ? first.markers[p] : ZERO_MARKER, sHas ? second.markers[p] : ZERO_MARKER );
+        if ( comp != 0 )
+        {
+            return comp;
+        }
+
+        final int fStart = fHas ? first.phraseStarts[p] : 0;
+        final int fLen = fHas ? first.phraseStarts[p + 1] - fStart : 0;
+        final int sStart = sHas ? second.phraseStarts[p] : 0;
+        final int sLen = sHas ? second.phraseStarts[p + 1] - sStart : 0;
+
+        // missing parts (including the whole of a missing phrase) are padded with '0'.
+        final int len = Math.max( Math.max( fLen, sLen ), 1 );
+        for ( int i = 0; i < len; i++ )
+        {
+            final int c;
+            if ( i < fLen && i < sLen )
+            {
+                c = comparePart( first, fStart + i, second, sStart + i );
+            }
+            else if ( i < fLen )
+            {
+                c = comparePartToZero( first, fStart + i );
+            }
+            else if ( i < sLen )
+            {
+                c = -comparePartToZero( second, sStart + i );
+            }
+            else
+            {
+                c = 0;
+            }
+
+            if ( c != 0 )
+            {
+                return c;
+            }
+        }
+
+        final boolean fRelease = !fHas || p < first.markers.length - 1 || first.release;
+        final boolean sRelease = !sHas || p < second.markers.length - 1 || second.release;
+        if ( fRelease && !sRelease )
+        {
+            return 1;
+        }
+        else if ( sRelease && !fRelease )
+        {
+            return -1;
+        }
+
+        return 0;
+    }
+
+    private static int comparePart( final SingleVersionKey first, final int fi, final SingleVersionKey second,
+                                    final int si )
+    {
+        final byte fk = first.kinds[fi];
+        final byte sk = second.kinds[si];
+        final long fv = first.values[fi];
+        final long sv = second.values[si];
+
+        switch ( fk )
+        {
+            case NUMERIC:
+            {
+                if ( sk == NUMERIC )
+                {
+                    return Long.compare( fv, sv );
+                }
+                else if ( sk == STRING )
+                {
+                    return -compareStringToNumeric( sv, fv );
+                }
+
+                // 1.2[.0] > 1.2-SNAPSHOT
+                return 1;
+            }
+            case STRING:
+            {
+                if ( sk == NUMERIC )
+                {
+                    return compareStringToNumeric( fv, sv );
+                }
+                else if ( sk == STRING )
+                {
+                    if ( fv == RANDOM_MARKER && sv == RANDOM_MARKER )
+                    {
+                        return first.qualifiers[fi].compareTo( second.qualifiers[si] );
+                    }
+
+                    return Long.compare( fv, sv );
+                }
+
+                return Long.compare( fv, ZERO_MARKER );
+            }
+            default:
+            {
+                if ( sk == STRING )
+                {
+                    return -Long.compare( sv, ZERO_MARKER );
+                }
+                else if ( sk == NUMERIC )
+                {
+                    return -1;
+                }
+                else if ( fk == REMOTE_SNAPSHOT && sk == REMOTE_SNAPSHOT )
+                {
+                    final int comp = Long.compare( fv, sv );
+                    if ( comp == 0 )
+                    {
+                        return first.buildNumbers[fi] - second.buildNumbers[si];
+                    }
+
+                    return comp;
+                }
+                else if ( fk == LOCAL_SNAPSHOT && sk == REMOTE_SNAPSHOT )
+                {
+                    return 1;
+                }
+                else if ( fk == REMOTE_SNAPSHOT && sk == LOCAL_SNAPSHOT )
+                {
+                    return -1;
+                }
+
+                return 0;
+            }
+        }
+    }
+
+    // Compare against the implied '0' padding.
+    private static int comparePartToZero( final SingleVersionKey key, final int idx )
+    {
+        final long value = key.values[idx];
+        switch ( key.kinds[idx] )
+        {
+            case NUMERIC:
+                return Long.compare( value, 0 );
+            case STRING:
+                return compareStringToNumeric( value, 0 );
+            default:
+                return -1;
+        }
+    }
+
+    // 1.2.2 > 1.2.GA, 1.2.1 > 1.2.M1, but 1.2.0 == 1.2.GA
+    private static int compareStringToNumeric( final long marker, final long numeric )
+    {
+        if ( numeric != 0 )
+        {
+            return -1;
+        }
+
+        return Long.compare( marker, ZERO_MARKER );
+    }
+
+    private static boolean partEquals( final SingleVersionKey first, final int fi, final SingleVersionKey second,
+                                       final int si )
+    {
+        final byte kind = first.kinds[fi];
+        if ( kind != second.kinds[si] )
+        {
+            return false;
+        }
+
+        final long fv = first.values[fi];
+        final long sv = second.values[si];
+        switch ( kind )
+        {
+            case STRING:
+                if ( fv == RANDOM_MARKER && sv == RANDOM_MARKER )
+                {
+                    return first.qualifiers[fi].equals( second.qualifiers[si] );
+                }
+
+                return fv == sv;
+            case REMOTE_SNAPSHOT:
+                return fv == sv && first.buildNumbers[fi] == second.buildNumbers[si];
+            case LOCAL_SNAPSHOT:
+                return true;
+            default:
+                return fv == sv;
+        }
+    }
+
+    // These are the parts VersionPhrase marks silent when they trail a phrase.
+    private static boolean isZeroEquivalent( final byte kind, final long value )
+    {
+        return ( kind == NUMERIC && value == 0 ) || ( kind == STRING && value == ZERO_MARKER );
+    }
+
+}
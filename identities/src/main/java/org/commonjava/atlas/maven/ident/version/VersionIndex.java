@@ -0,0 +1,323 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.version;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, sorted set of {@link SingleVersion}s (eg. the listing from a maven-metadata.xml) for resolving many
+ * {@link VersionSpec}s against the same candidates. Range and compound specs are answered with binary searches over
+ * the sorted array instead of a {@link VersionSpec#contains(VersionSpec)} call per candidate, so a query costs
+ * O(log n + k) comparisons for k matches.
+ * <p>
+ * Results are exactly what {@link VersionSpec#contains(VersionSpec)} would give for each candidate, including the rule
+ * that an inclusive snapshot bound lets in any snapshot. Versions which compare as equal but are spelled differently
+ * (eg. "1.0" and "1.0.0") are all kept, in the order they were given.
+ */
+public final class VersionIndex
+{
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final SingleVersion[] versions;
+
+    // positions of the snapshot versions, ascending.
+    private final int[] snapshots;
+
+    public VersionIndex( final Collection<SingleVersion> versions )
+    {
+        this.versions = versions.toArray( new SingleVersion[versions.size()] );
+
+        // stable, so equal versions keep their given order.
+        Arrays.sort( this.versions, VersionSpecComparisons.comparator() );
+
+        int count = 0;
+        final int[] snaps = new int[this.versions.length];
+        for ( int i = 0; i < this.versions.length; i++ )
+        {
+            if ( this.versions[i].isSnapshot() )
+            {
+                snaps[count++] = i;
+            }
+        }
+
+        this.snapshots = Arrays.copyOf( snaps, count );
+    }
+
+    public int size()
+    {
+        return versions.length;
+    }
+
+    /**
+     * @return all versions in the index, lowest first.
+     */
+    public List<SingleVersion> getVersions()
+    {
+        return new Matches( null );
+    }
+
+    /**
+     * @return the versions contained by the given spec, lowest first.
+     */
+    public List<SingleVersion> find( final VersionSpec spec )
+    {
+        final int[] positions = positions( spec );
+        return positions.length == 0 ? Collections.<SingleVersion> emptyList() : new Matches( positions );
+    }
+
+    public boolean containsAny( final VersionSpec spec )
+    {
+        return positions( spec ).length > 0;
+    }
+
+    /**
+     * @return the highest version contained by the spec, or null if none is.
+     */
+    public SingleVersion findHighest( final VersionSpec spec )
+    {
+        final int[] positions = positions( spec );
+        return positions.length == 0 ? null : versions[positions[positions.length - 1]];
+    }
+
+    /**
+     * @return the highest release version contained by the spec, or null if none is.
+     */
+    public SingleVersion findHighestRelease( final VersionSpec spec )
+    {
+        return findLast( positions( spec ), true );
+    }
+
+    /**
+     * @return the highest snapshot version contained by the spec, or null if none is.
+     */
+    public SingleVersion findLatestSnapshot( final VersionSpec spec )
+    {
+        return findLast( positions( spec ), false );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "VersionIndex [size=" + versions.length + "]";
+    }
+
+    private SingleVersion findLast( final int[] positions, final boolean release )
+    {
+        for ( int i = positions.length - 1; i > -1; i-- )
+        {
+            final SingleVersion version = versions[positions[i]];
+            if ( version.isRelease() == release )
+            {
+                return version;
+            }
+        }
+
+        return null;
+    }
+
+    private int[] positions( final VersionSpec spec )
+    {
+        if ( spec == null || versions.length == 0 )
+        {
+            return NO_POSITIONS;
+        }
+
+        if ( spec instanceof RangeVersionSpec )
+        {
+            return rangePositions( (RangeVersionSpec) spec );
+        }
+        else if ( spec instanceof CompoundVersionSpec )
+        {
+            // a compound spec contains whatever any of its components does.
+            int[] result = NO_POSITIONS;
+            for ( final VersionSpec component : (CompoundVersionSpec) spec )
+            {
+                result = union( result, positions( component ) );
+            }
+
+            return result;
+        }
+
+        // single versions match on base version and snapshot-ness rather than ordering, so just ask each candidate.
+        int count = 0;
+        final int[] result = new int[versions.length];
+        for ( int i = 0; i < versions.length; i++ )
+        {
+            if ( spec.contains( versions[i] ) )
+            {
+                result[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf( result, count );
+    }
+
+    /**
+     * Mirrors {@link RangeVersionSpec#contains(VersionSpec)} for single versions. Each bound check is monotonic over
+     * the sorted array, so the candidates passing both form one run; on top of that, an inclusive snapshot bound
+     * short-circuits to accept any snapshot (for the upper bound, only those that passed the lower check).
+     */
+    private int[] rangePositions( final RangeVersionSpec range )
+    {
+        final SingleVersion lower = range.getLowerBound();
+        final SingleVersion upper = range.getUpperBound();
+
+        if ( lower != null && range.isLowerBoundInclusive() && lower.isSnapshot() )
+        {
+            final int to = upper == null ? versions.length : upperEnd( upper, range.isUpperBoundInclusive() );
+            return union( run( lowerStart( lower, true ), to ), snapshots );
+        }
+
+        final int from = lower == null ? 0 : lowerStart( lower, range.isLowerBoundInclusive() );
+        if ( upper == null )
+        {
+            return run( from, versions.length );
+        }
+
+        final int[] bounded = run( from, upperEnd( upper, range.isUpperBoundInclusive() ) );
+        if ( range.isUpperBoundInclusive() && upper.isSnapshot() )
+        {
+            int first = Arrays.binarySearch( snapshots, from );
+            first = first < 0 ? -first - 1 : first;
+            return union( bounded, Arrays.copyOfRange( snapshots, first, snapshots.length ) );
+        }
+
+        return bounded;
+    }
+
+    // first position at or above (or strictly above) the bound
+    private int lowerStart( final SingleVersion bound, final boolean inclusive )
+    {
+        return search( bound, inclusive ? 0 : 1 );
+    }
+
+    // first position strictly above (or at or above) the bound
+    private int upperEnd( final SingleVersion bound, final boolean inclusive )
+    {
+        return search( bound, inclusive ? 1 : 0 );
+    }
+
+    /**
+     * @return the first position whose version compares to the bound as >= threshold, ie. with threshold 0 the first
+     * one not below the bound and with threshold 1 the first one above it.
+     */
+    private int search( final SingleVersion bound, final int threshold )
+    {
+        int low = 0;
+        int high = versions.length;
+        while ( low < high )
+        {
+            final int mid = ( low + high ) >>> 1;
+            if ( VersionSpecComparisons.compareSingleToSingle( versions[mid], bound ) < threshold )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private static int[] run( final int from, final int to )
+    {
+        if ( to <= from )
+        {
+            return NO_POSITIONS;
+        }
+
+        final int[] result = new int[to - from];
+        for ( int i = 0; i < result.length; i++ )
+        {
+            result[i] = from + i;
+        }
+
+        return result;
+    }
+
+    // merge of two ascending position arrays, without duplicates
+    private static int[] union( final int[] a, final int[] b )
+    {
+        if ( a.length == 0 )
+        {
+            return b;
+        }
+        else if ( b.length == 0 )
+        {
+            return a;
+        }
+
+        final int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while ( i < a.length || j < b.length )
+        {
+            if ( j == b.length || ( i < a.length && a[i] < b[j] ) )
+            {
+                result[count++] = a[i++];
+            }
+            else if ( i == a.length || b[j] < a[i] )
+            {
+                result[count++] = b[j++];
+            }
+            else
+            {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+
+        return count == result.length ? result : Arrays.copyOf( result, count );
+    }
+
+    private final class Matches
+        extends AbstractList<SingleVersion>
+    {
+        // null means everything
+        private final int[] positions;
+
+        private Matches( final int[] positions )
+        {
+            this.positions = positions;
+        }
+
+        @Override
+        public SingleVersion get( final int index )
+        {
+            if ( positions == null )
+            {
+                return versions[index];
+            }
+
+            return versions[positions[index]];
+        }
+
+        @Override
+        public int size()
+        {
+            return positions == null ? versions.length : positions.length;
+        }
+    }
+
+}
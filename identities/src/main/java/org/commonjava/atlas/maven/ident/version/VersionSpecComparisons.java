@@ -304,7 +304,19 @@ public final class VersionSpecComparisons
         }
     }
 
-    private static int compareSingleToSingle( final SingleVersion first, final SingleVersion second )
+    static int compareSingleToSingle( final SingleVersion first, final SingleVersion second )
+    {
+        final SingleVersionKey fk = first.getComparisonKey();
+        final SingleVersionKey sk = second.getComparisonKey();
+        if ( fk != null && sk != null )
+        {
+            return SingleVersionKey.compare( fk, sk );
+        }
+
+        return compareSingleToSingleByPhrases( first, second );
+    }
+
+    static int compareSingleToSingleByPhrases( final SingleVersion first, final SingleVersion second )
     {
         final int comp = comparePhrasesToPhrases( first.getVersionPhrases(), second.getVersionPhrases() );
 
@@ -15,9 +15,17 @@
  */
 package org.commonjava.atlas.maven.ident.version.part;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.math.BigInteger;
 
+/**
+ * Numeric version segment. Values are held as a primitive long; only segments too big for that (long date-like build
+ * numbers, for instance) are promoted to {@link BigInteger}.
+ */
 public class NumericPart
     extends VersionPart
     implements Serializable
@@ -25,35 +33,86 @@ public class NumericPart
 
     private static final long serialVersionUID = 1L;
 
+    // keep the serialized form from when the value was always a BigInteger.
+    private static final ObjectStreamField[] serialPersistentFields =
+        { new ObjectStreamField( "value", BigInteger.class ) };
+
     public static final NumericPart ZERO = new NumericPart( 0 );
 
-    private final BigInteger value;
+    private transient long value;
+
+    // only set when the value doesn't fit in a long.
+    private transient BigInteger bigValue;
 
     public NumericPart( final String value )
     {
-        this.value = BigInteger.valueOf( Long.parseLong( value ) );
+        long v = 0;
+        BigInteger big = null;
+        try
+        {
+            v = Long.parseLong( value );
+        }
+        catch ( final NumberFormatException e )
+        {
+            // still throws for anything that isn't a number at all.
+            big = new BigInteger( value );
+        }
+
+        this.value = v;
+        this.bigValue = big;
     }
 
     public NumericPart( final long value )
     {
-        this.value = BigInteger.valueOf( value );
+        this.value = value;
+    }
+
+    public NumericPart( final BigInteger value )
+    {
+        setValue( value );
+    }
+
+    private void setValue( final BigInteger value )
+    {
+        if ( value.bitLength() < Long.SIZE )
+        {
+            this.value = value.longValue();
+            this.bigValue = null;
+        }
+        else
+        {
+            this.bigValue = value;
+        }
     }
 
     @Override
     public String renderStandard()
     {
-        return value.toString();
+        return bigValue == null ? Long.toString( value ) : bigValue.toString();
     }
 
     public BigInteger getValue()
     {
-        return value;
+        return bigValue == null ? BigInteger.valueOf( value ) : bigValue;
+    }
+
+    /**
+     * @return true if the value fits in a long, which means {@link #longValue()} is exact.
+     */
+    public boolean isLongValue()
+    {
+        return bigValue == null;
+    }
+
+    public long longValue()
+    {
+        return bigValue == null ? value : bigValue.longValue();
     }
 
     @Override
     public String toString()
     {
-        return String.format( "NUM[%s]", value );
+        return String.format( "NUM[%s]", renderStandard() );
     }
 
     public int compareTo( final VersionPart part )
@@ -71,8 +130,13 @@ public class NumericPart
         }
         else if ( part instanceof NumericPart )
         {
-            final BigInteger other = ( (NumericPart) part ).getValue();
-            return value.compareTo( other );
+            final NumericPart other = (NumericPart) part;
+            if ( bigValue == null && other.bigValue == null )
+            {
+                return Long.compare( value, other.value );
+            }
+
+            return getValue().compareTo( other.getValue() );
         }
 
         // punt...shouldn't happen.
@@ -84,10 +148,23 @@ public class NumericPart
     {
         final int prime = 31;
         int result = 1;
-        result = prime * result + value.hashCode();
+        result = prime * result + valueHashCode();
         return result;
     }
 
+    // Same as getValue().hashCode(), without creating the BigInteger.
+    private int valueHashCode()
+    {
+        if ( bigValue != null || value < 0 )
+        {
+            return getValue().hashCode();
+        }
+
+        final int hi = (int) ( value >>> 32 );
+        final int lo = (int) value;
+        return hi == 0 ? lo : 31 * hi + lo;
+    }
+
     @Override
     public boolean equals( final Object obj )
     {
@@ -104,7 +181,27 @@ public class NumericPart
             return false;
         }
         final NumericPart other = (NumericPart) obj;
-        return value.equals( other.value );
+        if ( bigValue == null )
+        {
+            return other.bigValue == null && value == other.value;
+        }
+
+        return bigValue.equals( other.bigValue );
+    }
+
+    private void writeObject( final ObjectOutputStream out )
+        throws IOException
+    {
+        final ObjectOutputStream.PutField fields = out.putFields();
+        fields.put( "value", getValue() );
+        out.writeFields();
+    }
+
+    private void readObject( final ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        final ObjectInputStream.GetField fields = in.readFields();
+        setValue( (BigInteger) fields.get( "value", BigInteger.ZERO ) );
     }
 
 }
@@ -15,13 +15,20 @@
  */
 package org.commonjava.atlas.maven.ident.version.part;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Alphabetic version segment. Known markers (and their aliases) are resolved to their ordering position once, at
+ * construction, through a small case-insensitive lookup table that doesn't allocate. Use {@link #valueOf(String)} to
+ * share instances for qualifiers that keep turning up.
+ */
 public class StringPart
     extends VersionPart
     implements Serializable
@@ -29,79 +36,97 @@ public class StringPart
 
     private static final long serialVersionUID = 1L;
 
+    // keep the serialized form from when the index was boxed.
+    private static final ObjectStreamField[] serialPersistentFields =
+        { new ObjectStreamField( "value", String.class ), new ObjectStreamField( "zeroCompareIndex", Integer.class ) };
+
     private static final String ZERO_EQUIV = "";
 
     private static final String RANDOM_STRING_EQUIV = "_random";
 
-    private static final List<String> MARKER_ORDER = new ArrayList<String>()
-    {
-        private static final long serialVersionUID = 1L;
+    private static final String[] MARKER_ORDER =
+        { "PREVIEW", "MILESTONE", "ALPHA", "BETA", "RC", ZERO_EQUIV, "SP", RANDOM_STRING_EQUIV };
 
-        {
-            add( "PREVIEW" );
-            add( "MILESTONE" );
-            add( "ALPHA" );
-            add( "BETA" );
-            add( "RC" );
-            add( ZERO_EQUIV );
-            add( "SP" );
-            add( RANDOM_STRING_EQUIV );
-        }
-    };
+    private static final int ZERO_EQUIV_INDEX = indexOf( ZERO_EQUIV );
+
+    public static final int ADJ_ZERO_EQUIV_INDEX = ZERO_EQUIV_INDEX - MARKER_ORDER.length;
+
+    private static final int RANDOM_STRING_EQUIV_INDEX = indexOf( RANDOM_STRING_EQUIV );
+
+    public static final int ADJ_RANDOM_STRING_EQUIV_INDEX = RANDOM_STRING_EQUIV_INDEX - MARKER_ORDER.length;
 
-    private static final int ZERO_EQUIV_INDEX = MARKER_ORDER.indexOf( ZERO_EQUIV );
+    // alias, marker pairs
+    private static final String[][] ALIASES = {
+        { "PRE", "PREVIEW" },
+        { "M", "MILESTONE" },
+        { "A", "ALPHA" },
+        { "B", "BETA" },
+        { "CR", "RC" }, // candidate for release == release candidate
+        { "GA", ZERO_EQUIV },
+        { "FINAL", ZERO_EQUIV },
+        { "CP", "SP" } // cumulative patch == service pack
+    };
 
-    public static final int ADJ_ZERO_EQUIV_INDEX = ZERO_EQUIV_INDEX - MARKER_ORDER.size();
+    // open-addressed table of every marker and alias (upper-case), hashed on length and first / last characters.
+    private static final int TABLE_SIZE = 64;
 
-    private static final int RANDOM_STRING_EQUIV_INDEX = MARKER_ORDER.indexOf( RANDOM_STRING_EQUIV );
+    private static final String[] TABLE_KEYS = new String[TABLE_SIZE];
 
-    public static final int ADJ_RANDOM_STRING_EQUIV_INDEX = RANDOM_STRING_EQUIV_INDEX - MARKER_ORDER.size();
+    private static final int[] TABLE_INDEXES = new int[TABLE_SIZE];
 
-    private static final Map<String, String> ALIASES = new HashMap<String, String>()
+    static
     {
-        private static final long serialVersionUID = 1L;
+        for ( int i = 0; i < MARKER_ORDER.length; i++ )
+        {
+            if ( i != RANDOM_STRING_EQUIV_INDEX )
+            {
+                addMarker( MARKER_ORDER[i], i - MARKER_ORDER.length );
+            }
+        }
 
+        for ( final String[] alias : ALIASES )
         {
-            put( "PRE", "PREVIEW" );
-            put( "M", "MILESTONE" );
-            put( "A", "ALPHA" );
-            put( "B", "BETA" );
-            put( "CR", "RC" ); // candidate for release == release candidate
-            put( "GA", ZERO_EQUIV );
-            put( "FINAL", ZERO_EQUIV );
-            put( "CP", "SP" ); // cumulative patch == service pack
+            addMarker( alias[0], indexOf( alias[1] ) - MARKER_ORDER.length );
         }
+    }
 
-    };
+    private static final int CANONICAL_LIMIT = 4096;
+
+    private static final ConcurrentMap<String, StringPart> CANONICAL = new ConcurrentHashMap<String, StringPart>();
 
-    private final String value;
+    private transient String value;
 
-    private final Integer zeroCompareIndex;
+    private transient int zeroCompareIndex;
 
     public StringPart( final String value )
     {
         this.value = value;
-        String uc = value.toUpperCase();
-        if ( ALIASES.containsKey( uc ) )
-        {
-            uc = ALIASES.get( uc );
-        }
-
-        int idx = MARKER_ORDER.indexOf( uc );
 
         // if this isn't a standard marker, it always sorts AFTER a zero-equivalent segment.
-        // otherwise, compare the standard marker's position releative to the zero placeholder in the marker-order list.
-        if ( idx > -1 )
+        // otherwise, its index is the standard marker's position relative to the end of the marker-order list.
+        this.zeroCompareIndex = lookupIndex( value );
+    }
+
+    /**
+     * Shared instance for the given value, where that's safe. Zero-equivalent parts ('', 'GA', 'final') may be marked
+     * silent by the phrase they end up in, so those are always new instances; anything else is immutable once built.
+     */
+    public static StringPart valueOf( final String value )
+    {
+        StringPart part = CANONICAL.get( value );
+        if ( part != null )
         {
-            // now, adjust to make sure all values are negative.
-            idx -= MARKER_ORDER.size();
+            return part;
         }
-        else
+
+        part = new StringPart( value );
+        if ( part.zeroCompareIndex == ADJ_ZERO_EQUIV_INDEX || CANONICAL.size() >= CANONICAL_LIMIT )
         {
-            idx = ADJ_RANDOM_STRING_EQUIV_INDEX;
+            return part;
         }
 
-        zeroCompareIndex = idx;
+        final StringPart existing = CANONICAL.putIfAbsent( value, part );
+        return existing == null ? part : existing;
     }
 
     public boolean isMarker()
@@ -109,7 +134,7 @@ public class StringPart
         return zeroCompareIndex != ADJ_RANDOM_STRING_EQUIV_INDEX;
     }
 
-    public Integer getZeroCompareIndex()
+    public int getZeroCompareIndex()
     {
         return zeroCompareIndex;
     }
@@ -136,9 +161,7 @@ public class StringPart
     {
         if ( part instanceof SnapshotPart )
         {
-            final Integer idx = zeroCompareIndex == null ? 1 : zeroCompareIndex;
-
-            return idx.compareTo( ADJ_ZERO_EQUIV_INDEX );
+            return Integer.compare( zeroCompareIndex, ADJ_ZERO_EQUIV_INDEX );
         }
         else if ( part instanceof NumericPart )
         {
@@ -148,17 +171,15 @@ public class StringPart
             }
             else
             {
-                final Integer idx = zeroCompareIndex == null ? 1 : zeroCompareIndex;
-
-                return idx.compareTo( ADJ_ZERO_EQUIV_INDEX );
+                return Integer.compare( zeroCompareIndex, ADJ_ZERO_EQUIV_INDEX );
             }
         }
         else if ( part instanceof StringPart )
         {
             final StringPart otherStr = (StringPart) part;
 
-            final Integer zci = zeroCompareIndex;
-            final Integer ozci = otherStr.getZeroCompareIndex();
+            final int zci = zeroCompareIndex;
+            final int ozci = otherStr.getZeroCompareIndex();
 
             if ( zci == ADJ_RANDOM_STRING_EQUIV_INDEX && ozci == ADJ_RANDOM_STRING_EQUIV_INDEX )
             {
@@ -167,12 +188,7 @@ public class StringPart
                                                 .toLowerCase( Locale.ENGLISH ) );
             }
 
-            return zci.compareTo( ozci );
-        }
-        // 1.2-foo > 1.2-SNAPSHOT
-        else if ( part instanceof SnapshotPart )
-        {
-            return 1;
+            return Integer.compare( zci, ozci );
         }
 
         // punt...shouldn't happen.
@@ -186,7 +202,7 @@ public class StringPart
         int result = 1;
         // result = prime * result + ( ( value == null ) ? 0 : value.toLowerCase()
         // .hashCode() );
-        result = prime * result + ( ( zeroCompareIndex == null ) ? 0 : zeroCompareIndex.hashCode() );
+        result = prime * result + zeroCompareIndex;
         return result;
     }
 
@@ -207,8 +223,8 @@ public class StringPart
         }
         final StringPart other = (StringPart) obj;
 
-        final Integer zci = zeroCompareIndex;
-        final Integer ozci = other.getZeroCompareIndex();
+        final int zci = zeroCompareIndex;
+        final int ozci = other.getZeroCompareIndex();
 
         if ( zci == ADJ_RANDOM_STRING_EQUIV_INDEX && ozci == ADJ_RANDOM_STRING_EQUIV_INDEX )
         {
@@ -225,7 +241,98 @@ public class StringPart
                                       .toLowerCase( Locale.ENGLISH ) );
         }
 
-        return zci.equals( ozci );
+        return zci == ozci;
+    }
+
+    private static int indexOf( final String marker )
+    {
+        for ( int i = 0; i < MARKER_ORDER.length; i++ )
+        {
+            if ( MARKER_ORDER[i].equals( marker ) )
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static void addMarker( final String key, final int index )
+    {
+        int slot = slot( key );
+        while ( TABLE_KEYS[slot] != null )
+        {
+            slot = ( slot + 1 ) & ( TABLE_SIZE - 1 );
+        }
+
+        TABLE_KEYS[slot] = key;
+        TABLE_INDEXES[slot] = index;
+    }
+
+    private static int lookupIndex( final String value )
+    {
+        int slot = slot( value );
+        String key;
+        while ( ( key = TABLE_KEYS[slot] ) != null )
+        {
+            if ( matchesUpperCase( key, value ) )
+            {
+                return TABLE_INDEXES[slot];
+            }
+
+            slot = ( slot + 1 ) & ( TABLE_SIZE - 1 );
+        }
+
+        return ADJ_RANDOM_STRING_EQUIV_INDEX;
+    }
+
+    private static int slot( final String value )
+    {
+        final int len = value.length();
+        if ( len == 0 )
+        {
+            return 0;
+        }
+
+        final int h = ( len * 31 + Character.toUpperCase( value.charAt( 0 ) ) ) * 31
+            + Character.toUpperCase( value.charAt( len - 1 ) );
+
+        return ( h ^ ( h >>> 6 ) ) & ( TABLE_SIZE - 1 );
+    }
+
+    private static boolean matchesUpperCase( final String key, final String value )
+    {
+        if ( key.length() != value.length() )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < key.length(); i++ )
+        {
+            if ( Character.toUpperCase( value.charAt( i ) ) != key.charAt( i ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void writeObject( final ObjectOutputStream out )
+        throws IOException
+    {
+        final ObjectOutputStream.PutField fields = out.putFields();
+        fields.put( "value", value );
+        fields.put( "zeroCompareIndex", Integer.valueOf( zeroCompareIndex ) );
+        out.writeFields();
+    }
+
+    private void readObject( final ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        final ObjectInputStream.GetField fields = in.readFields();
+        value = (String) fields.get( "value", null );
+        zeroCompareIndex = lookupIndex( value );
     }
 
 }
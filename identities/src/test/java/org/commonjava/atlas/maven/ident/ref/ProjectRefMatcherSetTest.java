@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.ref;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ProjectRefMatcherSetTest
+{
+
+    @Test
+    public void findsSameMatchesAsCheckingEachPattern()
+    {
+        final List<ProjectRef> patterns = new ArrayList<ProjectRef>();
+        for ( final String gp : ProjectRefMatcherTest.GROUP_PATTERNS )
+        {
+            for ( final String ap : ProjectRefMatcherTest.ARTIFACT_PATTERNS )
+            {
+                patterns.add( new SimpleProjectRef( gp, ap ) );
+            }
+        }
+
+        final ProjectRefMatcherSet set = new ProjectRefMatcherSet( patterns );
+        assertThat( set.size(), equalTo( patterns.size() ) );
+
+        for ( final String g : ProjectRefMatcherTest.GROUPS )
+        {
+            for ( final String a : ProjectRefMatcherTest.ARTIFACTS )
+            {
+                final ProjectRef ref = new SimpleProjectRef( g, a );
+
+                final List<ProjectRef> expected = new ArrayList<ProjectRef>();
+                for ( final ProjectRef pattern : patterns )
+                {
+                    if ( pattern.matches( ref ) )
+                    {
+                        expected.add( pattern );
+                    }
+                }
+
+                assertThat( ref.toString(), set.findMatches( ref ), equalTo( expected ) );
+                assertThat( ref.toString(), set.matchesAny( ref ), equalTo( !expected.isEmpty() ) );
+            }
+        }
+    }
+
+    @Test
+    public void keepsPatternOrder()
+    {
+        final ProjectRef all = new SimpleProjectRef( "*", "*" );
+        final ProjectRef plugins = new SimpleProjectRef( "org.apache.maven.plugins", "*" );
+        final ProjectRef apache = new SimpleProjectRef( "org.apache.*", "*" );
+        final ProjectRefMatcherSet set = new ProjectRefMatcherSet( Arrays.asList( plugins, all, apache ) );
+
+        assertThat( set.findMatches( new SimpleProjectRef( "org.apache.maven.plugins", "maven-jar-plugin" ) ),
+                    equalTo( Arrays.asList( plugins, all, apache ) ) );
+        assertThat( set.findMatches( new SimpleProjectRef( "com.foo", "bar" ) ),
+                    equalTo( Collections.singletonList( all ) ) );
+    }
+
+    @Test
+    public void emptySetMatchesNothing()
+    {
+        final ProjectRefMatcherSet set = new ProjectRefMatcherSet( Collections.<ProjectRef> emptyList() );
+
+        assertThat( set.matchesAny( new SimpleProjectRef( "org.foo", "bar" ) ), equalTo( false ) );
+        assertThat( set.findMatches( new SimpleProjectRef( "org.foo", "bar" ) ).isEmpty(), equalTo( true ) );
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.ref;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ProjectRefMatcherTest
+{
+
+    static final String[] GROUP_PATTERNS = { "org.foo", "org.foo.*", "org.*", "*", "**", "*.foo", "*foo*", "org.*.bar",
+        "org.*.*", "*.apache.*.plugins", "org.apache.maven.plugins", "com.*", "o*g*o", "org.foo*bar", "org..foo",
+        "org.(foo|bar)", "org.foo+", "^org.*$", "x?y", "org.f[o]o", "\\Qorg.foo\\E", "org\nfoo", "." };
+
+    static final String[] ARTIFACT_PATTERNS = { "bar", "*", "bar-*", "*-plugin", "*maven*", "b.r", "bar+", "b*r*z" };
+
+    static final String[] GROUPS = { "org.foo", "orgXfoo", "org.foo.bar", "org.foo.baz.bar", "org", "org.", ".foo",
+        "foo", "com.foo", "org.apache.maven.plugins", "org.apache.felix.plugins", "orgfoo", "org.foobar", "org.foo+",
+        "org.fooo", "xy", "y", "org.bar", "org\nfoo", "org.foo\n", "o\ng", "x", "org.fo", "oooggo" };
+
+    static final String[] ARTIFACTS = { "bar", "bar-api", "maven-jar-plugin", "bxr", "barr", "bar+", "baz", "b\nr",
+        "brz", "bz" };
+
+    @Test
+    public void matcherAgreesWithRegexMatching()
+    {
+        for ( final String gp : GROUP_PATTERNS )
+        {
+            for ( final String ap : ARTIFACT_PATTERNS )
+            {
+                final ProjectRef pattern = new SimpleProjectRef( gp, ap );
+                final ProjectRefMatcher matcher = new ProjectRefMatcher( pattern );
+
+                for ( final String g : GROUPS )
+                {
+                    for ( final String a : ARTIFACTS )
+                    {
+                        final ProjectRef ref = new SimpleProjectRef( g, a );
+                        final boolean expected = regexMatches( pattern, ref );
+                        final String label = pattern + " vs " + g + ":" + a;
+
+                        assertThat( label, matcher.matches( ref ), equalTo( expected ) );
+                        assertThat( label, pattern.matches( ref ), equalTo( expected ) );
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parseGA()
+    {
+        final ProjectRefMatcher matcher = ProjectRefMatcher.parse( "org.apache.*:maven-*-plugin" );
+
+        assertThat( matcher.matches( new SimpleProjectRef( "org.apache.maven.plugins", "maven-jar-plugin" ) ),
+                    equalTo( true ) );
+        assertThat( matcher.matches( new SimpleProjectVersionRef( "org.apache.maven", "maven-core", "3.0" ) ),
+                    equalTo( false ) );
+    }
+
+    /**
+     * The implementation SimpleProjectRef.matches(..) used to have.
+     */
+    static boolean regexMatches( final ProjectRef pattern, final ProjectRef ref )
+    {
+        if ( pattern.equals( ref ) )
+        {
+            return true;
+        }
+
+        if ( !ref.getGroupId().matches( toWildcard( pattern.getGroupId() ) ) )
+        {
+            return false;
+        }
+
+        return ref.getArtifactId().matches( toWildcard( pattern.getArtifactId() ) );
+    }
+
+    private static String toWildcard( final String val )
+    {
+        return val.replaceAll( "\\.", "\\." ).replaceAll( "\\*", ".*" );
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.ref;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.ref.WeakReference;
+
+import org.commonjava.atlas.maven.ident.util.IdentityUtils;
+import org.junit.After;
+import org.junit.Test;
+
+public class ProjectRefPoolTest
+{
+
+    @After
+    public void resetPool()
+    {
+        ProjectRefPool.setDefaultPool( null );
+    }
+
+    @Test
+    public void disabledByDefault()
+    {
+        assertThat( ProjectRefPool.getDefaultPool(), nullValue() );
+        assertThat( SimpleProjectRef.parse( "org.foo:bar" ),
+                    not( sameInstance( SimpleProjectRef.parse( "org.foo:bar" ) ) ) );
+    }
+
+    @Test
+    public void parseReturnsPooledInstances()
+    {
+        ProjectRefPool.setDefaultPool( new ProjectRefPool() );
+
+        assertThat( SimpleProjectRef.parse( "org.foo:bar" ), sameInstance( SimpleProjectRef.parse( "org.foo:bar" ) ) );
+        assertThat( SimpleProjectVersionRef.parse( "org.foo:bar:1.0" ),
+                    sameInstance( SimpleProjectVersionRef.parse( "org.foo:bar:1.0" ) ) );
+        assertThat( SimpleArtifactRef.parse( "org.foo:bar:jar:1.0:tests" ),
+                    sameInstance( SimpleArtifactRef.parse( "org.foo:bar:jar:1.0:tests" ) ) );
+        assertThat( IdentityUtils.projectVersion( "org.foo:bar:1.0" ),
+                    sameInstance( SimpleProjectVersionRef.parse( "org.foo:bar:1.0" ) ) );
+        assertThat( IdentityUtils.project( "org.foo:bar" ), sameInstance( SimpleProjectRef.parse( "org.foo:bar" ) ) );
+    }
+
+    @Test
+    public void componentStringsAreShared()
+    {
+        final ProjectRefPool pool = new ProjectRefPool();
+
+        final ProjectVersionRef first = pool.projectVersionRef( new String( "org.foo" ), "bar", "1.0" );
+        final ArtifactRef second = pool.artifactRef( new String( "org.foo" ), "baz", new String( "1.0" ), "jar", null );
+        final ProjectRef third = pool.intern( new SimpleProjectRef( new String( "org.foo" ), "bar" ) );
+
+        assertThat( second.getGroupId(), sameInstance( first.getGroupId() ) );
+        assertThat( second.getVersionString(), sameInstance( first.getVersionString() ) );
+        assertThat( third.getGroupId(), sameInstance( first.getGroupId() ) );
+    }
+
+    @Test
+    public void refTypesArePooledSeparately()
+    {
+        final ProjectRefPool pool = new ProjectRefPool();
+
+        final ProjectVersionRef pvr = pool.projectVersionRef( "org.foo", "bar", "1.0" );
+        final ArtifactRef pom = pool.artifactRef( "org.foo", "bar", "1.0", "pom", null );
+        final ArtifactRef jar = pool.artifactRef( "org.foo", "bar", "1.0", "jar", null );
+
+        assertThat( pom.getClass().equals( SimpleArtifactRef.class ), equalTo( true ) );
+        assertThat( pvr.getClass().equals( SimpleProjectVersionRef.class ), equalTo( true ) );
+        assertThat( jar, not( sameInstance( pom ) ) );
+        assertThat( jar.getType(), equalTo( "jar" ) );
+        assertThat( pool.projectRef( "org.foo", "bar" ).getClass().equals( SimpleProjectRef.class ), equalTo( true ) );
+    }
+
+    @Test
+    public void equalVersionsWithDifferentRenderingAreNotMerged()
+    {
+        final ProjectRefPool pool = new ProjectRefPool();
+
+        final ProjectVersionRef shortForm = pool.projectVersionRef( "org.foo", "bar", "1.0" );
+        final ProjectVersionRef longForm = pool.projectVersionRef( "org.foo", "bar", "1.0.0" );
+
+        assertThat( longForm, equalTo( shortForm ) );
+        assertThat( longForm.getVersionString(), equalTo( "1.0.0" ) );
+    }
+
+    @Test
+    public void otherImplementationsPassThrough()
+    {
+        final ProjectRefPool pool = new ProjectRefPool();
+        final VersionlessArtifactRef ref = new SimpleVersionlessArtifactRef( "org.foo", "bar", "jar", null );
+
+        assertThat( pool.intern( ref ), sameInstance( ref ) );
+        assertThat( pool.intern( (ProjectRef) null ), nullValue() );
+        assertThat( pool.intern( (String) null ), nullValue() );
+    }
+
+    @Test
+    public void unusedEntriesAreReleased()
+        throws Exception
+    {
+        final ProjectRefPool pool = new ProjectRefPool();
+
+        // literals are strongly reachable from the constant pool, so use copies.
+        final WeakReference<ProjectVersionRef> ref = new WeakReference<ProjectVersionRef>(
+            pool.projectVersionRef( new String( "org.foo" ), new String( "bar" ), new String( "1.0" ) ) );
+
+        // cleared entries are only purged once the collector enqueues them, which can lag a bit.
+        for ( int i = 0; i < 50 && ( ref.get() != null || pool.size() > 0 ); i++ )
+        {
+            System.gc();
+            Thread.sleep( 10 );
+        }
+
+        assertThat( ref.get(), nullValue() );
+        assertThat( pool.size(), equalTo( 0 ) );
+    }
+
+    @Test
+    public void survivesGrowth()
+    {
+        final ProjectRefPool pool = new ProjectRefPool();
+        final ProjectVersionRef[] refs = new ProjectVersionRef[5000];
+        for ( int i = 0; i < refs.length; i++ )
+        {
+            refs[i] = pool.projectVersionRef( "org.foo", "bar" + i, "1." + i );
+        }
+
+        for ( int i = 0; i < refs.length; i++ )
+        {
+            assertThat( pool.projectVersionRef( "org.foo", "bar" + i, "1." + i ), sameInstance( refs[i] ) );
+        }
+    }
+
+}
@@ -19,12 +19,17 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
 import org.commonjava.atlas.maven.ident.version.InvalidVersionSpecificationException;
 import org.commonjava.atlas.maven.ident.version.VersionSpec;
 import org.commonjava.atlas.maven.ident.version.part.VersionPhrase;
@@ -54,6 +59,30 @@ public class ProjectVersionRefTest
         assertThat( ref1.hashCode(), equalTo( ref2.hashCode() ) );
     }
 
+    @Test
+    public void cachedHashCodeMatchesFields()
+        throws Exception
+    {
+        final ProjectVersionRef ref = new SimpleProjectVersionRef( "org.foo", "bar", "1.1.1-baz-1" );
+        final int expected = 31 * new SimpleProjectRef( "org.foo", "bar" ).hashCode() + "1.1.1-baz-1".hashCode();
+
+        assertThat( ref.hashCode(), equalTo( expected ) );
+        assertThat( ref.hashCode(), equalTo( expected ) );
+
+        // built from a parsed spec, the version string is rendered lazily.
+        final ProjectVersionRef fromSpec =
+            new SimpleProjectVersionRef( "org.foo", "bar", VersionUtils.createFromSpec( "1.1.1-baz-1" ) );
+        assertThat( fromSpec.hashCode(), equalTo( expected ) );
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final ObjectOutputStream oos = new ObjectOutputStream( baos );
+        oos.writeObject( ref );
+        oos.close();
+
+        final Object result = new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) ).readObject();
+        assertThat( result.hashCode(), equalTo( expected ) );
+    }
+
     @Test
     public void objectEquality()
         throws InvalidVersionSpecificationException
@@ -66,6 +66,19 @@ public class SimpleArtifactRefTest
         assertThat( ar.getClassifier(), nullValue() );
     }
 
+    @Test
+    public void cachedHashCodeIncludesTypeAndClassifier()
+    {
+        final ProjectVersionRef pvr = new SimpleProjectVersionRef( "org.foo", "bar", "1.0" );
+        final ArtifactRef jar = new SimpleArtifactRef( pvr, "jar", null );
+        final ArtifactRef sources = new SimpleArtifactRef( pvr, "jar", "sources" );
+
+        assertThat( jar.hashCode(), equalTo( 31 * pvr.hashCode() + new SimpleTypeAndClassifier( "jar" ).hashCode() ) );
+        assertThat( sources.hashCode(),
+                    equalTo( 31 * pvr.hashCode() + new SimpleTypeAndClassifier( "jar", "sources" ).hashCode() ) );
+        assertThat( SimpleArtifactRef.parse( "org.foo:bar:jar:1.0:sources" ).hashCode(), equalTo( sources.hashCode() ) );
+    }
+
     @Test
     public void parseGATVC()
     {
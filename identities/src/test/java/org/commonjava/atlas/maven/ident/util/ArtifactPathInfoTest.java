@@ -24,6 +24,8 @@ import org.commonjava.atlas.maven.ident.version.part.SnapshotPart;
 import org.junit.Test;
 
 import java.text.SimpleDateFormat;
+import java.util.Random;
+import java.util.TimeZone;
 
 public class ArtifactPathInfoTest
 {
@@ -128,7 +130,9 @@ public class ArtifactPathInfoTest
         assertEquals( "0.10.4-20160229.212037-2", snap.getValue() );
         assertEquals( "0.10.4-20160229.212037-2", snap.getLiteral() );
         assertEquals( 2, snap.getBuildNumber() );
-        assertEquals( "20160229", new SimpleDateFormat( "yyyyMMdd" ).format( snap.getTimestamp() ) );
+        final SimpleDateFormat day = new SimpleDateFormat( "yyyyMMdd" );
+        day.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
+        assertEquals( "20160229", day.format( snap.getTimestamp() ) );
     }
 
     @Test
@@ -168,6 +172,7 @@ public class ArtifactPathInfoTest
     @Test
     public void matchCompoundExtTypes2(){
         System.setProperty("atlas.compoext.types", "a.b.c, x.y.z");
+        ArtifactPathInfo.reloadCompoundExtensionTypes();
 
         String path =
                 "/com/example/example-artifact/1.0.0.redhat-00001/example-artifact-1.0.0.redhat-00001-x.y.z.tar";
@@ -240,4 +245,67 @@ public class ArtifactPathInfoTest
         assertThat( pathInfo.getType(), equalTo( "jar.sha512" ) );
     }
 
+    @Test
+    public void splitterMatchesRegex()
+    {
+        final String[] paths = { "/path/to/unsigner-maven-plugin/0.2-SNAPSHOT/unsigner-maven-plugin-0.2-20120307.200227-1.jar",
+                "/path/to/unsigner-maven-plugin/0.2-SNAPSHOT/unsigner-maven-plugin-0.2-SNAPSHOT.jar",
+                "/org/apache/commons/commons-lang3/3.0.0/commons-lang3-3.0.0-test.tar.gz", "g/a/1.0/a-1.0.jar",
+                "g/a/1.0/a-1.0", "g/a/1.0/a-1.0-", "g/a/1.0/a-1.0--", "g/a/1.0/a-1.0.1.jar", "/a/1.0/a-1.0.jar",
+                "//g/a/1.0/a-1.0.jar", "g//a/1.0/a-1.0.jar", "g/a//a-.jar", "g/a/1.0/", "g/a/1.0/a-1.0.jar/x",
+                "g/a/1.0-SNAPSHOT/a-1.0-20150101.123456-12", "g/a/1.0-SNAPSHOT/a-1.0-20150101.123456-1",
+                "g/a/1.0-SNAPSHOT/a-1.0-20150101x123456-1-sources.jar", "g/a/1.0-SNAPSHOT/a-1.0-SNAPSHOT",
+                "g/a/1.0-SNAPSHOT/a-1.0-SNAPSHOT-20150101.123456-1.pom", "g/a/-SNAPSHOT/a--20150101.123456-1.pom",
+                "g/a/1.0-SNAPSHOT/a-1.0-20150101.123456-1-", "g/a/1.0-SNAPSHOT/a-1.0-20150101.123456--1.pom",
+                "g\\a\\1.0\\a-1.0.jar", "g/a/1.0/b-1.0.jar", "g/a/1.0/a1.0.jar" };
+
+        for ( final String path : paths )
+        {
+            assertSplitMatchesRegex( path.replace( '\\', '/' ) );
+        }
+
+        // structured random paths, built from fragments that exercise the snapshot alternatives.
+        final String[] fragments = { "a", "b", "-", "-", ".", "/", "1", "0", "20150101", "123456", ".", "-SNAPSHOT",
+                "SNAPSHOT", "jar", "x" };
+        final Random random = new Random( 20120307L );
+        for ( int i = 0; i < 50000; i++ )
+        {
+            final String artifact = randomString( random, fragments, 2 );
+            final String version = randomString( random, fragments, 3 );
+            final String tail = randomString( random, fragments, 4 );
+            final String path = randomString( random, fragments, 2 ) + "/" + artifact + "/" + version + "/" + artifact
+                    + "-" + ( random.nextBoolean() ? version : version.replace( "-SNAPSHOT", "" ) ) + tail;
+
+            assertSplitMatchesRegex( path );
+        }
+
+        // the splitter doesn't handle these, they go to the regex.
+        assertThat( ArtifactPathInfo.parse( "g/a/1.0/a-1.0\n.jar" ), equalTo( null ) );
+        assertThat( ArtifactPathInfo.parse( "g/a/1.0/a-1.0.jar\n" ), equalTo( null ) );
+    }
+
+    private String randomString( final Random random, final String[] fragments, final int max )
+    {
+        final StringBuilder sb = new StringBuilder();
+        final int count = random.nextInt( max ) + 1;
+        for ( int i = 0; i < count; i++ )
+        {
+            sb.append( fragments[random.nextInt( fragments.length )] );
+        }
+
+        return sb.toString();
+    }
+
+    private void assertSplitMatchesRegex( final String path )
+    {
+        ArtifactPathInfo.PathParts expected = ArtifactPathInfo.matchPattern( path );
+        if ( expected != null && expected.getFile().contains( "/" ) )
+        {
+            // parse(..) rejects these anyway.
+            expected = null;
+        }
+
+        assertThat( path, String.valueOf( ArtifactPathInfo.splitPath( path ) ), equalTo( String.valueOf( expected ) ) );
+    }
+
 }
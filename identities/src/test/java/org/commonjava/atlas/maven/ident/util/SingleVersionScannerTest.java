@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.commonjava.atlas.maven.ident.version.SingleVersion;
+import org.commonjava.atlas.maven.ident.version.part.VersionPart;
+import org.commonjava.atlas.maven.ident.version.part.VersionPhrase;
+import org.commonjava.atlas.maven.ident.version.parse.VersionParser;
+import org.junit.Test;
+
+/**
+ * Differential tests: the hand-written scanner MUST produce exactly what the JavaCC grammar does.
+ */
+public class SingleVersionScannerTest
+{
+
+    // versions the scanner is expected to handle itself.
+    private static final String[] SCANNED = { "1", "0", "1.0", "1.0.0", "2.3.1", "1.2.3.4.5", "01.002", "10.20.30",
+        "1.0-SNAPSHOT", "1.0-snapshot", "1.0.0-SNAPSHOT", "3.0.0-SNAPSHOT", "1.0.SNAPSHOT", "1.0SNAPSHOT",
+        "2.3.1.Final", "2.3.1.GA", "5.2.0.Final-redhat-00001", "1.0-redhat-1", "1.0.0.redhat-00003", "1.0-alpha",
+        "1.0-alpha-1", "1.0-alpha1", "1.0-beta-2", "1.0-RC1", "1.0.RC1", "1.0-rc-1", "1.0-M1", "1.0-m11", "1.0-CR2",
+        "1.0-SP1", "1.0.CP1", "1.0-PRE", "1-alpha2snapshot", "1-1-snapshot", "1-pom-1", "1-abc", "2.1b", "11m",
+        "11.a2", "2.0.0.a", "1.0_1", "9+181-r4173-1", "1.0+build.5", "v1.0", "abc123a", "r1234", "Final",
+        "1.0-rebuild-SNAPSHOT", "1.0-redhat-1-SNAPSHOT", "1.0-20150101.123456-1", "1.0-20150101.123456-12",
+        "2.3.1-20140828.225831-123456789", "1.0.0-SNAPSHOT-20150101.123456-1", "1.0-20150101.123456-1-foo",
+        "1-20150101.123456-1", "a20150101.123456-1", "20031129.200437", "20031129.200437j", "20031129.200437-600",
+        "20031129.200437-SNAPSHOT", "1.20031129.200437", "20150101.1", "20150101.12345", "123456789.12345",
+        "1.0-SNAPSHOTS", "1.0-snapshotx", "1.0.Final.2", "1.0-final-1", "1.0-GA-SNAPSHOT", "999999999999999999",
+        "1.0.0.0.0.0", "1.0.0.0.0.1", "4.13.2", "32.1.0-jre", "2.16.1", "1.7.36", "3.12.0", "1.2.12",
+        "0.10.2", "1.0.0.M1", "1.0.0.RELEASE", "2.0.0.BUILD-SNAPSHOT", "1.0-b123", "1.0.a.b.c", "SNAPSHOT",
+        "snapshot", "1234567890123456789", "1.0-1234567890123456789", "1.0-201501011234567890123",
+        "99999999999999999999999999999" };
+
+    // versions the scanner must hand back to the grammar.
+    private static final String[] DEFERRED = { "1.0-", "1.0.", "abc123a.", "-1.0", ".1", "1..0", "1.-0", "1.0--1",
+        " 1.0", "1.0 ", "1. 0", "[1.0]", "(,1.0]", "1,2", "abc@1", "abc//1", "1.0-\u00e9", "120031129.200437",
+        "20031129.2004371", "20150101.123456-1234567890", "20150101.123456-20150101.123456",
+        "20150101.123456-123456789.123456" };
+
+    @Test
+    public void scannedVersionsMatchGrammar()
+        throws Exception
+    {
+        for ( final String version : SCANNED )
+        {
+            assertThat( version + " should be handled by the scanner", SingleVersionScanner.scan( version ),
+                        notNullValue() );
+            assertSameAsGrammar( version );
+        }
+    }
+
+    @Test
+    public void unusualVersionsAreDeferredToGrammar()
+        throws Exception
+    {
+        for ( final String version : DEFERRED )
+        {
+            assertThat( version + " should NOT be handled by the scanner", SingleVersionScanner.scan( version ),
+                        nullValue() );
+        }
+    }
+
+    @Test
+    public void deferredVersionsStillMatchGrammar()
+        throws Exception
+    {
+        for ( final String version : DEFERRED )
+        {
+            Object expected;
+            try
+            {
+                expected = describe( new VersionParser( version ).single() );
+            }
+            catch ( final Throwable e )
+            {
+                expected = e.getClass();
+            }
+
+            Object actual;
+            try
+            {
+                actual = describe( VersionUtils.createSingleVersion( version ) );
+            }
+            catch ( final Throwable e )
+            {
+                actual = e.getCause() == null ? e.getClass() : e.getCause().getClass();
+            }
+
+            assertThat( version, actual, equalTo( expected ) );
+        }
+    }
+
+    @Test
+    public void isValidSingleVersionMatchesGrammar()
+    {
+        for ( final String version : SCANNED )
+        {
+            assertThat( version, VersionUtils.isValidSingleVersion( version ), equalTo( true ) );
+        }
+
+        assertThat( VersionUtils.isValidSingleVersion( "abc@1" ), equalTo( false ) );
+        assertThat( VersionUtils.isValidSingleVersion( "abc123a." ), equalTo( true ) );
+    }
+
+    private void assertSameAsGrammar( final String version )
+        throws Exception
+    {
+        final SingleVersion expected = new VersionParser( version ).single();
+        final SingleVersion actual = VersionUtils.createSingleVersion( version );
+
+        assertThat( version, describe( actual ), equalTo( describe( expected ) ) );
+        assertThat( version, actual, equalTo( expected ) );
+        assertThat( version, actual.hashCode(), equalTo( expected.hashCode() ) );
+        assertThat( version, actual.compareTo( expected ), equalTo( 0 ) );
+        assertThat( version, actual.renderStandard(), equalTo( expected.renderStandard() ) );
+        assertThat( version, actual.isSnapshot(), equalTo( expected.isSnapshot() ) );
+        assertThat( version, actual.isLocalSnapshot(), equalTo( expected.isLocalSnapshot() ) );
+        assertThat( version, VersionUtils.createFromSpec( version ), equalTo( (Object) expected ) );
+    }
+
+    private String describe( final SingleVersion version )
+    {
+        final StringBuilder sb = new StringBuilder();
+        for ( final VersionPhrase phrase : version.getVersionPhrases() )
+        {
+            sb.append( phrase.getSeparator() )
+              .append( '|' )
+              .append( phrase.isSilent() )
+              .append( '|' )
+              .append( phrase.getMarkerIndex() )
+              .append( '|' )
+              .append( phrase.hashCode() )
+              .append( '{' );
+
+            for ( final VersionPart part : phrase.getVersionParts() )
+            {
+                sb.append( part.getClass().getSimpleName() )
+                  .append( ':' )
+                  .append( part )
+                  .append( ':' )
+                  .append( part.hashCode() )
+                  .append( ' ' );
+            }
+
+            sb.append( "} " );
+        }
+
+        return sb.toString();
+    }
+
+}
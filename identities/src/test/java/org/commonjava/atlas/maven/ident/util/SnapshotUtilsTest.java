@@ -19,9 +19,13 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
 
 import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
 
 import org.commonjava.atlas.maven.ident.util.SnapshotUtils;
+import org.commonjava.atlas.maven.ident.version.part.SnapshotPart;
 import org.junit.Test;
 
 public class SnapshotUtilsTest
@@ -75,4 +79,78 @@ public class SnapshotUtilsTest
         assertThat( result, equalTo( d ) );
     }
 
+    @Test
+    public void timestampsAreUtc()
+        throws ParseException
+    {
+        assertThat( SnapshotUtils.parseSnapshotTimestamp( "19700101.000000" ).getTime(), equalTo( 0L ) );
+        assertThat( SnapshotUtils.generateSnapshotTimestamp( new Date( 0 ) ), equalTo( "19700101.000000" ) );
+        assertThat( SnapshotUtils.parseUpdateTimestamp( "19700102000001" ).getTime(), equalTo( 86401000L ) );
+        assertThat( SnapshotUtils.generateUpdateTimestamp( new Date( 86401999L ) ), equalTo( "19700102000001" ) );
+    }
+
+    @Test
+    public void timestampsMatchUtcDateFormat()
+        throws ParseException
+    {
+        final SimpleDateFormat snapshot = new SimpleDateFormat( SnapshotUtils.SNAPSHOT_TSTAMP_FORMAT );
+        snapshot.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
+        final SimpleDateFormat update = new SimpleDateFormat( "yyyyMMddHHmmss" );
+        update.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
+
+        final Random random = new Random( 42 );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            // 1970 - 2100, at second granularity
+            final Date d = new Date( ( (long) ( random.nextDouble() * 4102444800L ) ) * 1000L );
+
+            final String tstamp = SnapshotUtils.generateSnapshotTimestamp( d );
+            assertThat( tstamp, equalTo( snapshot.format( d ) ) );
+            assertThat( SnapshotUtils.parseSnapshotTimestamp( tstamp ), equalTo( d ) );
+
+            final String updated = SnapshotUtils.generateUpdateTimestamp( d );
+            assertThat( updated, equalTo( update.format( d ) ) );
+            assertThat( SnapshotUtils.parseUpdateTimestamp( updated ), equalTo( d ) );
+        }
+
+        // lenient, like the date format
+        assertThat( SnapshotUtils.parseSnapshotTimestamp( "20141301.000000" ),
+                    equalTo( snapshot.parse( "20150101.000000" ) ) );
+        assertThat( SnapshotUtils.parseSnapshotTimestamp( "20140228.240000" ),
+                    equalTo( snapshot.parse( "20140301.000000" ) ) );
+    }
+
+    @Test( expected = ParseException.class )
+    public void malformedTimestampFails()
+        throws ParseException
+    {
+        SnapshotUtils.parseSnapshotTimestamp( "20140828-225831" );
+    }
+
+    @Test( expected = ParseException.class )
+    public void trailingDigitsRejected()
+        throws ParseException
+    {
+        SnapshotUtils.parseSnapshotTimestamp( "20060408.2235357" );
+    }
+
+    @Test( expected = ParseException.class )
+    public void trailingTextRejected()
+        throws ParseException
+    {
+        SnapshotUtils.parseUpdateTimestamp( "20060408223535-1" );
+    }
+
+    @Test
+    public void parseRemoteSnapshotVersionPart()
+        throws ParseException
+    {
+        final SnapshotPart part = SnapshotUtils.parseRemoteSnapshotVersionPart( "1.0-20140828.225831-12" );
+
+        assertThat( part.getBuildNumber(), equalTo( 12 ) );
+        assertThat( part.getTimestamp(), equalTo( SnapshotUtils.parseSnapshotTimestamp( "20140828.225831" ) ) );
+        assertThat( SnapshotUtils.isRemoteSnapshotVersion( "1.0-20140828.225831-12" ), equalTo( true ) );
+        assertThat( SnapshotUtils.isRemoteSnapshotVersion( "1.0-SNAPSHOT" ), equalTo( false ) );
+    }
+
 }
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.atlas.maven.ident.version.RangeVersionSpec;
+import org.commonjava.atlas.maven.ident.version.SingleVersion;
+import org.commonjava.atlas.maven.ident.version.VersionSpec;
+import org.junit.After;
+import org.junit.Test;
+
+public class VersionSpecCacheTest
+{
+
+    @After
+    public void resetCache()
+    {
+        VersionUtils.setVersionSpecCache( null );
+    }
+
+    @Test
+    public void disabledByDefault()
+    {
+        assertThat( VersionUtils.getVersionSpecCache(), nullValue() );
+        assertThat( VersionUtils.createFromSpec( "1.0" ), not( sameInstance( VersionUtils.createFromSpec( "1.0" ) ) ) );
+    }
+
+    @Test
+    public void createFromSpecReturnsInternedInstance()
+    {
+        final VersionSpecCache cache = new VersionSpecCache( 100 );
+        VersionUtils.setVersionSpecCache( cache );
+
+        final VersionSpec first = VersionUtils.createFromSpec( "2.3.1.Final" );
+        final VersionSpec second = VersionUtils.createFromSpec( "2.3.1.Final" );
+
+        assertThat( second, sameInstance( first ) );
+        assertThat( cache.getMissCount(), equalTo( 1L ) );
+        assertThat( cache.getHitCount(), equalTo( 1L ) );
+    }
+
+    @Test
+    public void singleVersionAndSpecShareInstance()
+    {
+        VersionUtils.setVersionSpecCache( new VersionSpecCache( 100 ) );
+
+        final SingleVersion single = VersionUtils.createSingleVersion( "3.0.0-SNAPSHOT" );
+        assertThat( VersionUtils.createFromSpec( "3.0.0-SNAPSHOT" ), sameInstance( (VersionSpec) single ) );
+        assertThat( VersionUtils.createSingleVersion( "3.0.0-SNAPSHOT" ), sameInstance( single ) );
+    }
+
+    @Test
+    public void rangeIsCachedButNotReturnedAsSingle()
+    {
+        VersionUtils.setVersionSpecCache( new VersionSpecCache( 100 ) );
+
+        final VersionSpec range = VersionUtils.createFromSpec( "[1.0,2.0)" );
+        assertThat( range, instanceOf( RangeVersionSpec.class ) );
+        assertThat( VersionUtils.createFromSpec( "[1.0,2.0)" ), sameInstance( range ) );
+
+        try
+        {
+            VersionUtils.createSingleVersion( "[1.0,2.0)" );
+        }
+        catch ( final RuntimeException e )
+        {
+            return;
+        }
+
+        throw new AssertionError( "Range should not be parsed as a single version" );
+    }
+
+    @Test
+    public void refsShareParsedVersion()
+    {
+        VersionUtils.setVersionSpecCache( new VersionSpecCache( 100 ) );
+
+        final VersionSpec first = new SimpleProjectVersionRef( "org.foo", "bar", "1.0" ).getVersionSpec();
+        final VersionSpec second = new SimpleProjectVersionRef( "org.foo", "baz", "1.0" ).getVersionSpec();
+
+        assertThat( second, sameInstance( first ) );
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed()
+    {
+        // a size of 2 means a single segment, so eviction order is fully predictable.
+        final VersionSpecCache cache = new VersionSpecCache( 2 );
+        final VersionSpec one = VersionUtils.createFromSpec( "1" );
+        final VersionSpec two = VersionUtils.createFromSpec( "2" );
+        final VersionSpec three = VersionUtils.createFromSpec( "3" );
+
+        cache.intern( "1", one );
+        cache.intern( "2", two );
+
+        // touch '1' so '2' becomes the eldest entry.
+        cache.get( "1" );
+        cache.intern( "3", three );
+
+        assertThat( cache.size(), equalTo( 2 ) );
+        assertThat( cache.get( "1" ), sameInstance( one ) );
+        assertThat( cache.get( "2" ), nullValue() );
+        assertThat( cache.get( "3" ), sameInstance( three ) );
+    }
+
+    @Test
+    public void internKeepsFirstInstance()
+    {
+        final VersionSpecCache cache = new VersionSpecCache( 10 );
+        final VersionSpec first = VersionUtils.createFromSpec( "1.0" );
+        final VersionSpec second = VersionUtils.createFromSpec( "1.0" );
+
+        assertThat( cache.intern( "1.0", first ), sameInstance( first ) );
+        assertThat( cache.intern( "1.0", second ), sameInstance( first ) );
+    }
+
+    @Test
+    public void clearResetsCounters()
+    {
+        final VersionSpecCache cache = new VersionSpecCache( 10 );
+        cache.intern( "1.0", VersionUtils.createFromSpec( "1.0" ) );
+        cache.get( "1.0" );
+        cache.get( "2.0" );
+
+        cache.clear();
+
+        assertThat( cache.size(), equalTo( 0 ) );
+        assertThat( cache.getHitCount(), equalTo( 0L ) );
+        assertThat( cache.getMissCount(), equalTo( 0L ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void rejectsNonPositiveSize()
+    {
+        new VersionSpecCache( 0 );
+    }
+
+}
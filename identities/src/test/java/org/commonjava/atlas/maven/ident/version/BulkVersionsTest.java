@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.version;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
+import org.junit.Test;
+
+public class BulkVersionsTest
+{
+
+    private static final List<String> VERSIONS =
+        Arrays.asList( "2.0", "1.0", "1.0.0", "1.1-SNAPSHOT", "1.1", "1.2-rc1", "1.2", "1.2.1", "1.3-SNAPSHOT",
+                       "1.3-20150101.120000-1", "2.0-alpha-1", "2.1-SNAPSHOT", "0.9", "1.0-SNAPSHOT" );
+
+    @Test
+    public void sortMatchesComparator()
+        throws Exception
+    {
+        final List<SingleVersion> expected = new ArrayList<SingleVersion>( BulkVersions.parse( VERSIONS, false ) );
+        Collections.sort( expected, VersionSpecComparisons.comparator() );
+
+        assertThat( render( BulkVersions.sort( VERSIONS ) ), equalTo( render( expected ) ) );
+    }
+
+    @Test
+    public void parallelSortMatchesSequential()
+        throws Exception
+    {
+        final List<String> many = new ArrayList<String>();
+        for ( int i = 0; i < BulkVersions.PARALLEL_THRESHOLD + 100; i++ )
+        {
+            many.add( ( i % 97 ) + "." + ( i % 13 ) + ( i % 5 == 0 ? "-SNAPSHOT" : "" ) );
+        }
+
+        assertThat( render( BulkVersions.sort( many, true ) ), equalTo( render( BulkVersions.sort( many, false ) ) ) );
+    }
+
+    @Test( expected = InvalidVersionSpecificationException.class )
+    public void parallelParseReportsInvalidVersion()
+        throws Exception
+    {
+        final List<String> many = new ArrayList<String>( Collections.nCopies( BulkVersions.PARALLEL_THRESHOLD, "1.0" ) );
+        many.add( "" );
+
+        BulkVersions.sort( many, true );
+    }
+
+    @Test
+    public void maxAndMaxRelease()
+        throws Exception
+    {
+        assertThat( BulkVersions.max( VERSIONS ).renderStandard(), equalTo( "2.1-SNAPSHOT" ) );
+        assertThat( BulkVersions.maxRelease( VERSIONS ).renderStandard(), equalTo( "2.0" ) );
+        assertThat( BulkVersions.maxRelease( Arrays.asList( "1.0-SNAPSHOT" ) ), nullValue() );
+    }
+
+    @Test
+    public void groupByBaseVersion()
+        throws Exception
+    {
+        final Map<SingleVersion, List<SingleVersion>> groups = BulkVersions.groupByBaseVersion( VERSIONS, false );
+
+        final List<String> bases = new ArrayList<String>();
+        for ( final SingleVersion base : groups.keySet() )
+        {
+            bases.add( base.renderStandard() );
+        }
+
+        assertThat( bases, equalTo( Arrays.asList( "0.9", "1.0", "1.1", "1.2-rc1", "1.2", "1.2.1", "1.3", "2.0-alpha-1",
+                                                   "2.0", "2.1" ) ) );
+        assertThat( render( groups.get( VersionUtils.createSingleVersion( "1.0" ) ) ),
+                    equalTo( Arrays.asList( "1.0-SNAPSHOT", "1.0", "1.0.0" ) ) );
+    }
+
+    private static List<String> render( final List<SingleVersion> versions )
+    {
+        final List<String> result = new ArrayList<String>();
+        for ( final SingleVersion version : versions )
+        {
+            result.add( version.renderStandard() );
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.version;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
+import org.commonjava.atlas.maven.ident.version.part.NumericPart;
+import org.commonjava.atlas.maven.ident.version.part.SeparatorPart;
+import org.commonjava.atlas.maven.ident.version.part.VersionPartSeparator;
+import org.junit.Test;
+
+/**
+ * Differential tests: comparisons via the precomputed key MUST give exactly the same answers as the part-by-part
+ * comparisons.
+ */
+public class SingleVersionKeyTest
+{
+
+    private static final String[] VERSIONS = { "1", "0", "1.0", "1.0.0", "1.0.0.0", "1.0.1", "1.1", "2", "2.0.0",
+        "10", "1-0", "1-0-1", "1.0-0", "1-SNAPSHOT", "1.0-SNAPSHOT", "1.0.0-SNAPSHOT", "1.0-snapshot",
+        "1.0-20150101.123456-1", "1.0-20150101.123456-2", "1.0-20150101.123457-1", "1.0-20140101.123456-3", "1.0.GA",
+        "1.0.Final", "1.0-final-1", "1.0.Final-SNAPSHOT", "1.0-GA-SNAPSHOT", "1.0-alpha", "1.0-alpha-1",
+        "1.0-alpha1", "1.0-alpha-SNAPSHOT", "1.0-a1", "1.0-beta-2", "1.0-b2", "1.0-RC1", "1.0-rc-1", "1.0-cr2",
+        "1.0-M1", "1.0-m11", "1.0-milestone-2", "1.0-SP1", "1.0-sp", "1.0-PRE", "1.0-preview", "1.0-abc",
+        "1.0-ABC", "1.0-def", "1.0-redhat-1", "1.0-redhat-00002", "1.0.0.redhat-1", "1.0-redhat-1-SNAPSHOT",
+        "1.0-rebuild-SNAPSHOT", "1-alpha2snapshot", "1-1-snapshot", "1-pom-1", "2.1b", "2.1-c", "11m", "11.a2",
+        "11.a11", "2.0.0.a", "1.0_1", "1.0+build.5", "9+181-r4173-1", "v1.0", "Final", "GA", "SNAPSHOT",
+        "20031129.200437", "20031129.200437-600", "1.0-20150101.123456-1-foo", "1.0.Final.2", "1.0.0.RELEASE",
+        "2.0.0.BUILD-SNAPSHOT", "1.0-b123", "1.0.a.b.c", "1.0-1-GA", "1.0-0-SNAPSHOT", "1-2-3", "1.2-3.4",
+        "999999999999999999", "4.13.2", "32.1.0-jre", "32.1.0-android" };
+
+    @Test
+    public void compareMatchesPartComparison()
+    {
+        final List<SingleVersion> versions = parseAll();
+        for ( final SingleVersion first : versions )
+        {
+            for ( final SingleVersion second : versions )
+            {
+                final String label = first.renderStandard() + " vs " + second.renderStandard();
+                assertThat( label, first.compareTo( second ),
+                            equalTo( VersionSpecComparisons.compareSingleToSingleByPhrases( first, second ) ) );
+            }
+        }
+    }
+
+    @Test
+    public void equalityMatchesPartComparison()
+    {
+        final List<SingleVersion> versions = parseAll();
+        for ( final SingleVersion first : versions )
+        {
+            for ( final SingleVersion second : versions )
+            {
+                final String label = first.renderStandard() + " vs " + second.renderStandard();
+                assertThat( label, first.equals( second ), equalTo( first.phrasesEqual( second ) ) );
+            }
+        }
+    }
+
+    @Test
+    public void keyRecomputedAfterDeserialization()
+        throws Exception
+    {
+        final SingleVersion version = VersionUtils.createSingleVersion( "1.0-alpha-1" );
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final ObjectOutputStream oos = new ObjectOutputStream( baos );
+        oos.writeObject( version );
+        oos.close();
+
+        final SingleVersion result =
+            (SingleVersion) new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) ).readObject();
+
+        assertThat( result.getComparisonKey(), notNullValue() );
+        assertThat( result, equalTo( version ) );
+        assertThat( result.hashCode(), equalTo( version.hashCode() ) );
+        assertThat( result.compareTo( VersionUtils.createSingleVersion( "1.0-alpha-2" ) ), equalTo( -1 ) );
+    }
+
+    @Test
+    public void irregularPartsFallBackToPartComparison()
+    {
+        // doubled separators can't be flattened.
+        final SingleVersion odd =
+            new SingleVersion( "1..2", new NumericPart( 1 ), new SeparatorPart( VersionPartSeparator.DOT ),
+                               new SeparatorPart( VersionPartSeparator.DOT ), new NumericPart( 2 ) );
+
+        assertThat( odd.getComparisonKey(), nullValue() );
+
+        final SingleVersion other = VersionUtils.createSingleVersion( "1.2" );
+        assertThat( odd.compareTo( other ),
+                    equalTo( VersionSpecComparisons.compareSingleToSingleByPhrases( odd, other ) ) );
+        assertThat( odd.equals( other ), equalTo( odd.phrasesEqual( other ) ) );
+    }
+
+    private List<SingleVersion> parseAll()
+    {
+        final List<SingleVersion> versions = new ArrayList<SingleVersion>();
+        for ( final String version : VERSIONS )
+        {
+            final SingleVersion sv = VersionUtils.createSingleVersion( version );
+            assertThat( version, sv.getComparisonKey(), notNullValue() );
+            versions.add( sv );
+        }
+
+        return versions;
+    }
+
+}
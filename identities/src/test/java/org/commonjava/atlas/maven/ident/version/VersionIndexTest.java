@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.version;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
+import org.junit.Test;
+
+public class VersionIndexTest
+{
+
+    private static final List<String> VERSIONS =
+        Arrays.asList( "2.0", "1.0", "1.0.0", "1.1-SNAPSHOT", "1.1", "1.2-rc1", "1.2", "1.2.1", "1.3-SNAPSHOT",
+                       "1.3-20150101.120000-1", "2.0-alpha-1", "2.1-SNAPSHOT", "0.9", "3.0" );
+
+    private static final List<String> SPECS =
+        Arrays.asList( "[1.0,2.0)", "(1.0,2.0]", "[1.1,1.2]", "[1.2,)", "(,1.2)", "(,1.2]", "[1.1-SNAPSHOT,1.2]",
+                       "[1.0,1.3-SNAPSHOT]", "[1.3-SNAPSHOT,2.0)", "(1.1-SNAPSHOT,2.0)", "[1.0]", "[5.0,)",
+                       "(,1.0),[2.0,)", "[1.0,1.1],[1.2,1.2.1],[1.2.1,2.0)", "1.2", "1.3-SNAPSHOT" );
+
+    @Test
+    public void findMatchesContainsForEveryCandidate()
+        throws Exception
+    {
+        final List<SingleVersion> versions = new ArrayList<SingleVersion>();
+        for ( final String v : VERSIONS )
+        {
+            versions.add( VersionUtils.createSingleVersion( v ) );
+        }
+
+        final VersionIndex index = new VersionIndex( versions );
+        final List<SingleVersion> sorted = index.getVersions();
+        for ( int i = 1; i < sorted.size(); i++ )
+        {
+            assertThat( sorted.get( i - 1 ).compareTo( sorted.get( i ) ) <= 0, equalTo( true ) );
+        }
+
+        for ( final String s : SPECS )
+        {
+            final VersionSpec spec = VersionUtils.createFromSpec( s );
+
+            final List<SingleVersion> expected = new ArrayList<SingleVersion>();
+            for ( final SingleVersion version : sorted )
+            {
+                if ( spec.contains( version ) )
+                {
+                    expected.add( version );
+                }
+            }
+
+            assertThat( s, index.find( spec ), equalTo( expected ) );
+            assertThat( s, index.containsAny( spec ), equalTo( !expected.isEmpty() ) );
+        }
+    }
+
+    @Test
+    public void highestReleaseAndLatestSnapshot()
+        throws Exception
+    {
+        final List<SingleVersion> versions = new ArrayList<SingleVersion>();
+        for ( final String v : VERSIONS )
+        {
+            versions.add( VersionUtils.createSingleVersion( v ) );
+        }
+
+        final VersionIndex index = new VersionIndex( versions );
+
+        final VersionSpec range = VersionUtils.createRange( "[1.0-SNAPSHOT,2.0)" );
+        assertThat( index.findHighestRelease( range ).renderStandard(), equalTo( "2.0-alpha-1" ) );
+
+        // an inclusive snapshot bound lets in snapshots from anywhere
+        assertThat( index.findLatestSnapshot( range ).renderStandard(), equalTo( "2.1-SNAPSHOT" ) );
+
+        assertThat( index.findHighest( VersionUtils.createRange( "[1.0,1.2.1]" ) ).renderStandard(),
+                    equalTo( "1.2.1" ) );
+        assertThat( index.findLatestSnapshot( VersionUtils.createRange( "[4.0,)" ) ), nullValue() );
+    }
+
+}
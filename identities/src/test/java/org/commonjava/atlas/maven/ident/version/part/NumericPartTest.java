@@ -18,6 +18,12 @@ package org.commonjava.atlas.maven.ident.version.part;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigInteger;
+
 import org.commonjava.atlas.maven.ident.version.InvalidVersionSpecificationException;
 import org.commonjava.atlas.maven.ident.version.part.NumericPart;
 import org.junit.Test;
@@ -32,4 +38,67 @@ public class NumericPartTest
         assertThat( new NumericPart( "20050331" ), equalTo( new NumericPart( "20050331" ) ) );
     }
 
+    @Test
+    public void overflowingValuePromotedToBigInteger()
+    {
+        final String big = "201501011234567890123";
+        final NumericPart part = new NumericPart( big );
+
+        assertThat( part.isLongValue(), equalTo( false ) );
+        assertThat( part.getValue(), equalTo( new BigInteger( big ) ) );
+        assertThat( part.renderStandard(), equalTo( big ) );
+        assertThat( part, equalTo( new NumericPart( new BigInteger( big ) ) ) );
+        assertThat( part.compareTo( new NumericPart( Long.MAX_VALUE ) ), equalTo( 1 ) );
+        assertThat( new NumericPart( Long.MAX_VALUE ).compareTo( part ), equalTo( -1 ) );
+    }
+
+    @Test
+    public void smallBigIntegerStoredAsLong()
+    {
+        final NumericPart part = new NumericPart( BigInteger.valueOf( 42 ) );
+
+        assertThat( part.isLongValue(), equalTo( true ) );
+        assertThat( part, equalTo( new NumericPart( 42 ) ) );
+        assertThat( part.hashCode(), equalTo( new NumericPart( "42" ).hashCode() ) );
+    }
+
+    @Test
+    public void hashCodeMatchesBigIntegerValue()
+    {
+        final long[] values = { 0, 1, 17, 20050331, 0xFFFFFFFFL, 0x100000000L, 20150101123456L, Long.MAX_VALUE, -1,
+            -20050331, Long.MIN_VALUE };
+
+        for ( final long value : values )
+        {
+            assertThat( String.valueOf( value ), new NumericPart( value ).hashCode(),
+                        equalTo( 31 + BigInteger.valueOf( value ).hashCode() ) );
+        }
+    }
+
+    @Test
+    public void serializedAsBigInteger()
+        throws Exception
+    {
+        final NumericPart[] parts = { new NumericPart( 20050331 ), new NumericPart( "201501011234567890123" ) };
+        for ( final NumericPart part : parts )
+        {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final ObjectOutputStream oos = new ObjectOutputStream( baos );
+            oos.writeObject( part );
+            oos.close();
+
+            final NumericPart result =
+                (NumericPart) new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) ).readObject();
+
+            assertThat( result, equalTo( part ) );
+            assertThat( result.getValue(), equalTo( part.getValue() ) );
+        }
+    }
+
+    @Test( expected = NumberFormatException.class )
+    public void nonNumericValueRejected()
+    {
+        new NumericPart( "12a" );
+    }
+
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.ident.version.part;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+public class StringPartTest
+{
+
+    @Test
+    public void markersAndAliasesResolveIgnoringCase()
+    {
+        final String[][] pairs =
+            { { "pre", "Preview" }, { "m", "MILESTONE" }, { "A", "alpha" }, { "b", "Beta" }, { "cr", "RC" },
+                { "GA", "" }, { "final", "Final" }, { "cp", "sp" } };
+
+        for ( final String[] pair : pairs )
+        {
+            final StringPart alias = new StringPart( pair[0] );
+            final StringPart marker = new StringPart( pair[1] );
+
+            assertThat( pair[0], alias.isMarker(), equalTo( true ) );
+            assertThat( pair[0], alias.getZeroCompareIndex(), equalTo( marker.getZeroCompareIndex() ) );
+            assertThat( pair[0], alias, equalTo( marker ) );
+        }
+
+        assertThat( new StringPart( "GA" ).getZeroCompareIndex(), equalTo( StringPart.ADJ_ZERO_EQUIV_INDEX ) );
+        assertThat( new StringPart( "alpha" ).compareTo( new StringPart( "beta" ) ), equalTo( -1 ) );
+        assertThat( new StringPart( "sp" ).compareTo( new StringPart( "final" ) ), equalTo( 1 ) );
+
+        final StringPart qualifier = new StringPart( "redhat" );
+        assertThat( qualifier.isMarker(), equalTo( false ) );
+        assertThat( qualifier.getZeroCompareIndex(), equalTo( StringPart.ADJ_RANDOM_STRING_EQUIV_INDEX ) );
+        assertThat( new StringPart( "_random" ).isMarker(), equalTo( false ) );
+        assertThat( new StringPart( "CRX" ).isMarker(), equalTo( false ) );
+    }
+
+    @Test
+    public void valueOfSharesAllButZeroEquivalents()
+    {
+        assertThat( StringPart.valueOf( "redhat" ), sameInstance( StringPart.valueOf( "redhat" ) ) );
+        assertThat( StringPart.valueOf( "RC" ), sameInstance( StringPart.valueOf( "RC" ) ) );
+
+        // these can be marked silent, so sharing them would leak that between versions.
+        assertThat( StringPart.valueOf( "GA" ), not( sameInstance( StringPart.valueOf( "GA" ) ) ) );
+        assertThat( StringPart.valueOf( "Final" ), equalTo( StringPart.valueOf( "Final" ) ) );
+    }
+
+    @Test
+    public void serializationRoundTrip()
+        throws Exception
+    {
+        final StringPart part = new StringPart( "Beta" );
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final ObjectOutputStream oos = new ObjectOutputStream( baos );
+        oos.writeObject( part );
+        oos.close();
+
+        final ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) );
+        final StringPart result = (StringPart) ois.readObject();
+
+        assertThat( result.getValue(), equalTo( "Beta" ) );
+        assertThat( result.getZeroCompareIndex(), equalTo( part.getZeroCompareIndex() ) );
+        assertThat( result, equalTo( part ) );
+    }
+
+}
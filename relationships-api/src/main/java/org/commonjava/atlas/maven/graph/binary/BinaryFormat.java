@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.binary;
+
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+
+/**
+ * Constants for the compact binary relationship format.
+ * <pre>
+ * stream  := MAGIC formatVersion:varint record* END
+ * record  := tag:byte payload
+ * </pre>
+ * All counts, indexes and dictionary codes are unsigned LEB128 varints. Strings, URIs and refs are written through
+ * per-stream dictionaries: code 0 is null, code 1 means a new entry follows inline (and gets the next index), and any
+ * other code <code>n</code> refers back to entry <code>n - 2</code>.
+ */
+final class BinaryFormat
+{
+
+    static final byte[] MAGIC = { 'A', 'T', 'L', 'B' };
+
+    static final int FORMAT_VERSION = 1;
+
+    // record tags
+
+    static final int END = 0;
+
+    static final int RELATIONSHIP = 1;
+
+    static final int DIRECT_RELATIONSHIPS = 2;
+
+    static final int REF = 3;
+
+    static final int PLUGIN_KEY = 4;
+
+    // dictionary codes
+
+    static final int NULL_CODE = 0;
+
+    static final int NEW_CODE = 1;
+
+    static final int FIRST_INDEX_CODE = 2;
+
+    // ref kinds, for REF records
+
+    static final int PROJECT_REF = 0;
+
+    static final int PROJECT_VERSION_REF = 1;
+
+    static final int ARTIFACT_REF = 2;
+
+    static final int VERSIONLESS_ARTIFACT_REF = 3;
+
+    // relationship flags
+
+    static final int MANAGED = 1;
+
+    static final int INHERITED = 1 << 1;
+
+    static final int MIXIN = 1 << 2;
+
+    static final int OPTIONAL = 1 << 3;
+
+    static final int REPORTING = 1 << 4;
+
+    /**
+     * Relationship type codes are positions in this array, NOT enum ordinals, so reordering the enum can't break stored
+     * data. Only ever append here.
+     */
+    static final RelationshipType[] TYPES = { RelationshipType.PARENT, RelationshipType.BOM, RelationshipType.DEPENDENCY,
+        RelationshipType.PLUGIN, RelationshipType.PLUGIN_DEP, RelationshipType.EXTENSION };
+
+    private BinaryFormat()
+    {
+    }
+
+    static int typeCode( final RelationshipType type )
+    {
+        for ( int i = 0; i < TYPES.length; i++ )
+        {
+            if ( TYPES[i] == type )
+            {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException( "Unsupported relationship type: " + type );
+    }
+
+}
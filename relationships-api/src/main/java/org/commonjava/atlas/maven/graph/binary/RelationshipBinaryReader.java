@@ -0,0 +1,526 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.binary;
+
+import static org.commonjava.atlas.maven.graph.binary.BinaryFormat.FIRST_INDEX_CODE;
+import static org.commonjava.atlas.maven.graph.binary.BinaryFormat.NEW_CODE;
+import static org.commonjava.atlas.maven.graph.binary.BinaryFormat.NULL_CODE;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+import org.commonjava.atlas.maven.graph.model.PluginKey;
+import org.commonjava.atlas.maven.graph.rel.BomRelationship;
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.ExtensionRelationship;
+import org.commonjava.atlas.maven.graph.rel.ParentRelationship;
+import org.commonjava.atlas.maven.graph.rel.PluginDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.PluginRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipConstants;
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.graph.rel.SimpleBomRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleExtensionRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleParentRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimplePluginDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimplePluginRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRefPool;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleVersionlessArtifactRef;
+
+/**
+ * Reads what {@link RelationshipBinaryWriter} wrote. Relationships are rebuilt exactly the way the JSON deserializer
+ * rebuilds them, and every ref that occurs more than once in the stream comes back as a single shared instance (also
+ * interned in the default {@link ProjectRefPool}, if one is installed).
+ * <p>
+ * Not thread-safe.
+ */
+public final class RelationshipBinaryReader
+    implements Closeable
+{
+
+    private final InputStream in;
+
+    private final List<String> strings = new ArrayList<String>();
+
+    private final Map<Integer, URI> uris = new HashMap<Integer, URI>();
+
+    private final List<ProjectRef> projectRefs = new ArrayList<ProjectRef>();
+
+    private final List<ProjectVersionRef> projectVersionRefs = new ArrayList<ProjectVersionRef>();
+
+    private final List<ArtifactRef> artifactRefs = new ArrayList<ArtifactRef>();
+
+    private final ProjectRefPool pool = ProjectRefPool.getDefaultPool();
+
+    // -1 means we still have to read the next tag
+    private int nextTag = -1;
+
+    public RelationshipBinaryReader( final InputStream in )
+        throws IOException
+    {
+        this.in = new BufferedInputStream( in );
+
+        for ( final byte b : BinaryFormat.MAGIC )
+        {
+            if ( this.in.read() != b )
+            {
+                throw new IOException( "Not an atlas binary relationship stream (bad magic header)" );
+            }
+        }
+
+        final int version = readVarint();
+        if ( version < 1 || version > BinaryFormat.FORMAT_VERSION )
+        {
+            throw new IOException( "Unsupported binary relationship format version: " + version + " (supported: 1-"
+                + BinaryFormat.FORMAT_VERSION + ")" );
+        }
+    }
+
+    /**
+     * @return the next record (a {@link ProjectRelationship}, {@link EProjectDirectRelationships}, {@link ProjectRef}
+     * or {@link PluginKey}), or null at the end of the stream.
+     */
+    public Object read()
+        throws IOException
+    {
+        final int tag = peekTag();
+        if ( tag == BinaryFormat.END )
+        {
+            return null;
+        }
+
+        nextTag = -1;
+        switch ( tag )
+        {
+            case BinaryFormat.RELATIONSHIP:
+                return readRelationshipBody();
+            case BinaryFormat.DIRECT_RELATIONSHIPS:
+                return readDirectRelationshipsBody();
+            case BinaryFormat.REF:
+                return readRefBody();
+            case BinaryFormat.PLUGIN_KEY:
+                return readPluginKeyBody();
+            default:
+                throw new IOException( "Unknown record type: " + tag );
+        }
+    }
+
+    /**
+     * @return the next relationship, or null at the end of the stream.
+     * @throws IOException if the next record is something else
+     */
+    public ProjectRelationship<?, ?> readRelationship()
+        throws IOException
+    {
+        return readExpected( BinaryFormat.RELATIONSHIP, ProjectRelationship.class );
+    }
+
+    /**
+     * @return the next {@link EProjectDirectRelationships}, or null at the end of the stream.
+     * @throws IOException if the next record is something else
+     */
+    public EProjectDirectRelationships readDirectRelationships()
+        throws IOException
+    {
+        return readExpected( BinaryFormat.DIRECT_RELATIONSHIPS, EProjectDirectRelationships.class );
+    }
+
+    public ProjectRef readRef()
+        throws IOException
+    {
+        return readExpected( BinaryFormat.REF, ProjectRef.class );
+    }
+
+    public PluginKey readPluginKey()
+        throws IOException
+    {
+        return readExpected( BinaryFormat.PLUGIN_KEY, PluginKey.class );
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        in.close();
+    }
+
+    private <T> T readExpected( final int expectedTag, final Class<T> type )
+        throws IOException
+    {
+        final int tag = peekTag();
+        if ( tag != BinaryFormat.END && tag != expectedTag )
+        {
+            throw new IOException( "Expected a " + type.getSimpleName() + " record, but found record type: " + tag );
+        }
+
+        return type.cast( read() );
+    }
+
+    private int peekTag()
+        throws IOException
+    {
+        if ( nextTag < 0 )
+        {
+            nextTag = readByte();
+        }
+
+        return nextTag;
+    }
+
+    private EProjectDirectRelationships readDirectRelationshipsBody()
+        throws IOException
+    {
+        final URI source = readUri();
+        final ProjectVersionRef ref = readProjectVersionRef();
+
+        final ParentRelationship parent = readVarint() == 0 ? null : (ParentRelationship) readRelationshipBody();
+        final List<BomRelationship> boms = readRelationships( BomRelationship.class );
+        final List<DependencyRelationship> dependencies = readRelationships( DependencyRelationship.class );
+        final List<DependencyRelationship> managedDependencies = readRelationships( DependencyRelationship.class );
+        final List<PluginRelationship> plugins = readRelationships( PluginRelationship.class );
+        final List<PluginRelationship> managedPlugins = readRelationships( PluginRelationship.class );
+        final List<ExtensionRelationship> extensions = readRelationships( ExtensionRelationship.class );
+
+        final int pluginCount = readVarint();
+        final Map<PluginKey, List<PluginDependencyRelationship>> pluginDependencies =
+            new HashMap<PluginKey, List<PluginDependencyRelationship>>( pluginCount * 2 );
+        for ( int i = 0; i < pluginCount; i++ )
+        {
+            final PluginKey key = readPluginKeyBody();
+            pluginDependencies.put( key, readRelationships( PluginDependencyRelationship.class ) );
+        }
+
+        return new EProjectDirectRelationships( source, ref, parent, boms, dependencies, plugins, managedDependencies,
+                                                managedPlugins, extensions, pluginDependencies );
+    }
+
+    private <T extends ProjectRelationship<?, ?>> List<T> readRelationships( final Class<T> type )
+        throws IOException
+    {
+        final int count = readVarint();
+        final List<T> result = new ArrayList<T>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            final ProjectRelationship<?, ?> rel = readRelationshipBody();
+            if ( !type.isInstance( rel ) )
+            {
+                throw new IOException( "Expected " + type.getSimpleName() + " but found: " + rel );
+            }
+
+            result.add( type.cast( rel ) );
+        }
+
+        return result;
+    }
+
+    /**
+     * Mirrors ProjectRelationshipDeserializer, so binary and JSON round trips give the same relationships.
+     */
+    private ProjectRelationship<?, ?> readRelationshipBody()
+        throws IOException
+    {
+        final int typeCode = readVarint();
+        if ( typeCode >= BinaryFormat.TYPES.length )
+        {
+            throw new IOException( "Unknown relationship type code: " + typeCode );
+        }
+
+        final RelationshipType type = BinaryFormat.TYPES[typeCode];
+        final int flags = readVarint();
+        final int index = readVarint();
+
+        URI pomLocation = readUri();
+        if ( pomLocation == null )
+        {
+            pomLocation = RelationshipConstants.POM_ROOT_URI;
+        }
+
+        final int sourceCount = readVarint();
+        final List<URI> sources = new ArrayList<URI>( sourceCount );
+        for ( int i = 0; i < sourceCount; i++ )
+        {
+            sources.add( readUri() );
+        }
+
+        final ProjectVersionRef declaring = readProjectVersionRef();
+        final boolean managed = ( flags & BinaryFormat.MANAGED ) != 0;
+        final boolean inherited = ( flags & BinaryFormat.INHERITED ) != 0;
+
+        switch ( type )
+        {
+            case DEPENDENCY:
+            {
+                final ArtifactRef target = readArtifactRef();
+                final String scp = readString();
+                final DependencyScope scope = scp == null ? DependencyScope.compile : DependencyScope.getScope( scp );
+
+                final ProjectRef[] excludes = new ProjectRef[readVarint()];
+                for ( int i = 0; i < excludes.length; i++ )
+                {
+                    excludes[i] = readProjectRef();
+                }
+
+                return new SimpleDependencyRelationship( sources, pomLocation, declaring, target, scope, index,
+                                                         managed, inherited,
+                                                         ( flags & BinaryFormat.OPTIONAL ) != 0, excludes );
+            }
+            case PLUGIN_DEP:
+            {
+                final ArtifactRef target = readArtifactRef();
+                final ProjectRef plugin = readProjectRef();
+
+                return new SimplePluginDependencyRelationship( sources, pomLocation, declaring, plugin, target, index,
+                                                               managed, inherited );
+            }
+            case EXTENSION:
+                return new SimpleExtensionRelationship( sources, pomLocation, declaring, readProjectVersionRef(), index,
+                                                        inherited );
+            case PARENT:
+                return new SimpleParentRelationship( sources, declaring, readProjectVersionRef() );
+            case PLUGIN:
+                return new SimplePluginRelationship( sources, pomLocation, declaring, readProjectVersionRef(), index,
+                                                     managed, ( flags & BinaryFormat.REPORTING ) != 0, inherited );
+            case BOM:
+                return new SimpleBomRelationship( sources, pomLocation, declaring, readProjectVersionRef(), index,
+                                                  inherited, ( flags & BinaryFormat.MIXIN ) != 0 );
+            default:
+                throw new IOException( "Unsupported relationship type: " + type );
+        }
+    }
+
+    private ProjectRef readRefBody()
+        throws IOException
+    {
+        final int kind = readVarint();
+        switch ( kind )
+        {
+            case BinaryFormat.PROJECT_REF:
+                return readProjectRef();
+            case BinaryFormat.PROJECT_VERSION_REF:
+                return readProjectVersionRef();
+            case BinaryFormat.ARTIFACT_REF:
+                return readArtifactRef();
+            case BinaryFormat.VERSIONLESS_ARTIFACT_REF:
+            {
+                final ProjectRef ga = readProjectRef();
+                return new SimpleVersionlessArtifactRef( ga, readString(), readString() );
+            }
+            default:
+                throw new IOException( "Unknown ref kind: " + kind );
+        }
+    }
+
+    private PluginKey readPluginKeyBody()
+        throws IOException
+    {
+        final String groupId = readString();
+        final String artifactId = readString();
+        final String version = readString();
+        final boolean managed = readVarint() != 0;
+
+        return new PluginKey( new SimpleProjectVersionRef( groupId, artifactId, version ), managed );
+    }
+
+    private ProjectRef readProjectRef()
+        throws IOException
+    {
+        final int code = readVarint();
+        if ( code != NEW_CODE )
+        {
+            return lookup( projectRefs, code );
+        }
+
+        final ProjectRef ref = intern( new SimpleProjectRef( readString(), readString() ) );
+        projectRefs.add( ref );
+        return ref;
+    }
+
+    private ProjectVersionRef readProjectVersionRef()
+        throws IOException
+    {
+        final int code = readVarint();
+        if ( code != NEW_CODE )
+        {
+            return lookup( projectVersionRefs, code );
+        }
+
+        final ProjectVersionRef ref =
+            intern( new SimpleProjectVersionRef( readString(), readString(), readString() ) );
+        projectVersionRefs.add( ref );
+        return ref;
+    }
+
+    private ArtifactRef readArtifactRef()
+        throws IOException
+    {
+        final int code = readVarint();
+        if ( code != NEW_CODE )
+        {
+            return lookup( artifactRefs, code );
+        }
+
+        final ProjectVersionRef pvr = readProjectVersionRef();
+        final ArtifactRef ref = intern( new SimpleArtifactRef( pvr, readString(), readString() ) );
+        artifactRefs.add( ref );
+        return ref;
+    }
+
+    private <T extends ProjectRef> T intern( final T ref )
+    {
+        return pool == null ? ref : pool.intern( ref );
+    }
+
+    private URI readUri()
+        throws IOException
+    {
+        final int index = readStringIndex();
+        if ( index < 0 )
+        {
+            return null;
+        }
+
+        URI uri = uris.get( index );
+        if ( uri == null )
+        {
+            final String value = strings.get( index );
+            try
+            {
+                uri = new URI( value );
+            }
+            catch ( final URISyntaxException e )
+            {
+                throw new IOException( "Invalid URI: '" + value + "': " + e.getMessage(), e );
+            }
+
+            uris.put( index, uri );
+        }
+
+        return uri;
+    }
+
+    private String readString()
+        throws IOException
+    {
+        final int index = readStringIndex();
+        return index < 0 ? null : strings.get( index );
+    }
+
+    /**
+     * @return the dictionary index of the string, reading it first if it's new; -1 for null.
+     */
+    private int readStringIndex()
+        throws IOException
+    {
+        final int code = readVarint();
+        if ( code == NULL_CODE )
+        {
+            return -1;
+        }
+
+        if ( code != NEW_CODE )
+        {
+            final int index = code - FIRST_INDEX_CODE;
+            if ( index >= strings.size() )
+            {
+                throw new IOException( "Invalid string reference: " + index );
+            }
+
+            return index;
+        }
+
+        final byte[] bytes = new byte[readVarint()];
+        int read = 0;
+        while ( read < bytes.length )
+        {
+            final int n = in.read( bytes, read, bytes.length - read );
+            if ( n < 0 )
+            {
+                throw new EOFException( "Unexpected end of binary relationship stream" );
+            }
+
+            read += n;
+        }
+
+        strings.add( new String( bytes, StandardCharsets.UTF_8 ) );
+        return strings.size() - 1;
+    }
+
+    private <T> T lookup( final List<T> dictionary, final int code )
+        throws IOException
+    {
+        if ( code == NULL_CODE )
+        {
+            return null;
+        }
+
+        final int index = code - FIRST_INDEX_CODE;
+        if ( index >= dictionary.size() )
+        {
+            throw new IOException( "Invalid ref reference: " + index );
+        }
+
+        return dictionary.get( index );
+    }
+
+    private int readVarint()
+        throws IOException
+    {
+        int value = 0;
+        for ( int shift = 0; shift < 35; shift += 7 )
+        {
+            final int b = readByte();
+            value |= ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 )
+            {
+                return value;
+            }
+        }
+
+        throw new IOException( "Malformed varint in binary relationship stream" );
+    }
+
+    private int readByte()
+        throws IOException
+    {
+        final int b = in.read();
+        if ( b < 0 )
+        {
+            throw new EOFException( "Unexpected end of binary relationship stream" );
+        }
+
+        return b;
+    }
+
+}
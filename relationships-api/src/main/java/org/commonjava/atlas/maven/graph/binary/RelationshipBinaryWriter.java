@@ -0,0 +1,404 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.binary;
+
+import static org.commonjava.atlas.maven.graph.binary.BinaryFormat.FIRST_INDEX_CODE;
+import static org.commonjava.atlas.maven.graph.binary.BinaryFormat.NEW_CODE;
+import static org.commonjava.atlas.maven.graph.binary.BinaryFormat.NULL_CODE;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+import org.commonjava.atlas.maven.graph.model.PluginKey;
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.PluginDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.PluginRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.VersionlessArtifactRef;
+
+/**
+ * Writes relationships, {@link EProjectDirectRelationships}, refs and {@link PluginKey}s in a compact binary form, to
+ * be read back with {@link RelationshipBinaryReader}. Each distinct string, URI and ref is written once per stream;
+ * after that it costs a varint or two, which is what makes this so much smaller than the JSON form.
+ * <p>
+ * Refs are de-duplicated by their coordinates as written, so refs which are equal but render differently (eg.
+ * versions "1.0" and "1.0.0") are kept distinct.
+ * <p>
+ * Not thread-safe. {@link #close()} MUST be called to terminate the stream.
+ */
+public final class RelationshipBinaryWriter
+    implements Closeable, Flushable
+{
+
+    private final OutputStream out;
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    private final Map<List<String>, Integer> projectRefs = new HashMap<List<String>, Integer>();
+
+    private final Map<List<String>, Integer> projectVersionRefs = new HashMap<List<String>, Integer>();
+
+    private final Map<List<String>, Integer> artifactRefs = new HashMap<List<String>, Integer>();
+
+    private boolean closed;
+
+    public RelationshipBinaryWriter( final OutputStream out )
+        throws IOException
+    {
+        this.out = new BufferedOutputStream( out );
+        this.out.write( BinaryFormat.MAGIC );
+        writeVarint( BinaryFormat.FORMAT_VERSION );
+    }
+
+    public void writeRelationship( final ProjectRelationship<?, ?> rel )
+        throws IOException
+    {
+        out.write( BinaryFormat.RELATIONSHIP );
+        writeRelationshipBody( rel );
+    }
+
+    public void writeDirectRelationships( final EProjectDirectRelationships rels )
+        throws IOException
+    {
+        out.write( BinaryFormat.DIRECT_RELATIONSHIPS );
+        writeUri( rels.getSource() );
+        writeProjectVersionRef( rels.getProjectRef() );
+
+        final ProjectRelationship<?, ?> parent = rels.getParent();
+        writeVarint( parent == null ? 0 : 1 );
+        if ( parent != null )
+        {
+            writeRelationshipBody( parent );
+        }
+
+        writeRelationships( rels.getBoms() );
+        writeRelationships( rels.getDependencies() );
+        writeRelationships( rels.getManagedDependencies() );
+        writeRelationships( rels.getPlugins() );
+        writeRelationships( rels.getManagedPlugins() );
+        writeRelationships( rels.getExtensions() );
+
+        final Map<PluginKey, List<PluginDependencyRelationship>> pluginDeps = rels.getPluginDependencies();
+        if ( pluginDeps == null )
+        {
+            writeVarint( 0 );
+        }
+        else
+        {
+            writeVarint( pluginDeps.size() );
+            for ( final Map.Entry<PluginKey, List<PluginDependencyRelationship>> entry : pluginDeps.entrySet() )
+            {
+                writePluginKeyBody( entry.getKey() );
+                writeRelationships( entry.getValue() );
+            }
+        }
+    }
+
+    public void writeRef( final ProjectRef ref )
+        throws IOException
+    {
+        out.write( BinaryFormat.REF );
+        if ( ref instanceof ArtifactRef )
+        {
+            writeVarint( BinaryFormat.ARTIFACT_REF );
+            writeArtifactRef( (ArtifactRef) ref );
+        }
+        else if ( ref instanceof ProjectVersionRef )
+        {
+            writeVarint( BinaryFormat.PROJECT_VERSION_REF );
+            writeProjectVersionRef( (ProjectVersionRef) ref );
+        }
+        else if ( ref instanceof VersionlessArtifactRef )
+        {
+            final VersionlessArtifactRef var = (VersionlessArtifactRef) ref;
+            writeVarint( BinaryFormat.VERSIONLESS_ARTIFACT_REF );
+            writeProjectRef( var );
+            writeString( var.getType() );
+            writeString( var.getClassifier() );
+        }
+        else
+        {
+            writeVarint( BinaryFormat.PROJECT_REF );
+            writeProjectRef( ref );
+        }
+    }
+
+    public void writePluginKey( final PluginKey key )
+        throws IOException
+    {
+        out.write( BinaryFormat.PLUGIN_KEY );
+        writePluginKeyBody( key );
+    }
+
+    @Override
+    public void flush()
+        throws IOException
+    {
+        out.flush();
+    }
+
+    /**
+     * Write the end-of-stream marker, and close the underlying stream.
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        closed = true;
+        try
+        {
+            out.write( BinaryFormat.END );
+            out.flush();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private void writeRelationships( final Collection<? extends ProjectRelationship<?, ?>> rels )
+        throws IOException
+    {
+        if ( rels == null )
+        {
+            writeVarint( 0 );
+            return;
+        }
+
+        writeVarint( rels.size() );
+        for ( final ProjectRelationship<?, ?> rel : rels )
+        {
+            writeRelationshipBody( rel );
+        }
+    }
+
+    private void writeRelationshipBody( final ProjectRelationship<?, ?> rel )
+        throws IOException
+    {
+        final RelationshipType type = rel.getType();
+        writeVarint( BinaryFormat.typeCode( type ) );
+
+        int flags = 0;
+        flags |= rel.isManaged() ? BinaryFormat.MANAGED : 0;
+        flags |= rel.isInherited() ? BinaryFormat.INHERITED : 0;
+        flags |= rel.isMixin() ? BinaryFormat.MIXIN : 0;
+        if ( type == RelationshipType.DEPENDENCY && ( (DependencyRelationship) rel ).isOptional() )
+        {
+            flags |= BinaryFormat.OPTIONAL;
+        }
+        if ( type == RelationshipType.PLUGIN && ( (PluginRelationship) rel ).isReporting() )
+        {
+            flags |= BinaryFormat.REPORTING;
+        }
+
+        writeVarint( flags );
+        writeVarint( rel.getIndex() );
+        writeUri( rel.getPomLocation() );
+
+        // same as the JSON form, null sources are dropped.
+        final Set<URI> sources = rel.getSources();
+        final int count = sources.contains( null ) ? sources.size() - 1 : sources.size();
+        writeVarint( count );
+        for ( final URI source : sources )
+        {
+            if ( source != null )
+            {
+                writeUri( source );
+            }
+        }
+
+        writeProjectVersionRef( rel.getDeclaring() );
+
+        switch ( type )
+        {
+            case DEPENDENCY:
+            {
+                final DependencyRelationship dep = (DependencyRelationship) rel;
+                writeArtifactRef( dep.getTarget() );
+                writeString( dep.getScope() == null ? null : dep.getScope().realName() );
+
+                final Set<ProjectRef> excludes = dep.getExcludes();
+                final Collection<ProjectRef> written = excludes == null ? Collections.<ProjectRef> emptySet() : excludes;
+                writeVarint( written.size() );
+                for ( final ProjectRef exclude : written )
+                {
+                    writeProjectRef( exclude );
+                }
+                break;
+            }
+            case PLUGIN_DEP:
+            {
+                final PluginDependencyRelationship pdep = (PluginDependencyRelationship) rel;
+                writeArtifactRef( pdep.getTarget() );
+                writeProjectRef( pdep.getPlugin() );
+                break;
+            }
+            default:
+            {
+                writeProjectVersionRef( rel.getTarget() );
+            }
+        }
+    }
+
+    private void writePluginKeyBody( final PluginKey key )
+        throws IOException
+    {
+        writeString( key.getGroupId() );
+        writeString( key.getArtifactId() );
+        writeString( key.getVersion() );
+        writeVarint( key.getManaged() ? 1 : 0 );
+    }
+
+    private void writeProjectRef( final ProjectRef ref )
+        throws IOException
+    {
+        if ( ref == null )
+        {
+            writeVarint( NULL_CODE );
+            return;
+        }
+
+        final List<String> key = Arrays.asList( ref.getGroupId(), ref.getArtifactId() );
+        if ( writeExisting( projectRefs, key ) )
+        {
+            return;
+        }
+
+        writeString( ref.getGroupId() );
+        writeString( ref.getArtifactId() );
+    }
+
+    private void writeProjectVersionRef( final ProjectVersionRef ref )
+        throws IOException
+    {
+        if ( ref == null )
+        {
+            writeVarint( NULL_CODE );
+            return;
+        }
+
+        final List<String> key = Arrays.asList( ref.getGroupId(), ref.getArtifactId(), ref.getVersionString() );
+        if ( writeExisting( projectVersionRefs, key ) )
+        {
+            return;
+        }
+
+        writeString( ref.getGroupId() );
+        writeString( ref.getArtifactId() );
+        writeString( ref.getVersionString() );
+    }
+
+    private void writeArtifactRef( final ArtifactRef ref )
+        throws IOException
+    {
+        if ( ref == null )
+        {
+            writeVarint( NULL_CODE );
+            return;
+        }
+
+        final List<String> key = Arrays.asList( ref.getGroupId(), ref.getArtifactId(), ref.getVersionString(),
+                                                ref.getType(), ref.getClassifier() );
+        if ( writeExisting( artifactRefs, key ) )
+        {
+            return;
+        }
+
+        writeProjectVersionRef( ref );
+        writeString( ref.getType() );
+        writeString( ref.getClassifier() );
+    }
+
+    private void writeUri( final URI uri )
+        throws IOException
+    {
+        writeString( uri == null ? null : uri.toString() );
+    }
+
+    private void writeString( final String value )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            writeVarint( NULL_CODE );
+            return;
+        }
+
+        if ( writeExisting( strings, value ) )
+        {
+            return;
+        }
+
+        final byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        writeVarint( bytes.length );
+        out.write( bytes );
+    }
+
+    /**
+     * Write the back-reference if we've seen this key before; otherwise register it and write the new-entry marker,
+     * after which the caller writes the entry itself.
+     */
+    private <K> boolean writeExisting( final Map<K, Integer> dictionary, final K key )
+        throws IOException
+    {
+        final Integer index = dictionary.get( key );
+        if ( index != null )
+        {
+            writeVarint( index + FIRST_INDEX_CODE );
+            return true;
+        }
+
+        dictionary.put( key, dictionary.size() );
+        writeVarint( NEW_CODE );
+        return false;
+    }
+
+    private void writeVarint( final int value )
+        throws IOException
+    {
+        int v = value;
+        while ( ( v & ~0x7F ) != 0 )
+        {
+            out.write( ( v & 0x7F ) | 0x80 );
+            v >>>= 7;
+        }
+
+        out.write( v );
+    }
+
+}
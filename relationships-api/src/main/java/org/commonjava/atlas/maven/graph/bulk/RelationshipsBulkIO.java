@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.bulk;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+
+import org.commonjava.atlas.maven.graph.jackson.ProjectRelationshipSerializerModule;
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+import org.commonjava.atlas.maven.ident.jackson.ProjectVersionRefSerializerModule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Entry point for dumping and loading whole repository graphs as newline-delimited JSON: one
+ * {@link EProjectDirectRelationships} per line, in the same JSON form as {@link ProjectRelationshipSerializerModule}
+ * produces.
+ * <p>
+ * The writer records a {@link RelationshipsBulkIndex} of record boundaries as it goes. Store it next to the dump, and
+ * it can later be cut into {@link RelationshipsBulkIndex.Range}s that separate readers load in parallel. With
+ * {@link Compression#GZIP}, each indexed block is written as its own gzip member, so the file is still a plain gzip file
+ * to every other tool but can be entered at any index offset.
+ */
+public final class RelationshipsBulkIO
+{
+
+    public enum Compression
+    {
+        NONE, GZIP;
+    }
+
+    /** Number of records between index entries (and gzip members), unless given otherwise. */
+    public static final int DEFAULT_INDEX_INTERVAL = 1000;
+
+    /** Number of records decoded ahead of the consumer by a parallel reader, per decoder thread. */
+    public static final int DEFAULT_READ_AHEAD = 16;
+
+    private RelationshipsBulkIO()
+    {
+    }
+
+    /**
+     * @return a mapper with the identity and relationship modules registered, which is all the bulk format needs.
+     */
+    public static ObjectMapper newObjectMapper()
+    {
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModules( new ProjectVersionRefSerializerModule(), new ProjectRelationshipSerializerModule() );
+        return mapper;
+    }
+
+    public static RelationshipsBulkWriter newWriter( final OutputStream out, final Compression compression )
+        throws IOException
+    {
+        return new RelationshipsBulkWriter( out, newObjectMapper(), compression, DEFAULT_INDEX_INTERVAL );
+    }
+
+    /**
+     * Sequential reader, decoding each record on the calling thread.
+     */
+    public static RelationshipsBulkReader newReader( final InputStream in, final Compression compression )
+        throws IOException
+    {
+        return new RelationshipsBulkReader( in, newObjectMapper(), compression, null, 0, -1 );
+    }
+
+    /**
+     * Reader which hands records to the given executor for decoding, keeping at most
+     * <code>readAhead</code> of them in flight. They are still returned in file order.
+     */
+    public static RelationshipsBulkReader newReader( final InputStream in, final Compression compression,
+                                                     final ExecutorService decoders, final int readAhead )
+        throws IOException
+    {
+        return new RelationshipsBulkReader( in, newObjectMapper(), compression, decoders, readAhead, -1 );
+    }
+
+    /**
+     * Reader for one slice of a dump file, as given by {@link RelationshipsBulkIndex#split(int)}.
+     *
+     * @param decoders if null, records are decoded on the calling thread
+     */
+    public static RelationshipsBulkReader newReader( final File file, final Compression compression,
+                                                     final RelationshipsBulkIndex.Range range,
+                                                     final ExecutorService decoders, final int readAhead )
+        throws IOException
+    {
+        final FileInputStream in = new FileInputStream( file );
+        try
+        {
+            in.getChannel().position( range.getOffset() );
+            return new RelationshipsBulkReader( in, newObjectMapper(), compression, decoders, readAhead,
+                                                range.getRecordCount() );
+        }
+        catch ( final IOException e )
+        {
+            in.close();
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.bulk;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Skip index for a bulk relationship dump: the byte offset of every Nth record, so the file can be entered part way
+ * through. Offsets are positions in the file as written, ie. after compression.
+ */
+public final class RelationshipsBulkIndex
+{
+
+    private static final int MAGIC = 0x41544c49; // "ATLI"
+
+    private long[] records = new long[16];
+
+    private long[] offsets = new long[16];
+
+    private int size;
+
+    private long recordCount;
+
+    RelationshipsBulkIndex()
+    {
+    }
+
+    void add( final long record, final long offset )
+    {
+        if ( size == records.length )
+        {
+            records = Arrays.copyOf( records, size * 2 );
+            offsets = Arrays.copyOf( offsets, size * 2 );
+        }
+
+        records[size] = record;
+        offsets[size] = offset;
+        size++;
+    }
+
+    void setRecordCount( final long recordCount )
+    {
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * @return the number of index entries.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    public long getRecord( final int entry )
+    {
+        checkEntry( entry );
+        return records[entry];
+    }
+
+    public long getOffset( final int entry )
+    {
+        checkEntry( entry );
+        return offsets[entry];
+    }
+
+    /**
+     * @return the total number of records in the dump.
+     */
+    public long getRecordCount()
+    {
+        return recordCount;
+    }
+
+    /**
+     * Cut the dump into at most <code>parts</code> ranges of roughly equal record counts, on index boundaries.
+     */
+    public List<Range> split( final int parts )
+    {
+        if ( parts < 1 )
+        {
+            throw new IllegalArgumentException( "Cannot split into " + parts + " parts" );
+        }
+
+        final List<Range> ranges = new ArrayList<Range>();
+        if ( size == 0 )
+        {
+            return ranges;
+        }
+
+        final int perPart = ( size + parts - 1 ) / parts;
+        for ( int start = 0; start < size; start += perPart )
+        {
+            final int end = start + perPart;
+            final long endRecord = end < size ? records[end] : recordCount;
+            ranges.add( new Range( offsets[start], records[start], endRecord - records[start] ) );
+        }
+
+        return ranges;
+    }
+
+    public void write( final OutputStream out )
+        throws IOException
+    {
+        final DataOutputStream data = new DataOutputStream( out );
+        data.writeInt( MAGIC );
+        data.writeLong( recordCount );
+        data.writeInt( size );
+        for ( int i = 0; i < size; i++ )
+        {
+            data.writeLong( records[i] );
+            data.writeLong( offsets[i] );
+        }
+
+        data.flush();
+    }
+
+    public static RelationshipsBulkIndex read( final InputStream in )
+        throws IOException
+    {
+        final DataInputStream data = new DataInputStream( in );
+        if ( data.readInt() != MAGIC )
+        {
+            throw new IOException( "Not an atlas bulk relationship index (bad magic header)" );
+        }
+
+        final RelationshipsBulkIndex index = new RelationshipsBulkIndex();
+        index.recordCount = data.readLong();
+
+        final int size = data.readInt();
+        for ( int i = 0; i < size; i++ )
+        {
+            index.add( data.readLong(), data.readLong() );
+        }
+
+        return index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RelationshipsBulkIndex [entries=" + size + ", records=" + recordCount + "]";
+    }
+
+    private void checkEntry( final int entry )
+    {
+        if ( entry < 0 || entry >= size )
+        {
+            throw new IndexOutOfBoundsException( "Index entry: " + entry + ", size: " + size );
+        }
+    }
+
+    /**
+     * A run of consecutive records, starting at a record boundary in the file.
+     */
+    public static final class Range
+    {
+        private final long offset;
+
+        private final long firstRecord;
+
+        private final long recordCount;
+
+        Range( final long offset, final long firstRecord, final long recordCount )
+        {
+            this.offset = offset;
+            this.firstRecord = firstRecord;
+            this.recordCount = recordCount;
+        }
+
+        public long getOffset()
+        {
+            return offset;
+        }
+
+        public long getFirstRecord()
+        {
+            return firstRecord;
+        }
+
+        public long getRecordCount()
+        {
+            return recordCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Range [offset=" + offset + ", records=" + firstRecord + "+" + recordCount + "]";
+        }
+    }
+
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.bulk;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import org.commonjava.atlas.maven.graph.bulk.RelationshipsBulkIO.Compression;
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads what {@link RelationshipsBulkWriter} wrote, one record at a time, in file order.
+ * <p>
+ * Given an executor, lines are split off on the calling thread and decoded by the executor's threads. Only a fixed
+ * number of records are read ahead of the consumer, so a slow consumer holds back the reading rather than letting
+ * decoded records pile up in memory.
+ * <p>
+ * Not thread-safe; use one reader per consumer (eg. one per {@link RelationshipsBulkIndex.Range}).
+ */
+public final class RelationshipsBulkReader
+    implements Closeable, Iterable<EProjectDirectRelationships>
+{
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+
+    private final ObjectMapper mapper;
+
+    private final ExecutorService decoders;
+
+    private final int readAhead;
+
+    // records left to read, or -1 for all of them
+    private long remaining;
+
+    private final Deque<Future<EProjectDirectRelationships>> pending =
+        new ArrayDeque<Future<EProjectDirectRelationships>>();
+
+    private byte[] line = new byte[1024];
+
+    private boolean eof;
+
+    /**
+     * @param decoders if null, records are decoded on the calling thread
+     * @param readAhead number of records to keep in flight with the decoders; ignored without them
+     * @param maxRecords number of records to read before stopping, or -1 to read to the end
+     */
+    public RelationshipsBulkReader( final InputStream in, final ObjectMapper mapper, final Compression compression,
+                                    final ExecutorService decoders, final int readAhead, final long maxRecords )
+        throws IOException
+    {
+        if ( decoders != null && readAhead < 1 )
+        {
+            throw new IllegalArgumentException( "Read-ahead must be positive: " + readAhead );
+        }
+
+        final BufferedInputStream buffered = new BufferedInputStream( in, BUFFER_SIZE );
+        if ( compression == Compression.GZIP )
+        {
+            // an empty dump has no gzip header at all.
+            buffered.mark( 1 );
+            eof = buffered.read() < 0;
+            buffered.reset();
+        }
+
+        // lines are read a byte at a time, so the inflated side needs a buffer too.
+        this.in = compression == Compression.GZIP && !eof ? new BufferedInputStream(
+                        new GZIPInputStream( new MemberAwareInputStream( buffered ), BUFFER_SIZE ), BUFFER_SIZE )
+                        : buffered;
+        this.mapper = mapper;
+        this.decoders = decoders;
+        this.readAhead = readAhead;
+        this.remaining = maxRecords;
+    }
+
+    /**
+     * @return the next record, or null at the end of the input (or range).
+     */
+    public EProjectDirectRelationships read()
+        throws IOException
+    {
+        if ( decoders == null )
+        {
+            final byte[] bytes = nextLine();
+            return bytes == null ? null : decode( bytes );
+        }
+
+        while ( pending.size() < readAhead )
+        {
+            final byte[] bytes = nextLine();
+            if ( bytes == null )
+            {
+                break;
+            }
+
+            pending.add( decoders.submit( new Callable<EProjectDirectRelationships>()
+            {
+                @Override
+                public EProjectDirectRelationships call()
+                    throws IOException
+                {
+                    return decode( bytes );
+                }
+            } ) );
+        }
+
+        final Future<EProjectDirectRelationships> next = pending.poll();
+        if ( next == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return next.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for a record to be decoded", e );
+        }
+        catch ( final ExecutionException e )
+        {
+            final Throwable cause = e.getCause();
+            if ( cause instanceof IOException )
+            {
+                throw (IOException) cause;
+            }
+
+            throw new IOException( "Failed to decode record: " + cause.getMessage(), cause );
+        }
+    }
+
+    /**
+     * One-shot iterator over the remaining records; I/O errors surface as {@link UncheckedIOException}.
+     */
+    @Override
+    public Iterator<EProjectDirectRelationships> iterator()
+    {
+        return new Iterator<EProjectDirectRelationships>()
+        {
+            private EProjectDirectRelationships next;
+
+            @Override
+            public boolean hasNext()
+            {
+                if ( next == null )
+                {
+                    try
+                    {
+                        next = read();
+                    }
+                    catch ( final IOException e )
+                    {
+                        throw new UncheckedIOException( e );
+                    }
+                }
+
+                return next != null;
+            }
+
+            @Override
+            public EProjectDirectRelationships next()
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+
+                final EProjectDirectRelationships result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException( "Read-only" );
+            }
+        };
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        for ( final Future<EProjectDirectRelationships> future : pending )
+        {
+            future.cancel( false );
+        }
+
+        pending.clear();
+        in.close();
+    }
+
+    private EProjectDirectRelationships decode( final byte[] bytes )
+        throws IOException
+    {
+        return mapper.readValue( bytes, EProjectDirectRelationships.class );
+    }
+
+    /**
+     * @return the next non-blank line, without its terminator, or null at the end.
+     */
+    private byte[] nextLine()
+        throws IOException
+    {
+        while ( !eof && remaining != 0 )
+        {
+            int len = 0;
+            int b;
+            while ( ( b = in.read() ) > -1 && b != '\n' )
+            {
+                if ( len == line.length )
+                {
+                    line = Arrays.copyOf( line, len * 2 );
+                }
+
+                line[len++] = (byte) b;
+            }
+
+            eof = b < 0;
+            if ( len > 0 && line[len - 1] == '\r' )
+            {
+                len--;
+            }
+
+            if ( len > 0 )
+            {
+                if ( remaining > 0 )
+                {
+                    remaining--;
+                }
+
+                return Arrays.copyOf( line, len );
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@link GZIPInputStream} only looks for another member after a trailer if the stream claims to have bytes
+     * available, which a buffered file stream doesn't always do at that moment. Claiming there's always something
+     * left is safe: at the real end, it finds no header and stops.
+     */
+    private static final class MemberAwareInputStream
+        extends FilterInputStream
+    {
+        MemberAwareInputStream( final InputStream in )
+        {
+            super( in );
+        }
+
+        @Override
+        public int available()
+            throws IOException
+        {
+            return Math.max( in.available(), 1 );
+        }
+    }
+
+}
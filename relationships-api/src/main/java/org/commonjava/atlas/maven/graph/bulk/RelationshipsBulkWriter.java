@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.bulk;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.commonjava.atlas.maven.graph.bulk.RelationshipsBulkIO.Compression;
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes one {@link EProjectDirectRelationships} per line, see {@link RelationshipsBulkIO}. Not thread-safe.
+ * {@link #close()} MUST be called to complete the output (and the index).
+ */
+public final class RelationshipsBulkWriter
+    implements Closeable, Flushable
+{
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper mapper;
+
+    private final Compression compression;
+
+    private final int indexInterval;
+
+    private final CountingOutputStream counter;
+
+    private OutputStream out;
+
+    private final RelationshipsBulkIndex index = new RelationshipsBulkIndex();
+
+    private long records;
+
+    private boolean closed;
+
+    public RelationshipsBulkWriter( final OutputStream out, final ObjectMapper mapper, final Compression compression,
+                                    final int indexInterval )
+        throws IOException
+    {
+        if ( indexInterval < 1 )
+        {
+            throw new IllegalArgumentException( "Index interval must be positive: " + indexInterval );
+        }
+
+        this.mapper = mapper;
+        this.compression = compression;
+        this.indexInterval = indexInterval;
+        this.counter = new CountingOutputStream( new BufferedOutputStream( out, BUFFER_SIZE ) );
+        this.out = compression == Compression.GZIP ? null : counter;
+    }
+
+    public void write( final EProjectDirectRelationships rels )
+        throws IOException
+    {
+        if ( closed )
+        {
+            throw new IOException( "Writer is closed" );
+        }
+
+        // serialize first, so a failure can't leave half a line behind.
+        final byte[] line = mapper.writeValueAsBytes( rels );
+
+        if ( records % indexInterval == 0 )
+        {
+            startBlock();
+        }
+
+        out.write( line );
+        out.write( '\n' );
+        records++;
+    }
+
+    public long getRecordCount()
+    {
+        return records;
+    }
+
+    /**
+     * @return the index of what's been written; complete only after {@link #close()}.
+     */
+    public RelationshipsBulkIndex getIndex()
+    {
+        index.setRecordCount( records );
+        return index;
+    }
+
+    @Override
+    public void flush()
+        throws IOException
+    {
+        if ( out != null )
+        {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        closed = true;
+        try
+        {
+            finishBlock();
+            counter.flush();
+        }
+        finally
+        {
+            counter.close();
+        }
+    }
+
+    private void startBlock()
+        throws IOException
+    {
+        if ( compression == Compression.GZIP )
+        {
+            finishBlock();
+            index.add( records, counter.count );
+            out = new GZIPOutputStream( new NonClosingOutputStream( counter ), BUFFER_SIZE );
+        }
+        else
+        {
+            index.add( records, counter.count );
+        }
+    }
+
+    private void finishBlock()
+        throws IOException
+    {
+        if ( out instanceof GZIPOutputStream )
+        {
+            ( (GZIPOutputStream) out ).finish();
+            out.close();
+            out = null;
+        }
+    }
+
+    private static final class CountingOutputStream
+        extends FilterOutputStream
+    {
+        private long count;
+
+        CountingOutputStream( final OutputStream out )
+        {
+            super( out );
+        }
+
+        @Override
+        public void write( final int b )
+            throws IOException
+        {
+            out.write( b );
+            count++;
+        }
+
+        @Override
+        public void write( final byte[] b, final int off, final int len )
+            throws IOException
+        {
+            out.write( b, off, len );
+            count += len;
+        }
+    }
+
+    // lets each gzip member be closed without closing the file.
+    private static final class NonClosingOutputStream
+        extends FilterOutputStream
+    {
+        NonClosingOutputStream( final OutputStream out )
+        {
+            super( out );
+        }
+
+        @Override
+        public void write( final byte[] b, final int off, final int len )
+            throws IOException
+        {
+            out.write( b, off, len );
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            flush();
+        }
+    }
+
+}
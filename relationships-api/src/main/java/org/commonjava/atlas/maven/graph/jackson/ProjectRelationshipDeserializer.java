@@ -15,7 +15,10 @@
  */
 package org.commonjava.atlas.maven.graph.jackson;
 
-import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
@@ -29,20 +32,28 @@ import org.commonjava.atlas.maven.graph.rel.SimplePluginDependencyRelationship;
 import org.commonjava.atlas.maven.graph.rel.SimplePluginRelationship;
 import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRefPool;
 import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
 import org.commonjava.atlas.maven.ident.DependencyScope;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
+ * Reads the JSON written by {@link ProjectRelationshipSerializer} in a single pass, straight into local variables. No
+ * intermediate map is built, and parser locations are only looked up to report an error.
+ * <p>
+ * Declaring and target refs are parsed through a small cache shared by all callers of this deserializer, since a
+ * stored graph mentions the same few refs over and over (every relationship of a project shares its declaring ref).
+ * Parsed refs are interned in the given {@link ProjectRefPool}, if any, as well as the default one.
+ *
  * Created by jdcasey on 8/26/15.
  */
 @SuppressWarnings( { "rawtypes", "unchecked" } )
@@ -51,197 +62,172 @@ public final class ProjectRelationshipDeserializer<T extends ProjectRelationship
 {
     private static final long serialVersionUID = 1L;
 
+    private final transient ProjectRefPool pool;
+
+    private final transient RefCache<ProjectVersionRef> versionRefs = new RefCache<ProjectVersionRef>();
+
+    private final transient RefCache<ArtifactRef> artifactRefs = new RefCache<ArtifactRef>();
+
     public ProjectRelationshipDeserializer()
+    {
+        this( null );
+    }
+
+    /**
+     * @param pool if not null, deserialized refs are interned here (in addition to the default pool, if any).
+     */
+    public ProjectRelationshipDeserializer( final ProjectRefPool pool )
     {
         super( ProjectRelationship.class );
+        this.pool = pool;
     }
 
     @Override
     public T deserialize( final JsonParser jp, final DeserializationContext ctx )
             throws JsonProcessingException, IOException
     {
-        Map<String, Object> ast = new HashMap<String, Object>();
-        Map<String, JsonLocation> locations = new HashMap<String, JsonLocation>();
+        RelationshipType type = null;
+        URI pomLocation = RelationshipConstants.POM_ROOT_URI;
+        List<URI> sources = Collections.emptyList();
+        String decl = null;
+        String tgt = null;
+        String plug = null;
+        String scp = null;
+        int index = 0;
+        boolean managed = false;
+        boolean inherited = false;
+        boolean mixin = false;
+        boolean optional = false;
+        boolean reporting = false;
 
         JsonToken token = jp.getCurrentToken();
-        String currentField = null;
-        List<String> currentArry = null;
+        if ( token == JsonToken.START_OBJECT )
+        {
+            token = jp.nextToken();
+        }
 
-        Logger logger = LoggerFactory.getLogger( getClass() );
-        do
+        for ( ; token == JsonToken.FIELD_NAME; token = jp.nextToken() )
         {
-            //                logger.info( "Token: {}", token );
-            switch ( token )
+            final String field = jp.getCurrentName();
+            token = jp.nextToken();
+            if ( token == JsonToken.VALUE_NULL )
+            {
+                continue;
+            }
+
+            // match the old AST-based parsing: a value of the wrong kind is treated as missing.
+            if ( SerializationConstants.RELATIONSHIP_TYPE.equals( field ) )
             {
-                case START_ARRAY:
+                type = token == JsonToken.VALUE_STRING ? RelationshipType.getType( jp.getText() ) : null;
+            }
+            else if ( SerializationConstants.POM_LOCATION_URI.equals( field ) )
+            {
+                if ( token == JsonToken.VALUE_STRING )
                 {
-                    //                        logger.info( "Starting array for field: {}", currentField );
-                    currentArry = new ArrayList<String>();
-                    break;
+                    pomLocation = toURI( jp, SerializationConstants.POM_LOCATION_URI );
                 }
-                case END_ARRAY:
-                    //                        logger.info( "Ending array for field: {}", currentField );
-                    locations.put( currentField, jp.getCurrentLocation() );
-                    ast.put( currentField, currentArry );
-                    currentArry = null;
-                    break;
-                case FIELD_NAME:
-                    currentField = jp.getCurrentName();
-                    break;
-                case VALUE_STRING:
-                    if ( currentArry != null )
-                    {
-                        currentArry.add( jp.getText() );
-                    }
-                    else
+            }
+            else if ( SerializationConstants.SOURCE_URIS.equals( field ) )
+            {
+                if ( token == JsonToken.START_ARRAY )
+                {
+                    sources = new ArrayList<URI>();
+                    while ( ( token = jp.nextToken() ) != JsonToken.END_ARRAY )
                     {
-                        locations.put( currentField, jp.getCurrentLocation() );
-                        ast.put( currentField, jp.getText() );
+                        if ( token == JsonToken.VALUE_STRING )
+                        {
+                            sources.add( toURI( jp, SerializationConstants.SOURCE_URIS ) );
+                        }
+                        else
+                        {
+                            jp.skipChildren();
+                        }
                     }
-                    break;
-                case VALUE_NUMBER_INT:
-                    locations.put( currentField, jp.getCurrentLocation() );
-                    ast.put( currentField, jp.getIntValue() );
-                    break;
-                case VALUE_NUMBER_FLOAT:
-                    locations.put( currentField, jp.getCurrentLocation() );
-                    ast.put( currentField, jp.getFloatValue() );
-                    break;
-                case VALUE_TRUE:
-                    locations.put( currentField, jp.getCurrentLocation() );
-                    ast.put( currentField, Boolean.TRUE );
-                    break;
-                case VALUE_FALSE:
-                    locations.put( currentField, jp.getCurrentLocation() );
-                    ast.put( currentField, Boolean.FALSE );
-                    break;
+                }
             }
-
-            token = jp.nextToken();
-        }
-        while ( token != JsonToken.END_OBJECT );
-
-        StringBuilder sb = new StringBuilder();
-        sb.append( "AST is:" );
-        for ( String field : ast.keySet() )
-        {
-            Object value = ast.get( field );
-            sb.append( "\n  " ).append( field ).append( " = " );
-            if ( value == null )
+            else if ( SerializationConstants.DECLARING_REF.equals( field ) )
             {
-                sb.append( "null" );
+                decl = token == JsonToken.VALUE_STRING ? jp.getText() : null;
             }
-            else
+            else if ( SerializationConstants.TARGET_REF.equals( field ) )
             {
-                sb.append( value ).append( "  (type: " ).append( value.getClass().getSimpleName() ).append( ")" );
+                tgt = token == JsonToken.VALUE_STRING ? jp.getText() : null;
             }
-        }
-
-        logger.debug( sb.toString() );
-
-        final RelationshipType type = RelationshipType.getType( (String) ast.get( SerializationConstants.RELATIONSHIP_TYPE ) );
-
-        final String uri = (String) ast.get( SerializationConstants.POM_LOCATION_URI );
-        URI pomLocation;
-        if ( uri == null )
-        {
-            pomLocation = RelationshipConstants.POM_ROOT_URI;
-        }
-        else
-        {
-            try
+            else if ( SerializationConstants.PLUGIN_REF.equals( field ) )
             {
-                pomLocation = new URI( uri );
+                plug = token == JsonToken.VALUE_STRING ? jp.getText() : null;
             }
-            catch ( final URISyntaxException e )
+            else if ( SerializationConstants.SCOPE.equals( field ) )
             {
-                throw new JsonParseException( "Invalid " + SerializationConstants.POM_LOCATION_URI + ": '" + uri + "': " + e.getMessage(),
-                                              locations.get( SerializationConstants.POM_LOCATION_URI ), e );
+                scp = token == JsonToken.VALUE_STRING ? jp.getText() : null;
             }
-        }
-
-        Collection<URI> sources = new HashSet<URI>();
-        List<String> srcs = (List<String>) ast.get( SerializationConstants.SOURCE_URIS );
-        if ( srcs != null )
-        {
-            for ( String u : srcs )
+            else if ( SerializationConstants.INDEX.equals( field ) )
             {
-                try
-                {
-                    sources.add( new URI( u ) );
-                }
-                catch ( URISyntaxException e )
-                {
-                    throw new JsonParseException( "Failed to parse source URI: " + u,
-                                                  locations.get( SerializationConstants.SOURCE_URIS ) );
-                }
+                index = token == JsonToken.VALUE_NUMBER_INT ? jp.getIntValue() : 0;
+            }
+            else if ( SerializationConstants.MANAGED.equals( field ) )
+            {
+                managed = token == JsonToken.VALUE_TRUE;
+            }
+            else if ( SerializationConstants.INHERITED.equals( field ) )
+            {
+                inherited = token == JsonToken.VALUE_TRUE;
+            }
+            else if ( SerializationConstants.MIXIN.equals( field ) )
+            {
+                mixin = token == JsonToken.VALUE_TRUE;
+            }
+            else if ( SerializationConstants.OPTIONAL.equals( field ) )
+            {
+                optional = token == JsonToken.VALUE_TRUE;
+            }
+            else if ( SerializationConstants.REPORTING.equals( field ) )
+            {
+                reporting = token == JsonToken.VALUE_TRUE;
             }
-        }
 
-        String decl = (String) ast.get( SerializationConstants.DECLARING_REF );
-        final ProjectVersionRef declaring = SimpleProjectVersionRef.parse( decl );
+            // unknown fields, and known fields holding an object or array, still have to be stepped over.
+            jp.skipChildren();
+        }
 
-        String tgt = (String) ast.get( SerializationConstants.TARGET_REF );
-        Integer index = (Integer) ast.get( SerializationConstants.INDEX );
-        if ( index == null )
+        if ( type == null )
         {
-            index = 0;
+            throw new JsonParseException( "No relationship type (field: " + SerializationConstants.RELATIONSHIP_TYPE
+                                                  + ") found!", jp.getCurrentLocation() );
         }
 
-        // handle null implicitly by comparing to true.
-        boolean managed = Boolean.TRUE.equals( ast.get( SerializationConstants.MANAGED ) );
-        boolean inherited = Boolean.TRUE.equals( ast.get( SerializationConstants.INHERITED ) );
-        boolean mixin = Boolean.TRUE.equals( ast.get( SerializationConstants.MIXIN ) );
-        boolean optional = Boolean.TRUE.equals( ast.get( SerializationConstants.OPTIONAL ) );
+        final ProjectVersionRef declaring = versionRef( decl );
 
         ProjectRelationship<?, ?> rel = null;
         switch ( type )
         {
             case DEPENDENCY:
             {
-                final ArtifactRef target = SimpleArtifactRef.parse( tgt );
-
-                String scp = (String) ast.get( SerializationConstants.SCOPE );
-                final DependencyScope scope;
-                if ( scp == null )
-                {
-                    scope = DependencyScope.compile;
-                }
-                else
-                {
-                    scope = DependencyScope.getScope( scp );
-                }
+                final DependencyScope scope = scp == null ? DependencyScope.compile : DependencyScope.getScope( scp );
 
-                rel = new SimpleDependencyRelationship( sources, pomLocation, declaring, target, scope, index,
-                                                        managed, inherited, optional );
+                rel = new SimpleDependencyRelationship( sources, pomLocation, declaring, artifactRef( tgt ), scope,
+                                                        index, managed, inherited, optional );
                 break;
             }
             case EXTENSION:
             {
-                final ProjectVersionRef target = SimpleProjectVersionRef.parse( tgt );
-
-                rel = new SimpleExtensionRelationship( sources, pomLocation, declaring, target, index, inherited );
+                rel = new SimpleExtensionRelationship( sources, pomLocation, declaring, versionRef( tgt ), index,
+                                                       inherited );
                 break;
             }
             case PARENT:
             {
-                final ProjectVersionRef target = SimpleProjectVersionRef.parse( tgt );
-
-                rel = new SimpleParentRelationship( sources, declaring, target );
+                rel = new SimpleParentRelationship( sources, declaring, versionRef( tgt ) );
                 break;
             }
             case PLUGIN:
             {
-                final ProjectVersionRef target = SimpleProjectVersionRef.parse( tgt );
-
-                Boolean report = (Boolean) ast.get( SerializationConstants.REPORTING );
-                rel = new SimplePluginRelationship( sources, pomLocation, declaring, target, index, managed,
-                                                    Boolean.TRUE.equals( report ), inherited );
+                rel = new SimplePluginRelationship( sources, pomLocation, declaring, versionRef( tgt ), index, managed,
+                                                    reporting, inherited );
                 break;
             }
             case PLUGIN_DEP:
             {
-                String plug = (String) ast.get( SerializationConstants.PLUGIN_REF );
                 if ( plug == null )
                 {
                     throw new JsonParseException( "No plugin reference (field: " + SerializationConstants.PLUGIN_REF
@@ -249,22 +235,116 @@ public final class ProjectRelationshipDeserializer<T extends ProjectRelationship
                                                   jp.getCurrentLocation() );
                 }
 
-                final ProjectRef plugin = SimpleProjectRef.parse( plug );
-                final ArtifactRef target = SimpleArtifactRef.parse( tgt );
+                final ProjectRef plugin = intern( SimpleProjectRef.parse( plug ) );
 
-                rel = new SimplePluginDependencyRelationship( sources, pomLocation, declaring, plugin, target,
-                                                              index, managed, inherited );
+                rel = new SimplePluginDependencyRelationship( sources, pomLocation, declaring, plugin,
+                                                              artifactRef( tgt ), index, managed, inherited );
                 break;
             }
             case BOM:
             {
-                final ProjectVersionRef target = SimpleProjectVersionRef.parse( tgt );
-
-                rel = new SimpleBomRelationship( sources, pomLocation, declaring, target, index, inherited, mixin );
+                rel = new SimpleBomRelationship( sources, pomLocation, declaring, versionRef( tgt ), index, inherited,
+                                                 mixin );
                 break;
             }
         }
 
         return (T) rel;
     }
+
+    private static URI toURI( final JsonParser jp, final String field )
+            throws IOException
+    {
+        final String uri = jp.getText();
+        try
+        {
+            return new URI( uri );
+        }
+        catch ( final URISyntaxException e )
+        {
+            throw new JsonParseException( "Invalid " + field + ": '" + uri + "': " + e.getMessage(),
+                                          jp.getCurrentLocation(), e );
+        }
+    }
+
+    private ProjectVersionRef versionRef( final String gav )
+    {
+        // null when this instance was itself deserialized, since the caches are transient.
+        if ( versionRefs == null || gav == null )
+        {
+            return intern( SimpleProjectVersionRef.parse( gav ) );
+        }
+
+        ProjectVersionRef ref = versionRefs.get( gav );
+        if ( ref == null )
+        {
+            ref = intern( SimpleProjectVersionRef.parse( gav ) );
+            versionRefs.put( gav, ref );
+        }
+
+        return ref;
+    }
+
+    private ArtifactRef artifactRef( final String spec )
+    {
+        if ( artifactRefs == null || spec == null )
+        {
+            return intern( SimpleArtifactRef.parse( spec ) );
+        }
+
+        ArtifactRef ref = artifactRefs.get( spec );
+        if ( ref == null )
+        {
+            ref = intern( SimpleArtifactRef.parse( spec ) );
+            artifactRefs.put( spec, ref );
+        }
+
+        return ref;
+    }
+
+    private <R extends ProjectRef> R intern( final R ref )
+    {
+        return pool == null ? ref : pool.intern( ref );
+    }
+
+    /**
+     * Fixed-size, direct-mapped cache from ref text to parsed ref. Threads may race to fill a slot, but entries are
+     * immutable, so the worst case is a miss and a redundant parse.
+     */
+    private static final class RefCache<R extends ProjectRef>
+    {
+        private static final int SIZE = 1024;
+
+        private final Entry<R>[] entries = new Entry[SIZE];
+
+        R get( final String text )
+        {
+            final Entry<R> entry = entries[slot( text )];
+            return entry != null && entry.text.equals( text ) ? entry.ref : null;
+        }
+
+        void put( final String text, final R ref )
+        {
+            entries[slot( text )] = new Entry<R>( text, ref );
+        }
+
+        private static int slot( final String text )
+        {
+            final int h = text.hashCode();
+            return ( h ^ ( h >>> 16 ) ) & ( SIZE - 1 );
+        }
+    }
+
+    private static final class Entry<R>
+    {
+        private final String text;
+
+        private final R ref;
+
+        Entry( final String text, final R ref )
+        {
+            this.text = text;
+            this.ref = ref;
+        }
+    }
 }
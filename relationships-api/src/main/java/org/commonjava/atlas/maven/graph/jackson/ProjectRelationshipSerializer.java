@@ -26,7 +26,6 @@ import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -51,29 +50,19 @@ public final class ProjectRelationshipSerializer<T extends ProjectRelationship>
         gen.writeStringField( SerializationConstants.POM_LOCATION_URI, value.getPomLocation().toString() );
         gen.writeBooleanField( SerializationConstants.INHERITED, value.isInherited() );
 
-        Set<URI> sources = value.getSources();
-        if ( sources != null )
+        // write-only: the sources may be shared with other relationships, so nulls are skipped rather than removed.
+        final Set<URI> sources = value.getSources();
+        if ( sources != null && !sources.isEmpty() )
         {
-            for ( Iterator<URI> iter = sources.iterator(); iter.hasNext(); )
+            gen.writeArrayFieldStart( SerializationConstants.SOURCE_URIS );
+            for ( URI uri : sources )
             {
-                if ( iter.next() == null )
+                if ( uri != null )
                 {
-                    iter.remove();
-                }
-            }
-            if ( !sources.isEmpty() )
-            {
-                gen.writeArrayFieldStart( SerializationConstants.SOURCE_URIS );
-                for ( URI uri : sources )
-                {
-                    if ( uri == null )
-                    {
-                        continue;
-                    }
                     gen.writeString( uri.toString() );
                 }
-                gen.writeEndArray();
             }
+            gen.writeEndArray();
         }
         provider.defaultSerializeField( SerializationConstants.DECLARING_REF, value.getDeclaring(), gen );
         provider.defaultSerializeField( SerializationConstants.TARGET_REF, value.getTarget(), gen );
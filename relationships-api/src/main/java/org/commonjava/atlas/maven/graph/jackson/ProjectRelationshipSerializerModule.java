@@ -30,6 +30,7 @@ import org.commonjava.atlas.maven.graph.rel.SimpleParentRelationship;
 import org.commonjava.atlas.maven.graph.rel.SimplePluginDependencyRelationship;
 import org.commonjava.atlas.maven.graph.rel.SimplePluginRelationship;
 import org.commonjava.atlas.maven.graph.model.PluginKey;
+import org.commonjava.atlas.maven.ident.ref.ProjectRefPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,24 +58,36 @@ public class ProjectRelationshipSerializerModule
     public static final ProjectRelationshipSerializerModule INSTANCE = new ProjectRelationshipSerializerModule();
 
     public ProjectRelationshipSerializerModule()
+    {
+        this( null );
+    }
+
+    /**
+     * @param pool if not null, the refs of every relationship this module deserializes are interned there.
+     */
+    public ProjectRelationshipSerializerModule( final ProjectRefPool pool )
     {
         super( "ProjectRelationship<?> Serializer" );
 
+        // one deserializer for all of them, so they share its ref cache.
+        final ProjectRelationshipDeserializer<?> deserializer =
+                new ProjectRelationshipDeserializer<ProjectRelationship<?, ?>>( pool );
         for ( Class<? extends ProjectRelationship> cls : REL_CLASSES )
         {
-            register( cls );
+            register( cls, deserializer );
         }
         addKeySerializer( PluginKey.class, new PluginKeySerializer() );
         addKeyDeserializer( PluginKey.class, new PluginKeyDeserializer() );
     }
 
-    private <T extends ProjectRelationship> void register( Class<T> cls )
+    @SuppressWarnings( "unchecked" )
+    private <T extends ProjectRelationship> void register( Class<T> cls, ProjectRelationshipDeserializer<?> deserializer )
     {
         Logger logger = LoggerFactory.getLogger( getClass() );
         logger.debug( "Registering serializer/deserializer for: {}", cls.getSimpleName() );
 
         addSerializer( cls, new ProjectRelationshipSerializer<T>( cls ) );
-        addDeserializer( cls, new ProjectRelationshipDeserializer<T>() );
+        addDeserializer( cls, (ProjectRelationshipDeserializer<T>) deserializer );
     }
 
     @Override
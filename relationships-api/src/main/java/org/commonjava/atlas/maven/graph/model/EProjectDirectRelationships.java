@@ -16,21 +16,27 @@
 package org.commonjava.atlas.maven.graph.model;
 
 import static org.commonjava.atlas.maven.graph.rel.RelationshipConstants.POM_ROOT_URI;
-import static org.commonjava.atlas.maven.graph.util.RelationshipUtils.filterTerminalParents;
 
 import java.io.Serializable;
 import java.net.URI;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.commonjava.atlas.maven.graph.rel.BomRelationship;
 import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
 import org.commonjava.atlas.maven.graph.rel.ExtensionRelationship;
@@ -47,62 +53,243 @@ import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.ProjectRef;
 import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
 
+/**
+ * The relationships declared directly by one project. Everything is held in a single array, sliced by type, so an
+ * instance costs little more than the relationships themselves. The getters return
+ * read-only views over that array rather than copies, and the "all relationships" sets are views that iterate it
+ * lazily.
+ */
 public class EProjectDirectRelationships
     implements EProjectRelationshipCollection, Serializable
 {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    // slices of the relationships array, in storage order
+    private static final int PARENT = 0;
+
+    private static final int BOMS = 1;
+
+    private static final int DEPENDENCIES = 2;
+
+    private static final int MANAGED_DEPENDENCIES = 3;
+
+    private static final int PLUGINS = 4;
+
+    private static final int MANAGED_PLUGINS = 5;
+
+    private static final int EXTENSIONS = 6;
+
+    private static final int PLUGIN_DEPENDENCIES = 7;
+
+    private static final int SLICES = 8;
+
+    private static final ProjectRelationship<?, ?>[] NO_RELATIONSHIPS = new ProjectRelationship<?, ?>[0];
 
-    private URI source;
+    private static final PluginKey[] NO_PLUGIN_KEYS = new PluginKey[0];
 
-    private ProjectVersionRef projectRef;
+    private static final int[] NO_POSITIONS = new int[0];
 
-    private List<BomRelationship> boms;
+    private final URI source;
 
-    private List<DependencyRelationship> dependencies;
+    private final ProjectVersionRef projectRef;
 
-    private List<DependencyRelationship> managedDependencies;
+    private final ProjectRelationship<?, ?>[] relationships;
 
-    private List<PluginRelationship> plugins;
+    // slice i covers [sliceStarts[i], sliceStarts[i + 1])
+    private final int[] sliceStarts;
 
-    private List<PluginRelationship> managedPlugins;
+    private final PluginKey[] pluginKeys;
 
-    private List<ExtensionRelationship> extensions;
+    // plugin dependencies of pluginKeys[i] cover [pluginStarts[i], pluginStarts[i + 1])
+    private final int[] pluginStarts;
 
-    private ParentRelationship parent;
+    // positions (ascending) holding a relationship equal to an earlier one, left out of the "all relationships" sets
+    private final int[] duplicates;
 
-    private Map<PluginKey, List<PluginDependencyRelationship>> pluginDependencies;
+    // whether every relationship is in the slice its type and managed flag map to, so lookups can go straight there
+    private final boolean sliced;
 
-    public EProjectDirectRelationships() {}
+    public EProjectDirectRelationships()
+    {
+        this.source = null;
+        this.projectRef = null;
+        this.relationships = NO_RELATIONSHIPS;
+        this.sliceStarts = new int[SLICES + 1];
+        this.pluginKeys = NO_PLUGIN_KEYS;
+        this.pluginStarts = new int[1];
+        this.duplicates = NO_POSITIONS;
+        this.sliced = true;
+    }
 
-    public EProjectDirectRelationships( final URI source,
-                                        final ProjectVersionRef ref,
-                                        final ParentRelationship parent,
-                                        final List<BomRelationship> boms,
-                                        final List<DependencyRelationship> dependencies, final List<PluginRelationship> plugins,
-                                        final List<DependencyRelationship> managedDependencies, final List<PluginRelationship> managedPlugins,
-                                        final List<ExtensionRelationship> extensions,
+    @JsonCreator
+    public EProjectDirectRelationships( @JsonProperty( "source" ) final URI source,
+                                        @JsonProperty( "projectRef" ) final ProjectVersionRef ref,
+                                        @JsonProperty( "parent" ) final ParentRelationship parent,
+                                        @JsonProperty( "boms" ) final List<BomRelationship> boms,
+                                        @JsonProperty( "dependencies" ) final List<DependencyRelationship> dependencies,
+                                        @JsonProperty( "plugins" ) final List<PluginRelationship> plugins,
+                                        @JsonProperty( "managedDependencies" ) final List<DependencyRelationship> managedDependencies,
+                                        @JsonProperty( "managedPlugins" ) final List<PluginRelationship> managedPlugins,
+                                        @JsonProperty( "extensions" ) final List<ExtensionRelationship> extensions,
+                                        @JsonProperty( "pluginDependencies" )
                                         final Map<PluginKey, List<PluginDependencyRelationship>> pluginDependencies )
     {
         this.source = source;
         this.projectRef = ref;
-        this.parent = parent;
-        this.boms = Collections.unmodifiableList( boms );
-        this.dependencies = Collections.unmodifiableList( dependencies );
-        this.plugins = Collections.unmodifiableList( plugins );
-        this.managedDependencies = Collections.unmodifiableList( managedDependencies );
-        this.managedPlugins = Collections.unmodifiableList( managedPlugins );
-        this.extensions = Collections.unmodifiableList( extensions );
-
-        final HashMap<PluginKey, List<PluginDependencyRelationship>> pdrels =
-            new HashMap<PluginKey, List<PluginDependencyRelationship>>();
 
-        for ( final Map.Entry<PluginKey, List<PluginDependencyRelationship>> entry : pluginDependencies.entrySet() )
+        int pluginDepCount = 0;
+        if ( pluginDependencies != null )
+        {
+            for ( final List<PluginDependencyRelationship> pdrs : pluginDependencies.values() )
+            {
+                pluginDepCount += pdrs == null ? 0 : pdrs.size();
+            }
+        }
+
+        final int total = ( parent == null ? 0 : 1 ) + size( boms ) + size( dependencies ) + size( managedDependencies )
+            + size( plugins ) + size( managedPlugins ) + size( extensions ) + pluginDepCount;
+
+        this.relationships = total == 0 ? NO_RELATIONSHIPS : new ProjectRelationship<?, ?>[total];
+        this.sliceStarts = new int[SLICES + 1];
+
+        int pos = 0;
+        if ( parent != null )
         {
-            pdrels.put( entry.getKey(), Collections.unmodifiableList( entry.getValue() ) );
+            relationships[pos++] = parent;
         }
 
-        this.pluginDependencies = Collections.unmodifiableMap( pdrels );
+        pos = fill( BOMS, pos, boms );
+        pos = fill( DEPENDENCIES, pos, dependencies );
+        pos = fill( MANAGED_DEPENDENCIES, pos, managedDependencies );
+        pos = fill( PLUGINS, pos, plugins );
+        pos = fill( MANAGED_PLUGINS, pos, managedPlugins );
+        pos = fill( EXTENSIONS, pos, extensions );
+        sliceStarts[PLUGIN_DEPENDENCIES] = pos;
+
+        if ( pluginDependencies == null || pluginDependencies.isEmpty() )
+        {
+            this.pluginKeys = NO_PLUGIN_KEYS;
+            this.pluginStarts = new int[] { pos };
+        }
+        else
+        {
+            this.pluginKeys = new PluginKey[pluginDependencies.size()];
+            this.pluginStarts = new int[pluginKeys.length + 1];
+
+            int key = 0;
+            for ( final Map.Entry<PluginKey, List<PluginDependencyRelationship>> entry : pluginDependencies.entrySet() )
+            {
+                pluginKeys[key] = entry.getKey();
+                pluginStarts[key] = pos;
+                if ( entry.getValue() != null )
+                {
+                    for ( final PluginDependencyRelationship rel : entry.getValue() )
+                    {
+                        relationships[pos++] = rel;
+                    }
+                }
+
+                key++;
+            }
+
+            pluginStarts[key] = pos;
+        }
+
+        sliceStarts[SLICES] = pos;
+        this.duplicates = findDuplicates( relationships );
+        this.sliced = isSliced();
+    }
+
+    /**
+     * The builder always puts a relationship in the slice {@link #sliceOf(ProjectRelationship)} picks, but the
+     * constructor takes whatever lists it is given.
+     */
+    private boolean isSliced()
+    {
+        for ( int slice = 0; slice < SLICES; slice++ )
+        {
+            for ( int i = sliceStarts[slice]; i < sliceStarts[slice + 1]; i++ )
+            {
+                if ( sliceOf( relationships[i] ) != slice )
+                {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static int sliceOf( final ProjectRelationship<?, ?> rel )
+    {
+        switch ( rel.getType() )
+        {
+            case PARENT:
+                return PARENT;
+            case BOM:
+                return BOMS;
+            case DEPENDENCY:
+                return rel.isManaged() ? MANAGED_DEPENDENCIES : DEPENDENCIES;
+            case PLUGIN:
+                return rel.isManaged() ? MANAGED_PLUGINS : PLUGINS;
+            case EXTENSION:
+                return EXTENSIONS;
+            case PLUGIN_DEP:
+                return PLUGIN_DEPENDENCIES;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Nothing stops callers (or JSON) from listing the same relationship twice, and the set views mustn't repeat it.
+     */
+    private static int[] findDuplicates( final ProjectRelationship<?, ?>[] relationships )
+    {
+        if ( relationships.length < 2 )
+        {
+            return NO_POSITIONS;
+        }
+
+        int count = 0;
+        int[] result = NO_POSITIONS;
+        final Set<ProjectRelationship<?, ?>> seen = new HashSet<ProjectRelationship<?, ?>>( relationships.length * 2 );
+        for ( int i = 0; i < relationships.length; i++ )
+        {
+            if ( !seen.add( relationships[i] ) )
+            {
+                if ( count == result.length )
+                {
+                    result = Arrays.copyOf( result, Math.max( 4, count * 2 ) );
+                }
+
+                result[count++] = i;
+            }
+        }
+
+        return count == result.length ? result : Arrays.copyOf( result, count );
+    }
+
+    private int fill( final int slice, final int start, final List<? extends ProjectRelationship<?, ?>> rels )
+    {
+        sliceStarts[slice] = start;
+
+        int pos = start;
+        if ( rels != null )
+        {
+            for ( final ProjectRelationship<?, ?> rel : rels )
+            {
+                relationships[pos++] = rel;
+            }
+        }
+
+        return pos;
+    }
+
+    private static int size( final List<?> list )
+    {
+        return list == null ? 0 : list.size();
     }
 
     public final URI getSource()
@@ -117,84 +304,308 @@ public class EProjectDirectRelationships
 
     public final List<DependencyRelationship> getDependencies()
     {
-        return dependencies;
+        return slice( DEPENDENCIES );
     }
 
     public final List<DependencyRelationship> getManagedDependencies()
     {
-        return managedDependencies;
+        return slice( MANAGED_DEPENDENCIES );
     }
 
     public final List<PluginRelationship> getPlugins()
     {
-        return plugins;
+        return slice( PLUGINS );
     }
 
     public final List<PluginRelationship> getManagedPlugins()
     {
-        return managedPlugins;
+        return slice( MANAGED_PLUGINS );
     }
 
     public final List<ExtensionRelationship> getExtensions()
     {
-        return extensions;
+        return slice( EXTENSIONS );
     }
 
     public final ParentRelationship getParent()
     {
-        return parent;
+        return sliceStarts[BOMS] > 0 ? (ParentRelationship) relationships[0] : null;
     }
 
     public final Map<PluginKey, List<PluginDependencyRelationship>> getPluginDependencies()
     {
-        return pluginDependencies;
+        return new PluginDependencyMap();
     }
 
     public final List<PluginDependencyRelationship> getPluginDependencies( final ProjectVersionRef plugin, final boolean managed,
                                                                            final boolean inherited )
     {
-        PluginKey pk = new PluginKey( plugin, managed );
-        return pluginDependencies.get( pk );
+        final int key = indexOf( new PluginKey( plugin, managed ) );
+        return key < 0 ? null : pluginDependencies( key );
     }
 
     public final List<BomRelationship> getBoms()
     {
-        return boms;
+        return slice( BOMS );
     }
 
+    /**
+     * @return a read-only view of all relationships except a terminal parent (see
+     * {@link ParentRelationship#isTerminus()}). Unlike a hash set, its <code>contains()</code> compares against every
+     * relationship of the same type and managed state, so it's linear in how many of those there are.
+     */
     @JsonIgnore
     @Override
     public Set<ProjectRelationship<?, ?>> getAllRelationships()
     {
-        final Set<ProjectRelationship<?, ?>> rels = getExactAllRelationships();
-        filterTerminalParents( rels );
-
-        return rels;
+        final ParentRelationship parent = getParent();
+        final boolean skipParent = parent instanceof SimpleParentRelationship && parent.isTerminus();
+        return new RelationshipSet( skipParent ? sliceStarts[BOMS] : 0 );
     }
 
+    /**
+     * @return a read-only view of all relationships, including a terminal parent. As with
+     * {@link #getAllRelationships()}, <code>contains()</code> is linear in the relationships of the probed type and
+     * managed state.
+     */
     @JsonIgnore
     @Override
     public Set<ProjectRelationship<?, ?>> getExactAllRelationships()
     {
-        final Set<ProjectRelationship<?, ?>> result = new HashSet<ProjectRelationship<?, ?>>();
-        if ( parent != null )
+        return new RelationshipSet( 0 );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private <T extends ProjectRelationship<?, ?>> List<T> slice( final int slice )
+    {
+        return new Slice<T>( sliceStarts[slice], sliceStarts[slice + 1] );
+    }
+
+    private List<PluginDependencyRelationship> pluginDependencies( final int key )
+    {
+        return new Slice<PluginDependencyRelationship>( pluginStarts[key], pluginStarts[key + 1] );
+    }
+
+    private int indexOf( final Object key )
+    {
+        for ( int i = 0; i < pluginKeys.length; i++ )
+        {
+            if ( pluginKeys[i].equals( key ) )
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Read-only view of part of the relationships array.
+     */
+    private final class Slice<T>
+        extends AbstractList<T>
+        implements RandomAccess
+    {
+        private final int start;
+
+        private final int end;
+
+        Slice( final int start, final int end )
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        @Override
+        public T get( final int index )
+        {
+            if ( index < 0 || index >= end - start )
+            {
+                throw new IndexOutOfBoundsException( "Index: " + index + ", size: " + ( end - start ) );
+            }
+
+            return (T) relationships[start + index];
+        }
+
+        @Override
+        public int size()
         {
-            result.add( parent );
+            return end - start;
         }
+    }
 
-        result.addAll( boms );
-        result.addAll( dependencies );
-        result.addAll( managedDependencies );
-        result.addAll( plugins );
-        result.addAll( managedPlugins );
-        result.addAll( extensions );
+    /**
+     * Read-only set view of the relationships array from some position to the end, skipping the duplicate positions.
+     * Only the parent can come before the start position, and nothing else can be equal to it, so the first
+     * occurrence of every duplicate is always inside the view.
+     */
+    private final class RelationshipSet
+        extends AbstractSet<ProjectRelationship<?, ?>>
+    {
+        private final int start;
 
-        for ( final List<PluginDependencyRelationship> pluginRels : pluginDependencies.values() )
+        RelationshipSet( final int start )
         {
-            result.addAll( pluginRels );
+            this.start = start;
         }
 
-        return result;
+        @Override
+        public Iterator<ProjectRelationship<?, ?>> iterator()
+        {
+            return new Iterator<ProjectRelationship<?, ?>>()
+            {
+                private int next = start;
+
+                private int dup = firstDuplicate();
+
+                @Override
+                public boolean hasNext()
+                {
+                    skipDuplicates();
+                    return next < relationships.length;
+                }
+
+                @Override
+                public ProjectRelationship<?, ?> next()
+                {
+                    if ( !hasNext() )
+                    {
+                        throw new NoSuchElementException();
+                    }
+
+                    return relationships[next++];
+                }
+
+                private void skipDuplicates()
+                {
+                    while ( dup < duplicates.length && duplicates[dup] == next )
+                    {
+                        next++;
+                        dup++;
+                    }
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException( "Read-only" );
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return relationships.length - start - ( duplicates.length - firstDuplicate() );
+        }
+
+        @Override
+        public boolean contains( final Object o )
+        {
+            if ( !sliced )
+            {
+                return super.contains( o );
+            }
+
+            if ( !( o instanceof ProjectRelationship ) )
+            {
+                return false;
+            }
+
+            final int slice = sliceOf( (ProjectRelationship<?, ?>) o );
+            if ( slice < 0 )
+            {
+                return false;
+            }
+
+            for ( int i = Math.max( start, sliceStarts[slice] ); i < sliceStarts[slice + 1]; i++ )
+            {
+                if ( o.equals( relationships[i] ) )
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        // index into duplicates of the first position at or after the start
+        private int firstDuplicate()
+        {
+            final int idx = Arrays.binarySearch( duplicates, start );
+            return idx < 0 ? -idx - 1 : idx;
+        }
+    }
+
+    private final class PluginDependencyMap
+        extends AbstractMap<PluginKey, List<PluginDependencyRelationship>>
+    {
+        @Override
+        public List<PluginDependencyRelationship> get( final Object key )
+        {
+            final int idx = indexOf( key );
+            return idx < 0 ? null : pluginDependencies( idx );
+        }
+
+        @Override
+        public boolean containsKey( final Object key )
+        {
+            return indexOf( key ) > -1;
+        }
+
+        @Override
+        public int size()
+        {
+            return pluginKeys.length;
+        }
+
+        @Override
+        public Set<Map.Entry<PluginKey, List<PluginDependencyRelationship>>> entrySet()
+        {
+            return new AbstractSet<Map.Entry<PluginKey, List<PluginDependencyRelationship>>>()
+            {
+                @Override
+                public Iterator<Map.Entry<PluginKey, List<PluginDependencyRelationship>>> iterator()
+                {
+                    return new Iterator<Map.Entry<PluginKey, List<PluginDependencyRelationship>>>()
+                    {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return next < pluginKeys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<PluginKey, List<PluginDependencyRelationship>> next()
+                        {
+                            if ( next >= pluginKeys.length )
+                            {
+                                throw new NoSuchElementException();
+                            }
+
+                            final int key = next++;
+                            return new SimpleImmutableEntry<PluginKey, List<PluginDependencyRelationship>>(
+                                pluginKeys[key], pluginDependencies( key ) );
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            throw new UnsupportedOperationException( "Read-only" );
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return pluginKeys.length;
+                }
+            };
+        }
     }
 
     public static final class Builder
@@ -0,0 +1,541 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.commonjava.atlas.maven.graph.rel.ParentRelationship;
+import org.commonjava.atlas.maven.graph.rel.PluginDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+
+/**
+ * Immutable, in-memory graph of {@link ProjectRelationship}s, built up from {@link EProjectDirectRelationships} via
+ * {@link Builder}.
+ * <p>
+ * Every distinct {@link ProjectVersionRef} gets a dense node id (0..{@link #getNodeCount()}-1), and every relationship
+ * an edge id (0..{@link #getEdgeCount()}-1). Edges are kept in primitive arrays, in compressed sparse row form, sorted
+ * by declaring node and then {@link RelationshipType}; a second index does the same for incoming edges. So any
+ * neighbor lookup, in either direction and for any type, is O(1), and the whole structure costs a handful of ints per
+ * edge on top of the relationships themselves.
+ * <p>
+ * Within a node and type, edges keep the order they were added in (for {@link EProjectDirectRelationships}, that's the
+ * POM declaration order). Edge ids are only meaningful within a single graph instance, but node ids carry over to
+ * graphs built with {@link Builder#Builder(RelationshipGraph)}.
+ */
+public final class RelationshipGraph
+{
+
+    private static final RelationshipType[] TYPES = RelationshipType.values();
+
+    private static final int TYPE_COUNT = TYPES.length;
+
+    private static final byte MANAGED = 1;
+
+    private static final byte REMOVED = 2;
+
+    private final Map<ProjectVersionRef, Integer> nodeIds;
+
+    private final ProjectVersionRef[] nodes;
+
+    private final BitSet declared;
+
+    // edge ids are positions in these arrays, sorted by (source, type)
+    private final int[] edgeSources;
+
+    private final int[] edgeTargets;
+
+    private final byte[] edgeTypes;
+
+    private final byte[] edgeFlags;
+
+    private final ProjectRelationship<?, ?>[] relationships;
+
+    // out edges of node n with type t are the edge ids outOffsets[n*T+t] until outOffsets[n*T+t+1]
+    private final int[] outOffsets;
+
+    // in edges of node n with type t are inEdges[inOffsets[n*T+t]] until inEdges[inOffsets[n*T+t+1]]
+    private final int[] inOffsets;
+
+    private final int[] inEdges;
+
+    private RelationshipGraph( final Map<ProjectVersionRef, Integer> nodeIds, final ProjectVersionRef[] nodes,
+                               final BitSet declared, final int[] edgeSources, final int[] edgeTargets,
+                               final byte[] edgeTypes, final byte[] edgeFlags,
+                               final ProjectRelationship<?, ?>[] relationships, final int[] outOffsets,
+                               final int[] inOffsets, final int[] inEdges )
+    {
+        this.nodeIds = nodeIds;
+        this.nodes = nodes;
+        this.declared = declared;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeTypes = edgeTypes;
+        this.edgeFlags = edgeFlags;
+        this.relationships = relationships;
+        this.outOffsets = outOffsets;
+        this.inOffsets = inOffsets;
+        this.inEdges = inEdges;
+    }
+
+    public int getNodeCount()
+    {
+        return nodes.length;
+    }
+
+    public int getEdgeCount()
+    {
+        return relationships.length;
+    }
+
+    /**
+     * @return the node id of the given project, or -1 if it isn't in the graph.
+     */
+    public int getNodeId( final ProjectVersionRef ref )
+    {
+        final Integer id = nodeIds.get( ref.asProjectVersionRef() );
+        return id == null ? -1 : id;
+    }
+
+    public ProjectVersionRef getNode( final int node )
+    {
+        return nodes[node];
+    }
+
+    /**
+     * @return true if the direct relationships of this node were added to the graph, false if it only appears as the
+     * target of other relationships.
+     */
+    public boolean isDeclared( final int node )
+    {
+        return declared.get( node );
+    }
+
+    public int getOutDegree( final int node )
+    {
+        return outOffsets[( node + 1 ) * TYPE_COUNT] - outOffsets[node * TYPE_COUNT];
+    }
+
+    public int getOutDegree( final int node, final RelationshipType type )
+    {
+        final int slot = node * TYPE_COUNT + type.ordinal();
+        return outOffsets[slot + 1] - outOffsets[slot];
+    }
+
+    /**
+     * @return the edge id of the i'th outgoing edge of the node, counting across all types (in enum order).
+     */
+    public int getOutEdge( final int node, final int i )
+    {
+        return outOffsets[node * TYPE_COUNT] + i;
+    }
+
+    public int getOutEdge( final int node, final RelationshipType type, final int i )
+    {
+        return outOffsets[node * TYPE_COUNT + type.ordinal()] + i;
+    }
+
+    public int getInDegree( final int node )
+    {
+        return inOffsets[( node + 1 ) * TYPE_COUNT] - inOffsets[node * TYPE_COUNT];
+    }
+
+    public int getInDegree( final int node, final RelationshipType type )
+    {
+        final int slot = node * TYPE_COUNT + type.ordinal();
+        return inOffsets[slot + 1] - inOffsets[slot];
+    }
+
+    /**
+     * @return the edge id of the i'th incoming edge of the node, counting across all types (in enum order).
+     */
+    public int getInEdge( final int node, final int i )
+    {
+        return inEdges[inOffsets[node * TYPE_COUNT] + i];
+    }
+
+    public int getInEdge( final int node, final RelationshipType type, final int i )
+    {
+        return inEdges[inOffsets[node * TYPE_COUNT + type.ordinal()] + i];
+    }
+
+    public int getEdgeSource( final int edge )
+    {
+        return edgeSources[edge];
+    }
+
+    public int getEdgeTarget( final int edge )
+    {
+        return edgeTargets[edge];
+    }
+
+    public RelationshipType getEdgeType( final int edge )
+    {
+        return TYPES[edgeTypes[edge]];
+    }
+
+    public boolean isManaged( final int edge )
+    {
+        return ( edgeFlags[edge] & MANAGED ) != 0;
+    }
+
+    public ProjectRelationship<?, ?> getRelationship( final int edge )
+    {
+        return relationships[edge];
+    }
+
+    /**
+     * @return the relationships declared by the given project, of the given types (or all types, if none are given).
+     */
+    public List<ProjectRelationship<?, ?>> getRelationshipsFrom( final ProjectVersionRef ref,
+                                                                 final RelationshipType... types )
+    {
+        final int node = getNodeId( ref );
+        if ( node < 0 )
+        {
+            return Collections.emptyList();
+        }
+
+        final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( final RelationshipType type : types.length == 0 ? TYPES : types )
+        {
+            final int slot = node * TYPE_COUNT + type.ordinal();
+            for ( int e = outOffsets[slot]; e < outOffsets[slot + 1]; e++ )
+            {
+                result.add( relationships[e] );
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the relationships targeting the given project, of the given types (or all types, if none are given).
+     */
+    public List<ProjectRelationship<?, ?>> getRelationshipsTo( final ProjectVersionRef ref,
+                                                               final RelationshipType... types )
+    {
+        final int node = getNodeId( ref );
+        if ( node < 0 )
+        {
+            return Collections.emptyList();
+        }
+
+        final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( final RelationshipType type : types.length == 0 ? TYPES : types )
+        {
+            final int slot = node * TYPE_COUNT + type.ordinal();
+            for ( int i = inOffsets[slot]; i < inOffsets[slot + 1]; i++ )
+            {
+                result.add( relationships[inEdges[i]] );
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RelationshipGraph [nodes=" + nodes.length + ", edges=" + relationships.length + "]";
+    }
+
+    /**
+     * Collects relationships for a {@link RelationshipGraph}. Not thread-safe; {@link #build()} may be called any
+     * number of times.
+     */
+    public static final class Builder
+    {
+        private final Map<ProjectVersionRef, Integer> nodeIds;
+
+        private final List<ProjectVersionRef> nodes;
+
+        private final BitSet declared;
+
+        private int[] sources;
+
+        private int[] targets;
+
+        private byte[] types;
+
+        private byte[] flags;
+
+        private ProjectRelationship<?, ?>[] relationships;
+
+        // per-node linked list of the edges it declares, so a project's edges can be replaced without a full scan
+        private int[] firstBySource;
+
+        private int[] nextBySource;
+
+        private int edgeCount;
+
+        private int removedCount;
+
+        public Builder()
+        {
+            nodeIds = new HashMap<ProjectVersionRef, Integer>();
+            nodes = new ArrayList<ProjectVersionRef>();
+            declared = new BitSet();
+            sources = new int[16];
+            targets = new int[16];
+            types = new byte[16];
+            flags = new byte[16];
+            relationships = new ProjectRelationship<?, ?>[16];
+            nextBySource = new int[16];
+            firstBySource = new int[16];
+            Arrays.fill( firstBySource, -1 );
+        }
+
+        /**
+         * Start from the contents of an existing graph, eg. to replace the relationships of a few projects.
+         */
+        public Builder( final RelationshipGraph graph )
+        {
+            nodeIds = new HashMap<ProjectVersionRef, Integer>( graph.nodeIds );
+            nodes = new ArrayList<ProjectVersionRef>( Arrays.asList( graph.nodes ) );
+            declared = (BitSet) graph.declared.clone();
+
+            edgeCount = graph.relationships.length;
+            final int capacity = Math.max( 16, edgeCount );
+            sources = Arrays.copyOf( graph.edgeSources, capacity );
+            targets = Arrays.copyOf( graph.edgeTargets, capacity );
+            types = Arrays.copyOf( graph.edgeTypes, capacity );
+            flags = Arrays.copyOf( graph.edgeFlags, capacity );
+            relationships = Arrays.copyOf( graph.relationships, capacity );
+
+            nextBySource = new int[capacity];
+            firstBySource = new int[Math.max( 16, nodes.size() )];
+            Arrays.fill( firstBySource, -1 );
+
+            for ( int e = 0; e < edgeCount; e++ )
+            {
+                nextBySource[e] = firstBySource[sources[e]];
+                firstBySource[sources[e]] = e;
+            }
+        }
+
+        /**
+         * Add the relationships of a project, replacing any relationships that project declared before. Terminal
+         * parent relationships (a project declaring itself as parent) are skipped.
+         */
+        public Builder withDirectRelationships( final EProjectDirectRelationships rels )
+        {
+            final int node = nodeId( rels.getProjectRef() );
+            removeDeclaredBy( node );
+            declared.set( node );
+
+            final ParentRelationship parent = rels.getParent();
+            if ( parent != null && !parent.isTerminus() )
+            {
+                add( parent );
+            }
+
+            addAll( rels.getBoms() );
+            addAll( rels.getDependencies() );
+            addAll( rels.getManagedDependencies() );
+            addAll( rels.getPlugins() );
+            addAll( rels.getManagedPlugins() );
+            addAll( rels.getExtensions() );
+
+            final Map<PluginKey, List<PluginDependencyRelationship>> pluginDeps = rels.getPluginDependencies();
+            if ( pluginDeps != null )
+            {
+                for ( final List<PluginDependencyRelationship> deps : pluginDeps.values() )
+                {
+                    addAll( deps );
+                }
+            }
+
+            return this;
+        }
+
+        public Builder withDirectRelationships( final Collection<EProjectDirectRelationships> rels )
+        {
+            for ( final EProjectDirectRelationships r : rels )
+            {
+                withDirectRelationships( r );
+            }
+
+            return this;
+        }
+
+        /**
+         * Add loose relationships. Unlike {@link #withDirectRelationships(EProjectDirectRelationships)}, nothing is
+         * replaced.
+         */
+        public Builder withRelationships( final Collection<? extends ProjectRelationship<?, ?>> rels )
+        {
+            addAll( rels );
+            return this;
+        }
+
+        /**
+         * Remove all relationships declared by the given project.
+         */
+        public Builder withoutRelationshipsFrom( final ProjectVersionRef ref )
+        {
+            final Integer node = nodeIds.get( ref.asProjectVersionRef() );
+            if ( node != null )
+            {
+                removeDeclaredBy( node );
+                declared.clear( node );
+            }
+
+            return this;
+        }
+
+        public RelationshipGraph build()
+        {
+            final int nodeCount = nodes.size();
+            final int count = edgeCount - removedCount;
+            final int slots = nodeCount * TYPE_COUNT;
+
+            // counting sort on (source, type); stable, so declaration order survives.
+            final int[] outOffsets = new int[slots + 1];
+            final int[] inOffsets = new int[slots + 1];
+            for ( int e = 0; e < edgeCount; e++ )
+            {
+                if ( ( flags[e] & REMOVED ) == 0 )
+                {
+                    outOffsets[sources[e] * TYPE_COUNT + types[e] + 1]++;
+                    inOffsets[targets[e] * TYPE_COUNT + types[e] + 1]++;
+                }
+            }
+
+            for ( int i = 0; i < slots; i++ )
+            {
+                outOffsets[i + 1] += outOffsets[i];
+                inOffsets[i + 1] += inOffsets[i];
+            }
+
+            final int[] edgeSources = new int[count];
+            final int[] edgeTargets = new int[count];
+            final byte[] edgeTypes = new byte[count];
+            final byte[] edgeFlags = new byte[count];
+            final ProjectRelationship<?, ?>[] rels = new ProjectRelationship<?, ?>[count];
+
+            final int[] cursor = Arrays.copyOf( outOffsets, slots );
+            for ( int e = 0; e < edgeCount; e++ )
+            {
+                if ( ( flags[e] & REMOVED ) == 0 )
+                {
+                    final int pos = cursor[sources[e] * TYPE_COUNT + types[e]]++;
+                    edgeSources[pos] = sources[e];
+                    edgeTargets[pos] = targets[e];
+                    edgeTypes[pos] = types[e];
+                    edgeFlags[pos] = flags[e];
+                    rels[pos] = relationships[e];
+                }
+            }
+
+            final int[] inEdges = new int[count];
+            System.arraycopy( inOffsets, 0, cursor, 0, slots );
+            for ( int e = 0; e < count; e++ )
+            {
+                inEdges[cursor[edgeTargets[e] * TYPE_COUNT + edgeTypes[e]]++] = e;
+            }
+
+            return new RelationshipGraph( new HashMap<ProjectVersionRef, Integer>( nodeIds ),
+                                          nodes.toArray( new ProjectVersionRef[nodeCount] ), (BitSet) declared.clone(),
+                                          edgeSources, edgeTargets, edgeTypes, edgeFlags, rels, outOffsets, inOffsets,
+                                          inEdges );
+        }
+
+        private void addAll( final Collection<? extends ProjectRelationship<?, ?>> rels )
+        {
+            if ( rels != null )
+            {
+                for ( final ProjectRelationship<?, ?> rel : rels )
+                {
+                    add( rel );
+                }
+            }
+        }
+
+        private void add( final ProjectRelationship<?, ?> rel )
+        {
+            final int source = nodeId( rel.getDeclaring() );
+            final int target = nodeId( rel.getTarget() );
+
+            if ( edgeCount == relationships.length )
+            {
+                final int capacity = edgeCount + ( edgeCount >> 1 );
+                sources = Arrays.copyOf( sources, capacity );
+                targets = Arrays.copyOf( targets, capacity );
+                types = Arrays.copyOf( types, capacity );
+                flags = Arrays.copyOf( flags, capacity );
+                relationships = Arrays.copyOf( relationships, capacity );
+                nextBySource = Arrays.copyOf( nextBySource, capacity );
+            }
+
+            final int e = edgeCount++;
+            sources[e] = source;
+            targets[e] = target;
+            types[e] = (byte) rel.getType().ordinal();
+            flags[e] = rel.isManaged() ? MANAGED : 0;
+            relationships[e] = rel;
+
+            nextBySource[e] = firstBySource[source];
+            firstBySource[source] = e;
+        }
+
+        private void removeDeclaredBy( final int node )
+        {
+            for ( int e = firstBySource[node]; e > -1; e = nextBySource[e] )
+            {
+                if ( ( flags[e] & REMOVED ) == 0 )
+                {
+                    flags[e] |= REMOVED;
+                    relationships[e] = null;
+                    removedCount++;
+                }
+            }
+
+            firstBySource[node] = -1;
+        }
+
+        private int nodeId( final ProjectVersionRef ref )
+        {
+            final ProjectVersionRef key = ref.asProjectVersionRef();
+            final Integer id = nodeIds.get( key );
+            if ( id != null )
+            {
+                return id;
+            }
+
+            final int node = nodes.size();
+            nodeIds.put( key, node );
+            nodes.add( key );
+
+            if ( node == firstBySource.length )
+            {
+                firstBySource = Arrays.copyOf( firstBySource, node + ( node >> 1 ) );
+                Arrays.fill( firstBySource, node, firstBySource.length, -1 );
+            }
+
+            return node;
+        }
+    }
+
+}
@@ -0,0 +1,430 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.commonjava.atlas.maven.ident.ref.TypeAndClassifier;
+import org.commonjava.atlas.maven.ident.ref.VersionlessArtifactRef;
+import org.commonjava.atlas.maven.ident.version.InvalidVersionSpecificationException;
+import org.commonjava.atlas.maven.ident.version.VersionSpec;
+
+/**
+ * Inverted index answering "who uses this?": from a target groupId:artifactId to the relationships (and so the
+ * projects) pointing at it. Postings are grouped by target version, so a query checks its {@link VersionSpec} once per
+ * distinct version of the target rather than once per edge.
+ * <p>
+ * Projects can be added at any time; adding one again replaces what was indexed for it before. Thread-safe.
+ */
+public final class ReverseDependencyIndex
+{
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<ProjectRef, Map<String, VersionGroup>> byTarget =
+        new HashMap<ProjectRef, Map<String, VersionGroup>>();
+
+    // what was indexed for each project, so it can be replaced
+    private final Map<ProjectVersionRef, Slot[]> byDeclaring = new HashMap<ProjectVersionRef, Slot[]>();
+
+    private long postingCount;
+
+    public ReverseDependencyIndex()
+    {
+    }
+
+    public ReverseDependencyIndex( final Collection<EProjectDirectRelationships> projects )
+    {
+        add( projects );
+    }
+
+    public void add( final EProjectDirectRelationships project )
+    {
+        add( Arrays.asList( project ) );
+    }
+
+    /**
+     * Index the given projects' relationships (except terminal parents), replacing any earlier entries for the same
+     * projects.
+     */
+    public void add( final Collection<EProjectDirectRelationships> projects )
+    {
+        lock.writeLock().lock();
+        try
+        {
+            for ( final EProjectDirectRelationships project : projects )
+            {
+                removeLocked( project.getProjectRef() );
+
+                final Set<ProjectRelationship<?, ?>> rels = project.getAllRelationships();
+                final Slot[] indexed = new Slot[rels.size()];
+                int i = 0;
+                for ( final ProjectRelationship<?, ?> rel : rels )
+                {
+                    indexed[i] = new Slot( rel, group( rel.getTarget(), true ) );
+                    indexed[i++].add();
+                }
+
+                byDeclaring.put( project.getProjectRef(), indexed );
+                postingCount += indexed.length;
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop everything indexed for the given project.
+     *
+     * @return true if it was indexed
+     */
+    public boolean remove( final ProjectVersionRef project )
+    {
+        lock.writeLock().lock();
+        try
+        {
+            return removeLocked( project );
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the relationships pointing at the given target.
+     *
+     * @param target only its groupId and artifactId are used, plus its type and classifier if it's a
+     * {@link VersionlessArtifactRef} or {@link ArtifactRef}, in which case only artifact targets can match.
+     * @param versions if not null, only targets whose version it contains match
+     * @param types if given, only relationships of these types match
+     */
+    public List<Posting> find( final ProjectRef target, final VersionSpec versions, final RelationshipType... types )
+    {
+        final TypeAndClassifier tc = typeAndClassifier( target );
+        final Set<RelationshipType> typeSet =
+            types.length == 0 ? EnumSet.allOf( RelationshipType.class ) : EnumSet.copyOf( Arrays.asList( types ) );
+
+        final List<Posting> result = new ArrayList<Posting>();
+
+        lock.readLock().lock();
+        try
+        {
+            final Map<String, VersionGroup> groups = byTarget.get( key( target ) );
+            if ( groups == null )
+            {
+                return result;
+            }
+
+            for ( final VersionGroup group : groups.values() )
+            {
+                if ( versions != null && ( group.version == null || !versions.contains( group.version ) ) )
+                {
+                    continue;
+                }
+
+                for ( int i = 0; i < group.size; i++ )
+                {
+                    final ProjectRelationship<?, ?> rel = group.slots[i].rel;
+                    if ( typeSet.contains( rel.getType() ) && matches( tc, rel.getTarget() ) )
+                    {
+                        result.add( new Posting( rel ) );
+                    }
+                }
+            }
+
+            return result;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #find(ProjectRef, VersionSpec, RelationshipType...)}, reduced to the declaring projects.
+     */
+    public Set<ProjectVersionRef> findDeclaring( final ProjectRef target, final VersionSpec versions,
+                                                 final RelationshipType... types )
+    {
+        final Set<ProjectVersionRef> result = new LinkedHashSet<ProjectVersionRef>();
+        for ( final Posting posting : find( target, versions, types ) )
+        {
+            result.add( posting.getDeclaring() );
+        }
+
+        return result;
+    }
+
+    public int getProjectCount()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return byDeclaring.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getPostingCount()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return postingCount;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ReverseDependencyIndex [projects=" + getProjectCount() + ", postings=" + getPostingCount() + "]";
+    }
+
+    private boolean removeLocked( final ProjectVersionRef project )
+    {
+        final Slot[] indexed = byDeclaring.remove( project );
+        if ( indexed == null )
+        {
+            return false;
+        }
+
+        for ( final Slot slot : indexed )
+        {
+            slot.remove();
+            if ( slot.group.size == 0 )
+            {
+                final ProjectVersionRef target = slot.rel.getTarget();
+                final Map<String, VersionGroup> groups = byTarget.get( key( target ) );
+                groups.remove( target.getVersionString() );
+                if ( groups.isEmpty() )
+                {
+                    byTarget.remove( key( target ) );
+                }
+            }
+        }
+
+        postingCount -= indexed.length;
+        return true;
+    }
+
+    private VersionGroup group( final ProjectVersionRef target, final boolean create )
+    {
+        final ProjectRef key = key( target );
+        Map<String, VersionGroup> groups = byTarget.get( key );
+        if ( groups == null )
+        {
+            if ( !create )
+            {
+                return null;
+            }
+
+            groups = new HashMap<String, VersionGroup>( 4 );
+            byTarget.put( key, groups );
+        }
+
+        final String version = target.getVersionString();
+        VersionGroup group = groups.get( version );
+        if ( group == null && create )
+        {
+            group = new VersionGroup( versionOf( target ) );
+            groups.put( version, group );
+        }
+
+        return group;
+    }
+
+    private static VersionSpec versionOf( final ProjectVersionRef target )
+    {
+        if ( target.isVariableVersion() )
+        {
+            return null;
+        }
+
+        try
+        {
+            return target.getVersionSpec();
+        }
+        catch ( final InvalidVersionSpecificationException e )
+        {
+            // can't be matched against a version spec, only found by queries without one.
+            return null;
+        }
+    }
+
+    private static ProjectRef key( final ProjectRef ref )
+    {
+        return new SimpleProjectRef( ref.getGroupId(), ref.getArtifactId() );
+    }
+
+    private static TypeAndClassifier typeAndClassifier( final ProjectRef target )
+    {
+        if ( target instanceof VersionlessArtifactRef )
+        {
+            return ( (VersionlessArtifactRef) target ).getTypeAndClassifier();
+        }
+        else if ( target instanceof ArtifactRef )
+        {
+            return ( (ArtifactRef) target ).getTypeAndClassifier();
+        }
+
+        return null;
+    }
+
+    private static boolean matches( final TypeAndClassifier tc, final ProjectVersionRef target )
+    {
+        return tc == null
+            || ( target instanceof ArtifactRef && tc.equals( ( (ArtifactRef) target ).getTypeAndClassifier() ) );
+    }
+
+    /**
+     * One relationship pointing at the queried target.
+     */
+    public static final class Posting
+    {
+        private final ProjectRelationship<?, ?> relationship;
+
+        Posting( final ProjectRelationship<?, ?> relationship )
+        {
+            this.relationship = relationship;
+        }
+
+        public ProjectVersionRef getDeclaring()
+        {
+            return relationship.getDeclaring();
+        }
+
+        public ProjectVersionRef getTarget()
+        {
+            return relationship.getTarget();
+        }
+
+        public RelationshipType getType()
+        {
+            return relationship.getType();
+        }
+
+        /**
+         * @return the dependency scope, or null for anything but a dependency relationship.
+         */
+        public DependencyScope getScope()
+        {
+            return relationship instanceof DependencyRelationship ? ( (DependencyRelationship) relationship ).getScope()
+                            : null;
+        }
+
+        public boolean isManaged()
+        {
+            return relationship.isManaged();
+        }
+
+        public ProjectRelationship<?, ?> getRelationship()
+        {
+            return relationship;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Posting [" + relationship + "]";
+        }
+    }
+
+    /**
+     * The relationships pointing at one version of one target.
+     */
+    private static final class VersionGroup
+    {
+        // null if the version can't be parsed
+        private final VersionSpec version;
+
+        private Slot[] slots = new Slot[2];
+
+        private int size;
+
+        VersionGroup( final VersionSpec version )
+        {
+            this.version = version;
+        }
+    }
+
+    /**
+     * One relationship's place in its {@link VersionGroup}, kept per declaring project so removal doesn't have to search
+     * the group.
+     */
+    private static final class Slot
+    {
+        private final ProjectRelationship<?, ?> rel;
+
+        private final VersionGroup group;
+
+        private int index;
+
+        Slot( final ProjectRelationship<?, ?> rel, final VersionGroup group )
+        {
+            this.rel = rel;
+            this.group = group;
+        }
+
+        void add()
+        {
+            if ( group.size == group.slots.length )
+            {
+                group.slots = Arrays.copyOf( group.slots, group.size * 2 );
+            }
+
+            index = group.size;
+            group.slots[group.size++] = this;
+        }
+
+        // order doesn't matter, so fill the gap with the last one.
+        void remove()
+        {
+            final Slot last = group.slots[--group.size];
+            group.slots[index] = last;
+            last.index = index;
+            group.slots[group.size] = null;
+        }
+    }
+
+}
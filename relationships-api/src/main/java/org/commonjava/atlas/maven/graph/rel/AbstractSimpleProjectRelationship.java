@@ -19,8 +19,11 @@ import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
 import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.lang.reflect.Constructor;
 import java.net.URI;
 import java.util.*;
 
@@ -30,15 +33,24 @@ public abstract class AbstractSimpleProjectRelationship<R extends ProjectRelatio
 
     private static final long serialVersionUID = 1L;
 
-    private final List<URI> sources = new ArrayList<URI>();
+    // keep the serialized form from when the sources were held in an ArrayList.
+    private static final ObjectStreamField[] serialPersistentFields =
+        { new ObjectStreamField( "sources", List.class ), new ObjectStreamField( "type", RelationshipType.class ),
+            new ObjectStreamField( "declaring", ProjectVersionRef.class ),
+            new ObjectStreamField( "target", ProjectVersionRef.class ), new ObjectStreamField( "index", int.class ),
+            new ObjectStreamField( "managed", boolean.class ), new ObjectStreamField( "inherited", boolean.class ),
+            new ObjectStreamField( "mixin", boolean.class ), new ObjectStreamField( "pomLocation", URI.class ) };
 
-    private final RelationshipType type;
+    // not final only so readObject(..) can set them; never changed after construction.
+    private RelationshipSources sources;
 
-    private final ProjectVersionRef declaring;
+    private RelationshipType type;
 
-    private final T target;
+    private ProjectVersionRef declaring;
 
-    private final int index;
+    private T target;
+
+    private int index;
 
     private boolean managed = false;
 
@@ -46,13 +58,8 @@ public abstract class AbstractSimpleProjectRelationship<R extends ProjectRelatio
 
     private boolean mixin;
 
-    @SuppressWarnings( "rawtypes" )
-    private transient Constructor<? extends AbstractSimpleProjectRelationship> cloneCtor;
-
     private URI pomLocation;
 
-    private final boolean cloneUsesLocation = true;
-
     protected AbstractSimpleProjectRelationship( final URI source, final RelationshipType type,
                                                  final ProjectVersionRef declaring, final T target, final int index,
                                                  final boolean inherited, final boolean mixin )
@@ -112,14 +119,7 @@ public abstract class AbstractSimpleProjectRelationship<R extends ProjectRelatio
             throw new NullPointerException( "Source URIs cannot be null" );
         }
 
-        for ( URI u : sources )
-        {
-            if ( !this.sources.contains( u ) )
-            {
-                this.sources.add( u );
-            }
-        }
-
+        this.sources = RelationshipSources.of( sources );
         this.pomLocation = pomLocation;
         if ( declaring == null || target == null )
         {
@@ -138,7 +138,7 @@ public abstract class AbstractSimpleProjectRelationship<R extends ProjectRelatio
 
     public AbstractSimpleProjectRelationship( final ProjectRelationship<R, T> relationship )
     {
-        this.sources.addAll( relationship.getSources() );
+        this.sources = RelationshipSources.of( relationship.getSources() );
         this.declaring = new SimpleProjectVersionRef( relationship.getDeclaring() );
         this.pomLocation = relationship.getPomLocation();
         this.index = relationship.getIndex();
@@ -149,8 +149,77 @@ public abstract class AbstractSimpleProjectRelationship<R extends ProjectRelatio
         this.target = cloneTarget( relationship.getTarget() );
     }
 
+    /**
+     * Copy all fields of the original, except for the sources, declaring ref and target. See
+     * {@link #copy(Set, ProjectVersionRef, ProjectVersionRef)}.
+     */
+    protected AbstractSimpleProjectRelationship( final AbstractSimpleProjectRelationship<R, T> original,
+                                                 final Set<URI> sources, final ProjectVersionRef declaring,
+                                                 final T target )
+    {
+        if ( declaring == null || target == null )
+        {
+            throw new NullPointerException( "Neither declaring ref (" + declaring + ") nor target ref (" + target
+                + ") can be null!" );
+        }
+
+        this.sources = RelationshipSources.of( sources );
+        this.pomLocation = original.pomLocation;
+        this.type = original.type;
+        this.declaring = declaring;
+        this.target = target;
+        this.index = original.index;
+        this.managed = original.managed;
+        this.inherited = original.inherited;
+        this.mixin = original.mixin;
+    }
+
     protected abstract T cloneTarget( T target );
 
+    /**
+     * Create a copy of this relationship with the given sources, declaring ref and target, and everything else the
+     * same. Subclasses implement this with a plain constructor call (see
+     * {@link #AbstractSimpleProjectRelationship(AbstractSimpleProjectRelationship, Set, ProjectVersionRef, ProjectVersionRef)}),
+     * so copying needs neither reflection nor locking.
+     */
+    protected abstract R copy( Set<URI> sources, ProjectVersionRef declaring, T target );
+
+    /**
+     * @return a copy with the given sources, declaring ref and target, in one allocation; or this relationship, if
+     * they're all the same instances it already has.
+     */
+    @SuppressWarnings( "unchecked" )
+    public final R with( final Collection<URI> sources, final ProjectVersionRef declaring, final T target )
+    {
+        final RelationshipSources srcs = RelationshipSources.of( sources );
+        if ( srcs == this.sources && declaring == this.declaring && target == this.target )
+        {
+            return (R) this;
+        }
+
+        return copy( srcs, declaring, target );
+    }
+
+    public final R with( final ProjectVersionRef declaring, final T target )
+    {
+        return with( sources, declaring, target );
+    }
+
+    public final R withDeclaring( final ProjectVersionRef declaring )
+    {
+        return with( sources, declaring, target );
+    }
+
+    public final R withTarget( final T target )
+    {
+        return with( sources, declaring, target );
+    }
+
+    public final R withSources( final Collection<URI> sources )
+    {
+        return with( sources, declaring, target );
+    }
+
     @Override
     public final boolean isManaged()
     {
@@ -248,10 +317,29 @@ public abstract class AbstractSimpleProjectRelationship<R extends ProjectRelatio
         return type == other.getType();
     }
 
+    /**
+     * @return the (immutable) source URIs
+     */
     @Override
     public final Set<URI> getSources()
     {
-        return new HashSet<URI>( sources );
+        return sources;
+    }
+
+    /**
+     * @return the sources plus the given one; the same instance as {@link #getSources()} if it's already there.
+     */
+    protected final Set<URI> getSourcesWith( final URI source )
+    {
+        return sources.with( source );
+    }
+
+    /**
+     * @return the sources plus the given ones; the same instance as {@link #getSources()} if nothing is new.
+     */
+    protected final Set<URI> getSourcesWith( final Collection<URI> sources )
+    {
+        return this.sources.withAll( sources );
     }
 
     @Override
@@ -260,4 +348,37 @@ public abstract class AbstractSimpleProjectRelationship<R extends ProjectRelatio
         return pomLocation;
     }
 
+    private void writeObject( final ObjectOutputStream out )
+        throws IOException
+    {
+        final ObjectOutputStream.PutField fields = out.putFields();
+        fields.put( "sources", new ArrayList<URI>( sources ) );
+        fields.put( "type", type );
+        fields.put( "declaring", declaring );
+        fields.put( "target", target );
+        fields.put( "index", index );
+        fields.put( "managed", managed );
+        fields.put( "inherited", inherited );
+        fields.put( "mixin", mixin );
+        fields.put( "pomLocation", pomLocation );
+        out.writeFields();
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void readObject( final ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        final ObjectInputStream.GetField fields = in.readFields();
+        final List<URI> srcs = (List<URI>) fields.get( "sources", null );
+        sources = srcs == null ? RelationshipSources.EMPTY : RelationshipSources.of( srcs );
+        type = (RelationshipType) fields.get( "type", null );
+        declaring = (ProjectVersionRef) fields.get( "declaring", null );
+        target = (T) fields.get( "target", null );
+        index = fields.get( "index", 0 );
+        managed = fields.get( "managed", false );
+        inherited = fields.get( "inherited", false );
+        mixin = fields.get( "mixin", false );
+        pomLocation = (URI) fields.get( "pomLocation", null );
+    }
+
 }
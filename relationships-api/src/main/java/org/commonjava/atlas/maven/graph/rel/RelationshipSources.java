@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.rel;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of source URIs for a relationship. Most relationships have exactly one source, which is held in a
+ * field of its own; beyond that, the URIs are kept in a sorted array, so lookups are a binary search and iteration order
+ * is stable. Nulls are dropped.
+ * <p>
+ * {@link #with(URI)} and {@link #withAll(Collection)} return a new set (or this one, if nothing would change), so
+ * instances can be shared freely between relationships and threads.
+ */
+public final class RelationshipSources
+    extends AbstractSet<URI>
+    implements Serializable
+{
+
+    private static final long serialVersionUID = 1L;
+
+    private static final URI[] NO_URIS = new URI[0];
+
+    public static final RelationshipSources EMPTY = new RelationshipSources( null, NO_URIS );
+
+    private final URI single;
+
+    // sorted, no duplicates; only used when there's more than one source
+    private final URI[] uris;
+
+    private RelationshipSources( final URI single, final URI[] uris )
+    {
+        this.single = single;
+        this.uris = uris;
+    }
+
+    public static RelationshipSources of( final URI source )
+    {
+        return source == null ? EMPTY : new RelationshipSources( source, NO_URIS );
+    }
+
+    public static RelationshipSources of( final Collection<URI> sources )
+    {
+        if ( sources instanceof RelationshipSources )
+        {
+            return (RelationshipSources) sources;
+        }
+
+        return EMPTY.withAll( sources );
+    }
+
+    public RelationshipSources with( final URI source )
+    {
+        if ( source == null || contains( source ) )
+        {
+            return this;
+        }
+
+        if ( isEmpty() )
+        {
+            return of( source );
+        }
+
+        final URI[] current = toSortedArray();
+        final int insert = -( Arrays.binarySearch( current, source ) + 1 );
+
+        final URI[] result = new URI[current.length + 1];
+        System.arraycopy( current, 0, result, 0, insert );
+        result[insert] = source;
+        System.arraycopy( current, insert, result, insert + 1, current.length - insert );
+
+        return new RelationshipSources( null, result );
+    }
+
+    public RelationshipSources withAll( final Collection<URI> sources )
+    {
+        if ( sources.isEmpty() )
+        {
+            return this;
+        }
+
+        if ( sources.size() == 1 )
+        {
+            return with( sources.iterator().next() );
+        }
+
+        final URI[] current = toSortedArray();
+        final URI[] merged = Arrays.copyOf( current, current.length + sources.size() );
+        int size = current.length;
+        for ( final URI source : sources )
+        {
+            if ( source != null )
+            {
+                merged[size++] = source;
+            }
+        }
+
+        if ( size == current.length )
+        {
+            return this;
+        }
+
+        Arrays.sort( merged, 0, size );
+
+        int unique = 0;
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( unique == 0 || merged[unique - 1].compareTo( merged[i] ) != 0 )
+            {
+                merged[unique++] = merged[i];
+            }
+        }
+
+        if ( unique == size() )
+        {
+            return this;
+        }
+
+        if ( unique == 1 )
+        {
+            return of( merged[0] );
+        }
+
+        return new RelationshipSources( null, Arrays.copyOf( merged, unique ) );
+    }
+
+    @Override
+    public boolean contains( final Object o )
+    {
+        if ( !( o instanceof URI ) )
+        {
+            return false;
+        }
+
+        if ( single != null )
+        {
+            return single.equals( o );
+        }
+
+        return Arrays.binarySearch( uris, o ) > -1;
+    }
+
+    @Override
+    public int size()
+    {
+        return single != null ? 1 : uris.length;
+    }
+
+    @Override
+    public Iterator<URI> iterator()
+    {
+        return new Iterator<URI>()
+        {
+            private int next;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < size();
+            }
+
+            @Override
+            public URI next()
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+
+                final int i = next++;
+                return single != null ? single : uris[i];
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException( "Relationship sources are immutable" );
+            }
+        };
+    }
+
+    private URI[] toSortedArray()
+    {
+        return single != null ? new URI[] { single } : uris;
+    }
+
+}
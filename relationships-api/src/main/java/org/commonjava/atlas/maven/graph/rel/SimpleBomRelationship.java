@@ -75,6 +75,19 @@ public class SimpleBomRelationship
         super( relationship );
     }
 
+    private SimpleBomRelationship( final SimpleBomRelationship original, final Set<URI> sources,
+                                   final ProjectVersionRef declaring, final ProjectVersionRef target )
+    {
+        super( original, sources, declaring, target );
+    }
+
+    @Override
+    protected BomRelationship copy( final Set<URI> sources, final ProjectVersionRef declaring,
+                                    final ProjectVersionRef target )
+    {
+        return new SimpleBomRelationship( this, sources, declaring, target );
+    }
+
     @Override
     protected ProjectVersionRef cloneTarget( final ProjectVersionRef target )
     {
@@ -90,41 +103,31 @@ public class SimpleBomRelationship
     @Override
     public BomRelationship selectDeclaring( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef t = getTarget();
-
-        return new SimpleBomRelationship( getSources(), ref, t, getIndex(), isInherited(), isMixin() );
+        return withDeclaring( ref );
     }
 
     @Override
     public BomRelationship selectTarget( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef d = getDeclaring();
-
-        return new SimpleBomRelationship( getSources(), d, ref, getIndex(), isInherited(), isMixin() );
+        return withTarget( ref );
     }
 
     @Override
     public BomRelationship cloneFor( final ProjectVersionRef declaring )
     {
-        return new SimpleBomRelationship( getSources(), getPomLocation(), declaring, getTarget(), getIndex(), isInherited(), isMixin() );
+        return withDeclaring( declaring );
     }
 
     @Override
     public BomRelationship addSource( final URI source )
     {
-        Set<URI> srcs = getSources();
-        srcs.add( source );
-        return new SimpleBomRelationship( srcs, getPomLocation(), getDeclaring(), getTarget(),
-                                          getIndex(), isInherited(), isMixin() );
+        return withSources( getSourcesWith( source ) );
     }
 
     @Override
     public BomRelationship addSources( final Collection<URI> sources )
     {
-        Set<URI> srcs = getSources();
-        srcs.addAll( sources );
-        return new SimpleBomRelationship( srcs, getPomLocation(), getDeclaring(), getTarget(),
-                                          getIndex(), isInherited(), isMixin() );
+        return withSources( getSourcesWith( sources ) );
     }
 
     @Override
@@ -92,6 +92,22 @@ public final class SimpleDependencyRelationship
         this.excludes = new HashSet<ProjectRef>( relationship.getExcludes() );
     }
 
+    private SimpleDependencyRelationship( final SimpleDependencyRelationship original, final Set<URI> sources,
+                                          final ProjectVersionRef declaring, final ArtifactRef target )
+    {
+        super( original, sources, declaring, target );
+        this.scope = original.scope;
+        this.optional = original.optional;
+        this.excludes = new HashSet<ProjectRef>( original.excludes );
+    }
+
+    @Override
+    protected DependencyRelationship copy( final Set<URI> sources, final ProjectVersionRef declaring,
+                                           final ArtifactRef target )
+    {
+        return new SimpleDependencyRelationship( this, sources, declaring, target );
+    }
+
     @Override
     public final DependencyScope getScope()
     {
@@ -105,28 +121,21 @@ public final class SimpleDependencyRelationship
     }
 
     @Override
-    public synchronized DependencyRelationship cloneFor( final ProjectVersionRef projectRef )
+    public DependencyRelationship cloneFor( final ProjectVersionRef projectRef )
     {
-        return new SimpleDependencyRelationship( getSources(), getPomLocation(), projectRef, getTarget(), scope, getIndex(),
-                                           isManaged(), isInherited(), optional );
+        return withDeclaring( projectRef );
     }
 
     @Override
     public DependencyRelationship addSource( final URI source )
     {
-        Set<URI> srcs = getSources();
-        srcs.add( source );
-        return new SimpleDependencyRelationship( srcs, getPomLocation(), getDeclaring(), getTarget(), scope, getIndex(),
-                                                 isManaged(), isInherited(), optional );
+        return withSources( getSourcesWith( source ) );
     }
 
     @Override
     public DependencyRelationship addSources( final Collection<URI> sources )
     {
-        Set<URI> srcs = getSources();
-        srcs.addAll( sources );
-        return new SimpleDependencyRelationship( srcs, getPomLocation(), getDeclaring(), getTarget(), scope, getIndex(),
-                                                 isManaged(), isInherited(), optional );
+        return withSources( getSourcesWith( sources ) );
     }
 
     @Override
@@ -185,25 +194,15 @@ public final class SimpleDependencyRelationship
     @Override
     public DependencyRelationship selectDeclaring( final ProjectVersionRef ref )
     {
-        final ArtifactRef t = getTarget();
-
-        Set<ProjectRef> var = getExcludes();
-        return new SimpleDependencyRelationship( getSources(), getPomLocation(), ref, t, getScope(), getIndex(), isManaged(),
-                                                 isInherited(), optional, var.toArray( new ProjectRef[var.size()] ) );
+        return withDeclaring( ref );
     }
 
     @Override
     public DependencyRelationship selectTarget( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef d = getDeclaring();
-        ArtifactRef t = getTarget();
-        t =
-            (ArtifactRef) ( ( ref instanceof ArtifactRef ) ? ref : new SimpleArtifactRef( ref, t.getType(),
-                                                                                    t.getClassifier() ) );
-
-        Set<ProjectRef> var = getExcludes();
-        return new SimpleDependencyRelationship( getSources(), getPomLocation(), d, t, getScope(), getIndex(), isManaged(),
-                                                 isInherited(), optional, var.toArray( new ProjectRef[var.size()] ) );
+        final ArtifactRef t = getTarget();
+        return withTarget( ref instanceof ArtifactRef ? (ArtifactRef) ref
+                                                      : new SimpleArtifactRef( ref, t.getType(), t.getClassifier() ) );
     }
 
     @Override
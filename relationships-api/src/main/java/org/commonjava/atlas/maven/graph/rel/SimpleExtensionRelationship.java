@@ -64,6 +64,19 @@ public final class SimpleExtensionRelationship
         super( relationship );
     }
 
+    private SimpleExtensionRelationship( final SimpleExtensionRelationship original, final Set<URI> sources,
+                                         final ProjectVersionRef declaring, final ProjectVersionRef target )
+    {
+        super( original, sources, declaring, target );
+    }
+
+    @Override
+    protected ExtensionRelationship copy( final Set<URI> sources, final ProjectVersionRef declaring,
+                                          final ProjectVersionRef target )
+    {
+        return new SimpleExtensionRelationship( this, sources, declaring, target );
+    }
+
     @Override
     public String toString()
     {
@@ -85,39 +98,30 @@ public final class SimpleExtensionRelationship
     @Override
     public ExtensionRelationship selectDeclaring( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef t = getTarget();
-
-        // TODO
-        return new SimpleExtensionRelationship( getSources(), getPomLocation(), ref, t, getIndex(), isInherited() );
+        return withDeclaring( ref );
     }
 
     @Override
     public ExtensionRelationship selectTarget( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef d = getDeclaring();
-
-        return new SimpleExtensionRelationship( getSources(), getPomLocation(), d, ref, getIndex(), isInherited() );
+        return withTarget( ref );
     }
 
     @Override
     public ExtensionRelationship cloneFor( final ProjectVersionRef declaring )
     {
-        return new SimpleExtensionRelationship( getSources(), getPomLocation(), declaring, getTarget(), getIndex(), isInherited() );
+        return withDeclaring( declaring );
     }
 
     @Override
     public ExtensionRelationship addSource( final URI source )
     {
-        Set<URI> srcs = getSources();
-        srcs.add( source );
-        return new SimpleExtensionRelationship( srcs, getPomLocation(), getDeclaring(), getTarget(), getIndex(), isInherited() );
+        return withSources( getSourcesWith( source ) );
     }
 
     @Override
     public ExtensionRelationship addSources( final Collection<URI> sources )
     {
-        Set<URI> srcs = getSources();
-        srcs.addAll( sources );
-        return new SimpleExtensionRelationship( srcs, getPomLocation(), getDeclaring(), getTarget(), getIndex(), isInherited() );
+        return withSources( getSourcesWith( sources ) );
     }
 }
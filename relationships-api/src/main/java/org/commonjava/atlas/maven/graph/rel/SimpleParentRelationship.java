@@ -68,6 +68,19 @@ public final class SimpleParentRelationship
         super( relationship );
     }
 
+    private SimpleParentRelationship( final SimpleParentRelationship original, final Set<URI> sources,
+                                      final ProjectVersionRef declaring, final ProjectVersionRef target )
+    {
+        super( original, sources, declaring, target );
+    }
+
+    @Override
+    protected ParentRelationship copy( final Set<URI> sources, final ProjectVersionRef declaring,
+                                       final ProjectVersionRef target )
+    {
+        return new SimpleParentRelationship( this, sources, declaring, target );
+    }
+
     @Override
     public String toString()
     {
@@ -95,37 +108,30 @@ public final class SimpleParentRelationship
     @Override
     public ParentRelationship selectDeclaring( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef t = getTarget();
-
-        return new SimpleParentRelationship( getSources(), ref, t );
+        return withDeclaring( ref );
     }
 
     @Override
     public ParentRelationship selectTarget( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef d = getDeclaring();
-        return new SimpleParentRelationship( getSources(), d, ref );
+        return withTarget( ref );
     }
 
     @Override
     public ParentRelationship cloneFor( final ProjectVersionRef declaring )
     {
-        return new SimpleParentRelationship( getSources(), declaring, getTarget() );
+        return withDeclaring( declaring );
     }
 
     @Override
     public ParentRelationship addSource( final URI source )
     {
-        Set<URI> srcs = getSources();
-        srcs.add( source );
-        return new SimpleParentRelationship( srcs, getDeclaring(), getTarget() );
+        return withSources( getSourcesWith( source ) );
     }
 
     @Override
     public ParentRelationship addSources( final Collection<URI> sources )
     {
-        Set<URI> srcs = getSources();
-        srcs.addAll( sources );
-        return new SimpleParentRelationship( srcs, getDeclaring(), getTarget() );
+        return withSources( getSourcesWith( sources ) );
     }
 }
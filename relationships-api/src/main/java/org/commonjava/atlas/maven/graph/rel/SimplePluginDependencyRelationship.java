@@ -73,6 +73,21 @@ public final class SimplePluginDependencyRelationship
         this.optional = optional;
     }
 
+    private SimplePluginDependencyRelationship( final SimplePluginDependencyRelationship original, final Set<URI> sources,
+                                                final ProjectVersionRef declaring, final ArtifactRef target )
+    {
+        super( original, sources, declaring, target );
+        this.plugin = original.plugin;
+        this.optional = original.optional;
+    }
+
+    @Override
+    protected PluginDependencyRelationship copy( final Set<URI> sources, final ProjectVersionRef declaring,
+                                                 final ArtifactRef target )
+    {
+        return new SimplePluginDependencyRelationship( this, sources, declaring, target );
+    }
+
     @Override
     public final ProjectRef getPlugin()
     {
@@ -151,47 +166,32 @@ public final class SimplePluginDependencyRelationship
     @Override
     public PluginDependencyRelationship selectDeclaring( final ProjectVersionRef ref )
     {
-        final ArtifactRef t = getTarget();
-
-        return new SimplePluginDependencyRelationship( getSources(), getPomLocation(), ref, getPlugin(), t, getIndex(),
-                                                 isManaged(), isInherited() );
+        return withDeclaring( ref );
     }
 
     @Override
     public PluginDependencyRelationship selectTarget( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef d = getDeclaring();
-        ArtifactRef t = getTarget();
-        t =
-            (ArtifactRef) ( ( ref instanceof ArtifactRef ) ? ref : new SimpleArtifactRef( ref, t.getType(),
-                                                                                    t.getClassifier() ) );
-
-        return new SimplePluginDependencyRelationship( getSources(), getPomLocation(), d, getPlugin(), t, getIndex(),
-                                                 isManaged(), isInherited() );
+        final ArtifactRef t = getTarget();
+        return withTarget( ref instanceof ArtifactRef ? (ArtifactRef) ref
+                                                      : new SimpleArtifactRef( ref, t.getType(), t.getClassifier() ) );
     }
 
     @Override
-    public synchronized PluginDependencyRelationship cloneFor( final ProjectVersionRef projectRef )
+    public PluginDependencyRelationship cloneFor( final ProjectVersionRef projectRef )
     {
-        return new SimplePluginDependencyRelationship( getSources(), getPomLocation(), projectRef, plugin, getTarget(),
-                                                       getIndex(), isManaged(), isInherited() );
+        return withDeclaring( projectRef );
     }
 
     @Override
     public PluginDependencyRelationship addSource( final URI source )
     {
-        Set<URI> srcs = getSources();
-        srcs.add( source );
-        return new SimplePluginDependencyRelationship( srcs, getPomLocation(), getDeclaring(), plugin, getTarget(),
-                                                       getIndex(), isManaged(), isInherited() );
+        return withSources( getSourcesWith( source ) );
     }
 
     @Override
     public PluginDependencyRelationship addSources( final Collection<URI> sources )
     {
-        Set<URI> srcs = getSources();
-        srcs.addAll( sources );
-        return new SimplePluginDependencyRelationship( srcs, getPomLocation(), getDeclaring(), plugin, getTarget(),
-                                                       getIndex(), isManaged(), isInherited() );
+        return withSources( getSourcesWith( sources ) );
     }
 }
@@ -78,6 +78,20 @@ public final class SimplePluginRelationship
         this.reporting = relationship.isReporting();
     }
 
+    private SimplePluginRelationship( final SimplePluginRelationship original, final Set<URI> sources,
+                                      final ProjectVersionRef declaring, final ProjectVersionRef target )
+    {
+        super( original, sources, declaring, target );
+        this.reporting = original.reporting;
+    }
+
+    @Override
+    protected PluginRelationship copy( final Set<URI> sources, final ProjectVersionRef declaring,
+                                       final ProjectVersionRef target )
+    {
+        return new SimplePluginRelationship( this, sources, declaring, target );
+    }
+
     @Override
     public final boolean isReporting()
     {
@@ -134,41 +148,30 @@ public final class SimplePluginRelationship
     @Override
     public PluginRelationship selectDeclaring( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef t = getTarget();
-
-        return new SimplePluginRelationship( getSources(), getPomLocation(), ref, t, getIndex(), isManaged(), isReporting(), isInherited() );
+        return withDeclaring( ref );
     }
 
     @Override
     public PluginRelationship selectTarget( final ProjectVersionRef ref )
     {
-        final ProjectVersionRef d = getDeclaring();
-
-        return new SimplePluginRelationship( getSources(), getPomLocation(), d, ref, getIndex(), isManaged(), isReporting(), isInherited() );
+        return withTarget( ref );
     }
 
     @Override
-    public synchronized PluginRelationship cloneFor( final ProjectVersionRef projectRef )
+    public PluginRelationship cloneFor( final ProjectVersionRef projectRef )
     {
-        return new SimplePluginRelationship( getSources(), getPomLocation(), projectRef, getTarget(), getIndex(),
-                                             isManaged(), reporting, isInherited() );
+        return withDeclaring( projectRef );
     }
 
     @Override
     public PluginRelationship addSource( final URI source )
     {
-        Set<URI> srcs = getSources();
-        srcs.add( source );
-        return new SimplePluginRelationship( srcs, getPomLocation(), getDeclaring(), getTarget(), getIndex(),
-                                             isManaged(), reporting, isInherited() );
+        return withSources( getSourcesWith( source ) );
     }
 
     @Override
     public PluginRelationship addSources( final Collection<URI> sources )
     {
-        Set<URI> srcs = getSources();
-        srcs.addAll( sources );
-        return new SimplePluginRelationship( srcs, getPomLocation(), getDeclaring(), getTarget(), getIndex(),
-                                             isManaged(), reporting, isInherited() );
+        return withSources( getSourcesWith( sources ) );
     }
 }
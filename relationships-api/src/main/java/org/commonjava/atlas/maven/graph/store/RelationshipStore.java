@@ -0,0 +1,719 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.commonjava.atlas.maven.graph.binary.RelationshipBinaryReader;
+import org.commonjava.atlas.maven.graph.binary.RelationshipBinaryWriter;
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+
+/**
+ * Embedded, file-backed store of the relationships declared by each project. It is made of these files in one
+ * directory:
+ * <ul>
+ *   <li><code>relationships.log</code>: append-only log. Each record is one {@link EProjectDirectRelationships}, in
+ *   the compact binary form of {@link RelationshipBinaryWriter}, framed with its length and a CRC32.</li>
+ *   <li><code>declaring-*.idx</code>, <code>target-*.idx</code>: runs of sorted, memory-mapped {@link StoreIndex}
+ *   files, making up one {@link TieredIndex} each. They map the hash of a declaring or target ref to the offsets of
+ *   the log records that mention it.</li>
+ * </ul>
+ * Opening a store reads nothing but the index headers and whatever part of the log the indexes don't cover yet, so a
+ * cold start costs the same however big the graph is. Lookups page in just the index entries and log records they
+ * touch.
+ * <p>
+ * {@link #append(Collection)} is durable when it returns: the records are forced to disk before the in-memory index
+ * is updated. Index runs are only written by {@link #flushIndexes()} (and {@link #close()}, and once enough entries
+ * are waiting), each one put in place with a single atomic rename; a flush writes only the entries appended since the
+ * last one, plus the occasional merge of runs. If the process dies mid-append, the torn record at the end of the log
+ * fails its length or CRC check on the next open and is cut off. Records the index files don't cover yet are indexed
+ * again from the log.
+ * <p>
+ * Appending a project again replaces its earlier relationships for every lookup; the old record stays in the log.
+ * Refs are keyed as they render, ie. versions "1.0" and "1.0.0" are different keys here.
+ * <p>
+ * Thread-safe. Only one store instance may have a directory open at a time; {@link #open(File)} takes a lock on the
+ * log to enforce it, within and across processes.
+ */
+public final class RelationshipStore
+    implements Closeable
+{
+
+    static final String LOG_FILE = "relationships.log";
+
+    static final String DECLARING_INDEX = "declaring";
+
+    static final String TARGET_INDEX = "target";
+
+    private static final int LOG_MAGIC = 0x41544c53; // "ATLS"
+
+    private static final int LOG_VERSION = 1;
+
+    private static final int LOG_HEADER_SIZE = 8;
+
+    // length:int crc:int
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    // bounds the heap used for index entries not yet written to the index files
+    private static final int MAX_UNFLUSHED_ENTRIES = 1 << 20;
+
+    private final File dir;
+
+    private final RandomAccessFile logFile;
+
+    private final FileChannel log;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileLock fileLock;
+
+    private long logLength;
+
+    private TieredIndex declaringIndex;
+
+    private TieredIndex targetIndex;
+
+    private final PairList declaringDelta = new PairList();
+
+    private final PairList targetDelta = new PairList();
+
+    private boolean closed;
+
+    private RelationshipStore( final File dir )
+        throws IOException
+    {
+        this.dir = dir;
+        this.logFile = new RandomAccessFile( new File( dir, LOG_FILE ), "rw" );
+        this.log = logFile.getChannel();
+    }
+
+    /**
+     * Open the store in the given directory, creating it if needed.
+     *
+     * @throws IOException if another store instance has the directory open
+     */
+    public static RelationshipStore open( final File dir )
+        throws IOException
+    {
+        if ( !dir.isDirectory() && !dir.mkdirs() )
+        {
+            throw new IOException( "Cannot create relationship store directory: " + dir );
+        }
+
+        final RelationshipStore store = new RelationshipStore( dir );
+        try
+        {
+            store.lockLog();
+            store.recover();
+        }
+        catch ( final IOException e )
+        {
+            store.log.close();
+            throw e;
+        }
+
+        return store;
+    }
+
+    public void append( final EProjectDirectRelationships rels )
+        throws IOException
+    {
+        append( Collections.singleton( rels ) );
+    }
+
+    /**
+     * Append the given projects' relationships, replacing whatever was stored for those projects before. All of them
+     * are forced to disk together before this returns.
+     */
+    public void append( final Collection<EProjectDirectRelationships> projects )
+        throws IOException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final List<EProjectDirectRelationships> written = new ArrayList<EProjectDirectRelationships>( projects );
+        final long[] offsets = new long[written.size()];
+
+        lock.writeLock().lock();
+        try
+        {
+            checkOpen();
+
+            for ( int i = 0; i < offsets.length; i++ )
+            {
+                offsets[i] = logLength + buffer.size();
+                writeRecord( written.get( i ), buffer );
+            }
+
+            final ByteBuffer bytes = ByteBuffer.wrap( buffer.toByteArray() );
+            long position = logLength;
+            while ( bytes.hasRemaining() )
+            {
+                position += log.write( bytes, position );
+            }
+
+            log.force( false );
+            logLength = position;
+
+            for ( int i = 0; i < offsets.length; i++ )
+            {
+                index( written.get( i ), offsets[i], true, true );
+            }
+
+            if ( declaringDelta.size() + targetDelta.size() > MAX_UNFLUSHED_ENTRIES )
+            {
+                flushIndexesLocked();
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the relationships most recently stored for the given project, or null if there are none.
+     */
+    public EProjectDirectRelationships getDirectRelationships( final ProjectVersionRef project )
+        throws IOException
+    {
+        lock.readLock().lock();
+        try
+        {
+            checkOpen();
+
+            final long[] offsets = find( declaringIndex, declaringDelta, key( project ) );
+            for ( int i = offsets.length - 1; i > -1; i-- )
+            {
+                final EProjectDirectRelationships rels = readRecord( offsets[i] );
+                // only fails on a hash collision
+                if ( sameKey( rels.getProjectRef(), project ) )
+                {
+                    return rels;
+                }
+            }
+
+            return null;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return all relationships declared by the given project, except a terminal parent; empty if it isn't stored.
+     */
+    public List<ProjectRelationship<?, ?>> getRelationshipsDeclaredBy( final ProjectVersionRef project )
+        throws IOException
+    {
+        final EProjectDirectRelationships rels = getDirectRelationships( project );
+        return rels == null ? Collections.<ProjectRelationship<?, ?>> emptyList()
+                        : new ArrayList<ProjectRelationship<?, ?>>( rels.getAllRelationships() );
+    }
+
+    /**
+     * @return all current relationships whose target has the same coordinates as the given ref (ignoring any type or
+     * classifier on the target).
+     */
+    public List<ProjectRelationship<?, ?>> getRelationshipsTargeting( final ProjectVersionRef target )
+        throws IOException
+    {
+        lock.readLock().lock();
+        try
+        {
+            checkOpen();
+
+            final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>();
+            for ( final long offset : find( targetIndex, targetDelta, key( target ) ) )
+            {
+                final EProjectDirectRelationships rels = readRecord( offset );
+                if ( !isLatest( rels.getProjectRef(), offset ) )
+                {
+                    // superseded by a later append of the same project.
+                    continue;
+                }
+
+                for ( final ProjectRelationship<?, ?> rel : rels.getAllRelationships() )
+                {
+                    if ( sameKey( rel.getTarget(), target ) )
+                    {
+                        result.add( rel );
+                    }
+                }
+            }
+
+            return result;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of bytes in the log, including superseded records.
+     */
+    public long getLogLength()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return logLength;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write everything appended since the last call to the index files, so the next open doesn't have to index it
+     * from the log again.
+     */
+    public void flushIndexes()
+        throws IOException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            checkOpen();
+            flushIndexesLocked();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if ( closed )
+            {
+                return;
+            }
+
+            try
+            {
+                flushIndexesLocked();
+            }
+            finally
+            {
+                closed = true;
+                try
+                {
+                    fileLock.release();
+                }
+                finally
+                {
+                    logFile.close();
+                }
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RelationshipStore [" + dir + "]";
+    }
+
+    private void flushIndexesLocked()
+        throws IOException
+    {
+        if ( declaringIndex.getCoveredLogLength() < logLength )
+        {
+            declaringIndex.flush( declaringDelta.toPairs(), declaringDelta.size(), logLength );
+            declaringDelta.clear();
+        }
+
+        if ( targetIndex.getCoveredLogLength() < logLength )
+        {
+            targetIndex.flush( targetDelta.toPairs(), targetDelta.size(), logLength );
+            targetDelta.clear();
+        }
+    }
+
+    private void lockLog()
+        throws IOException
+    {
+        try
+        {
+            fileLock = log.tryLock();
+        }
+        catch ( final OverlappingFileLockException e )
+        {
+            // held by another instance in this JVM
+            fileLock = null;
+        }
+
+        if ( fileLock == null )
+        {
+            throw new IOException( "Relationship store is already open: " + dir );
+        }
+    }
+
+    /**
+     * Check the log header, map the indexes, and index whatever they don't cover yet, cutting off a torn record at the
+     * end of the log if there is one.
+     */
+    private void recover()
+        throws IOException
+    {
+        final long size = log.size();
+        if ( size == 0 )
+        {
+            final ByteBuffer header = ByteBuffer.allocate( LOG_HEADER_SIZE );
+            header.putInt( LOG_MAGIC ).putInt( LOG_VERSION ).flip();
+            log.write( header, 0 );
+            log.force( true );
+        }
+        else
+        {
+            final ByteBuffer header = readFully( 0, LOG_HEADER_SIZE );
+            if ( header == null || header.getInt() != LOG_MAGIC )
+            {
+                throw new IOException( "Not an atlas relationship store log: " + new File( dir, LOG_FILE ) );
+            }
+
+            final int version = header.getInt();
+            if ( version != LOG_VERSION )
+            {
+                throw new IOException( "Unsupported relationship store log version: " + version );
+            }
+        }
+
+        declaringIndex = TieredIndex.open( dir, DECLARING_INDEX );
+        targetIndex = TieredIndex.open( dir, TARGET_INDEX );
+
+        long position = Math.max( LOG_HEADER_SIZE,
+                                  Math.min( declaringIndex.getCoveredLogLength(), targetIndex.getCoveredLogLength() ) );
+        final long end = log.size();
+        if ( position > end )
+        {
+            throw new IOException( "Relationship store indexes cover more than the log holds; was the log replaced?" );
+        }
+
+        while ( position < end )
+        {
+            final byte[] payload = readPayload( position, end );
+            if ( payload == null )
+            {
+                // torn write from a crash; everything before it is intact.
+                log.truncate( position );
+                log.force( true );
+                break;
+            }
+
+            final EProjectDirectRelationships rels = decode( payload );
+            index( rels, position, position >= declaringIndex.getCoveredLogLength(),
+                   position >= targetIndex.getCoveredLogLength() );
+            position += RECORD_HEADER_SIZE + payload.length;
+        }
+
+        logLength = position;
+    }
+
+    private void index( final EProjectDirectRelationships rels, final long offset, final boolean declaring,
+                        final boolean targets )
+    {
+        if ( declaring )
+        {
+            declaringDelta.add( key( rels.getProjectRef() ), offset );
+        }
+
+        if ( targets )
+        {
+            // one entry per distinct target key in the record is enough.
+            final long[] keys = new long[rels.getAllRelationships().size()];
+            int count = 0;
+            for ( final ProjectRelationship<?, ?> rel : rels.getAllRelationships() )
+            {
+                keys[count++] = key( rel.getTarget() );
+            }
+
+            Arrays.sort( keys, 0, count );
+            for ( int i = 0; i < count; i++ )
+            {
+                if ( i == 0 || keys[i] != keys[i - 1] )
+                {
+                    targetDelta.add( keys[i], offset );
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if there's a later record for the same project than the one at the given offset.
+     */
+    private boolean isLatest( final ProjectVersionRef project, final long offset )
+        throws IOException
+    {
+        final long[] offsets = find( declaringIndex, declaringDelta, key( project ) );
+        for ( int i = offsets.length - 1; i > -1 && offsets[i] > offset; i-- )
+        {
+            if ( sameKey( readRecord( offsets[i] ).getProjectRef(), project ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long[] find( final TieredIndex index, final PairList delta, final long key )
+    {
+        final long[] stored = index.find( key );
+        final long[] appended = delta.find( key );
+        if ( appended.length == 0 )
+        {
+            return stored;
+        }
+
+        // everything in the delta was appended after everything in the index file.
+        final long[] result = Arrays.copyOf( stored, stored.length + appended.length );
+        System.arraycopy( appended, 0, result, stored.length, appended.length );
+        return result;
+    }
+
+    private static void writeRecord( final EProjectDirectRelationships rels, final ByteArrayOutputStream out )
+        throws IOException
+    {
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        final RelationshipBinaryWriter writer = new RelationshipBinaryWriter( payload );
+        writer.writeDirectRelationships( rels );
+        writer.close();
+
+        final byte[] bytes = payload.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update( bytes );
+
+        final ByteBuffer header = ByteBuffer.allocate( RECORD_HEADER_SIZE );
+        header.putInt( bytes.length ).putInt( (int) crc.getValue() );
+        out.write( header.array() );
+        out.write( bytes );
+    }
+
+    private EProjectDirectRelationships readRecord( final long offset )
+        throws IOException
+    {
+        final byte[] payload = readPayload( offset, logLength );
+        if ( payload == null )
+        {
+            throw new IOException( "Corrupt relationship store record at offset " + offset );
+        }
+
+        return decode( payload );
+    }
+
+    /**
+     * @return the CRC-checked payload of the record at the given offset, or null if it doesn't fit before the end or
+     * fails its check.
+     */
+    private byte[] readPayload( final long offset, final long end )
+        throws IOException
+    {
+        if ( offset + RECORD_HEADER_SIZE > end )
+        {
+            return null;
+        }
+
+        final ByteBuffer header = readFully( offset, RECORD_HEADER_SIZE );
+        final int length = header.getInt();
+        final int checksum = header.getInt();
+        if ( length < 0 || offset + RECORD_HEADER_SIZE + length > end )
+        {
+            return null;
+        }
+
+        final ByteBuffer payload = readFully( offset + RECORD_HEADER_SIZE, length );
+        if ( payload == null )
+        {
+            return null;
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update( payload.array() );
+        return (int) crc.getValue() == checksum ? payload.array() : null;
+    }
+
+    private ByteBuffer readFully( final long position, final int length )
+        throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate( length );
+        while ( buffer.hasRemaining() )
+        {
+            if ( log.read( buffer, position + buffer.position() ) < 0 )
+            {
+                return null;
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    private static EProjectDirectRelationships decode( final byte[] payload )
+        throws IOException
+    {
+        final RelationshipBinaryReader reader = new RelationshipBinaryReader( new ByteArrayInputStream( payload ) );
+        try
+        {
+            final EProjectDirectRelationships rels = reader.readDirectRelationships();
+            if ( rels == null )
+            {
+                throw new IOException( "Empty relationship store record" );
+            }
+
+            return rels;
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private void checkOpen()
+        throws IOException
+    {
+        if ( closed )
+        {
+            throw new IOException( "Relationship store is closed: " + dir );
+        }
+    }
+
+    private static boolean sameKey( final ProjectVersionRef a, final ProjectVersionRef b )
+    {
+        return a.getGroupId().equals( b.getGroupId() ) && a.getArtifactId().equals( b.getArtifactId() )
+            && a.getVersionString().equals( b.getVersionString() );
+    }
+
+    /**
+     * 64-bit FNV-1a over groupId:artifactId:version. It's part of the file format, so it must never change.
+     */
+    static long key( final ProjectVersionRef ref )
+    {
+        long hash = 0xcbf29ce484222325L;
+        hash = hash( hash, ref.getGroupId() );
+        hash = hash( hash, ':' );
+        hash = hash( hash, ref.getArtifactId() );
+        hash = hash( hash, ':' );
+        return hash( hash, ref.getVersionString() );
+    }
+
+    private static long hash( final long seed, final String value )
+    {
+        long hash = seed;
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            hash = hash( hash, value.charAt( i ) );
+        }
+
+        return hash;
+    }
+
+    private static long hash( final long seed, final char c )
+    {
+        return ( seed ^ c ) * 0x100000001b3L;
+    }
+
+    /**
+     * Key/offset pairs appended since the index files were written. Appends come in offset order, so the offsets for
+     * any one key are ascending.
+     */
+    private static final class PairList
+    {
+        private static final long[] NONE = new long[0];
+
+        private final Map<Long, long[]> offsets = new HashMap<Long, long[]>();
+
+        private int size;
+
+        void add( final long key, final long offset )
+        {
+            final long[] existing = offsets.get( key );
+            final long[] updated = existing == null ? new long[1] : Arrays.copyOf( existing, existing.length + 1 );
+            updated[updated.length - 1] = offset;
+            offsets.put( key, updated );
+            size++;
+        }
+
+        long[] find( final long key )
+        {
+            final long[] found = offsets.get( key );
+            return found == null ? NONE : found;
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        /**
+         * @return all pairs, interleaved, in no particular order.
+         */
+        long[] toPairs()
+        {
+            final long[] pairs = new long[size * 2];
+            int i = 0;
+            for ( final Map.Entry<Long, long[]> entry : offsets.entrySet() )
+            {
+                for ( final long offset : entry.getValue() )
+                {
+                    pairs[i++] = entry.getKey();
+                    pairs[i++] = offset;
+                }
+            }
+
+            return pairs;
+        }
+
+        void clear()
+        {
+            offsets.clear();
+            size = 0;
+        }
+    }
+
+}
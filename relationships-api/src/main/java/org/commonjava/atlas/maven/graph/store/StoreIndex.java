@@ -0,0 +1,390 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Immutable, memory-mapped file of <code>(key, log offset)</code> pairs sorted by key then offset, for the log records
+ * from <code>firstLogOffset</code> up to <code>coveredLogLength</code>; one run of a {@link TieredIndex}. Nothing is
+ * read up front; the OS pages the file in as lookups touch it.
+ * <pre>
+ * header  := MAGIC:int version:int coveredLogLength:long entryCount:long firstLogOffset:long
+ * entry   := key:long offset:long
+ * </pre>
+ * The header is a whole number of entries long, so no entry straddles two mapped segments. Files from before runs
+ * were introduced have zero in place of <code>firstLogOffset</code>, which is right for them.
+ */
+final class StoreIndex
+{
+
+    private static final int MAGIC = 0x41544c58; // "ATLX"
+
+    private static final int VERSION = 1;
+
+    private static final int ENTRY_SIZE = 16;
+
+    private static final int HEADER_SIZE = 32;
+
+    // a multiple of ENTRY_SIZE, comfortably below the 2G limit of a single mapping
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private static final long ENTRIES_PER_SEGMENT = SEGMENT_SIZE / ENTRY_SIZE;
+
+    private final File file;
+
+    private final long firstLogOffset;
+
+    private final long coveredLogLength;
+
+    private final long size;
+
+    private final ByteBuffer[] segments;
+
+    private StoreIndex( final File file, final long firstLogOffset, final long coveredLogLength, final long size,
+                        final ByteBuffer[] segments )
+    {
+        this.file = file;
+        this.firstLogOffset = firstLogOffset;
+        this.coveredLogLength = coveredLogLength;
+        this.size = size;
+        this.segments = segments;
+    }
+
+    /**
+     * Map the given index file.
+     */
+    static StoreIndex open( final File file )
+        throws IOException
+    {
+        final RandomAccessFile raf = new RandomAccessFile( file, "r" );
+        try
+        {
+            final FileChannel channel = raf.getChannel();
+            final ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+            while ( header.hasRemaining() && channel.read( header ) > -1 )
+            {
+                // keep reading
+            }
+
+            header.flip();
+            if ( header.remaining() < HEADER_SIZE || header.getInt() != MAGIC )
+            {
+                throw new IOException( "Not an atlas relationship store index: " + file );
+            }
+
+            final int version = header.getInt();
+            if ( version != VERSION )
+            {
+                throw new IOException( "Unsupported relationship store index version " + version + ": " + file );
+            }
+
+            final long covered = header.getLong();
+            final long size = header.getLong();
+            final long first = header.getLong();
+            if ( channel.size() != HEADER_SIZE + size * ENTRY_SIZE )
+            {
+                throw new IOException( "Truncated relationship store index: " + file );
+            }
+
+            final int segmentCount = (int) ( ( size + ENTRIES_PER_SEGMENT - 1 ) / ENTRIES_PER_SEGMENT );
+            final ByteBuffer[] segments = new ByteBuffer[segmentCount];
+            for ( int i = 0; i < segmentCount; i++ )
+            {
+                final long start = HEADER_SIZE + i * SEGMENT_SIZE;
+                final long length = Math.min( SEGMENT_SIZE, channel.size() - start );
+                final MappedByteBuffer segment = channel.map( FileChannel.MapMode.READ_ONLY, start, length );
+                segments[i] = segment;
+            }
+
+            // the mappings stay valid after the channel is closed.
+            return new StoreIndex( file, first, covered, size, segments );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @return the offset of the first log record this index can hold entries for.
+     */
+    long getFirstLogOffset()
+    {
+        return firstLogOffset;
+    }
+
+    /**
+     * @return the log length this index was written for; log records from here on aren't in it.
+     */
+    long getCoveredLogLength()
+    {
+        return coveredLogLength;
+    }
+
+    long size()
+    {
+        return size;
+    }
+
+    long keyAt( final long entry )
+    {
+        return segments[(int) ( entry / ENTRIES_PER_SEGMENT )].getLong( (int) ( entry % ENTRIES_PER_SEGMENT )
+            * ENTRY_SIZE );
+    }
+
+    long offsetAt( final long entry )
+    {
+        return segments[(int) ( entry / ENTRIES_PER_SEGMENT )].getLong( (int) ( entry % ENTRIES_PER_SEGMENT )
+            * ENTRY_SIZE + 8 );
+    }
+
+    /**
+     * @return the log offsets stored under the given key, in ascending order.
+     */
+    long[] find( final long key )
+    {
+        long low = 0;
+        long high = size;
+        while ( low < high )
+        {
+            final long mid = ( low + high ) >>> 1;
+            if ( keyAt( mid ) < key )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+
+        long end = low;
+        while ( end < size && keyAt( end ) == key )
+        {
+            end++;
+        }
+
+        final long[] offsets = new long[(int) ( end - low )];
+        for ( int i = 0; i < offsets.length; i++ )
+        {
+            offsets[i] = offsetAt( low + i );
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Write the given pairs as a new index for the log records from <code>firstLogOffset</code> up to
+     * <code>coveredLogLength</code>.
+     *
+     * @param pairs key/offset pairs, interleaved; they get sorted in place
+     */
+    static StoreIndex write( final File target, final long[] pairs, final int pairCount, final long firstLogOffset,
+                             final long coveredLogLength )
+        throws IOException
+    {
+        sortPairs( pairs, pairCount );
+
+        final File tmp = tmpFile( target );
+        final FileOutputStream fos = new FileOutputStream( tmp );
+        try
+        {
+            final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( fos, 64 * 1024 ) );
+            writeHeader( out, firstLogOffset, coveredLogLength, pairCount );
+            for ( int i = 0; i < pairCount * 2; i++ )
+            {
+                out.writeLong( pairs[i] );
+            }
+
+            out.flush();
+            fos.getFD().sync();
+        }
+        finally
+        {
+            fos.close();
+        }
+
+        return install( tmp, target );
+    }
+
+    /**
+     * Write a new index holding everything in two adjacent ones, the newer covering the log right after the older.
+     */
+    static StoreIndex merge( final File target, final StoreIndex older, final StoreIndex newer )
+        throws IOException
+    {
+        final File tmp = tmpFile( target );
+        final FileOutputStream fos = new FileOutputStream( tmp );
+        try
+        {
+            final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( fos, 64 * 1024 ) );
+            writeHeader( out, older.firstLogOffset, newer.coveredLogLength, older.size + newer.size );
+
+            long mine = 0;
+            long theirs = 0;
+            while ( mine < older.size || theirs < newer.size )
+            {
+                final boolean takeMine;
+                if ( mine == older.size )
+                {
+                    takeMine = false;
+                }
+                else if ( theirs == newer.size )
+                {
+                    takeMine = true;
+                }
+                else
+                {
+                    // on equal keys, the older run's offsets are the lower ones.
+                    takeMine = older.keyAt( mine ) <= newer.keyAt( theirs );
+                }
+
+                if ( takeMine )
+                {
+                    out.writeLong( older.keyAt( mine ) );
+                    out.writeLong( older.offsetAt( mine ) );
+                    mine++;
+                }
+                else
+                {
+                    out.writeLong( newer.keyAt( theirs ) );
+                    out.writeLong( newer.offsetAt( theirs ) );
+                    theirs++;
+                }
+            }
+
+            out.flush();
+            fos.getFD().sync();
+        }
+        finally
+        {
+            fos.close();
+        }
+
+        return install( tmp, target );
+    }
+
+    private static File tmpFile( final File target )
+    {
+        return new File( target.getPath() + ".tmp" );
+    }
+
+    private static void writeHeader( final DataOutputStream out, final long firstLogOffset,
+                                     final long coveredLogLength, final long size )
+        throws IOException
+    {
+        out.writeInt( MAGIC );
+        out.writeInt( VERSION );
+        out.writeLong( coveredLogLength );
+        out.writeLong( size );
+        out.writeLong( firstLogOffset );
+    }
+
+    /**
+     * Move a fully written index into place in one step, so readers (and a crash) only ever see all of it or nothing.
+     */
+    private static StoreIndex install( final File tmp, final File target )
+        throws IOException
+    {
+        Files.move( tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE );
+
+        return open( target );
+    }
+
+    /**
+     * Sort interleaved key/offset pairs by key, then offset, in place.
+     */
+    static void sortPairs( final long[] pairs, final int pairCount )
+    {
+        sortPairs( pairs, 0, pairCount - 1 );
+    }
+
+    private static void sortPairs( final long[] pairs, final int from, final int to )
+    {
+        int low = from;
+        int high = to;
+        while ( low < high )
+        {
+            final int mid = ( low + high ) >>> 1;
+            final long pivotKey = pairs[mid * 2];
+            final long pivotOffset = pairs[mid * 2 + 1];
+
+            int i = low;
+            int j = high;
+            while ( i <= j )
+            {
+                while ( comparePair( pairs, i, pivotKey, pivotOffset ) < 0 )
+                {
+                    i++;
+                }
+                while ( comparePair( pairs, j, pivotKey, pivotOffset ) > 0 )
+                {
+                    j--;
+                }
+                if ( i <= j )
+                {
+                    swapPairs( pairs, i++, j-- );
+                }
+            }
+
+            // recurse into the smaller side, loop on the larger one, to bound the stack depth.
+            if ( j - low < high - i )
+            {
+                sortPairs( pairs, low, j );
+                low = i;
+            }
+            else
+            {
+                sortPairs( pairs, i, high );
+                high = j;
+            }
+        }
+    }
+
+    private static int comparePair( final long[] pairs, final int pair, final long key, final long offset )
+    {
+        final int byKey = Long.compare( pairs[pair * 2], key );
+        return byKey != 0 ? byKey : Long.compare( pairs[pair * 2 + 1], offset );
+    }
+
+    private static void swapPairs( final long[] pairs, final int a, final int b )
+    {
+        final long key = pairs[a * 2];
+        final long offset = pairs[a * 2 + 1];
+        pairs[a * 2] = pairs[b * 2];
+        pairs[a * 2 + 1] = pairs[b * 2 + 1];
+        pairs[b * 2] = key;
+        pairs[b * 2 + 1] = offset;
+    }
+
+}
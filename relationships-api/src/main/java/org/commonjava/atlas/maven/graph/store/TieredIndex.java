@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The index of one kind of key in a {@link RelationshipStore}: a chain of {@link StoreIndex} runs, each covering the
+ * log records from where the one before it stops. A flush writes the new entries as a run of their own instead of
+ * rewriting what is already on disk; then, while the newest run holds at least half as many entries as the one before
+ * it, the two are merged. So there are O(log n) runs to look in, and each entry gets rewritten O(log n) times.
+ * <p>
+ * Run files are named <code>&lt;name&gt;-&lt;first log offset&gt;-&lt;covered log length&gt;.idx</code>. After a
+ * crash, a merged run and the ones it was made from may all be on disk; opening keeps the chain of runs reaching
+ * furthest into the log and deletes the rest. A <code>&lt;name&gt;.idx</code> file from before runs were introduced
+ * is picked up as the first run.
+ * <p>
+ * Not thread-safe; {@link RelationshipStore} guards it.
+ */
+final class TieredIndex
+{
+
+    private static final String SUFFIX = ".idx";
+
+    private static final long[] NONE = new long[0];
+
+    private final File dir;
+
+    private final String name;
+
+    private final List<StoreIndex> runs;
+
+    private TieredIndex( final File dir, final String name, final List<StoreIndex> runs )
+    {
+        this.dir = dir;
+        this.name = name;
+        this.runs = runs;
+    }
+
+    /**
+     * Map the runs of the named index in the given directory, deleting any that were superseded or left half-written.
+     */
+    static TieredIndex open( final File dir, final String name )
+        throws IOException
+    {
+        final List<StoreIndex> found = new ArrayList<StoreIndex>();
+        final File[] files = dir.listFiles();
+        for ( final File file : files == null ? new File[0] : files )
+        {
+            final String fname = file.getName();
+            if ( fname.equals( name + SUFFIX ) || ( fname.startsWith( name + "-" ) && fname.endsWith( SUFFIX ) ) )
+            {
+                found.add( StoreIndex.open( file ) );
+            }
+            else if ( fname.startsWith( name ) && fname.endsWith( SUFFIX + ".tmp" ) )
+            {
+                file.delete();
+            }
+        }
+
+        final List<StoreIndex> runs = new ArrayList<StoreIndex>();
+        long position = 0;
+        while ( true )
+        {
+            StoreIndex next = null;
+            for ( final StoreIndex run : found )
+            {
+                if ( run.getFirstLogOffset() == position
+                    && ( next == null || run.getCoveredLogLength() > next.getCoveredLogLength() ) )
+                {
+                    next = run;
+                }
+            }
+
+            if ( next == null || next.getCoveredLogLength() <= position )
+            {
+                break;
+            }
+
+            runs.add( next );
+            found.remove( next );
+            position = next.getCoveredLogLength();
+        }
+
+        // whatever they held is in a run we kept, or gets indexed from the log again.
+        for ( final StoreIndex run : found )
+        {
+            delete( run );
+        }
+
+        return new TieredIndex( dir, name, runs );
+    }
+
+    /**
+     * @return the log length the runs cover; log records from here on aren't in them.
+     */
+    long getCoveredLogLength()
+    {
+        return runs.isEmpty() ? 0 : runs.get( runs.size() - 1 ).getCoveredLogLength();
+    }
+
+    /**
+     * @return the log offsets stored under the given key, in ascending order.
+     */
+    long[] find( final long key )
+    {
+        long[] result = NONE;
+        for ( final StoreIndex run : runs )
+        {
+            final long[] offsets = run.find( key );
+            if ( offsets.length == 0 )
+            {
+                continue;
+            }
+
+            // later runs cover later parts of the log, so their offsets are all higher.
+            final int length = result.length;
+            result = Arrays.copyOf( result, length + offsets.length );
+            System.arraycopy( offsets, 0, result, length, offsets.length );
+        }
+
+        return result;
+    }
+
+    /**
+     * Write the given pairs as a new run, covering the log from where the last run stops up to
+     * <code>coveredLogLength</code>, then merge runs as needed.
+     *
+     * @param pairs key/offset pairs, interleaved; they get sorted in place
+     */
+    void flush( final long[] pairs, final int pairCount, final long coveredLogLength )
+        throws IOException
+    {
+        long first = getCoveredLogLength();
+
+        // an empty run would never grow enough to be merged; take its place instead.
+        StoreIndex replaced = null;
+        if ( !runs.isEmpty() && runs.get( runs.size() - 1 ).size() == 0 )
+        {
+            replaced = runs.remove( runs.size() - 1 );
+            first = replaced.getFirstLogOffset();
+        }
+
+        runs.add( StoreIndex.write( runFile( first, coveredLogLength ), pairs, pairCount, first, coveredLogLength ) );
+        if ( replaced != null )
+        {
+            delete( replaced );
+        }
+
+        while ( runs.size() > 1 )
+        {
+            final StoreIndex newer = runs.get( runs.size() - 1 );
+            final StoreIndex older = runs.get( runs.size() - 2 );
+            if ( newer.size() * 2 < older.size() )
+            {
+                break;
+            }
+
+            final StoreIndex merged = StoreIndex.merge(
+                runFile( older.getFirstLogOffset(), newer.getCoveredLogLength() ), older, newer );
+
+            runs.remove( runs.size() - 1 );
+            runs.set( runs.size() - 1, merged );
+            delete( older );
+            delete( newer );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TieredIndex [" + name + ", runs=" + runs.size() + ", covered=" + getCoveredLogLength() + "]";
+    }
+
+    private File runFile( final long first, final long covered )
+    {
+        return new File( dir, name + "-" + first + "-" + covered + SUFFIX );
+    }
+
+    // if it can't be deleted (eg. while still mapped on Windows), the next open finds it superseded and tries again.
+    private static void delete( final StoreIndex run )
+    {
+        run.getFile().delete();
+    }
+
+}
@@ -0,0 +1,682 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.traverse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.commonjava.atlas.maven.graph.model.EProjectCycle;
+import org.commonjava.atlas.maven.graph.model.RelationshipGraph;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+
+/**
+ * Finds the cycles in a {@link RelationshipGraph}, considering only the edges with the given {@link RelationshipType}s
+ * and managed state.
+ * <p>
+ * Strongly-connected components are found with an iterative Tarjan, so deep graphs can't overflow the stack. For each
+ * component, cycles are emitted until every relationship in the component takes part in at least one of them (each
+ * being the shortest cycle through a relationship not covered yet), so the output stays proportional to the graph
+ * rather than to the number of elementary cycles, which can be exponential.
+ * <p>
+ * {@link #detect(ForkJoinPool)} splits the graph into weakly-connected components and works on them in parallel. After
+ * a detection, {@link #update(RelationshipGraph, ProjectVersionRef...)} re-checks only what a change to some projects'
+ * relationships can affect.
+ * <p>
+ * Not thread-safe.
+ */
+public final class CycleDetector
+{
+
+    public enum ManagedFilter
+    {
+        ALL, MANAGED_ONLY, UNMANAGED_ONLY
+    }
+
+    // below this many nodes, a fork/join task does the work itself instead of splitting.
+    private static final int SPLIT_THRESHOLD = 2048;
+
+    private final ManagedFilter managed;
+
+    private final int typeMask;
+
+    private RelationshipGraph graph;
+
+    // SCC id (lowest member node id) per node, or -1 if the node isn't in a cycle
+    private int[] componentOf;
+
+    // scratch space, indexed by node; safe to share between tasks because they work on disjoint node sets
+    private int[] index;
+
+    private int[] low;
+
+    private boolean[] onStack;
+
+    private int[] position;
+
+    private Map<Integer, Component> components;
+
+    /**
+     * @param types relationship types to follow; all types if none are given
+     */
+    public CycleDetector( final RelationshipGraph graph, final ManagedFilter managed, final RelationshipType... types )
+    {
+        this.graph = graph;
+        this.managed = managed;
+
+        int mask = 0;
+        for ( final RelationshipType type : types.length == 0 ? RelationshipType.values() : types )
+        {
+            mask |= 1 << type.ordinal();
+        }
+        this.typeMask = mask;
+    }
+
+    public CycleDetector( final RelationshipGraph graph, final RelationshipType... types )
+    {
+        this( graph, ManagedFilter.ALL, types );
+    }
+
+    /**
+     * Find all cycles, on the calling thread.
+     */
+    public List<EProjectCycle> detect()
+    {
+        final int[][] groups = weakComponents();
+        final Map<Integer, Component> found = new ComponentTask( groups, 0, groups.length ).compute();
+        components = new TreeMap<Integer, Component>( found );
+
+        return getCycles();
+    }
+
+    /**
+     * Find all cycles, with the weakly-connected parts of the graph spread over the given pool.
+     */
+    public List<EProjectCycle> detect( final ForkJoinPool pool )
+    {
+        final int[][] groups = weakComponents();
+        final Map<Integer, Component> found = pool.invoke( new ComponentTask( groups, 0, groups.length ) );
+        components = new TreeMap<Integer, Component>( found );
+
+        return getCycles();
+    }
+
+    /**
+     * Bring the detected cycles up to date with a new version of the graph, in which only the relationships declared by
+     * the given projects have changed. The new graph MUST have been built with
+     * {@link RelationshipGraph.Builder#Builder(RelationshipGraph)} from the one last detected on, so node ids line up.
+     * <p>
+     * Components that don't contain a changed project can't have changed either, so Tarjan only runs from the changed
+     * projects and the members of their old components, over what they reach; components it passes through that are
+     * still intact keep their cycles.
+     */
+    public List<EProjectCycle> update( final RelationshipGraph updated, final ProjectVersionRef... changed )
+    {
+        if ( components == null )
+        {
+            throw new IllegalStateException( "Nothing to update; call detect() first." );
+        }
+
+        if ( updated.getNodeCount() < graph.getNodeCount() )
+        {
+            throw new IllegalArgumentException( "Updated graph has fewer nodes than the original; it must be built "
+                + "from the original graph." );
+        }
+
+        graph = updated;
+        final int nodeCount = graph.getNodeCount();
+        if ( componentOf.length < nodeCount )
+        {
+            final int oldLength = componentOf.length;
+            componentOf = Arrays.copyOf( componentOf, nodeCount );
+            Arrays.fill( componentOf, oldLength, nodeCount, -1 );
+            position = Arrays.copyOf( position, nodeCount );
+            index = Arrays.copyOf( index, nodeCount );
+            low = Arrays.copyOf( low, nodeCount );
+            onStack = Arrays.copyOf( onStack, nodeCount );
+        }
+
+        // old components containing a changed project may have broken up; everything in them needs a fresh look.
+        final IntList recheck = new IntList();
+        for ( final ProjectVersionRef ref : changed )
+        {
+            final int node = graph.getNodeId( ref );
+            if ( node < 0 )
+            {
+                continue;
+            }
+
+            recheck.add( node );
+            final Component old = drop( componentOf[node] );
+            if ( old != null )
+            {
+                for ( final int member : old.members )
+                {
+                    recheck.add( member );
+                }
+            }
+        }
+
+        findComponents( Arrays.copyOf( recheck.values, recheck.size ), components );
+
+        return getCycles();
+    }
+
+    /**
+     * @return the cycles found by the last detection or update, ordered by component.
+     */
+    public List<EProjectCycle> getCycles()
+    {
+        if ( components == null )
+        {
+            return Collections.emptyList();
+        }
+
+        final List<EProjectCycle> result = new ArrayList<EProjectCycle>();
+        for ( final Component component : components.values() )
+        {
+            result.addAll( component.cycles );
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the projects of each strongly-connected component with a cycle, from the last detection or update.
+     */
+    public List<List<ProjectVersionRef>> getComponents()
+    {
+        if ( components == null )
+        {
+            return Collections.emptyList();
+        }
+
+        final List<List<ProjectVersionRef>> result = new ArrayList<List<ProjectVersionRef>>();
+        for ( final Component component : components.values() )
+        {
+            final List<ProjectVersionRef> refs = new ArrayList<ProjectVersionRef>( component.members.length );
+            for ( final int member : component.members )
+            {
+                refs.add( graph.getNode( member ) );
+            }
+            result.add( refs );
+        }
+
+        return result;
+    }
+
+    private boolean accept( final int edge )
+    {
+        if ( ( typeMask & ( 1 << graph.getEdgeType( edge ).ordinal() ) ) == 0 )
+        {
+            return false;
+        }
+
+        switch ( managed )
+        {
+            case MANAGED_ONLY:
+                return graph.isManaged( edge );
+            case UNMANAGED_ONLY:
+                return !graph.isManaged( edge );
+            default:
+                return true;
+        }
+    }
+
+    private boolean hasSelfLoop( final int node )
+    {
+        final int degree = graph.getOutDegree( node );
+        for ( int i = 0; i < degree; i++ )
+        {
+            final int edge = graph.getOutEdge( node, i );
+            if ( graph.getEdgeTarget( edge ) == node && accept( edge ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Component drop( final int id )
+    {
+        if ( id < 0 )
+        {
+            return null;
+        }
+
+        final Component component = components.remove( id );
+        if ( component != null )
+        {
+            for ( final int member : component.members )
+            {
+                componentOf[member] = -1;
+            }
+        }
+
+        return component;
+    }
+
+    /**
+     * Union-find over the accepted edges, then bucket the nodes by root. Nodes without accepted edges can't be in a
+     * cycle, so they're left out.
+     */
+    private int[][] weakComponents()
+    {
+        final int nodeCount = graph.getNodeCount();
+        componentOf = new int[nodeCount];
+        Arrays.fill( componentOf, -1 );
+        index = new int[nodeCount];
+        low = new int[nodeCount];
+        onStack = new boolean[nodeCount];
+        position = new int[nodeCount];
+
+        final int[] parent = new int[nodeCount];
+        for ( int i = 0; i < nodeCount; i++ )
+        {
+            parent[i] = i;
+        }
+
+        final BitSet connected = new BitSet( nodeCount );
+        final int edgeCount = graph.getEdgeCount();
+        for ( int edge = 0; edge < edgeCount; edge++ )
+        {
+            if ( accept( edge ) )
+            {
+                final int source = graph.getEdgeSource( edge );
+                final int target = graph.getEdgeTarget( edge );
+                connected.set( source );
+                connected.set( target );
+
+                final int a = find( parent, source );
+                final int b = find( parent, target );
+                if ( a != b )
+                {
+                    parent[Math.max( a, b )] = Math.min( a, b );
+                }
+            }
+        }
+
+        final int[] sizes = new int[nodeCount];
+        int groupCount = 0;
+        for ( int n = connected.nextSetBit( 0 ); n > -1; n = connected.nextSetBit( n + 1 ) )
+        {
+            if ( sizes[find( parent, n )]++ == 0 )
+            {
+                groupCount++;
+            }
+        }
+
+        final int[][] groups = new int[groupCount][];
+        final int[] groupOf = new int[nodeCount];
+        final int[] fill = new int[groupCount];
+        int g = 0;
+        for ( int n = connected.nextSetBit( 0 ); n > -1; n = connected.nextSetBit( n + 1 ) )
+        {
+            final int root = find( parent, n );
+            if ( root == n )
+            {
+                groupOf[n] = g;
+                groups[g++] = new int[sizes[n]];
+            }
+
+            // roots are the lowest node of their group, so they always come first.
+            final int group = groupOf[root];
+            groups[group][fill[group]++] = n;
+        }
+
+        return groups;
+    }
+
+    private static int find( final int[] parent, final int node )
+    {
+        int n = node;
+        while ( parent[n] != n )
+        {
+            parent[n] = parent[parent[n]];
+            n = parent[n];
+        }
+
+        return n;
+    }
+
+    /**
+     * Iterative Tarjan from the given nodes, over everything they reach. Expects {@link #index} and {@link #low} to be
+     * zero for every node it may reach, and leaves them that way.
+     */
+    private void findComponents( final int[] group, final Map<Integer, Component> found )
+    {
+        final IntList stack = new IntList();
+        final IntList callNodes = new IntList();
+        final IntList callPositions = new IntList();
+        final IntList visited = new IntList();
+        int counter = 1;
+
+        for ( final int root : group )
+        {
+            if ( index[root] != 0 )
+            {
+                continue;
+            }
+
+            index[root] = low[root] = counter++;
+            visited.add( root );
+            stack.add( root );
+            onStack[root] = true;
+            callNodes.add( root );
+            callPositions.add( 0 );
+
+            while ( callNodes.size > 0 )
+            {
+                final int top = callNodes.size - 1;
+                final int node = callNodes.values[top];
+                final int pos = callPositions.values[top];
+
+                if ( pos < graph.getOutDegree( node ) )
+                {
+                    callPositions.values[top]++;
+
+                    final int edge = graph.getOutEdge( node, pos );
+                    if ( !accept( edge ) )
+                    {
+                        continue;
+                    }
+
+                    final int next = graph.getEdgeTarget( edge );
+                    if ( index[next] == 0 )
+                    {
+                        index[next] = low[next] = counter++;
+                        visited.add( next );
+                        stack.add( next );
+                        onStack[next] = true;
+                        callNodes.add( next );
+                        callPositions.add( 0 );
+                    }
+                    else if ( onStack[next] )
+                    {
+                        low[node] = Math.min( low[node], index[next] );
+                    }
+
+                    continue;
+                }
+
+                callNodes.size--;
+                callPositions.size--;
+                if ( callNodes.size > 0 )
+                {
+                    final int caller = callNodes.values[callNodes.size - 1];
+                    low[caller] = Math.min( low[caller], low[node] );
+                }
+
+                if ( low[node] == index[node] )
+                {
+                    int start = stack.size - 1;
+                    while ( stack.values[start] != node )
+                    {
+                        start--;
+                    }
+
+                    final int[] members = Arrays.copyOfRange( stack.values, start, stack.size );
+                    stack.size = start;
+                    for ( final int member : members )
+                    {
+                        onStack[member] = false;
+                    }
+
+                    if ( members.length > 1 || hasSelfLoop( node ) )
+                    {
+                        Arrays.sort( members );
+                        if ( !isIntact( members ) )
+                        {
+                            // on update, this may be an old component merged with the changed projects' ones.
+                            for ( final int member : members )
+                            {
+                                drop( componentOf[member] );
+                            }
+
+                            final Component component = newComponent( members );
+                            found.put( component.id, component );
+                        }
+                    }
+                }
+            }
+        }
+
+        for ( int i = 0; i < visited.size; i++ )
+        {
+            index[visited.values[i]] = low[visited.values[i]] = 0;
+        }
+    }
+
+    /**
+     * Whether the given SCC is exactly a component we already have. Never true during detection, since nothing is
+     * assigned yet.
+     */
+    private boolean isIntact( final int[] members )
+    {
+        final int id = componentOf[members[0]];
+        if ( id < 0 || components.get( id ).members.length != members.length )
+        {
+            return false;
+        }
+
+        for ( final int member : members )
+        {
+            if ( componentOf[member] != id )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Component newComponent( final int[] members )
+    {
+        final int id = members[0];
+        for ( int i = 0; i < members.length; i++ )
+        {
+            componentOf[members[i]] = id;
+            position[members[i]] = i;
+        }
+
+        return new Component( id, members, coverCycles( id, members ) );
+    }
+
+    /**
+     * Emit shortest cycles through the component's edges, until each edge is in at least one of them.
+     *
+     * @param members component nodes, ascending
+     */
+    private List<EProjectCycle> coverCycles( final int id, final int[] members )
+    {
+        // out edge ids grow with the source node id, so these come out sorted.
+        final IntList internal = new IntList();
+        for ( final int member : members )
+        {
+            final int degree = graph.getOutDegree( member );
+            for ( int i = 0; i < degree; i++ )
+            {
+                final int edge = graph.getOutEdge( member, i );
+                if ( componentOf[graph.getEdgeTarget( edge )] == id && accept( edge ) )
+                {
+                    internal.add( edge );
+                }
+            }
+        }
+
+        final List<EProjectCycle> cycles = new ArrayList<EProjectCycle>();
+        final boolean[] covered = new boolean[internal.size];
+        final int[] via = new int[members.length];
+        final int[] visited = new int[members.length];
+        final int[] queue = new int[members.length];
+        int round = 0;
+
+        for ( int i = 0; i < internal.size; i++ )
+        {
+            if ( covered[i] )
+            {
+                continue;
+            }
+
+            final int edge = internal.values[i];
+            final int from = graph.getEdgeSource( edge );
+            final int to = graph.getEdgeTarget( edge );
+
+            final List<ProjectRelationship<?, ?>> cycle = new ArrayList<ProjectRelationship<?, ?>>();
+            cycle.add( graph.getRelationship( edge ) );
+            covered[i] = true;
+
+            if ( from != to )
+            {
+                // BFS back from the target to the source, inside the component.
+                round++;
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = to;
+                visited[position[to]] = round;
+
+                search:
+                while ( head < tail )
+                {
+                    final int node = queue[head++];
+                    final int degree = graph.getOutDegree( node );
+                    for ( int k = 0; k < degree; k++ )
+                    {
+                        final int e = graph.getOutEdge( node, k );
+                        final int next = graph.getEdgeTarget( e );
+                        if ( componentOf[next] != id || visited[position[next]] == round || !accept( e ) )
+                        {
+                            continue;
+                        }
+
+                        visited[position[next]] = round;
+                        via[position[next]] = e;
+                        if ( next == from )
+                        {
+                            break search;
+                        }
+
+                        queue[tail++] = next;
+                    }
+                }
+
+                final int start = cycle.size();
+                for ( int node = from; node != to; )
+                {
+                    final int e = via[position[node]];
+                    cycle.add( start, graph.getRelationship( e ) );
+                    covered[Arrays.binarySearch( internal.values, 0, internal.size, e )] = true;
+                    node = graph.getEdgeSource( e );
+                }
+            }
+
+            cycles.add( new EProjectCycle( cycle ) );
+        }
+
+        return cycles;
+    }
+
+    private final class ComponentTask
+        extends RecursiveTask<Map<Integer, Component>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] groups;
+
+        private final int from;
+
+        private final int to;
+
+        ComponentTask( final int[][] groups, final int from, final int to )
+        {
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Integer, Component> compute()
+        {
+            int nodes = 0;
+            for ( int i = from; i < to && nodes < SPLIT_THRESHOLD; i++ )
+            {
+                nodes += groups[i].length;
+            }
+
+            if ( to - from > 1 && nodes >= SPLIT_THRESHOLD && getPool() != null )
+            {
+                final int mid = ( from + to ) >>> 1;
+                final ComponentTask left = new ComponentTask( groups, from, mid );
+                left.fork();
+
+                final Map<Integer, Component> result = new ComponentTask( groups, mid, to ).compute();
+                result.putAll( left.join() );
+                return result;
+            }
+
+            final Map<Integer, Component> result = new TreeMap<Integer, Component>();
+            for ( int i = from; i < to; i++ )
+            {
+                findComponents( groups[i], result );
+            }
+
+            return result;
+        }
+    }
+
+    private static final class Component
+    {
+        private final int id;
+
+        private final int[] members;
+
+        private final List<EProjectCycle> cycles;
+
+        Component( final int id, final int[] members, final List<EProjectCycle> cycles )
+        {
+            this.id = id;
+            this.members = members;
+            this.cycles = cycles;
+        }
+    }
+
+    private static final class IntList
+    {
+        private int[] values = new int[16];
+
+        private int size;
+
+        void add( final int value )
+        {
+            if ( size == values.length )
+            {
+                values = Arrays.copyOf( values, size << 1 );
+            }
+
+            values[size++] = value;
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.traverse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.commonjava.atlas.maven.graph.model.RelationshipGraph;
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipPathComparator;
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ScopeTransitivity;
+import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleVersionlessArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.VersionlessArtifactRef;
+
+/**
+ * Resolves the transitive dependencies of a project in a {@link RelationshipGraph}, Maven-style:
+ * <ul>
+ *   <li>breadth-first, so the nearest version of each artifact (groupId:artifactId:type:classifier) wins; within one
+ *   depth, ties go to the path that sorts first with {@link RelationshipPathComparator}</li>
+ *   <li>the root's dependencies are filtered by the requested scope, and each dependency's children by
+ *   {@link ScopeTransitivity#getChildFor(DependencyScope)} of its effective scope</li>
+ *   <li>effective scopes narrow along the path (eg. compile under test becomes test)</li>
+ *   <li>optional dependencies are only followed when the root declares them</li>
+ *   <li>exclusions apply to everything below the dependency declaring them</li>
+ *   <li>managed (dependencyManagement) relationships are ignored</li>
+ *   <li>dependencies back on the root's groupId:artifactId, in any version, are ignored</li>
+ * </ul>
+ * Results are produced lazily, one depth at a time, so only the current and next depth are held besides the set of
+ * already selected artifacts. Paths are not stored; see {@link ResolvedDependency#getPath()}.
+ */
+public final class DependencyResolver
+{
+
+    private final RelationshipGraph graph;
+
+    private final DependencyScope scope;
+
+    private final ScopeTransitivity transitivity;
+
+    public DependencyResolver( final RelationshipGraph graph, final DependencyScope scope,
+                               final ScopeTransitivity transitivity )
+    {
+        this.graph = graph;
+        this.scope = scope;
+        this.transitivity = transitivity;
+    }
+
+    public DependencyResolver( final RelationshipGraph graph, final DependencyScope scope )
+    {
+        this( graph, scope, ScopeTransitivity.maven );
+    }
+
+    /**
+     * @return the resolved dependencies of the given project, nearest first. Each call to
+     * {@link Iterable#iterator()} starts a new resolution.
+     */
+    public Iterable<ResolvedDependency> resolve( final ProjectVersionRef root )
+    {
+        return new Iterable<ResolvedDependency>()
+        {
+            @Override
+            public Iterator<ResolvedDependency> iterator()
+            {
+                return new Resolution( graph.getNodeId( root ) );
+            }
+        };
+    }
+
+    /**
+     * Convenience for when the whole result is wanted anyway.
+     */
+    public List<ResolvedDependency> resolveAll( final ProjectVersionRef root )
+    {
+        final List<ResolvedDependency> result = new ArrayList<ResolvedDependency>();
+        for ( final ResolvedDependency dep : resolve( root ) )
+        {
+            result.add( dep );
+        }
+
+        return result;
+    }
+
+    /**
+     * Effective scope of a dependency declared with the given scope, below one with the given effective scope.
+     */
+    static DependencyScope narrow( final DependencyScope parent, final DependencyScope declared )
+    {
+        if ( parent == DependencyScope.compile )
+        {
+            return declared;
+        }
+
+        if ( declared == DependencyScope.compile || declared == DependencyScope.runtime )
+        {
+            return parent;
+        }
+
+        return declared;
+    }
+
+    private final class Resolution
+        implements Iterator<ResolvedDependency>
+    {
+        private final Set<VersionlessArtifactRef> selected = new HashSet<VersionlessArtifactRef>();
+
+        private final ProjectRef rootProject;
+
+        private List<ResolvedDependency> level;
+
+        private int pos;
+
+        Resolution( final int root )
+        {
+            if ( root < 0 )
+            {
+                rootProject = null;
+                level = Collections.emptyList();
+            }
+            else
+            {
+                rootProject = graph.getNode( root ).asProjectRef();
+
+                final Map<VersionlessArtifactRef, ResolvedDependency> candidates =
+                    new LinkedHashMap<VersionlessArtifactRef, ResolvedDependency>();
+                expand( null, root, scope, candidates );
+                level = select( candidates );
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( pos == level.size() && !level.isEmpty() )
+            {
+                final Map<VersionlessArtifactRef, ResolvedDependency> candidates =
+                    new LinkedHashMap<VersionlessArtifactRef, ResolvedDependency>();
+                for ( final ResolvedDependency parent : level )
+                {
+                    final DependencyScope filter = transitivity.getChildFor( parent.getScope() );
+                    if ( filter != null )
+                    {
+                        expand( parent, parent.node, filter, candidates );
+                    }
+                }
+
+                level = select( candidates );
+                pos = 0;
+            }
+
+            return pos < level.size();
+        }
+
+        @Override
+        public ResolvedDependency next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+
+            return level.get( pos++ );
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException( "Resolved dependencies are read-only" );
+        }
+
+        private List<ResolvedDependency> select( final Map<VersionlessArtifactRef, ResolvedDependency> candidates )
+        {
+            selected.addAll( candidates.keySet() );
+            return new ArrayList<ResolvedDependency>( candidates.values() );
+        }
+
+        private void expand( final ResolvedDependency parent, final int node, final DependencyScope filter,
+                             final Map<VersionlessArtifactRef, ResolvedDependency> candidates )
+        {
+            final int degree = graph.getOutDegree( node, RelationshipType.DEPENDENCY );
+            for ( int i = 0; i < degree; i++ )
+            {
+                final int edge = graph.getOutEdge( node, RelationshipType.DEPENDENCY, i );
+                if ( graph.isManaged( edge ) )
+                {
+                    continue;
+                }
+
+                final DependencyRelationship dep = (DependencyRelationship) graph.getRelationship( edge );
+                if ( parent != null && dep.isOptional() )
+                {
+                    continue;
+                }
+
+                final DependencyScope declared = dep.getScope() == null ? DependencyScope.compile : dep.getScope();
+                if ( !filter.implies( declared ) )
+                {
+                    continue;
+                }
+
+                final ArtifactRef target = dep.getTarget();
+                if ( rootProject.equals( target.asProjectRef() ) )
+                {
+                    continue;
+                }
+
+                final VersionlessArtifactRef key = new SimpleVersionlessArtifactRef( target );
+                if ( selected.contains( key ) || ( parent != null && parent.excludes( target ) ) )
+                {
+                    continue;
+                }
+
+                final ResolvedDependency candidate =
+                    new ResolvedDependency( parent, dep, parent == null ? declared : narrow( parent.getScope(), declared ),
+                                            graph.getEdgeTarget( edge ) );
+
+                final ResolvedDependency existing = candidates.get( key );
+                if ( existing == null
+                    || RelationshipPathComparator.INSTANCE.compare( candidate.getPath(), existing.getPath() ) < 0 )
+                {
+                    candidates.put( key, candidate );
+                }
+            }
+        }
+    }
+
+}
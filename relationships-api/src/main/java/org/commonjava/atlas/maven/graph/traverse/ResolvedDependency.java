@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.traverse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+
+/**
+ * One dependency selected by {@link DependencyResolver}. Only the link to its parent is kept; the full path from the
+ * root is built on demand by {@link #getPath()}.
+ */
+public final class ResolvedDependency
+{
+
+    private final ResolvedDependency parent;
+
+    private final DependencyRelationship relationship;
+
+    private final DependencyScope scope;
+
+    private final int depth;
+
+    // graph node of the target, for expanding it
+    final int node;
+
+    ResolvedDependency( final ResolvedDependency parent, final DependencyRelationship relationship,
+                        final DependencyScope scope, final int node )
+    {
+        this.parent = parent;
+        this.relationship = relationship;
+        this.scope = scope;
+        this.node = node;
+        this.depth = parent == null ? 1 : parent.depth + 1;
+    }
+
+    public ArtifactRef getArtifact()
+    {
+        return relationship.getTarget();
+    }
+
+    /**
+     * @return the relationship that brought this dependency in; its scope is as declared, see {@link #getScope()}.
+     */
+    public DependencyRelationship getRelationship()
+    {
+        return relationship;
+    }
+
+    /**
+     * @return the effective scope, after narrowing by the scopes along the path.
+     */
+    public DependencyScope getScope()
+    {
+        return scope;
+    }
+
+    /**
+     * @return 1 for direct dependencies of the root, 2 for theirs, and so on.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return the dependency this one was pulled in by, or null for a direct dependency of the root.
+     */
+    public ResolvedDependency getParent()
+    {
+        return parent;
+    }
+
+    /**
+     * @return the relationships leading from the root to this dependency.
+     */
+    public List<ProjectRelationship<?, ?>> getPath()
+    {
+        final List<ProjectRelationship<?, ?>> path = new ArrayList<ProjectRelationship<?, ?>>( depth );
+        for ( ResolvedDependency dep = this; dep != null; dep = dep.parent )
+        {
+            path.add( dep.relationship );
+        }
+
+        Collections.reverse( path );
+        return path;
+    }
+
+    /**
+     * @return true if the given ref is excluded by this dependency or anything on its path.
+     */
+    boolean excludes( final ProjectRef ref )
+    {
+        for ( ResolvedDependency dep = this; dep != null; dep = dep.parent )
+        {
+            final Set<ProjectRef> excludes = dep.relationship.getExcludes();
+            if ( excludes == null )
+            {
+                continue;
+            }
+
+            for ( final ProjectRef exclude : excludes )
+            {
+                if ( exclude.matches( ref ) )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ResolvedDependency [" + getArtifact() + ":" + scope + ", depth=" + depth + "]";
+    }
+
+}
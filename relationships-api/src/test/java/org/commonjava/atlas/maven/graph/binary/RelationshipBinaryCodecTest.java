@@ -0,0 +1,324 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.binary;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.commonjava.atlas.maven.graph.jackson.ProjectRelationshipSerializerModule;
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+import org.commonjava.atlas.maven.graph.model.PluginKey;
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleBomRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleExtensionRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleParentRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimplePluginDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimplePluginRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.jackson.ProjectVersionRefSerializerModule;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleVersionlessArtifactRef;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RelationshipBinaryCodecTest
+{
+
+    private ObjectMapper mapper;
+
+    private URI source;
+
+    private ProjectVersionRef project;
+
+    @Before
+    public void before()
+        throws Exception
+    {
+        mapper = new ObjectMapper();
+        mapper.registerModules( new ProjectVersionRefSerializerModule(), new ProjectRelationshipSerializerModule() );
+
+        source = new URI( "test:source" );
+        project = new SimpleProjectVersionRef( "org.apache.maven", "maven-core", "3.0.3" );
+    }
+
+    @Test
+    public void roundTrip_EProjectDirectRelationships_MatchesJson()
+        throws Exception
+    {
+        final EProjectDirectRelationships rels = directRelationships();
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (RelationshipBinaryWriter writer = new RelationshipBinaryWriter( baos ))
+        {
+            writer.writeDirectRelationships( rels );
+        }
+
+        final EProjectDirectRelationships clone;
+        try (RelationshipBinaryReader reader = reader( baos.toByteArray() ))
+        {
+            clone = reader.readDirectRelationships();
+            assertThat( reader.read(), nullValue() );
+        }
+
+        final String json = mapper.writeValueAsString( rels );
+        assertThat( mapper.writeValueAsString( clone ), equalTo( json ) );
+        assertTrue( "binary: " + baos.size() + " bytes, json: " + json.length(), baos.size() < json.length() / 2 );
+
+        assertThat( clone.getParent(), equalTo( rels.getParent() ) );
+        assertThat( clone.getDependencies(), equalTo( rels.getDependencies() ) );
+        assertThat( clone.getPlugins(), equalTo( rels.getPlugins() ) );
+        assertThat( clone.getPluginDependencies(), equalTo( rels.getPluginDependencies() ) );
+        assertThat( clone.getExtensions(), equalTo( rels.getExtensions() ) );
+        assertThat( clone.getBoms(), equalTo( rels.getBoms() ) );
+    }
+
+    @Test
+    public void roundTrip_EveryRelationshipType()
+        throws Exception
+    {
+        final URI pom = new URI( "test:pom" );
+        final List<ProjectRelationship<?, ?>> rels = Arrays.<ProjectRelationship<?, ?>> asList(
+            new SimpleParentRelationship( source, project,
+                                          new SimpleProjectVersionRef( "org.apache.maven", "maven", "3.0.3" ) ),
+            new SimpleBomRelationship( Arrays.asList( source, pom ), pom, project,
+                                       new SimpleProjectVersionRef( "org.foo", "bom", "1" ), 2, true, true ),
+            new SimpleDependencyRelationship( source, pom, project,
+                                              new SimpleArtifactRef( "org.foo", "dep", "1.0", "test-jar", "tests" ),
+                                              DependencyScope.test, 3, true, false, true,
+                                              new SimpleProjectRef( "org.bar", "excluded" ),
+                                              new SimpleProjectRef( "org.bar", "*" ) ),
+            new SimplePluginRelationship( source, pom, project, new SimpleProjectVersionRef( "org.foo", "plugin", "2" ),
+                                          4, false, true, true ),
+            new SimplePluginDependencyRelationship( source, project, new SimpleProjectRef( "org.foo", "plugin" ),
+                                                    new SimpleArtifactRef( "org.foo", "plugin-dep", "1", null, null ),
+                                                    5, true, false ),
+            new SimpleExtensionRelationship( source, project, new SimpleProjectVersionRef( "org.foo", "ext", "3" ), 6,
+                                             true ) );
+
+        final List<ProjectRelationship<?, ?>> clones = roundTripRelationships( rels );
+        assertThat( clones.size(), equalTo( rels.size() ) );
+
+        for ( int i = 0; i < rels.size(); i++ )
+        {
+            final ProjectRelationship<?, ?> rel = rels.get( i );
+            final ProjectRelationship<?, ?> clone = clones.get( i );
+
+            assertThat( clone, equalTo( (Object) rel ) );
+            assertThat( mapper.writeValueAsString( clone ), equalTo( mapper.writeValueAsString( rel ) ) );
+            assertThat( clone.getSources(), equalTo( rel.getSources() ) );
+            assertThat( clone.isManaged(), equalTo( rel.isManaged() ) );
+            assertThat( clone.isInherited(), equalTo( rel.isInherited() ) );
+            assertThat( clone.isMixin(), equalTo( rel.isMixin() ) );
+        }
+
+        final DependencyRelationship dep = (DependencyRelationship) clones.get( 2 );
+        assertThat( dep.isOptional(), equalTo( true ) );
+        assertThat( dep.getScope(), equalTo( DependencyScope.test ) );
+        assertThat( dep.getExcludes(), equalTo( ( (DependencyRelationship) rels.get( 2 ) ).getExcludes() ) );
+        assertThat( ( (SimplePluginRelationship) clones.get( 3 ) ).isReporting(), equalTo( true ) );
+    }
+
+    @Test
+    public void repeatedRefsAreShared()
+        throws Exception
+    {
+        final List<ProjectRelationship<?, ?>> clones = roundTripRelationships( Arrays.<ProjectRelationship<?, ?>> asList(
+            new SimpleExtensionRelationship( source, project, new SimpleProjectVersionRef( "org.foo", "ext", "3" ), 0,
+                                             false ),
+            new SimpleExtensionRelationship( source, project, new SimpleProjectVersionRef( "org.foo", "ext", "3" ), 1,
+                                             false ) ) );
+
+        assertThat( clones.get( 1 ).getDeclaring(), sameInstance( clones.get( 0 ).getDeclaring() ) );
+        assertThat( clones.get( 1 ).getTarget(), sameInstance( clones.get( 0 ).getTarget() ) );
+    }
+
+    @Test
+    public void roundTrip_RefsAndPluginKeys()
+        throws Exception
+    {
+        final List<Object> records = Arrays.<Object> asList( new SimpleProjectRef( "org.foo", "bar" ), project,
+                                                             new SimpleArtifactRef( "org.foo", "bar", "1", "zip", "dist" ),
+                                                             new SimpleVersionlessArtifactRef(
+                                                                 new SimpleProjectRef( "org.foo", "bar" ), "jar", null ),
+                                                             new PluginKey( project, true ) );
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (RelationshipBinaryWriter writer = new RelationshipBinaryWriter( baos ))
+        {
+            for ( final Object record : records )
+            {
+                if ( record instanceof PluginKey )
+                {
+                    writer.writePluginKey( (PluginKey) record );
+                }
+                else
+                {
+                    writer.writeRef( (ProjectRef) record );
+                }
+            }
+        }
+
+        try (RelationshipBinaryReader reader = reader( baos.toByteArray() ))
+        {
+            for ( final Object record : records )
+            {
+                final Object read = reader.read();
+                assertThat( read, instanceOf( record.getClass() ) );
+                assertThat( read, equalTo( record ) );
+            }
+
+            assertThat( reader.read(), nullValue() );
+        }
+    }
+
+    @Test( expected = IOException.class )
+    public void wrongRecordTypeFails()
+        throws Exception
+    {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (RelationshipBinaryWriter writer = new RelationshipBinaryWriter( baos ))
+        {
+            writer.writeRef( project );
+        }
+
+        reader( baos.toByteArray() ).readRelationship();
+    }
+
+    @Test( expected = IOException.class )
+    public void badMagicFails()
+        throws Exception
+    {
+        reader( "{\"json\":true}".getBytes( "UTF-8" ) );
+    }
+
+    @Test
+    public void truncatedStreamFails()
+        throws Exception
+    {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (RelationshipBinaryWriter writer = new RelationshipBinaryWriter( baos ))
+        {
+            writer.writeDirectRelationships( directRelationships() );
+        }
+
+        final byte[] data = Arrays.copyOf( baos.toByteArray(), baos.size() / 2 );
+        try
+        {
+            reader( data ).read();
+            fail( "Truncated stream should not be readable" );
+        }
+        catch ( final EOFException e )
+        {
+            // expected
+        }
+    }
+
+    private List<ProjectRelationship<?, ?>> roundTripRelationships( final List<ProjectRelationship<?, ?>> rels )
+        throws IOException
+    {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (RelationshipBinaryWriter writer = new RelationshipBinaryWriter( baos ))
+        {
+            for ( final ProjectRelationship<?, ?> rel : rels )
+            {
+                writer.writeRelationship( rel );
+            }
+        }
+
+        final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>();
+        try (RelationshipBinaryReader reader = reader( baos.toByteArray() ))
+        {
+            ProjectRelationship<?, ?> rel;
+            while ( ( rel = reader.readRelationship() ) != null )
+            {
+                result.add( rel );
+            }
+        }
+
+        return result;
+    }
+
+    private RelationshipBinaryReader reader( final byte[] data )
+        throws IOException
+    {
+        return new RelationshipBinaryReader( new ByteArrayInputStream( data ) );
+    }
+
+    private EProjectDirectRelationships directRelationships()
+    {
+        final EProjectDirectRelationships.Builder prb = new EProjectDirectRelationships.Builder( source, project );
+
+        final SimplePluginRelationship comp =
+            new SimplePluginRelationship( source, project,
+                                          new SimpleProjectVersionRef( "org.apache.maven.plugins",
+                                                                       "maven-compiler-plugin", "2.3.2" ), 1, false,
+                                          false );
+
+        prb.withParent( new SimpleProjectVersionRef( "org.apache.maven", "maven", "3.0.3" ) );
+        prb.withDependencies(
+            new SimpleDependencyRelationship( source, project,
+                                              new SimpleArtifactRef( "org.apache.maven", "maven-plugin-api", "3.0.3",
+                                                                     null, null ), DependencyScope.compile, 0, false,
+                                              false, false ),
+            new SimpleDependencyRelationship( source, project,
+                                              new SimpleArtifactRef( "org.apache.maven", "maven-artifact", "3.0.3",
+                                                                     null, null ), DependencyScope.provided, 1, false,
+                                              false, true ) );
+        prb.withPlugins( new SimplePluginRelationship( source, project,
+                                                       new SimpleProjectVersionRef( "org.apache.maven.plugins",
+                                                                                    "maven-jar-plugin", "2.2" ), 0,
+                                                       false, false ), comp );
+        prb.withPluginDependencies(
+            new SimplePluginDependencyRelationship( source, project,
+                                                    new SimpleProjectRef( "org.apache.maven.plugins",
+                                                                          "maven-compiler-plugin" ),
+                                                    new SimpleArtifactRef( new SimpleProjectVersionRef(
+                                                        "org.apache.test", "test", "1.1" ), "pom", null ), 0, false,
+                                                    false ) );
+        prb.withExtensions( new SimpleExtensionRelationship( source, project,
+                                                             new SimpleProjectVersionRef( "org.apache.maven.wagon",
+                                                                                          "wagon-provider-webdav",
+                                                                                          "1.0" ), 0, false ) );
+        prb.withBoms( new SimpleBomRelationship( source, project,
+                                                 new SimpleProjectVersionRef( "org.apache.maven", "maven-bom", "3.0.3" ),
+                                                 0, false, false ) );
+
+        return prb.build();
+    }
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.bulk;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.commonjava.atlas.maven.graph.bulk.RelationshipsBulkIO.Compression;
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RelationshipsBulkIOTest
+{
+
+    private static final int RECORDS = 250;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void roundTripPlain()
+        throws Exception
+    {
+        roundTrip( Compression.NONE );
+    }
+
+    @Test
+    public void roundTripGzip()
+        throws Exception
+    {
+        roundTrip( Compression.GZIP );
+    }
+
+    @Test
+    public void emptyDump()
+        throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RelationshipsBulkIO.newWriter( out, Compression.GZIP ).close();
+
+        final RelationshipsBulkReader reader =
+            RelationshipsBulkIO.newReader( new ByteArrayInputStream( out.toByteArray() ), Compression.GZIP );
+        assertThat( reader.read() == null, equalTo( true ) );
+        reader.close();
+    }
+
+    @Test
+    public void parallelReadKeepsOrder()
+        throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write( new RelationshipsBulkWriter( out, RelationshipsBulkIO.newObjectMapper(), Compression.GZIP, 10 ) );
+
+        final ExecutorService decoders = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            final RelationshipsBulkReader reader =
+                RelationshipsBulkIO.newReader( new ByteArrayInputStream( out.toByteArray() ), Compression.GZIP,
+                                               decoders, 8 );
+            assertRecords( reader, 0, RECORDS );
+            reader.close();
+        }
+        finally
+        {
+            decoders.shutdownNow();
+        }
+    }
+
+    @Test
+    public void splitReadsEachRecordOnce()
+        throws Exception
+    {
+        for ( final Compression compression : Compression.values() )
+        {
+            final File file = temp.newFile( "dump-" + compression + ".ndjson" );
+            final RelationshipsBulkWriter writer =
+                new RelationshipsBulkWriter( new FileOutputStream( file ), RelationshipsBulkIO.newObjectMapper(),
+                                             compression, 10 );
+            write( writer );
+
+            // round-trip the index too, the way it'd be stored next to the dump.
+            final ByteArrayOutputStream indexOut = new ByteArrayOutputStream();
+            writer.getIndex().write( indexOut );
+            final RelationshipsBulkIndex index =
+                RelationshipsBulkIndex.read( new ByteArrayInputStream( indexOut.toByteArray() ) );
+
+            assertThat( index.size(), equalTo( RECORDS / 10 ) );
+            assertThat( index.getRecordCount(), equalTo( (long) RECORDS ) );
+
+            final List<RelationshipsBulkIndex.Range> ranges = index.split( 4 );
+            assertThat( ranges.size(), equalTo( 4 ) );
+
+            int total = 0;
+            for ( final RelationshipsBulkIndex.Range range : ranges )
+            {
+                final RelationshipsBulkReader reader =
+                    RelationshipsBulkIO.newReader( file, compression, range, null, 0 );
+                total += assertRecords( reader, (int) range.getFirstRecord(), (int) range.getRecordCount() );
+                reader.close();
+            }
+
+            assertThat( total, equalTo( RECORDS ) );
+        }
+    }
+
+    private void roundTrip( final Compression compression )
+        throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final RelationshipsBulkWriter writer = RelationshipsBulkIO.newWriter( out, compression );
+        write( writer );
+        assertThat( writer.getRecordCount(), equalTo( (long) RECORDS ) );
+
+        final RelationshipsBulkReader reader =
+            RelationshipsBulkIO.newReader( new ByteArrayInputStream( out.toByteArray() ), compression );
+        final List<EProjectDirectRelationships> result = new ArrayList<EProjectDirectRelationships>();
+        for ( final EProjectDirectRelationships rels : reader )
+        {
+            result.add( rels );
+        }
+        reader.close();
+
+        assertThat( result.size(), equalTo( RECORDS ) );
+        for ( int i = 0; i < RECORDS; i++ )
+        {
+            final EProjectDirectRelationships expected = project( i );
+            assertThat( result.get( i ).getProjectRef(), equalTo( expected.getProjectRef() ) );
+            assertThat( result.get( i ).getSource(), equalTo( expected.getSource() ) );
+            assertThat( result.get( i ).getDependencies(), equalTo( expected.getDependencies() ) );
+        }
+    }
+
+    private int assertRecords( final RelationshipsBulkReader reader, final int first, final int count )
+        throws Exception
+    {
+        int i = first;
+        EProjectDirectRelationships rels;
+        while ( ( rels = reader.read() ) != null )
+        {
+            assertThat( rels.getProjectRef(), equalTo( project( i ).getProjectRef() ) );
+            i++;
+        }
+
+        assertThat( i - first, equalTo( count ) );
+        return count;
+    }
+
+    private void write( final RelationshipsBulkWriter writer )
+        throws Exception
+    {
+        for ( int i = 0; i < RECORDS; i++ )
+        {
+            writer.write( project( i ) );
+        }
+
+        writer.close();
+    }
+
+    private EProjectDirectRelationships project( final int i )
+        throws Exception
+    {
+        final URI source = new URI( "test:source" );
+        final ProjectVersionRef ref = new SimpleProjectVersionRef( "org.foo", "project-" + i, "1." + i );
+        return new EProjectDirectRelationships.Builder( source, ref ).withDependencies(
+            new SimpleDependencyRelationship( source, ref,
+                                              new SimpleArtifactRef( "org.foo", "dep-" + i, "2", "jar", null ),
+                                              DependencyScope.compile, 0, false, false, false ) ).build();
+    }
+
+}
@@ -15,23 +15,31 @@
  */
 package org.commonjava.atlas.maven.graph.jackson;
 
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.commonjava.atlas.maven.graph.jackson.ProjectRelationshipSerializerModule;
+import org.commonjava.atlas.maven.graph.rel.BomRelationship;
 import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
 import org.commonjava.atlas.maven.graph.rel.ParentRelationship;
+import org.commonjava.atlas.maven.graph.rel.PluginDependencyRelationship;
 import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
 import org.commonjava.atlas.maven.graph.rel.RelationshipConstants;
 import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
 import org.commonjava.atlas.maven.graph.rel.SimpleParentRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimplePluginDependencyRelationship;
 import org.commonjava.atlas.maven.ident.DependencyScope;
 import org.commonjava.atlas.maven.ident.jackson.ProjectVersionRefSerializerModule;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
 import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.net.URI;
+import java.util.Arrays;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -96,4 +104,79 @@ public class ProjectRelationshipSerializerModuleTest
 
         assertThat( (DependencyRelationship) result, equalTo( rel ) );
     }
+
+    @Test
+    public void roundTrip_PluginDependencyKeepsAllFields()
+            throws Exception
+    {
+        PluginDependencyRelationship rel =
+                new SimplePluginDependencyRelationship( Arrays.asList( URI.create( "test:a" ), URI.create( "test:b" ) ),
+                                                        URI.create( "test:pom" ),
+                                                        new SimpleProjectVersionRef( "org.foo", "bar", "1" ),
+                                                        new SimpleProjectRef( "org.foo", "plugin" ),
+                                                        new SimpleProjectVersionRef( "org.foo", "dep", "1.1" ).asJarArtifact(),
+                                                        4, true, true );
+
+        String json = mapper.writeValueAsString( rel );
+
+        PluginDependencyRelationship result =
+                (PluginDependencyRelationship) mapper.readValue( json, ProjectRelationship.class );
+
+        assertThat( result, equalTo( rel ) );
+        assertThat( result.getPlugin(), equalTo( rel.getPlugin() ) );
+        assertThat( result.getSources(), equalTo( rel.getSources() ) );
+        assertThat( result.getPomLocation(), equalTo( rel.getPomLocation() ) );
+        assertThat( result.getIndex(), equalTo( 4 ) );
+        assertThat( result.isManaged(), equalTo( true ) );
+        assertThat( result.isInherited(), equalTo( true ) );
+    }
+
+    @Test
+    public void read_IgnoresUnknownFieldsAndSharesRefs()
+            throws Exception
+    {
+        String json = "[{\"type\":\"BOM\",\"extra\":{\"nested\":[1,{\"x\":true}]},\"mixin\":true,"
+                + "\"declaring\":\"org.foo:bar:1\",\"target\":\"org.foo:bom:2\",\"idx\":3,\"scope\":null},"
+                + "{\"type\":\"EXTENSION\",\"declaring\":\"org.foo:bar:1\",\"target\":\"org.foo:ext:1\"}]";
+
+        ProjectRelationship<?, ?>[] result = mapper.readValue( json, ProjectRelationship[].class );
+
+        BomRelationship bom = (BomRelationship) result[0];
+        assertThat( bom.isMixin(), equalTo( true ) );
+        assertThat( bom.getIndex(), equalTo( 3 ) );
+        assertThat( bom.getTarget(), equalTo( (ProjectVersionRef) new SimpleProjectVersionRef( "org.foo", "bom", "2" ) ) );
+        assertThat( bom.getPomLocation(), equalTo( RelationshipConstants.POM_ROOT_URI ) );
+        assertThat( result[1].getDeclaring(), sameInstance( bom.getDeclaring() ) );
+    }
+
+    @Test
+    public void read_SkipsNestedValuesOfKnownFields()
+            throws Exception
+    {
+        String json = "[{\"type\":\"PARENT\",\"pom-location-uri\":{\"a\":\"b\"},\"source-uris\":{\"c\":[1]},"
+                + "\"declaring\":\"org.foo:bar:1\",\"target\":\"org.foo:parent:1\",\"idx\":[1],"
+                + "\"managed\":{\"type\":\"BOM\"}},"
+                + "{\"type\":\"DEPENDENCY\",\"declaring\":[\"org.foo:other:1\"],\"declaring\":\"org.foo:bar:1\","
+                + "\"target\":\"org.foo:dep:1\",\"scope\":{\"s\":\"test\"},\"idx\":2}]";
+
+        ProjectRelationship<?, ?>[] result = mapper.readValue( json, ProjectRelationship[].class );
+
+        assertThat( result.length, equalTo( 2 ) );
+
+        ParentRelationship parent = (ParentRelationship) result[0];
+        assertThat( parent.getTarget(), equalTo( (ProjectVersionRef) new SimpleProjectVersionRef( "org.foo", "parent", "1" ) ) );
+
+        DependencyRelationship dep = (DependencyRelationship) result[1];
+        assertThat( dep.getDeclaring(), equalTo( (ProjectVersionRef) new SimpleProjectVersionRef( "org.foo", "bar", "1" ) ) );
+        assertThat( dep.getScope(), equalTo( DependencyScope.compile ) );
+        assertThat( dep.getIndex(), equalTo( 2 ) );
+    }
+
+    @Test( expected = JsonParseException.class )
+    public void read_InvalidSourceUriFails()
+            throws Exception
+    {
+        mapper.readValue( "{\"type\":\"PARENT\",\"source-uris\":[\"bad uri\"],\"declaring\":\"org.foo:bar:1\","
+                                  + "\"target\":\"org.foo:parent:1\"}", ProjectRelationship.class );
+    }
 }
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.commonjava.atlas.maven.graph.rel.BomRelationship;
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.PluginDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.PluginRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleBomRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimplePluginDependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimplePluginRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class EProjectDirectRelationshipsTest
+{
+
+    private final ProjectVersionRef project = new SimpleProjectVersionRef( "org.foo", "project", "1" );
+
+    @Test
+    public void slicesByType()
+        throws Exception
+    {
+        final URI source = new URI( "test:source" );
+        final DependencyRelationship dep =
+            new SimpleDependencyRelationship( source, project, new SimpleArtifactRef( "org.foo", "dep", "1", null, null ),
+                                              DependencyScope.compile, 0, false, false, false );
+        final DependencyRelationship managed =
+            new SimpleDependencyRelationship( source, project, new SimpleArtifactRef( "org.foo", "mgd", "1", null, null ),
+                                              DependencyScope.compile, 0, true, false, false );
+        final PluginRelationship plugin =
+            new SimplePluginRelationship( source, project, new SimpleProjectVersionRef( "org.foo", "plugin", "1" ), 0,
+                                          false, false );
+        final PluginDependencyRelationship pdep =
+            new SimplePluginDependencyRelationship( source, project, new SimpleProjectRef( "org.foo", "plugin" ),
+                                                    new SimpleArtifactRef( "org.foo", "pdep", "1", null, null ), 0,
+                                                    false, false );
+
+        final EProjectDirectRelationships rels =
+            new EProjectDirectRelationships.Builder( source, project ).withDependencies( dep, managed )
+                                                                      .withPlugins( plugin )
+                                                                      .withPluginDependencies( pdep )
+                                                                      .build();
+
+        assertThat( rels.getDependencies(), equalTo( Collections.singletonList( dep ) ) );
+        assertThat( rels.getManagedDependencies(), equalTo( Collections.singletonList( managed ) ) );
+        assertThat( rels.getPlugins(), equalTo( Collections.singletonList( plugin ) ) );
+        assertThat( rels.getBoms().isEmpty(), equalTo( true ) );
+        assertThat( rels.getExtensions().isEmpty(), equalTo( true ) );
+
+        final List<PluginDependencyRelationship> pdeps = Collections.singletonList( pdep );
+        assertThat( rels.getPluginDependencies( plugin.getTarget(), false, false ), equalTo( pdeps ) );
+        assertThat( rels.getPluginDependencies( plugin.getTarget(), true, false ), nullValue() );
+        assertThat( rels.getPluginDependencies().get( new PluginKey( plugin ) ), equalTo( pdeps ) );
+        assertThat( rels.getPluginDependencies().size(), equalTo( 1 ) );
+
+        // the terminal parent the builder adds only shows up in the exact set.
+        assertThat( rels.getParent().isTerminus(), equalTo( true ) );
+        assertThat( rels.getAllRelationships(), equalTo(
+            new HashSet<ProjectRelationship<?, ?>>( Arrays.asList( dep, managed, plugin, pdep ) ) ) );
+        assertThat( rels.getExactAllRelationships().size(), equalTo( 5 ) );
+        assertThat( rels.getExactAllRelationships().contains( rels.getParent() ), equalTo( true ) );
+        assertThat( rels.getAllRelationships().contains( rels.getParent() ), equalTo( false ) );
+    }
+
+    @Test
+    public void containsLooksInTheSliceOfTheProbe()
+        throws Exception
+    {
+        final URI source = new URI( "test:source" );
+        final SimpleArtifactRef depRef = new SimpleArtifactRef( "org.foo", "dep", "1", null, null );
+        final DependencyRelationship dep =
+            new SimpleDependencyRelationship( source, project, depRef, DependencyScope.compile, 0, false, false, false );
+        final DependencyRelationship managed =
+            new SimpleDependencyRelationship( source, project, depRef, DependencyScope.compile, 0, true, false, false );
+        final PluginRelationship plugin =
+            new SimplePluginRelationship( source, project, new SimpleProjectVersionRef( "org.foo", "plugin", "1" ), 0,
+                                          false, false );
+
+        final Set<ProjectRelationship<?, ?>> all =
+            new EProjectDirectRelationships.Builder( source, project ).withDependencies( dep )
+                                                                      .withPlugins( plugin )
+                                                                      .build()
+                                                                      .getAllRelationships();
+
+        assertThat( all.contains( dep ), equalTo( true ) );
+        assertThat( all.contains( plugin ), equalTo( true ) );
+        assertThat( all.contains( managed ), equalTo( false ) );
+        assertThat( all.contains( "dep" ), equalTo( false ) );
+
+        // a managed dependency handed to the constructor as a plain one is still found.
+        final EProjectDirectRelationships misplaced =
+            new EProjectDirectRelationships( source, project, null, null, Arrays.asList( managed ), null, null, null,
+                                             null, null );
+        assertThat( misplaced.getAllRelationships().contains( managed ), equalTo( true ) );
+        assertThat( misplaced.getAllRelationships().contains( dep ), equalTo( false ) );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public void viewsAreReadOnly()
+    {
+        new EProjectDirectRelationships.Builder( null, project ).build().getDependencies().add( null );
+    }
+
+    @Test
+    public void allRelationshipsSkipDuplicates()
+        throws Exception
+    {
+        final URI source = new URI( "test:source" );
+        final ProjectVersionRef bomRef = new SimpleProjectVersionRef( "org.foo", "bom", "1" );
+        final BomRelationship first = new SimpleBomRelationship( source, project, bomRef, 0, false, false );
+        final BomRelationship second = new SimpleBomRelationship( source, project, bomRef, 1, false, false );
+        final DependencyRelationship dep =
+            new SimpleDependencyRelationship( source, project, new SimpleArtifactRef( "org.foo", "dep", "1", null, null ),
+                                              DependencyScope.compile, 0, false, false, false );
+
+        final EProjectDirectRelationships rels =
+            new EProjectDirectRelationships( source, project, null, Arrays.asList( first, second ),
+                                             Arrays.asList( dep, dep ), null, null, null, null, null );
+
+        // the typed lists keep what they were given...
+        assertThat( rels.getBoms().size(), equalTo( 2 ) );
+        assertThat( rels.getDependencies().size(), equalTo( 2 ) );
+
+        // ...but the sets hold each relationship once.
+        final Set<ProjectRelationship<?, ?>> all = rels.getAllRelationships();
+        final Set<ProjectRelationship<?, ?>> expected =
+            new HashSet<ProjectRelationship<?, ?>>( Arrays.<ProjectRelationship<?, ?>> asList( first, dep ) );
+
+        assertThat( all.size(), equalTo( 2 ) );
+        assertThat( all, equalTo( expected ) );
+        assertThat( expected.equals( all ), equalTo( true ) );
+
+        int count = 0;
+        for ( final Iterator<ProjectRelationship<?, ?>> it = all.iterator(); it.hasNext(); it.next() )
+        {
+            count++;
+        }
+
+        assertThat( count, equalTo( 2 ) );
+
+        final EProjectDirectRelationships built =
+            new EProjectDirectRelationships.Builder( source, project ).withBoms( first )
+                                                                      .withBoms( second )
+                                                                      .build();
+
+        assertThat( built.getAllRelationships().size(), equalTo( 1 ) );
+        assertThat( built.getExactAllRelationships().size(), equalTo( 2 ) );
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.model;
+
+import static org.commonjava.atlas.maven.graph.util.RelationshipUtils.dependency;
+import static org.commonjava.atlas.maven.ident.util.IdentityUtils.projectVersion;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.graph.rel.SimplePluginRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RelationshipGraphTest
+{
+
+    private URI source;
+
+    private ProjectVersionRef root;
+
+    private ProjectVersionRef parent;
+
+    private ProjectVersionRef depA;
+
+    private ProjectVersionRef depB;
+
+    @Before
+    public void before()
+        throws Exception
+    {
+        source = new URI( "test:source" );
+        root = projectVersion( "org.foo", "root", "1" );
+        parent = projectVersion( "org.foo", "parent", "1" );
+        depA = projectVersion( "org.foo", "a", "1" );
+        depB = projectVersion( "org.foo", "b", "1" );
+    }
+
+    @Test
+    public void outgoingAndIncomingEdgesByType()
+        throws Exception
+    {
+        final DependencyRelationship toA = dependency( source, root, depA, 0, false, false );
+        final DependencyRelationship toB = dependency( source, root, depB, 1, false, false );
+        final DependencyRelationship managedB =
+            dependency( source, root, depB, DependencyScope.compile, 0, true, false, false );
+        final SimplePluginRelationship plugin =
+            new SimplePluginRelationship( source, root, projectVersion( "org.foo", "plugin", "1" ), 0, false, false );
+
+        final RelationshipGraph graph = new RelationshipGraph.Builder().withDirectRelationships(
+            new EProjectDirectRelationships.Builder( source, root ).withParent( parent )
+                                                                    .withDependencies( toA, toB, managedB )
+                                                                    .withPlugins( plugin )
+                                                                    .build() )
+                                                                        .build();
+
+        assertThat( graph.getNodeCount(), equalTo( 5 ) );
+        assertThat( graph.getEdgeCount(), equalTo( 5 ) );
+
+        final int rootId = graph.getNodeId( root );
+        assertThat( graph.isDeclared( rootId ), equalTo( true ) );
+        assertThat( graph.isDeclared( graph.getNodeId( depA ) ), equalTo( false ) );
+        assertThat( graph.getNodeId( projectVersion( "org.foo", "missing", "1" ) ), equalTo( -1 ) );
+
+        assertThat( graph.getOutDegree( rootId ), equalTo( 5 ) );
+        assertThat( graph.getOutDegree( rootId, RelationshipType.PARENT ), equalTo( 1 ) );
+        assertThat( graph.getOutDegree( rootId, RelationshipType.DEPENDENCY ), equalTo( 3 ) );
+        assertThat( graph.getOutDegree( rootId, RelationshipType.BOM ), equalTo( 0 ) );
+
+        // declaration order is kept within a type
+        final int first = graph.getOutEdge( rootId, RelationshipType.DEPENDENCY, 0 );
+        assertThat( graph.getRelationship( first ), equalTo( (ProjectRelationship) toA ) );
+        assertThat( graph.getEdgeSource( first ), equalTo( rootId ) );
+        assertThat( graph.getNode( graph.getEdgeTarget( first ) ), equalTo( depA ) );
+        assertThat( graph.getEdgeType( first ), equalTo( RelationshipType.DEPENDENCY ) );
+        assertThat( graph.isManaged( first ), equalTo( false ) );
+        assertThat( graph.isManaged( graph.getOutEdge( rootId, RelationshipType.DEPENDENCY, 2 ) ), equalTo( true ) );
+
+        final int bId = graph.getNodeId( depB );
+        assertThat( graph.getInDegree( bId ), equalTo( 2 ) );
+        assertThat( graph.getInDegree( bId, RelationshipType.DEPENDENCY ), equalTo( 2 ) );
+        assertThat( graph.getInDegree( bId, RelationshipType.PLUGIN ), equalTo( 0 ) );
+        assertThat( graph.getEdgeSource( graph.getInEdge( bId, 1 ) ), equalTo( rootId ) );
+
+        assertThat( graph.getRelationshipsFrom( root, RelationshipType.DEPENDENCY ),
+                    equalTo( Arrays.<ProjectRelationship<?, ?>> asList( toA, toB, managedB ) ) );
+        assertThat( graph.getRelationshipsTo( depA ), equalTo( Collections.<ProjectRelationship<?, ?>> singletonList( toA ) ) );
+    }
+
+    @Test
+    public void terminalParentIsSkipped()
+    {
+        final RelationshipGraph graph = new RelationshipGraph.Builder().withDirectRelationships(
+            new EProjectDirectRelationships.Builder( source, parent ).build() ).build();
+
+        assertThat( graph.getNodeCount(), equalTo( 1 ) );
+        assertThat( graph.getEdgeCount(), equalTo( 0 ) );
+        assertThat( graph.isDeclared( 0 ), equalTo( true ) );
+    }
+
+    @Test
+    public void replacingProjectRelationshipsKeepsNodeIds()
+        throws Exception
+    {
+        final RelationshipGraph graph = new RelationshipGraph.Builder().withDirectRelationships(
+            Arrays.asList( new EProjectDirectRelationships.Builder( source, root ).withDependencies(
+                dependency( source, root, depA, 0, false, false ) ).build(),
+                           new EProjectDirectRelationships.Builder( source, depA ).withDependencies(
+                               dependency( source, depA, depB, 0, false, false ) ).build() ) ).build();
+
+        final DependencyRelationship toB = dependency( source, root, depB, 0, false, false );
+        final RelationshipGraph updated = new RelationshipGraph.Builder( graph ).withDirectRelationships(
+            new EProjectDirectRelationships.Builder( source, root ).withDependencies( toB ).build() ).build();
+
+        assertThat( updated.getEdgeCount(), equalTo( 2 ) );
+        assertThat( updated.getNodeId( depA ), equalTo( graph.getNodeId( depA ) ) );
+        assertThat( updated.getRelationshipsFrom( root ),
+                    equalTo( Collections.<ProjectRelationship<?, ?>> singletonList( toB ) ) );
+        assertThat( updated.getInDegree( updated.getNodeId( depA ) ), equalTo( 0 ) );
+        assertThat( updated.getInDegree( updated.getNodeId( depB ) ), equalTo( 2 ) );
+
+        // the original is untouched
+        assertThat( graph.getOutDegree( graph.getNodeId( root ) ), equalTo( 1 ) );
+        assertThat( graph.getInDegree( graph.getNodeId( depA ) ), equalTo( 1 ) );
+
+        final RelationshipGraph removed = new RelationshipGraph.Builder( updated ).withoutRelationshipsFrom( depA ).build();
+        assertThat( removed.getEdgeCount(), equalTo( 1 ) );
+        assertThat( removed.isDeclared( removed.getNodeId( depA ) ), equalTo( false ) );
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleVersionlessArtifactRef;
+import org.commonjava.atlas.maven.ident.util.VersionUtils;
+import org.junit.Test;
+
+public class ReverseDependencyIndexTest
+{
+
+    private final ProjectRef log4j = new SimpleProjectRef( "org.apache.logging.log4j", "log4j-core" );
+
+    private final ProjectVersionRef app = new SimpleProjectVersionRef( "org.foo", "app", "1" );
+
+    private final ProjectVersionRef lib = new SimpleProjectVersionRef( "org.foo", "lib", "1" );
+
+    private final ProjectVersionRef tool = new SimpleProjectVersionRef( "org.foo", "tool", "1" );
+
+    @Test
+    public void findsDependentsByVersionRange()
+        throws Exception
+    {
+        final ReverseDependencyIndex index = new ReverseDependencyIndex(
+            Arrays.asList( project( app, dep( app, "2.14.1", null, DependencyScope.compile, false ) ),
+                           project( lib, dep( lib, "2.17.0", null, DependencyScope.test, false ) ),
+                           project( tool, dep( tool, "2.14.0", "tests", DependencyScope.compile, true ) ) ) );
+
+        assertThat( index.getProjectCount(), equalTo( 3 ) );
+        assertThat( index.findDeclaring( log4j, VersionUtils.createFromSpec( "[2.14,2.15)" ) ),
+                    equalTo( set( app, tool ) ) );
+        assertThat( index.findDeclaring( log4j, null ), equalTo( set( app, lib, tool ) ) );
+        assertThat( index.findDeclaring( log4j, null, RelationshipType.PLUGIN ).isEmpty(), equalTo( true ) );
+
+        // type and classifier narrow the match
+        assertThat( index.findDeclaring( new SimpleVersionlessArtifactRef( log4j, "jar", "tests" ), null ),
+                    equalTo( set( tool ) ) );
+
+        final List<ReverseDependencyIndex.Posting> postings =
+            index.find( log4j, VersionUtils.createFromSpec( "2.14.0" ) );
+        assertThat( postings.size(), equalTo( 1 ) );
+        assertThat( postings.get( 0 ).getDeclaring(), equalTo( tool ) );
+        assertThat( postings.get( 0 ).getType(), equalTo( RelationshipType.DEPENDENCY ) );
+        assertThat( postings.get( 0 ).getScope(), equalTo( DependencyScope.compile ) );
+        assertThat( postings.get( 0 ).isManaged(), equalTo( true ) );
+    }
+
+    @Test
+    public void addingAgainReplaces()
+        throws Exception
+    {
+        final ReverseDependencyIndex index = new ReverseDependencyIndex();
+        index.add( project( app, dep( app, "2.14.1", null, DependencyScope.compile, false ) ) );
+        index.add( project( app, dep( app, "2.17.0", null, DependencyScope.compile, false ) ) );
+
+        assertThat( index.getPostingCount(), equalTo( 1L ) );
+        assertThat( index.findDeclaring( log4j, VersionUtils.createFromSpec( "[2.14,2.15)" ) ).isEmpty(),
+                    equalTo( true ) );
+        assertThat( index.findDeclaring( log4j, VersionUtils.createFromSpec( "[2.17,)" ) ), equalTo( set( app ) ) );
+
+        assertThat( index.remove( app ), equalTo( true ) );
+        assertThat( index.find( log4j, null ), equalTo( Collections.<ReverseDependencyIndex.Posting> emptyList() ) );
+        assertThat( index.getPostingCount(), equalTo( 0L ) );
+    }
+
+    @Test( timeout = 30000 )
+    public void reindexingProjectsWithSharedTargetIsLinear()
+        throws Exception
+    {
+        final int count = 50000;
+        final List<EProjectDirectRelationships> projects = new ArrayList<EProjectDirectRelationships>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            final ProjectVersionRef ref = new SimpleProjectVersionRef( "org.foo", "p" + i, "1" );
+            projects.add( project( ref, dep( ref, "2.14.1", null, DependencyScope.compile, false ) ) );
+        }
+
+        final ReverseDependencyIndex index = new ReverseDependencyIndex( projects );
+        for ( final EProjectDirectRelationships project : projects )
+        {
+            index.add( project );
+        }
+
+        final Set<ProjectVersionRef> remaining = new HashSet<ProjectVersionRef>();
+        for ( int i = 0; i < count; i++ )
+        {
+            final ProjectVersionRef ref = projects.get( i ).getProjectRef();
+            if ( i % 3 == 0 )
+            {
+                assertThat( index.remove( ref ), equalTo( true ) );
+            }
+            else
+            {
+                remaining.add( ref );
+            }
+        }
+
+        assertThat( index.getPostingCount(), equalTo( (long) remaining.size() ) );
+        assertThat( index.findDeclaring( log4j, null ), equalTo( remaining ) );
+    }
+
+    private SimpleDependencyRelationship dep( final ProjectVersionRef declaring, final String version,
+                                              final String classifier, final DependencyScope scope,
+                                              final boolean managed )
+        throws Exception
+    {
+        return new SimpleDependencyRelationship( new URI( "test:source" ), declaring,
+                                                 new SimpleArtifactRef( log4j.getGroupId(), log4j.getArtifactId(),
+                                                                        version, "jar", classifier ),
+                                                 scope, 0, managed, false, false );
+    }
+
+    private EProjectDirectRelationships project( final ProjectVersionRef ref, final SimpleDependencyRelationship dep )
+        throws Exception
+    {
+        return new EProjectDirectRelationships.Builder( new URI( "test:source" ), ref ).withDependencies( dep )
+                                                                                       .build();
+    }
+
+    private static HashSet<ProjectVersionRef> set( final ProjectVersionRef... refs )
+    {
+        return new HashSet<ProjectVersionRef>( Arrays.asList( refs ) );
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.rel;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class RelationshipCopyTest
+{
+
+    private static final ProjectVersionRef DECLARING = new SimpleProjectVersionRef( "org.foo", "foo", "1" );
+
+    private static final ArtifactRef TARGET = new SimpleArtifactRef( "org.foo", "bar", "2", "jar", null );
+
+    private static final ProjectRef EXCLUDE = new SimpleProjectRef( "org.foo", "excluded" );
+
+    @Test
+    public void cloneForKeepsEverythingButDeclaring()
+        throws Exception
+    {
+        final SimpleDependencyRelationship rel = dependency();
+        final ProjectVersionRef other = new SimpleProjectVersionRef( "org.foo", "other", "1" );
+
+        final DependencyRelationship clone = rel.cloneFor( other );
+
+        assertThat( clone.getDeclaring(), equalTo( other ) );
+        assertThat( clone.getTarget(), sameInstance( TARGET ) );
+        assertThat( clone.getScope(), equalTo( DependencyScope.test ) );
+        assertThat( clone.getIndex(), equalTo( 3 ) );
+        assertThat( clone.isManaged(), equalTo( true ) );
+        assertThat( clone.isOptional(), equalTo( true ) );
+        assertThat( clone.getPomLocation(), equalTo( new URI( "test:pom" ) ) );
+        assertThat( clone.getExcludes(), equalTo( Collections.singleton( EXCLUDE ) ) );
+        assertThat( clone.getSources(), sameInstance( rel.getSources() ) );
+
+        final DependencyRelationship added = rel.addSource( new URI( "test:other" ) );
+        assertThat( added.getExcludes(), equalTo( Collections.singleton( EXCLUDE ) ) );
+        assertThat( added.getSources().size(), equalTo( 2 ) );
+    }
+
+    @Test
+    public void unchangedCopyIsSameInstance()
+        throws Exception
+    {
+        final SimpleDependencyRelationship rel = dependency();
+
+        assertThat( rel.withDeclaring( DECLARING ), sameInstance( (DependencyRelationship) rel ) );
+        assertThat( rel.withTarget( TARGET ), sameInstance( (DependencyRelationship) rel ) );
+        assertThat( rel.withSources( rel.getSources() ), sameInstance( (DependencyRelationship) rel ) );
+        assertThat( rel.addSource( new URI( "test:source" ) ), sameInstance( (DependencyRelationship) rel ) );
+        assertThat( rel.selectTarget( TARGET ), sameInstance( (DependencyRelationship) rel ) );
+    }
+
+    @Test
+    public void withChangesSeveralFieldsAtOnce()
+        throws Exception
+    {
+        final ProjectVersionRef parent = new SimpleProjectVersionRef( "org.foo", "parent", "1" );
+        final SimpleBomRelationship rel =
+            new SimpleBomRelationship( Collections.singleton( new URI( "test:source" ) ), new URI( "test:pom" ),
+                                       DECLARING, parent, 2, true, false );
+
+        final ProjectVersionRef declaring = new SimpleProjectVersionRef( "org.foo", "foo", "2" );
+        final ProjectVersionRef target = new SimpleProjectVersionRef( "org.foo", "parent", "2" );
+        final URI other = new URI( "test:other" );
+
+        final BomRelationship copy =
+            rel.with( new HashSet<URI>( Arrays.asList( new URI( "test:source" ), other ) ), declaring, target );
+
+        assertThat( copy, not( sameInstance( (BomRelationship) rel ) ) );
+        assertThat( copy.getDeclaring(), equalTo( declaring ) );
+        assertThat( copy.getTarget(), equalTo( target ) );
+        assertThat( copy.getSources().contains( other ), equalTo( true ) );
+        assertThat( copy.getIndex(), equalTo( 2 ) );
+        assertThat( copy.isInherited(), equalTo( true ) );
+        assertThat( copy.getPomLocation(), equalTo( new URI( "test:pom" ) ) );
+
+        // the original is untouched
+        assertThat( rel.getDeclaring(), equalTo( DECLARING ) );
+        assertThat( rel.getSources().size(), equalTo( 1 ) );
+    }
+
+    private SimpleDependencyRelationship dependency()
+        throws Exception
+    {
+        return new SimpleDependencyRelationship( new URI( "test:source" ), new URI( "test:pom" ), DECLARING, TARGET,
+                                                 DependencyScope.test, 3, true, false, true, EXCLUDE );
+    }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.rel;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class RelationshipSerializationTest
+{
+
+    // SimpleParentRelationship org.foo:child:1 -> org.foo:parent:2, sources [test:one, test:two], serialized back when
+    // the sources were an ArrayList.
+    private static final String LEGACY_PARENT =
+        "rO0ABXNyAD1vcmcuY29tbW9uamF2YS5hdGxhcy5tYXZlbi5ncmFwaC5yZWwuU2ltcGxlUGFyZW50UmVsYXRpb25zaGlwAAAA"
+        + "AAAAAAECAAB4cgBGb3JnLmNvbW1vbmphdmEuYXRsYXMubWF2ZW4uZ3JhcGgucmVsLkFic3RyYWN0U2ltcGxlUHJvamVjdFJl"
+        + "bGF0aW9uc2hpcAAAAAAAAAABAgAKWgARY2xvbmVVc2VzTG9jYXRpb25JAAVpbmRleFoACWluaGVyaXRlZFoAB21hbmFnZWRa"
+        + "AAVtaXhpbkwACWRlY2xhcmluZ3QAOExvcmcvY29tbW9uamF2YS9hdGxhcy9tYXZlbi9pZGVudC9yZWYvUHJvamVjdFZlcnNp"
+        + "b25SZWY7TAALcG9tTG9jYXRpb250AA5MamF2YS9uZXQvVVJJO0wAB3NvdXJjZXN0ABBMamF2YS91dGlsL0xpc3Q7TAAGdGFy"
+        + "Z2V0cQB+AAJMAAR0eXBldAA3TG9yZy9jb21tb25qYXZhL2F0bGFzL21hdmVuL2dyYXBoL3JlbC9SZWxhdGlvbnNoaXBUeXBl"
+        + "O3hwAQAAAAAAAABzcgA8b3JnLmNvbW1vbmphdmEuYXRsYXMubWF2ZW4uaWRlbnQucmVmLlNpbXBsZVByb2plY3RWZXJzaW9u"
+        + "UmVmAAAAAAAAAAECAAJMAAt2ZXJzaW9uU3BlY3QANkxvcmcvY29tbW9uamF2YS9hdGxhcy9tYXZlbi9pZGVudC92ZXJzaW9u"
+        + "L1ZlcnNpb25TcGVjO0wADXZlcnNpb25TdHJpbmd0ABJMamF2YS9sYW5nL1N0cmluZzt4cgA1b3JnLmNvbW1vbmphdmEuYXRs"
+        + "YXMubWF2ZW4uaWRlbnQucmVmLlNpbXBsZVByb2plY3RSZWYAAAAAAAAAAQIAAkwACmFydGlmYWN0SWRxAH4ACUwAB2dyb3Vw"
+        + "SWRxAH4ACXhwdAAFY2hpbGR0AAdvcmcuZm9vcHQAATFzcgAMamF2YS5uZXQuVVJJrAF4LkOeSasDAAFMAAZzdHJpbmdxAH4A"
+        + "CXhwdAAIcG9tOnJvb3R4c3IAE2phdmEudXRpbC5BcnJheUxpc3R4gdIdmcdhnQMAAUkABHNpemV4cAAAAAJ3BAAAAAJzcQB+"
+        + "AA90AAh0ZXN0Om9uZXhzcQB+AA90AAh0ZXN0OnR3b3h4c3EAfgAHdAAGcGFyZW50cQB+AA1wdAABMn5yADVvcmcuY29tbW9u"
+        + "amF2YS5hdGxhcy5tYXZlbi5ncmFwaC5yZWwuUmVsYXRpb25zaGlwVHlwZQAAAAAAAAAAEgAAeHIADmphdmEubGFuZy5FbnVt"
+        + "AAAAAAAAAAASAAB4cHQABlBBUkVOVA==";
+
+    private static final ProjectVersionRef DECLARING = new SimpleProjectVersionRef( "org.foo", "foo", "1" );
+
+    @Test
+    public void readsLegacySerializedForm()
+        throws Exception
+    {
+        final ObjectInputStream in =
+            new ObjectInputStream( new ByteArrayInputStream( Base64.getDecoder().decode( LEGACY_PARENT ) ) );
+        final ParentRelationship rel = (ParentRelationship) in.readObject();
+
+        final List<URI> sources = Arrays.asList( new URI( "test:one" ), new URI( "test:two" ) );
+        assertThat( rel, equalTo( (ParentRelationship) new SimpleParentRelationship(
+            sources, new SimpleProjectVersionRef( "org.foo", "child", "1" ),
+            new SimpleProjectVersionRef( "org.foo", "parent", "2" ) ) ) );
+        assertThat( rel.getSources(), equalTo( (Set<URI>) new HashSet<URI>( sources ) ) );
+        assertThat( rel.getPomLocation(), equalTo( RelationshipConstants.POM_ROOT_URI ) );
+    }
+
+    @Test
+    public void roundTrip()
+        throws Exception
+    {
+        final DependencyRelationship dep =
+            new SimpleDependencyRelationship( Arrays.asList( new URI( "test:one" ), new URI( "test:two" ) ),
+                                              new URI( "test:pom" ), DECLARING,
+                                              new SimpleArtifactRef( "org.foo", "bar", "2", "jar", "tests" ),
+                                              DependencyScope.test, 3, true, false, true,
+                                              new SimpleProjectRef( "org.foo", "excluded" ) );
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream( baos );
+        out.writeObject( dep );
+        out.close();
+
+        final DependencyRelationship result =
+            (DependencyRelationship) new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) ).readObject();
+
+        assertThat( result, equalTo( dep ) );
+        assertThat( result.getSources(), equalTo( dep.getSources() ) );
+        assertThat( result.getPomLocation(), equalTo( dep.getPomLocation() ) );
+        assertThat( result.getIndex(), equalTo( 3 ) );
+        assertThat( result.isManaged(), equalTo( true ) );
+        assertThat( result.isOptional(), equalTo( true ) );
+        assertThat( result.getScope(), equalTo( DependencyScope.test ) );
+        assertThat( result.getExcludes(), equalTo( dep.getExcludes() ) );
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.rel;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.commonjava.atlas.maven.graph.jackson.ProjectRelationshipSerializerModule;
+import org.commonjava.atlas.maven.ident.jackson.ProjectVersionRefSerializerModule;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RelationshipSourcesTest
+{
+
+    @Test
+    public void deduplicatesSortsAndDropsNulls()
+        throws Exception
+    {
+        final URI a = new URI( "test:a" );
+        final URI b = new URI( "test:b" );
+        final URI c = new URI( "test:c" );
+
+        final RelationshipSources sources = RelationshipSources.of( Arrays.asList( c, a, null, b, a ) );
+
+        assertThat( sources.size(), equalTo( 3 ) );
+        assertThat( new ArrayList<URI>( sources ), equalTo( Arrays.asList( a, b, c ) ) );
+        assertThat( sources.contains( b ), equalTo( true ) );
+        assertThat( sources.contains( new URI( "test:d" ) ), equalTo( false ) );
+        assertThat( sources, equalTo( (Set<URI>) new HashSet<URI>( Arrays.asList( a, b, c ) ) ) );
+    }
+
+    @Test
+    public void addingIsCopyOnWrite()
+        throws Exception
+    {
+        final URI a = new URI( "test:a" );
+        final URI b = new URI( "test:b" );
+
+        final RelationshipSources one = RelationshipSources.of( b );
+        assertThat( one.with( b ), sameInstance( one ) );
+        assertThat( one.with( null ), sameInstance( one ) );
+        assertThat( one.withAll( Arrays.asList( b, null ) ), sameInstance( one ) );
+
+        final RelationshipSources two = one.with( a );
+        assertThat( new ArrayList<URI>( two ), equalTo( Arrays.asList( a, b ) ) );
+        assertThat( new ArrayList<URI>( one ), equalTo( Arrays.asList( b ) ) );
+        assertThat( RelationshipSources.EMPTY.with( a ).size(), equalTo( 1 ) );
+        assertThat( RelationshipSources.of( (URI) null ), sameInstance( RelationshipSources.EMPTY ) );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public void immutable()
+        throws Exception
+    {
+        RelationshipSources.of( new URI( "test:a" ) ).add( new URI( "test:b" ) );
+    }
+
+    @Test
+    public void relationshipAddSourceSharesUnchangedSources()
+        throws Exception
+    {
+        final URI source = new URI( "test:source" );
+        final List<URI> many = new ArrayList<URI>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            many.add( new URI( "test:repo:" + i ) );
+        }
+
+        final ExtensionRelationship rel =
+            new SimpleExtensionRelationship( source, new SimpleProjectVersionRef( "org.foo", "bar", "1" ),
+                                             new SimpleProjectVersionRef( "org.foo", "ext", "1" ), 0, false );
+
+        assertThat( rel.addSource( source ), sameInstance( rel ) );
+
+        final ExtensionRelationship more = rel.addSources( many );
+        assertThat( more.getSources().size(), equalTo( 501 ) );
+        assertThat( rel.getSources().size(), equalTo( 1 ) );
+        assertThat( more.addSources( many.subList( 0, 10 ) ), sameInstance( more ) );
+    }
+
+    @Test
+    public void serializingLeavesSourcesAlone()
+        throws Exception
+    {
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModules( new ProjectVersionRefSerializerModule(), new ProjectRelationshipSerializerModule() );
+
+        final ExtensionRelationship rel =
+            new SimpleExtensionRelationship( Arrays.asList( new URI( "test:b" ), new URI( "test:a" ) ),
+                                             RelationshipConstants.POM_ROOT_URI,
+                                             new SimpleProjectVersionRef( "org.foo", "bar", "1" ),
+                                             new SimpleProjectVersionRef( "org.foo", "ext", "1" ), 0, false );
+
+        final Set<URI> before = rel.getSources();
+        final String json = mapper.writeValueAsString( rel );
+
+        assertThat( rel.getSources(), sameInstance( before ) );
+        assertThat( json.contains( "[\"test:a\",\"test:b\"]" ), equalTo( true ) );
+    }
+
+}
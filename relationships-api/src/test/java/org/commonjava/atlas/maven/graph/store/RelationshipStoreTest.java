@@ -0,0 +1,262 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.store;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleArtifactRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectVersionRef;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RelationshipStoreTest
+{
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final ProjectVersionRef app = ref( "app", "1" );
+
+    private final ProjectVersionRef lib = ref( "lib", "1" );
+
+    private final ProjectVersionRef util = ref( "util", "2" );
+
+    @Test
+    public void lookupsSurviveReopen()
+        throws Exception
+    {
+        final File dir = temp.newFolder();
+        RelationshipStore store = RelationshipStore.open( dir );
+        store.append( Arrays.asList( project( app, lib, util ), project( lib, util ) ) );
+        assertLookups( store );
+        store.close();
+
+        store = RelationshipStore.open( dir );
+        assertLookups( store );
+        assertThat( store.getDirectRelationships( util ), nullValue() );
+        store.close();
+    }
+
+    @Test
+    public void appendReplacesProject()
+        throws Exception
+    {
+        final File dir = temp.newFolder();
+        final RelationshipStore store = RelationshipStore.open( dir );
+        store.append( project( app, lib, util ) );
+        store.flushIndexes();
+
+        // one record in the index files, its replacement only in memory.
+        store.append( project( app, util ) );
+
+        assertThat( store.getRelationshipsDeclaredBy( app ).size(), equalTo( 1 ) );
+        assertThat( store.getRelationshipsTargeting( lib ).isEmpty(), equalTo( true ) );
+        assertThat( store.getRelationshipsTargeting( util ).size(), equalTo( 1 ) );
+        store.close();
+    }
+
+    @Test
+    public void tornAppendIsCutOffAndUnindexedRecordsAreReplayed()
+        throws Exception
+    {
+        final File dir = temp.newFolder();
+        RelationshipStore store = RelationshipStore.open( dir );
+        store.append( Arrays.asList( project( app, lib, util ), project( lib, util ) ) );
+        store.close();
+
+        final long length = new File( dir, RelationshipStore.LOG_FILE ).length();
+
+        // lose the indexes, and leave half a record at the end of the log.
+        for ( final File run : runs( dir, RelationshipStore.TARGET_INDEX ) )
+        {
+            run.delete();
+        }
+        final FileOutputStream out = new FileOutputStream( new File( dir, RelationshipStore.LOG_FILE ), true );
+        out.write( new byte[] { 0, 0, 1, 0, 42, 42 } );
+        out.close();
+
+        store = RelationshipStore.open( dir );
+        assertThat( store.getLogLength(), equalTo( length ) );
+        assertLookups( store );
+
+        store.append( project( util ) );
+        assertThat( store.getDirectRelationships( util ).getProjectRef(), equalTo( util ) );
+        store.close();
+    }
+
+    @Test
+    public void flushesWriteNewRunsAndMergeThemLogarithmically()
+        throws Exception
+    {
+        final File dir = temp.newFolder();
+        RelationshipStore store = RelationshipStore.open( dir );
+        final int count = 100;
+        File stale = null;
+        byte[] staleContent = null;
+        for ( int i = 0; i < count; i++ )
+        {
+            store.append( project( ref( "p" + i, "1" ), util ) );
+            store.flushIndexes();
+            assertThat( runs( dir, RelationshipStore.DECLARING_INDEX ).length <= 8, equalTo( true ) );
+
+            if ( i == 0 )
+            {
+                stale = runs( dir, RelationshipStore.DECLARING_INDEX )[0];
+                staleContent = Files.readAllBytes( stale.toPath() );
+            }
+        }
+
+        store.close();
+
+        // a run superseded by a merge, as left behind by a crash right after it, is ignored and cleaned up.
+        assertThat( stale.exists(), equalTo( false ) );
+        Files.write( stale.toPath(), staleContent );
+
+        store = RelationshipStore.open( dir );
+        assertThat( stale.exists(), equalTo( false ) );
+        for ( int i = 0; i < count; i++ )
+        {
+            assertThat( store.getRelationshipsDeclaredBy( ref( "p" + i, "1" ) ).size(), equalTo( 1 ) );
+        }
+        assertThat( store.getRelationshipsTargeting( util ).size(), equalTo( count ) );
+        store.close();
+    }
+
+    @Test
+    public void readsIndexFilesFromBeforeRuns()
+        throws Exception
+    {
+        final File dir = temp.newFolder();
+        RelationshipStore store = RelationshipStore.open( dir );
+        store.append( Arrays.asList( project( app, lib, util ), project( lib, util ) ) );
+        store.close();
+
+        // a single flush writes one run per index, laid out just like the old single index files.
+        for ( final String index : Arrays.asList( RelationshipStore.DECLARING_INDEX, RelationshipStore.TARGET_INDEX ) )
+        {
+            final File[] runs = runs( dir, index );
+            assertThat( runs.length, equalTo( 1 ) );
+            assertThat( runs[0].renameTo( new File( dir, index + ".idx" ) ), equalTo( true ) );
+        }
+
+        store = RelationshipStore.open( dir );
+        assertThat( new File( dir, RelationshipStore.DECLARING_INDEX + ".idx" ).exists(), equalTo( true ) );
+        assertLookups( store );
+        store.append( project( util ) );
+        store.close();
+
+        store = RelationshipStore.open( dir );
+        assertLookups( store );
+        assertThat( store.getDirectRelationships( util ).getProjectRef(), equalTo( util ) );
+        store.close();
+    }
+
+    @Test
+    public void onlyOneInstancePerDirectory()
+        throws Exception
+    {
+        final File dir = temp.newFolder();
+        RelationshipStore store = RelationshipStore.open( dir );
+        try
+        {
+            RelationshipStore.open( dir );
+            fail( "Opened a store directory twice" );
+        }
+        catch ( final IOException e )
+        {
+            // expected
+        }
+
+        store.append( project( app, lib, util ) );
+        store.close();
+
+        store = RelationshipStore.open( dir );
+        assertThat( store.getDirectRelationships( app ).getProjectRef(), equalTo( app ) );
+        store.close();
+    }
+
+    private static File[] runs( final File dir, final String index )
+    {
+        return dir.listFiles( new FilenameFilter()
+        {
+            @Override
+            public boolean accept( final File parent, final String name )
+            {
+                return name.startsWith( index + "-" ) && name.endsWith( ".idx" );
+            }
+        } );
+    }
+
+    private void assertLookups( final RelationshipStore store )
+        throws Exception
+    {
+        final EProjectDirectRelationships rels = store.getDirectRelationships( app );
+        assertThat( rels.getProjectRef(), equalTo( app ) );
+        assertThat( rels.getDependencies().size(), equalTo( 2 ) );
+
+        final List<ProjectRelationship<?, ?>> declared = store.getRelationshipsDeclaredBy( lib );
+        assertThat( declared.size(), equalTo( 1 ) );
+        assertThat( declared.get( 0 ).getTarget().asProjectVersionRef(), equalTo( util ) );
+
+        final List<ProjectRelationship<?, ?>> targeting = store.getRelationshipsTargeting( util );
+        assertThat( targeting.size(), equalTo( 2 ) );
+        assertThat( store.getRelationshipsTargeting( lib ).get( 0 ).getDeclaring(), equalTo( app ) );
+        assertThat( store.getRelationshipsTargeting( app ), equalTo( Collections.<ProjectRelationship<?, ?>> emptyList() ) );
+    }
+
+    private EProjectDirectRelationships project( final ProjectVersionRef project, final ProjectVersionRef... deps )
+        throws Exception
+    {
+        final URI source = new URI( "test:source" );
+        final EProjectDirectRelationships.Builder builder = new EProjectDirectRelationships.Builder( source, project );
+        int idx = 0;
+        for ( final ProjectVersionRef dep : deps )
+        {
+            final DependencyRelationship rel =
+                new SimpleDependencyRelationship( source, project, new SimpleArtifactRef( dep, "jar", null ),
+                                                  DependencyScope.compile, idx++, false, false, false );
+            builder.withDependencies( rel );
+        }
+
+        return builder.build();
+    }
+
+    private static ProjectVersionRef ref( final String artifactId, final String version )
+    {
+        return new SimpleProjectVersionRef( "org.foo", artifactId, version );
+    }
+
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.traverse;
+
+import static org.commonjava.atlas.maven.graph.util.RelationshipUtils.dependency;
+import static org.commonjava.atlas.maven.ident.util.IdentityUtils.projectVersion;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.commonjava.atlas.maven.graph.model.EProjectCycle;
+import org.commonjava.atlas.maven.graph.model.EProjectDirectRelationships;
+import org.commonjava.atlas.maven.graph.model.RelationshipGraph;
+import org.commonjava.atlas.maven.graph.rel.DependencyRelationship;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.RelationshipType;
+import org.commonjava.atlas.maven.graph.traverse.CycleDetector.ManagedFilter;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CycleDetectorTest
+{
+
+    private URI source;
+
+    @Before
+    public void before()
+        throws Exception
+    {
+        source = new URI( "test:source" );
+    }
+
+    @Test
+    public void findSimpleCycle()
+        throws Exception
+    {
+        final RelationshipGraph graph = graph( "a->b", "b->c", "c->a", "c->d" );
+        final List<EProjectCycle> cycles = new CycleDetector( graph ).detect();
+
+        assertThat( cycles.size(), equalTo( 1 ) );
+
+        final EProjectCycle cycle = cycles.get( 0 );
+        assertThat( cycle.getRelationships().size(), equalTo( 3 ) );
+        assertThat( cycle.contains( ref( "a" ) ), equalTo( true ) );
+        assertThat( cycle.contains( ref( "d" ) ), equalTo( false ) );
+        assertChained( cycle );
+    }
+
+    @Test
+    public void everyRelationshipInAComponentIsCovered()
+        throws Exception
+    {
+        final RelationshipGraph graph = graph( "a->b", "b->a", "b->c", "c->a", "a->a", "x->y", "y->x" );
+        final CycleDetector detector = new CycleDetector( graph );
+        final List<EProjectCycle> cycles = detector.detect();
+
+        final Set<ProjectRelationship<?, ?>> covered = new HashSet<ProjectRelationship<?, ?>>();
+        for ( final EProjectCycle cycle : cycles )
+        {
+            assertChained( cycle );
+            covered.addAll( cycle.getRelationships() );
+        }
+
+        assertThat( covered.size(), equalTo( graph.getEdgeCount() ) );
+        assertThat( detector.getComponents().size(), equalTo( 2 ) );
+    }
+
+    @Test
+    public void noCyclesInDag()
+        throws Exception
+    {
+        final RelationshipGraph graph = graph( "a->b", "a->c", "b->d", "c->d" );
+        assertThat( new CycleDetector( graph ).detect().isEmpty(), equalTo( true ) );
+    }
+
+    @Test
+    public void filterByTypeAndManagedState()
+        throws Exception
+    {
+        final ProjectVersionRef a = ref( "a" );
+        final ProjectVersionRef b = ref( "b" );
+        final RelationshipGraph graph = new RelationshipGraph.Builder().withDirectRelationships(
+            Arrays.asList( new EProjectDirectRelationships.Builder( source, a ).withDependencies(
+                dependency( source, a, b, DependencyScope.compile, 0, true, false, false ) ).build(),
+                           new EProjectDirectRelationships.Builder( source, b ).withParent( a ).build() ) ).build();
+
+        assertThat( new CycleDetector( graph ).detect().size(), equalTo( 1 ) );
+        assertThat( new CycleDetector( graph, ManagedFilter.UNMANAGED_ONLY ).detect().size(), equalTo( 0 ) );
+        assertThat( new CycleDetector( graph, ManagedFilter.ALL, RelationshipType.DEPENDENCY ).detect().size(),
+                    equalTo( 0 ) );
+        assertThat( new CycleDetector( graph, ManagedFilter.MANAGED_ONLY, RelationshipType.DEPENDENCY,
+                                       RelationshipType.PARENT ).detect().size(), equalTo( 0 ) );
+    }
+
+    @Test
+    public void deepChainDoesNotOverflow()
+        throws Exception
+    {
+        final int depth = 200000;
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>( depth );
+        for ( int i = 0; i < depth; i++ )
+        {
+            rels.add( dependency( source, ref( "n" + i ), ref( "n" + ( ( i + 1 ) % depth ) ), 0, false, false ) );
+        }
+
+        final RelationshipGraph graph = new RelationshipGraph.Builder().withRelationships( rels ).build();
+        final List<EProjectCycle> cycles = new CycleDetector( graph ).detect();
+
+        assertThat( cycles.size(), equalTo( 1 ) );
+        assertThat( cycles.get( 0 ).getRelationships().size(), equalTo( depth ) );
+    }
+
+    @Test
+    public void parallelMatchesSequential()
+        throws Exception
+    {
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( int g = 0; g < 2000; g++ )
+        {
+            // a 3-cycle per group, every other group with a chord and a tail
+            rels.add( dependency( source, ref( g + "a" ), ref( g + "b" ), 0, false, false ) );
+            rels.add( dependency( source, ref( g + "b" ), ref( g + "c" ), 0, false, false ) );
+            rels.add( dependency( source, ref( g + "c" ), ref( g + "a" ), 0, false, false ) );
+            if ( g % 2 == 0 )
+            {
+                rels.add( dependency( source, ref( g + "b" ), ref( g + "a" ), 1, false, false ) );
+                rels.add( dependency( source, ref( g + "c" ), ref( g + "tail" ), 1, false, false ) );
+            }
+        }
+
+        final RelationshipGraph graph = new RelationshipGraph.Builder().withRelationships( rels ).build();
+        final List<EProjectCycle> sequential = new CycleDetector( graph ).detect();
+
+        final ForkJoinPool pool = new ForkJoinPool( 4 );
+        try
+        {
+            final List<EProjectCycle> parallel = new CycleDetector( graph ).detect( pool );
+            assertThat( parallel, equalTo( sequential ) );
+            assertThat( parallel.size(), equalTo( 3000 ) );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void updateAfterRelationshipChanges()
+        throws Exception
+    {
+        final RelationshipGraph graph = graph( "a->b", "b->c", "c->a", "b->a", "x->y", "y->x", "p->q" );
+        final CycleDetector detector = new CycleDetector( graph );
+        detector.detect();
+        assertThat( detector.getComponents().size(), equalTo( 2 ) );
+
+        // break the a/b/c component apart, leaving just a<->b
+        RelationshipGraph updated = update( graph, "c" );
+        assertThat( detector.update( updated, ref( "c" ) ), equalTo( new CycleDetector( updated ).detect() ) );
+        assertThat( detector.getComponents().size(), equalTo( 2 ) );
+
+        // merge a/b with x/y through q
+        updated = update( updated, "q", "q->a", "q->x" );
+        updated = update( updated, "a", "a->b", "a->p" );
+        updated = update( updated, "x", "x->y", "x->p" );
+        detector.update( updated, ref( "q" ), ref( "a" ), ref( "x" ) );
+
+        final CycleDetector fresh = new CycleDetector( updated );
+        fresh.detect();
+        assertThat( detector.getComponents(), equalTo( fresh.getComponents() ) );
+        assertThat( detector.getComponents().size(), equalTo( 1 ) );
+        assertThat( new HashSet<EProjectCycle>( detector.getCycles() ),
+                    equalTo( new HashSet<EProjectCycle>( fresh.getCycles() ) ) );
+    }
+
+    @Test( timeout = 30000 )
+    public void updateOfLargeBrokenCycleIsLinear()
+        throws Exception
+    {
+        final int size = 40000;
+        final String[] edges = new String[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            edges[i] = "n" + i + "->n" + ( ( i + 1 ) % size );
+        }
+
+        final RelationshipGraph graph = graph( edges );
+        final CycleDetector detector = new CycleDetector( graph );
+        detector.detect();
+        assertThat( detector.getComponents().get( 0 ).size(), equalTo( size ) );
+
+        // break the ring...
+        RelationshipGraph updated = update( graph, "n0" );
+        assertThat( detector.update( updated, ref( "n0" ) ).size(), equalTo( 0 ) );
+        assertThat( detector.getComponents().size(), equalTo( 0 ) );
+
+        // ...and close it again, through nodes that aren't in any component anymore.
+        updated = update( updated, "n0", "n0->n1" );
+        assertThat( detector.update( updated, ref( "n0" ) ), equalTo( new CycleDetector( updated ).detect() ) );
+        assertThat( detector.getComponents().get( 0 ).size(), equalTo( size ) );
+    }
+
+    private void assertChained( final EProjectCycle cycle )
+    {
+        final List<ProjectRelationship<?, ?>> rels = cycle.getRelationships();
+        for ( int i = 0; i < rels.size(); i++ )
+        {
+            final ProjectRelationship<?, ?> next = rels.get( ( i + 1 ) % rels.size() );
+            assertThat( rels.get( i ).getTarget().asProjectVersionRef(), equalTo( next.getDeclaring() ) );
+        }
+    }
+
+    private RelationshipGraph graph( final String... edges )
+        throws Exception
+    {
+        return new RelationshipGraph.Builder().withRelationships( rels( edges ) ).build();
+    }
+
+    /**
+     * Replace the dependencies of the given project with the given edges.
+     */
+    private RelationshipGraph update( final RelationshipGraph graph, final String project, final String... edges )
+        throws Exception
+    {
+        final List<DependencyRelationship> deps = new ArrayList<DependencyRelationship>();
+        for ( final ProjectRelationship<?, ?> rel : rels( edges ) )
+        {
+            deps.add( (DependencyRelationship) rel );
+        }
+
+        return new RelationshipGraph.Builder( graph ).withDirectRelationships(
+            new EProjectDirectRelationships.Builder( source, ref( project ) ).withDependencies( deps ).build() )
+                                                     .build();
+    }
+
+    private List<ProjectRelationship<?, ?>> rels( final String... edges )
+        throws Exception
+    {
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>();
+        int idx = 0;
+        for ( final String edge : edges )
+        {
+            final String[] parts = edge.split( "->" );
+            rels.add( dependency( source, ref( parts[0] ), ref( parts[1] ), idx++, false, false ) );
+        }
+
+        return rels;
+    }
+
+    private ProjectVersionRef ref( final String name )
+    {
+        return projectVersion( "org.test", name, "1" );
+    }
+
+}
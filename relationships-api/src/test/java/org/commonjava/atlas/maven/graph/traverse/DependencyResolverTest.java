@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2012-2022 Red Hat, Inc. (nos-devel@redhat.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.atlas.maven.graph.traverse;
+
+import static org.commonjava.atlas.maven.ident.util.IdentityUtils.projectVersion;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.commonjava.atlas.maven.graph.model.RelationshipGraph;
+import org.commonjava.atlas.maven.graph.rel.ProjectRelationship;
+import org.commonjava.atlas.maven.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.atlas.maven.ident.DependencyScope;
+import org.commonjava.atlas.maven.ident.ScopeTransitivity;
+import org.commonjava.atlas.maven.ident.ref.ProjectRef;
+import org.commonjava.atlas.maven.ident.ref.ProjectVersionRef;
+import org.commonjava.atlas.maven.ident.ref.SimpleProjectRef;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DependencyResolverTest
+{
+
+    private URI source;
+
+    private ProjectVersionRef root;
+
+    private List<ProjectRelationship<?, ?>> rels;
+
+    @Before
+    public void before()
+        throws Exception
+    {
+        source = new URI( "test:source" );
+        root = ref( "root:1" );
+        rels = new ArrayList<ProjectRelationship<?, ?>>();
+    }
+
+    @Test
+    public void nearestVersionWins()
+    {
+        dep( "root:1", "a:1" );
+        dep( "root:1", "b:1" );
+        dep( "a:1", "c:1" );
+        dep( "b:1", "x:1" );
+        dep( "x:1", "c:2" );
+        dep( "c:1", "d:1" );
+        dep( "c:2", "e:1" );
+
+        final Map<String, ResolvedDependency> result = resolve( DependencyScope.runtime );
+        assertThat( new ArrayList<String>( result.keySet() ),
+                    equalTo( Arrays.asList( "a:1", "b:1", "c:1", "x:1", "d:1" ) ) );
+        assertThat( result.get( "c:1" ).getDepth(), equalTo( 2 ) );
+        assertThat( result.get( "d:1" ).getPath().size(), equalTo( 3 ) );
+        assertThat( result.get( "d:1" ).getParent(), equalTo( result.get( "c:1" ) ) );
+    }
+
+    @Test
+    public void tiesAtSameDepthUsePathOrder()
+    {
+        dep( "root:1", "b:1" );
+        dep( "root:1", "a:1" );
+        dep( "b:1", "c:2" );
+        dep( "a:1", "c:1" );
+
+        // both paths have length 2; the one through b sorts first, since root declares b first.
+        final Map<String, ResolvedDependency> result = resolve( DependencyScope.runtime );
+        assertThat( result.containsKey( "c:2" ), equalTo( true ) );
+        assertThat( result.containsKey( "c:1" ), equalTo( false ) );
+    }
+
+    @Test
+    public void exclusionsApplyBelowDeclaringDependency()
+    {
+        dep( "root:1", "a:1", DependencyScope.compile, false, new SimpleProjectRef( "org.test", "c" ) );
+        dep( "root:1", "w:1", DependencyScope.compile, false, new SimpleProjectRef( "org.test", "*" ) );
+        dep( "a:1", "b:1" );
+        dep( "b:1", "c:1" );
+        dep( "b:1", "d:1" );
+        dep( "w:1", "e:1" );
+
+        final Map<String, ResolvedDependency> result = resolve( DependencyScope.runtime );
+        assertThat( new ArrayList<String>( result.keySet() ), equalTo( Arrays.asList( "a:1", "w:1", "b:1", "d:1" ) ) );
+    }
+
+    @Test
+    public void onlyDirectOptionalDependenciesAreFollowed()
+    {
+        dep( "root:1", "a:1", DependencyScope.compile, true );
+        dep( "a:1", "b:1", DependencyScope.compile, true );
+        dep( "a:1", "c:1" );
+
+        final Map<String, ResolvedDependency> result = resolve( DependencyScope.runtime );
+        assertThat( new ArrayList<String>( result.keySet() ), equalTo( Arrays.asList( "a:1", "c:1" ) ) );
+    }
+
+    @Test
+    public void scopesFilterAndNarrow()
+    {
+        dep( "root:1", "t:1", DependencyScope.test, false );
+        dep( "root:1", "p:1", DependencyScope.provided, false );
+        dep( "root:1", "r:1", DependencyScope.runtime, false );
+        dep( "t:1", "tc:1" );
+        dep( "t:1", "tt:1", DependencyScope.test, false );
+        dep( "p:1", "pc:1" );
+        dep( "r:1", "rc:1" );
+
+        Map<String, ResolvedDependency> result = resolve( DependencyScope.runtime );
+        assertThat( new ArrayList<String>( result.keySet() ), equalTo( Arrays.asList( "r:1", "rc:1" ) ) );
+        assertThat( result.get( "rc:1" ).getScope(), equalTo( DependencyScope.runtime ) );
+
+        result = resolve( DependencyScope.test );
+        assertThat( new ArrayList<String>( result.keySet() ),
+                    equalTo( Arrays.asList( "t:1", "p:1", "r:1", "tc:1", "rc:1" ) ) );
+        assertThat( result.get( "tc:1" ).getScope(), equalTo( DependencyScope.test ) );
+
+        result = resolve( DependencyScope.test, ScopeTransitivity.all );
+        assertThat( result.containsKey( "tt:1" ), equalTo( true ) );
+        assertThat( result.containsKey( "pc:1" ), equalTo( false ) );
+    }
+
+    @Test
+    public void cyclesTerminateAndResultsStreamLazily()
+    {
+        dep( "root:1", "a:1" );
+        dep( "a:1", "b:1" );
+        dep( "b:1", "a:1" );
+        dep( "b:1", "root:1" );
+
+        final RelationshipGraph graph = new RelationshipGraph.Builder().withRelationships( rels ).build();
+        final Iterator<ResolvedDependency> it =
+            new DependencyResolver( graph, DependencyScope.runtime ).resolve( root ).iterator();
+
+        assertThat( it.next().getArtifact().getArtifactId(), equalTo( "a" ) );
+        assertThat( it.next().getArtifact().getArtifactId(), equalTo( "b" ) );
+        assertThat( it.hasNext(), equalTo( false ) );
+
+        assertThat( new DependencyResolver( graph, DependencyScope.runtime ).resolveAll( ref( "missing:1" ) ).size(),
+                    equalTo( 0 ) );
+    }
+
+    @Test
+    public void otherVersionsOfRootAreNotSelected()
+    {
+        dep( "root:1", "a:1" );
+        dep( "a:1", "root:2" );
+        dep( "root:2", "z:1" );
+        dep( "a:1", "b:1" );
+
+        final Map<String, ResolvedDependency> result = resolve( DependencyScope.runtime );
+        assertThat( new ArrayList<String>( result.keySet() ), equalTo( Arrays.asList( "a:1", "b:1" ) ) );
+    }
+
+    private Map<String, ResolvedDependency> resolve( final DependencyScope scope )
+    {
+        return resolve( scope, ScopeTransitivity.maven );
+    }
+
+    private Map<String, ResolvedDependency> resolve( final DependencyScope scope,
+                                                     final ScopeTransitivity transitivity )
+    {
+        final RelationshipGraph graph = new RelationshipGraph.Builder().withRelationships( rels ).build();
+
+        final Map<String, ResolvedDependency> result = new LinkedHashMap<String, ResolvedDependency>();
+        for ( final ResolvedDependency dep : new DependencyResolver( graph, scope, transitivity ).resolve( root ) )
+        {
+            result.put( dep.getArtifact().getArtifactId() + ":" + dep.getArtifact().getVersionString(), dep );
+        }
+
+        return result;
+    }
+
+    private void dep( final String from, final String to )
+    {
+        dep( from, to, DependencyScope.compile, false );
+    }
+
+    private void dep( final String from, final String to, final DependencyScope scope, final boolean optional,
+                      final ProjectRef... excludes )
+    {
+        final ProjectVersionRef declaring = ref( from );
+        rels.add( new SimpleDependencyRelationship( source, declaring, ref( to ).asJarArtifact(), scope,
+                                                    rels.size(), false, false, optional, excludes ) );
+    }
+
+    private ProjectVersionRef ref( final String av )
+    {
+        final String[] parts = av.split( ":" );
+        return projectVersion( "org.test", parts[0], parts[1] );
+    }
+
+}